@@ -0,0 +1,74 @@
+package geometries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+import primitives.Ray;
+
+/**
+ * Frames of an animation of instances of a sphere that move by random steps
+ * (see {@link GeometryFixtures#randomInstances(Random, int)}) - the time of a
+ * frame that refits the hierarchy, building it again when it degrades, against
+ * a frame that builds it again every time, each followed by tracing the same
+ * rays
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationBenchmark {
+    /** Fixed seed, so that every run uses the same scene, steps and rays */
+    private static final long   SEED      = 5784;
+    /** Amount of rays traced per frame */
+    private static final int    RAY_COUNT = 20000;
+    /** The maximal step of an instance along each axis per frame */
+    private static final double STEP      = 0.5;
+    /** Degradation of the refitted hierarchy that makes it build again */
+    private static final double THRESHOLD = 1.5;
+
+    // Amount of instances
+    @Param({ "10000", "100000" })
+    private int     count;
+
+    // Whether the frame refits the hierarchy instead of building it again
+    @Param({ "false", "true" })
+    private boolean refit;
+
+    private Random     random;
+    private Instance[] scene;
+    private Geometries geometries;
+    private Ray[]      rays;
+
+    /** Builds the scene, its hierarchy and the rays */
+    @Setup(Level.Trial)
+    public void setup() {
+        rays = GeometryFixtures.randomRays(new Random(SEED), RAY_COUNT);
+        random = new Random(SEED);
+        scene = GeometryFixtures.randomInstances(random, count);
+        geometries = new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH);
+    }
+
+    /** Moves the instances before a frame, out of its time */
+    @Setup(Level.Invocation)
+    public void move() {
+        GeometryFixtures.move(random, scene, STEP);
+    }
+
+    /**
+     * @return the amount of rays that hit
+     */
+    @Benchmark
+    public int frame() {
+        if (refit) geometries.refit(THRESHOLD);
+        else geometries.buildBVH(Geometries.SplitMethod.SAH);
+        int hits = 0;
+        for (Ray ray : rays)
+            if (geometries.findClosestGeoIntersection(ray) != null) ++hits;
+        return hits;
+    }
+}
@@ -0,0 +1,82 @@
+package geometries;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+import geometries.Intersectable.GeoPoint;
+import primitives.Ray;
+
+/**
+ * Scaling of the bounding volume hierarchy of {@link Geometries} - the time of
+ * intersecting the same rays with growing amounts of random spheres and
+ * triangles (see {@link GeometryFixtures#randomScene(Random, int)}) by the
+ * linear scan and by the hierarchies of the two split methods, and the time of
+ * building the hierarchies
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BVHBenchmark {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED      = 5784;
+    /** Amount of rays intersected per operation */
+    private static final int  RAY_COUNT = 2000;
+
+    // Amount of geometries in the scene
+    @Param({ "10", "100", "1000", "10000" })
+    private int    count;
+
+    // The structure searched - the linear scan or the split method of the hierarchy
+    @Param({ "LINEAR", "MEDIAN", "SAH" })
+    private String structure;
+
+    private Intersectable[] scene;
+    private Ray[]           rays;
+    private Geometries      geometries;
+
+    /** Builds the scene, the rays and the structure */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(SEED);
+        scene = GeometryFixtures.randomScene(random, count);
+        rays = GeometryFixtures.randomRays(random, RAY_COUNT);
+        geometries = buildStructure();
+    }
+
+    /**
+     * @return the geometries of the scene in the structure
+     */
+    private Geometries buildStructure() {
+        Geometries result = new Geometries(scene);
+        return structure.equals("LINEAR") ? result : result.buildBVH(Geometries.SplitMethod.valueOf(structure));
+    }
+
+    /**
+     * @return the amount of intersections of all the rays
+     */
+    @Benchmark
+    public int intersect() {
+        int found = 0;
+        for (Ray ray : rays) {
+            List<GeoPoint> intersections = geometries.findGeoIntersections(ray);
+            if (intersections != null) found += intersections.size();
+        }
+        return found;
+    }
+
+    /**
+     * @return the structure built over the scene - only the list for the linear
+     *         scan
+     */
+    @Benchmark
+    public Geometries build() {
+        return buildStructure();
+    }
+}
@@ -0,0 +1,81 @@
+package geometries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+import primitives.Ray;
+
+/**
+ * The uniform grid of {@link Geometries} against the linear scan and the
+ * hierarchy - the time of intersecting the same closest-hit rays with growing
+ * amounts of random geometries (see
+ * {@link GeometryFixtures#randomScene(Random, int)}), and the time of building
+ * the grid and the hierarchy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED      = 5784;
+    /** Amount of rays intersected per operation */
+    private static final int  RAY_COUNT = 5000;
+
+    // Amount of geometries in the scene
+    @Param({ "100", "1000", "10000", "100000" })
+    private int    count;
+
+    // The structure searched - the linear scan, the grid or the hierarchy
+    @Param({ "LINEAR", "GRID", "SAH" })
+    private String structure;
+
+    private Intersectable[] scene;
+    private Ray[]           rays;
+    private Geometries      geometries;
+
+    /** Builds the scene, the rays and the structure */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(SEED);
+        scene = GeometryFixtures.randomScene(random, count);
+        rays = GeometryFixtures.randomRays(random, RAY_COUNT);
+        geometries = buildStructure();
+    }
+
+    /**
+     * @return the geometries of the scene in the structure
+     */
+    private Geometries buildStructure() {
+        return switch (structure) {
+            case "GRID" -> new Geometries(scene).buildGrid();
+            case "SAH" -> new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH);
+            default -> new Geometries(scene);
+        };
+    }
+
+    /**
+     * @return the amount of rays that hit
+     */
+    @Benchmark
+    public int closest() {
+        int hits = 0;
+        for (Ray ray : rays)
+            if (geometries.findClosestGeoIntersection(ray) != null) ++hits;
+        return hits;
+    }
+
+    /**
+     * @return the structure built over the scene - only the list for the linear
+     *         scan
+     */
+    @Benchmark
+    public Geometries build() {
+        return buildStructure();
+    }
+}
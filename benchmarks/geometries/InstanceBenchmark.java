@@ -0,0 +1,84 @@
+package geometries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+/**
+ * Many instances of a large mesh (see
+ * {@link GeometryFixtures#gridVertices(Random, int)}) scattered over a plane
+ * under a two-level hierarchy - the time of building the top level and of the
+ * closest-hit queries. The bytes a build allocates, reported by the allocation
+ * profiler ({@code -prof gc}), bound the heap the instances take.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceBenchmark {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED      = 5784;
+    /** Amount of cells per side of the mesh - two faces each */
+    private static final int  CELLS     = 224;
+    /** Amount of rays intersected per operation */
+    private static final int  RAY_COUNT = 20000;
+
+    // Amount of instances of the mesh
+    @Param({ "100", "1000", "10000" })
+    private int count;
+
+    private TriangleMesh mesh;
+    private Transform[]  transforms;
+    private Ray[]        rays;
+    private Geometries   scene;
+
+    /** Builds the mesh, the transforms of the instances, the scene and the rays */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(SEED);
+        mesh = new TriangleMesh(GeometryFixtures.gridVertices(random, CELLS), GeometryFixtures.gridFaces(CELLS));
+        int side = (int) Math.ceil(Math.sqrt(count));
+        transforms = new Transform[count];
+        for (int i = 0; i < count; ++i)
+            transforms[i] = Transform.rotate(new Vector(0, 0, 1), random.nextDouble() * 360)
+                    .then(Transform.scale(0.01)).then(Transform.translate(
+                            new Vector(3.0 * (i % side), 3.0 * (i / side), random.nextDouble() * 5)));
+        scene = build();
+        rays = new Ray[RAY_COUNT];
+        for (int i = 0; i < rays.length; ++i) {
+            Point head = new Point(random.nextDouble() * 3 * side, random.nextDouble() * 3 * side, 50);
+            rays[i] = new Ray(head, new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -3));
+        }
+    }
+
+    /**
+     * @return the instances under the top level of the hierarchy
+     */
+    @Benchmark
+    public Geometries build() {
+        Geometries result = new Geometries();
+        for (Transform transform : transforms)
+            result.add(new Instance(mesh, transform));
+        return result.buildBVH(Geometries.SplitMethod.SAH);
+    }
+
+    /**
+     * @return the amount of rays that hit
+     */
+    @Benchmark
+    public int closest() {
+        int hits = 0;
+        for (Ray ray : rays)
+            if (scene.findClosestGeoIntersection(ray) != null) ++hits;
+        return hits;
+    }
+}
@@ -0,0 +1,102 @@
+package geometries;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+/**
+ * Micro benchmarks of {@link Intersectable#findGeoIntersections(Ray)} for each
+ * geometry class, with a ray that hits the geometry and a ray that misses it,
+ * and of the closest hit query the ray tracer uses. All the rays start at the
+ * origin and look down the negative Z axis, where the geometries are.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+    // A ray through the middle of all the geometries
+    private Ray hit  = new Ray(Point.ZERO, new Vector(0.05, 0.1, -1));
+    // A ray through the middle of the geometries collection
+    private Ray gridHit = new Ray(Point.ZERO, new Vector(0.01, 0.02, -1));
+    // A ray that passes beside all the geometries
+    private Ray miss = new Ray(Point.ZERO, new Vector(0, 1, 0.2));
+
+    private Sphere   sphere   = new Sphere(new Point(0, 0, -100), 30);
+    private Plane    plane    = new Plane(new Point(0, 0, -100), new Vector(0, 0.2, 1));
+    private Triangle triangle = new Triangle(new Point(-50, -50, -100), new Point(50, -50, -100),
+            new Point(0, 60, -100));
+    private Polygon  polygon  = new Polygon(new Point(-50, -50, -100), new Point(50, -50, -100),
+            new Point(50, 50, -100), new Point(-50, 50, -100));
+    private Tube     tube     = new Tube(new Ray(new Point(0, 10, -100), new Vector(1, 0, 0)), 20);
+    // A grid of spheres and triangles, searched through the bounding volume hierarchy
+    private Geometries geometries;
+
+    /** Builds the geometries collection and its hierarchy */
+    @Setup(Level.Trial)
+    public void setup() {
+        geometries = new Geometries();
+        for (int i = -5; i < 5; ++i)
+            for (int j = -5; j < 5; ++j) {
+                double x = i * 20, y = j * 20;
+                geometries.add(new Sphere(new Point(x, y, -150), 5),
+                        new Triangle(new Point(x - 8, y - 8, -120), new Point(x + 8, y - 8, -120),
+                                new Point(x, y + 8, -125)));
+            }
+        geometries.buildBVH(Geometries.SplitMethod.SAH);
+    }
+
+    @Benchmark
+    public List<GeoPoint> sphereHit() { return sphere.findGeoIntersections(hit); }
+
+    @Benchmark
+    public List<GeoPoint> sphereMiss() { return sphere.findGeoIntersections(miss); }
+
+    @Benchmark
+    public GeoPoint sphereClosestHit() { return sphere.findClosestGeoIntersection(hit); }
+
+    @Benchmark
+    public List<GeoPoint> planeHit() { return plane.findGeoIntersections(hit); }
+
+    @Benchmark
+    public List<GeoPoint> planeMiss() { return plane.findGeoIntersections(miss); }
+
+    @Benchmark
+    public List<GeoPoint> triangleHit() { return triangle.findGeoIntersections(hit); }
+
+    @Benchmark
+    public List<GeoPoint> triangleMiss() { return triangle.findGeoIntersections(miss); }
+
+    @Benchmark
+    public GeoPoint triangleClosestHit() { return triangle.findClosestGeoIntersection(hit); }
+
+    @Benchmark
+    public List<GeoPoint> polygonHit() { return polygon.findGeoIntersections(hit); }
+
+    @Benchmark
+    public List<GeoPoint> polygonMiss() { return polygon.findGeoIntersections(miss); }
+
+    @Benchmark
+    public List<GeoPoint> tubeHit() { return tube.findGeoIntersections(hit); }
+
+    @Benchmark
+    public List<GeoPoint> tubeMiss() { return tube.findGeoIntersections(miss); }
+
+    @Benchmark
+    public List<GeoPoint> geometriesHit() { return geometries.findGeoIntersections(gridHit); }
+
+    @Benchmark
+    public List<GeoPoint> geometriesMiss() { return geometries.findGeoIntersections(miss); }
+
+    @Benchmark
+    public GeoPoint geometriesClosestHit() { return geometries.findClosestGeoIntersection(gridHit); }
+
+    @Benchmark
+    public boolean geometriesOccluded() { return geometries.isOccluded(gridHit, Double.POSITIVE_INFINITY); }
+}
@@ -0,0 +1,164 @@
+package geometries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Closest-hit rays per microsecond (millions per second) of the flattened
+ * hierarchy of {@link BVH} against the same hierarchy kept as node objects,
+ * over random scenes (see {@link GeometryFixtures#randomScene(Random, int)})
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutBenchmark {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED      = 5784;
+    /** Amount of rays traced per operation */
+    private static final int  RAY_COUNT = 50000;
+
+    // Amount of geometries in the scene
+    @Param({ "10000", "100000" })
+    private int    count;
+
+    // The layout of the hierarchy - the flattened arrays or the node objects
+    @Param({ "FLAT", "OBJECTS" })
+    private String layout;
+
+    private Ray[]        rays;
+    private BVH          bvh;
+    private ObjectLayout objects;
+
+    /**
+     * The hierarchy of a {@link BVH} as a tree of node objects, the way it was
+     * kept before it was flattened into arrays - for comparing the closest-hit
+     * traversals of the two layouts
+     */
+    private static class ObjectLayout {
+        /** A node - an inner node with two children or a leaf with geometries */
+        private record Node(BoundingBox box, Node left, Node right, Intersectable[] items) {}
+
+        /** The root of the tree */
+        private final Node root;
+
+        /**
+         * Rebuilds the node objects of a flattened hierarchy
+         *
+         * @param bvh the hierarchy
+         */
+        ObjectLayout(BVH bvh) {
+            root = bvh.nodes.length == 0 ? null : node(bvh, 0);
+        }
+
+        /**
+         * @param bvh   the hierarchy
+         * @param index index of a node in the arrays of the hierarchy
+         * @return the node object of the subtree
+         */
+        private static Node node(BVH bvh, int index) {
+            double[] b = bvh.bounds;
+            int at = 6 * index;
+            BoundingBox box = new BoundingBox(b[at], b[at + 1], b[at + 2], b[at + 3], b[at + 4], b[at + 5]);
+            int link = bvh.nodes[2 * index], count = bvh.nodes[2 * index + 1];
+            if (count == 0)
+                return new Node(box, node(bvh, index + 1), node(bvh, link), null);
+            Intersectable[] items = new Intersectable[count];
+            for (int k = 0; k < count; ++k)
+                items[k] = bvh.geometries[bvh.items[link + k]];
+            return new Node(box, null, null, items);
+        }
+
+        /**
+         * Recursive closest-hit traversal, nearer child first
+         *
+         * @param ray the ray
+         * @return the distance of the closest intersection, or
+         *         {@link Double#POSITIVE_INFINITY} if there is none
+         */
+        double closest(Ray ray) {
+            if (root == null) return Double.POSITIVE_INFINITY;
+            Point head = ray.head;
+            Vector dir = ray.direction;
+            double[] q = { head.getX(), head.getY(), head.getZ(), BoundingBox.inverse(dir.getX()),
+                    BoundingBox.inverse(dir.getY()), BoundingBox.inverse(dir.getZ()) };
+            return root.box.intersect(q[0], q[1], q[2], q[3], q[4], q[5], Double.POSITIVE_INFINITY) ==
+                    Double.POSITIVE_INFINITY ? Double.POSITIVE_INFINITY
+                    : closest(root, ray, q, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * @param node a node the ray enters
+         * @param ray  the ray
+         * @param q    the ray head and the inverse of its direction
+         * @param t    the distance of the closest intersection so far
+         * @return the distance of the closest intersection, including the subtree
+         */
+        private static double closest(Node node, Ray ray, double[] q, double t) {
+            if (node.items != null) {
+                for (Intersectable item : node.items) {
+                    Intersectable.GeoPoint gp = item.findClosestGeoIntersection(ray, t);
+                    if (gp != null && gp.t < t) t = gp.t;
+                }
+                return t;
+            }
+            double tLeft = node.left.box.intersect(q[0], q[1], q[2], q[3], q[4], q[5], t);
+            double tRight = node.right.box.intersect(q[0], q[1], q[2], q[3], q[4], q[5], t);
+            Node first = node.left, second = node.right;
+            if (tRight < tLeft) {
+                first = node.right;
+                second = node.left;
+                double tmp = tLeft;
+                tLeft = tRight;
+                tRight = tmp;
+            }
+            if (tLeft != Double.POSITIVE_INFINITY) t = closest(first, ray, q, t);
+            if (tRight <= t) t = closest(second, ray, q, t);
+            return t;
+        }
+    }
+
+    /** Builds the scene, its hierarchy in both layouts, and the rays */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(SEED);
+        rays = GeometryFixtures.randomRays(random, RAY_COUNT);
+        bvh = new Geometries(GeometryFixtures.randomScene(random, count)).buildBVH(Geometries.SplitMethod.SAH).bvh;
+        objects = new ObjectLayout(bvh);
+        for (Ray ray : rays) {
+            Intersectable.GeoPoint gp = bvh.findClosestGeoIntersection(ray);
+            double flat = gp == null ? Double.POSITIVE_INFINITY : gp.t, tree = objects.closest(ray);
+            if (flat != tree && !(Math.abs(flat - tree) <= 1e-9))
+                throw new IllegalStateException("The layouts must find the same closest intersection");
+        }
+    }
+
+    /**
+     * @return the sum of the closest intersection distances of the rays that hit
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAY_COUNT)
+    public double closest() {
+        double sum = 0;
+        if (layout.equals("FLAT"))
+            for (Ray ray : rays) {
+                Intersectable.GeoPoint gp = bvh.findClosestGeoIntersection(ray);
+                if (gp != null) sum += gp.t;
+            }
+        else
+            for (Ray ray : rays) {
+                double t = objects.closest(ray);
+                if (t != Double.POSITIVE_INFINITY) sum += t;
+            }
+        return sum;
+    }
+}
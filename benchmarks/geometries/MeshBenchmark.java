@@ -0,0 +1,56 @@
+package geometries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+
+/**
+ * Building a {@link TriangleMesh} compared with building the same faces as
+ * separate triangles, for random height fields (see
+ * {@link GeometryFixtures#gridVertices(Random, int)}). The bytes allocated by
+ * each are reported by the allocation profiler ({@code -prof gc}); the heap
+ * kept by each is checked by {@code TriangleMeshTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshBenchmark {
+    /** Fixed seed, so that every run uses the same mesh */
+    private static final long SEED = 5784;
+
+    // Amount of cells per side of the grid - two faces each
+    @Param({ "100", "300" })
+    private int n;
+
+    private double[] vertices;
+    private int[]    faces;
+
+    /** Builds the vertices and the faces */
+    @Setup(Level.Trial)
+    public void setup() {
+        vertices = GeometryFixtures.gridVertices(new Random(SEED), n);
+        faces = GeometryFixtures.gridFaces(n);
+    }
+
+    /**
+     * @return the mesh of the faces, with its hierarchy
+     */
+    @Benchmark
+    public TriangleMesh mesh() {
+        return new TriangleMesh(vertices, faces);
+    }
+
+    /**
+     * @return the faces as separate triangles
+     */
+    @Benchmark
+    public Triangle[] triangles() {
+        return GeometryFixtures.triangles(vertices, faces);
+    }
+}
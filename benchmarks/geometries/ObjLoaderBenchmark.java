@@ -0,0 +1,74 @@
+package geometries;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Loading a large generated OBJ file by {@link ObjLoader} - a height field of
+ * n x n cells of two triangles each, with texture indices on the faces - from
+ * parsing the text to the hierarchy of the mesh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjLoaderBenchmark {
+    /** Fixed seed, so that every run uses the same file */
+    private static final long SEED = 5784;
+
+    // Amount of cells per side of the height field
+    @Param({ "100", "700" })
+    private int n;
+
+    private Path file;
+
+    /**
+     * Writes the OBJ file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("benchmark", ".obj");
+        Random random = new Random(SEED);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i <= n; ++i)
+                for (int j = 0; j <= n; ++j)
+                    writer.write(String.format(Locale.ROOT, "v %.6f %.6f %.6f\n", j / 10d, i / 10d,
+                            random.nextDouble()));
+            for (int i = 0; i < n; ++i)
+                for (int j = 0; j < n; ++j) {
+                    int a = i * (n + 1) + j + 1, b = a + 1, c = a + n + 1, d = c + 1;
+                    writer.write("f " + a + "/" + a + " " + b + "/" + b + " " + d + "/" + d + " " + c + "/" + c
+                            + "\n");
+                }
+        }
+    }
+
+    /**
+     * Deletes the OBJ file
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * @return the loaded mesh
+     */
+    @Benchmark
+    public TriangleMesh load() {
+        return new ObjLoader().load(file);
+    }
+}
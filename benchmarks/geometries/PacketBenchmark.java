@@ -0,0 +1,101 @@
+package geometries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Primary visibility throughput in millions of rays per second - the closest
+ * hits of all the primary rays of an image by packets of 4x4 and 8x8 rays
+ * (see {@link RayPacket}), against the rays one by one, over small scattered
+ * objects and over a terrain of triangles that covers the view
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+    /** Fixed seed, so that every run uses the same scene */
+    private static final long SEED = 5784;
+    /** Amount of pixels per side of the image */
+    private static final int  N    = 512;
+
+    // Amount of geometries in the scene
+    @Param({ "1000", "10000", "100000" })
+    private int    count;
+
+    // The scene - small scattered objects or a terrain of triangles
+    @Param({ "SCATTERED", "TERRAIN" })
+    private String scene;
+
+    // The structure searched - LINEAR for the linear scan, slow beyond a
+    // thousand geometries
+    @Param({ "SAH" })
+    private String structure;
+
+    // Side of the packets, 0 for single rays
+    @Param({ "0", "4", "8" })
+    private int    side;
+
+    private Geometries geometries;
+    /** The primary rays of the image by blocks of the packet side */
+    private Ray[][]    blocks;
+    private RayPacket  packet;
+
+    /** Builds the scene, its structure and the primary rays */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(SEED);
+        int cells = (int) Math.sqrt(count / 2);
+        geometries = new Geometries(scene.equals("TERRAIN")
+                ? GeometryFixtures.triangles(GeometryFixtures.gridVertices(random, cells),
+                        GeometryFixtures.gridFaces(cells))
+                : GeometryFixtures.randomScene(random, count));
+        if (structure.equals("SAH")) geometries.buildBVH(Geometries.SplitMethod.SAH);
+
+        // a pinhole camera at (0,0,400) looking down the z axis, over a view plane
+        // of 200x200 at distance 200
+        int block = side == 0 ? 8 : side;
+        Point head = new Point(0, 0, 400);
+        blocks = new Ray[(N / block) * (N / block)][];
+        for (int i0 = 0, b = 0; i0 < N; i0 += block)
+            for (int j0 = 0; j0 < N; j0 += block, ++b) {
+                blocks[b] = new Ray[block * block];
+                for (int i = 0, r = 0; i < block; ++i)
+                    for (int j = 0; j < block; ++j)
+                        blocks[b][r++] = new Ray(head, new Vector(200d * (j0 + j + 0.5) / N - 100,
+                                100 - 200d * (i0 + i + 0.5) / N, -200));
+            }
+        packet = new RayPacket(block * block);
+    }
+
+    /**
+     * @return the amount of rays that hit
+     */
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public int closest() {
+        int hits = 0;
+        for (Ray[] rays : blocks)
+            if (side == 0) {
+                for (Ray ray : rays)
+                    if (geometries.findClosestGeoIntersection(ray) != null) ++hits;
+            } else {
+                packet.clear();
+                for (Ray ray : rays)
+                    packet.add(ray);
+                geometries.findClosestGeoIntersections(packet);
+                for (int r = 0; r < packet.size(); ++r)
+                    if (packet.getHit(r) != null) ++hits;
+            }
+        return hits;
+    }
+}
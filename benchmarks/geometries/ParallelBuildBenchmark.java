@@ -0,0 +1,63 @@
+package geometries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+
+/**
+ * Parallel building of the hierarchies - of {@link Geometries} over a large
+ * random scene and of a large {@link TriangleMesh} - in a fork-join pool of
+ * growing amounts of threads (see
+ * {@link GeometryFixtures#inPool(int, java.util.concurrent.Callable)})
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBuildBenchmark {
+    /** Fixed seed, so that every run uses the same scene and mesh */
+    private static final long SEED    = 5784;
+    /** Amount of geometries in the scene */
+    private static final int  OBJECTS = 200000;
+    /** Amount of cells per side of the mesh - two faces each */
+    private static final int  CELLS   = 500;
+
+    // Parallelism of the pool
+    @Param({ "1", "2", "4", "8" })
+    private int threads;
+
+    private Intersectable[] scene;
+    private double[]        vertices;
+    private int[]           faces;
+
+    /** Builds the scene and the mesh arrays */
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = GeometryFixtures.randomScene(new Random(SEED), OBJECTS);
+        vertices = GeometryFixtures.gridVertices(new Random(SEED), CELLS);
+        faces = GeometryFixtures.gridFaces(CELLS);
+    }
+
+    /**
+     * @return the geometries of the scene with their hierarchy
+     * @throws Exception if the build fails
+     */
+    @Benchmark
+    public Geometries geometries() throws Exception {
+        return GeometryFixtures.inPool(threads, () -> new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH));
+    }
+
+    /**
+     * @return the mesh with its hierarchy
+     * @throws Exception if the build fails
+     */
+    @Benchmark
+    public TriangleMesh mesh() throws Exception {
+        return GeometryFixtures.inPool(threads, () -> new TriangleMesh(vertices, faces));
+    }
+}
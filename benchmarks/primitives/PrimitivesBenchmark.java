@@ -0,0 +1,70 @@
+package primitives;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Micro benchmarks of the basic operations of {@link Vector}, {@link Point} and
+ * {@link Double3}. The operands are fields of the state, so the JIT cannot fold
+ * the results into constants.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitivesBenchmark {
+    // Operands for the vector operations
+    private Vector  v1 = new Vector(1, 2, 3);
+    private Vector  v2 = new Vector(-2, 0.5, 4);
+    // Operands for the point operations
+    private Point   p1 = new Point(1, 2, 3);
+    private Point   p2 = new Point(4, -5, 6);
+    // Operands for the Double3 operations
+    private Double3 d1 = new Double3(0.2, 0.4, 0.6);
+    private Double3 d2 = new Double3(0.9, 0.5, 0.1);
+
+    @Benchmark
+    public Vector vectorAdd() { return v1.add(v2); }
+
+    @Benchmark
+    public Vector vectorScale() { return v1.scale(2.5); }
+
+    @Benchmark
+    public double vectorDotProduct() { return v1.dotProduct(v2); }
+
+    @Benchmark
+    public Vector vectorCrossProduct() { return v1.crossProduct(v2); }
+
+    @Benchmark
+    public double vectorLength() { return v1.length(); }
+
+    @Benchmark
+    public Vector vectorNormalize() { return v1.normalize(); }
+
+    @Benchmark
+    public Vector vectorNormalized() { return Vector.normalized(v1.getX(), v1.getY(), v1.getZ()); }
+
+    @Benchmark
+    public Vector pointSubtract() { return p1.subtract(p2); }
+
+    @Benchmark
+    public Point pointAdd() { return p1.add(v1); }
+
+    @Benchmark
+    public double pointDistanceSquared() { return p1.distanceSquared(p2); }
+
+    @Benchmark
+    public Double3 double3Add() { return d1.add(d2); }
+
+    @Benchmark
+    public Double3 double3Product() { return d1.product(d2); }
+
+    @Benchmark
+    public Double3 double3Scale() { return d1.scale(0.5); }
+
+    @Benchmark
+    public boolean double3LowerThan() { return d1.product(d2).lowerThan(0.001); }
+}
@@ -0,0 +1,63 @@
+package renderer;
+
+import static java.awt.Color.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.RenderFixtures;
+import geometries.Geometries;
+import geometries.Sphere;
+import primitives.*;
+import scene.Scene;
+
+/**
+ * Render time of the scene of {@link RenderFixtures#benchmarkScene()},
+ * alone and with a dense field of small spheres on its floor, by the linear
+ * scan, the uniform grid and the hierarchy of the geometries
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AcceleratorBenchmark {
+    /** Fixed seed, so that every run uses the same spheres */
+    private static final long SEED = 5784;
+    /** Resolution of the rendered image */
+    private static final int  N    = 100;
+
+    // Amount of small spheres on the floor
+    @Param({ "0", "200", "2000" })
+    private int    spheres;
+
+    // The structure searched - the linear scan, the grid or the hierarchy
+    @Param({ "LINEAR", "GRID", "SAH" })
+    private String structure;
+
+    private Camera camera;
+
+    /** Builds the scene, its structure and the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        Scene scene = RenderFixtures.benchmarkScene();
+        Random random = new Random(SEED);
+        for (int i = 0; i < spheres; ++i)
+            scene.geometries.add(new Sphere(new Point(random.nextDouble() * 200 - 100, -48,
+                    -random.nextDouble() * 250), 2).setEmission(new Color(YELLOW))
+                    .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)));
+        if (structure.equals("GRID")) scene.geometries.buildGrid();
+        if (structure.equals("SAH")) scene.geometries.buildBVH(Geometries.SplitMethod.SAH);
+        camera = Camera.getBuilder().setLocation(new Point(0, 0, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(100).setVpSize(200, 200)
+                .setRayTracer(new SimpleRayTracer(scene)).setImageWriter(new ImageWriter("Benchmark", N, N)).build();
+    }
+
+    @Benchmark
+    public Camera render() {
+        return camera.renderImage();
+    }
+}
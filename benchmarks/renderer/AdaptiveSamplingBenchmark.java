@@ -0,0 +1,46 @@
+package renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.RenderFixtures;
+
+/**
+ * Render time of the adaptive super-sampling of the scene of
+ * {@link RenderFixtures#benchmarkScene()} by the maximal amount of rays in
+ * a pixel, with tiles of 16 pixels and with a single tile over the image - the
+ * tiles do not share the corners on their borders
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdaptiveSamplingBenchmark {
+    /** Resolution of the rendered image */
+    private static final int N = 100;
+
+    // Maximal amount of rays in a pixel
+    @Param({ "4", "16", "100", "400" })
+    private int raysInPixel;
+
+    // Side of the tiles in pixels
+    @Param({ "16", "128" })
+    private int tileSize;
+
+    private Camera camera;
+
+    /** Builds the scene and the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        camera = RenderFixtures.adaptiveCamera(new SimpleRayTracer(RenderFixtures.benchmarkScene()), N, raysInPixel)
+                .setTileSize(tileSize);
+    }
+
+    @Benchmark
+    public Camera render() {
+        return camera.renderImage();
+    }
+}
@@ -0,0 +1,54 @@
+package renderer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import primitives.*;
+import scene.Scene;
+
+/**
+ * Micro benchmarks of the ray construction of {@link Camera} - a single ray
+ * through the center of a pixel, and a super sampling beam through the pixel.
+ * The pixel moves on every call, so all the view plane is covered.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CameraBenchmark {
+    // Resolution of the view plane
+    private static final int N = 500;
+
+    // Amount of super sampling rays in the beam
+    @Param({ "9", "81" })
+    private int beamRays;
+
+    private Camera camera;
+    // The pixel of the next call
+    private int    pixel;
+
+    /** Builds the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        camera = Camera.getBuilder().setLocation(new Point(0, 0, 1000))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(1000).setVpSize(200, 200)
+                .setRayTracer(new SimpleRayTracer(new Scene("Benchmark")))
+                .setImageWriter(new ImageWriter("Benchmark", N, N)).build();
+    }
+
+    @Benchmark
+    public Ray constructRay() {
+        pixel = (pixel + 1) % (N * N);
+        return camera.constructRay(N, N, pixel % N, pixel / N);
+    }
+
+    @Benchmark
+    public List<Ray> constructBeam() {
+        pixel = (pixel + 1) % (N * N);
+        return camera.constructBeamForEacjPixel(N, N, pixel % N, pixel / N, beamRays);
+    }
+}
@@ -0,0 +1,78 @@
+package renderer;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import primitives.Color;
+
+/**
+ * Filling a 4K frame - through java.awt.Color and BufferedImage.setRGB (the
+ * former path of {@link ImageWriter}), pixel by pixel into the raster by
+ * {@link ImageWriter#writePixel(int, int, Color)}, and in 32x32 tiles by
+ * {@link ImageWriter#writeTile(int, int, int, int, int[])}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageWriterBenchmark {
+    /** Width and height of the frame in pixels */
+    private static final int NX   = 3840, NY = 2160;
+    /** Side of a tile in pixels */
+    private static final int TILE = 32;
+
+    private ImageWriter   imageWriter;
+    private BufferedImage image;
+    private Color         color;
+    private int[]         tile;
+
+    /** Creates the frames and the color */
+    @Setup(Level.Trial)
+    public void setup() {
+        imageWriter = new ImageWriter("Test", NX, NY);
+        image = new BufferedImage(NX, NY, BufferedImage.TYPE_INT_RGB);
+        color = new Color(100, 150, 200);
+        tile = new int[TILE * TILE];
+    }
+
+    /**
+     * @return the filled frame
+     */
+    @Benchmark
+    public BufferedImage setRGB() {
+        for (int y = 0; y < NY; ++y)
+            for (int x = 0; x < NX; ++x)
+                image.setRGB(x, y, color.getColor().getRGB());
+        return image;
+    }
+
+    /**
+     * @return the filled frame
+     */
+    @Benchmark
+    public ImageWriter writePixel() {
+        for (int y = 0; y < NY; ++y)
+            for (int x = 0; x < NX; ++x)
+                imageWriter.writePixel(x, y, color);
+        return imageWriter;
+    }
+
+    /**
+     * @return the filled frame
+     */
+    @Benchmark
+    public ImageWriter writeTile() {
+        for (int y0 = 0; y0 < NY; y0 += TILE)
+            for (int x0 = 0; x0 < NX; x0 += TILE) {
+                int width = Math.min(TILE, NX - x0), height = Math.min(TILE, NY - y0);
+                for (int i = 0; i < width * height; ++i)
+                    tile[i] = color.getRGB();
+                imageWriter.writeTile(x0, y0, width, height, tile);
+            }
+        return imageWriter;
+    }
+}
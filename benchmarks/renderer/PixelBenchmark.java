@@ -0,0 +1,110 @@
+package renderer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Contention of handing out the pixels of an image to the rendering threads -
+ * the time of going over all the pixels of a large image with no work per pixel
+ * (the worst case - like background misses) in the given amount of threads,
+ * with the former synchronized pixel dispenser and with the tiles of
+ * {@link TileScheduler}, which replaced it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelBenchmark {
+    /** Image width and height in pixels */
+    private static final int N = 2000;
+
+    // Amount of threads taking the pixels
+    @Param({ "1", "2", "4", "8", "16", "32", "64" })
+    private int    threads;
+
+    // The distribution - the synchronized dispenser, or tiles of 16 or 64
+    // pixels a side
+    @Param({ "synchronized", "tiles16", "tiles64" })
+    private String dispenser;
+
+    /**
+     * The former dispenser - one pixel at a time through a synchronized method,
+     * kept for comparison
+     */
+    private static class SynchronizedPixel {
+        private final long maxRows, maxCols;
+        private int        row = 0, col = -1;
+
+        SynchronizedPixel(int maxRows, int maxCols) {
+            this.maxRows = maxRows;
+            this.maxCols = maxCols;
+        }
+
+        synchronized boolean nextPixel(int[] target) {
+            if (++col < maxCols) {
+                target[0] = row;
+                target[1] = col;
+                return true;
+            }
+            if (++row < maxRows) {
+                col = 0;
+                target[0] = row;
+                target[1] = col;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Runs the given work in the amount of threads and waits for them
+     *
+     * @param work the work of each thread
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void runThreads(Runnable work) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; ++i) {
+            workers[i] = new Thread(work);
+            workers[i].start();
+        }
+        for (Thread worker : workers) worker.join();
+    }
+
+    /**
+     * Goes over all the pixels of the image
+     *
+     * @return the sum of the coordinates of the pixels, so the loops are not
+     *         optimized away
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Benchmark
+    public long handOut() throws InterruptedException {
+        LongAdder sum = new LongAdder();
+        if (dispenser.equals("synchronized")) {
+            SynchronizedPixel old = new SynchronizedPixel(N, N);
+            runThreads(() -> {
+                int[] pixel = new int[2];
+                long local = 0;
+                while (old.nextPixel(pixel)) local += pixel[0] + pixel[1];
+                sum.add(local);
+            });
+        } else {
+            int side = Integer.parseInt(dispenser.substring("tiles".length()));
+            try (TileScheduler scheduler = new TileScheduler(N, N, side, TileOrder.SCANLINE)) {
+                scheduler.render(threads, tile -> {
+                    long local = 0;
+                    for (int i = tile.y0; i < tile.y1; ++i)
+                        for (int j = tile.x0; j < tile.x1; ++j)
+                            local += i + j;
+                    sum.add(local);
+                }, false);
+            }
+        }
+        return sum.sum();
+    }
+}
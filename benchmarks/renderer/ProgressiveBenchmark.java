@@ -0,0 +1,45 @@
+package renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.RenderFixtures;
+
+/**
+ * Progressive rendering of the scene of
+ * {@link RenderFixtures#benchmarkScene()} by its time budget (see
+ * {@link Camera#setProgressive(long, double)}), against rendering it at 64
+ * samples per pixel at once. The time of a progressive rendering is about its
+ * budget; the noise it reaches is logged with every preview with printing on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgressiveBenchmark {
+    /** Resolution of the rendered image */
+    private static final int N = 200;
+
+    // The time budget in milliseconds, or FULL for 64 samples per pixel at once
+    @Param({ "FULL", "1", "250", "1000", "4000" })
+    private String budget;
+
+    private Camera camera;
+
+    /** Builds the scene and the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        camera = RenderFixtures.adaptiveCamera(new SimpleRayTracer(RenderFixtures.benchmarkScene()), N, 1)
+                .setAdaptiveSuperSamplingFlag(false);
+        if (budget.equals("FULL")) camera.setVarianceSampling(64, 64);
+        else camera.setProgressive(Long.parseLong(budget), 0);
+    }
+
+    @Benchmark
+    public Camera render() {
+        return camera.renderImage();
+    }
+}
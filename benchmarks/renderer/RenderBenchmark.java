@@ -0,0 +1,52 @@
+package renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.RenderFixtures;
+import scene.Scene;
+
+/**
+ * End to end benchmarks - rendering the scenes of the reflection and refraction
+ * tests and of the lights tests, from the scene to the tone mapped image. The
+ * images are smaller than in the tests and are not written to files, so only
+ * the rendering is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    // Resolution of the rendered images
+    private static final int N = 100;
+
+    // The rendered scene
+    @Param({ "twoSpheres", "twoSpheresOnMirrors", "trianglesTransparentSphere", "lightSphereMultiple",
+            "lightTrianglesMultiple" })
+    private String sceneName;
+
+    private Camera camera;
+
+    /** Builds the scene and the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        Scene scene = new Scene(sceneName);
+        Camera.Builder builder = switch (sceneName) {
+            case "twoSpheres" -> RenderFixtures.twoSpheres(scene);
+            case "twoSpheresOnMirrors" -> RenderFixtures.twoSpheresOnMirrors(scene);
+            case "trianglesTransparentSphere" -> RenderFixtures.trianglesTransparentSphere(scene);
+            case "lightSphereMultiple" -> RenderFixtures.lightSphereMultiple(scene);
+            case "lightTrianglesMultiple" -> RenderFixtures.lightTrianglesMultiple(scene);
+            default -> throw new IllegalArgumentException("Unknown scene " + sceneName);
+        };
+        camera = builder.setImageWriter(new ImageWriter(sceneName, N, N)).build();
+    }
+
+    @Benchmark
+    public Camera render() {
+        return camera.renderImage();
+    }
+}
@@ -0,0 +1,61 @@
+package renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.RenderFixtures;
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * Render time of the beams of the pixels of the scene of
+ * {@link RenderFixtures#benchmarkScene()} by the amount of rays per pixel,
+ * for the regular grid, independent random samples and the samplers. The
+ * errors of the samplers against a reference image are checked by
+ * {@code SamplerTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SamplerBenchmark {
+    /** Resolution of the rendered image */
+    private static final int N = 64;
+
+    // Amount of rays per pixel
+    @Param({ "4", "16", "64", "256" })
+    private int    rays;
+
+    // The samples of the pixel - the regular grid, random samples or a sampler
+    @Param({ "GRID", "RANDOM", "HALTON", "SOBOL", "JITTERED", "BLUE" })
+    private String sampler;
+
+    private Camera camera;
+
+    /** Builds the scene, the sampler and the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        Sampler samples = switch (sampler) {
+            case "GRID" -> null;
+            case "RANDOM" -> RenderFixtures.WHITE_NOISE;
+            case "HALTON" -> new HaltonSampler();
+            case "SOBOL" -> new SobolSampler();
+            case "JITTERED" -> new JitteredSampler(rays);
+            case "BLUE" -> new BlueNoiseSampler();
+            default -> throw new IllegalArgumentException("Unknown sampler " + sampler);
+        };
+        camera = Camera.getBuilder().setLocation(new Point(0, 0, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(100).setVpSize(200, 200)
+                .setRayTracer(new SimpleRayTracer(RenderFixtures.benchmarkScene()))
+                .setImageWriter(new ImageWriter("Sampler", N, N)).build()
+                .setNumOfRaysSuperSampeling(rays).setSampler(samples);
+    }
+
+    @Benchmark
+    public Camera render() {
+        return camera.renderImage();
+    }
+}
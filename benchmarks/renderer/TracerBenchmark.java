@@ -0,0 +1,79 @@
+package renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.RenderFixtures;
+import primitives.*;
+
+/**
+ * Cost of a primary ray - constructing it in the camera, tracing it by
+ * {@link SimpleRayTracer} with shading, shadows, reflection and refraction in
+ * the scene of {@link RenderFixtures#benchmarkScene()}, and constructing
+ * the beams of the pixels. The bytes allocated per ray are reported by the
+ * allocation profiler ({@code -prof gc}, see {@link test.BenchmarkMain}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracerBenchmark {
+    /** Amount of pixels per side */
+    private static final int N    = 200;
+    /** Amount of rays in the beam of a pixel */
+    private static final int BEAM = 9;
+
+    private Camera          camera;
+    private SimpleRayTracer tracer;
+
+    /** Builds the scene and the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        tracer = new SimpleRayTracer(RenderFixtures.benchmarkScene());
+        camera = Camera.getBuilder().setLocation(new Point(0, 0, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(100).setVpSize(200, 200)
+                .setRayTracer(tracer).setImageWriter(new ImageWriter("Benchmark", N, N)).build();
+    }
+
+    /**
+     * @return the last ray constructed
+     */
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public Ray constructRay() {
+        Ray ray = null;
+        for (int i = 0; i < N; ++i)
+            for (int j = 0; j < N; ++j)
+                ray = camera.constructRay(N, N, j, i);
+        return ray;
+    }
+
+    /**
+     * @return the last color traced
+     */
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public Color traceRay() {
+        Color color = null;
+        for (int i = 0; i < N; ++i)
+            for (int j = 0; j < N; ++j)
+                color = tracer.traceRay(camera.constructRay(N, N, j, i));
+        return color;
+    }
+
+    /**
+     * @return the amount of rays constructed
+     */
+    @Benchmark
+    @OperationsPerInvocation((N / 4) * (N / 4) * BEAM)
+    public int beam() {
+        int rays = 0;
+        for (int i = 0; i < N; i += 4)
+            for (int j = 0; j < N; j += 4)
+                rays += camera.constructBeamForEacjPixel(N, N, j, i, BEAM).size();
+        return rays;
+    }
+}
@@ -0,0 +1,48 @@
+package renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.RenderFixtures;
+
+/**
+ * Render time of the scene of {@link RenderFixtures#benchmarkScene()} for
+ * the same budget of samples spread evenly over the pixels and by the
+ * variance-driven sampling (see {@link Camera#setVarianceSampling(int, int)}).
+ * The errors of both against a reference image are checked by
+ * {@code CameraTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VarianceSamplingBenchmark {
+    /** Resolution of the rendered image */
+    private static final int N = 64;
+
+    // Average amount of samples per pixel
+    @Param({ "4", "8", "16", "64" })
+    private int     budget;
+
+    // Whether the samples follow the variance of the pixels or are spread evenly
+    @Param({ "false", "true" })
+    private boolean variance;
+
+    private Camera camera;
+
+    /** Builds the scene and the camera */
+    @Setup(Level.Trial)
+    public void setup() {
+        camera = RenderFixtures.adaptiveCamera(new SimpleRayTracer(RenderFixtures.benchmarkScene()), N, 1)
+                .setAdaptiveSuperSamplingFlag(false)
+                .setVarianceSampling(!variance ? budget : budget < 8 ? 2 : 4, budget);
+    }
+
+    @Benchmark
+    public Camera render() {
+        return camera.renderImage();
+    }
+}
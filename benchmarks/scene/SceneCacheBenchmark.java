@@ -0,0 +1,89 @@
+package scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fixtures.GeometryFixtures;
+import geometries.Geometries;
+import geometries.Sphere;
+import primitives.Point;
+
+/**
+ * Preparing a large scene - a mesh of a height field (see
+ * {@link GeometryFixtures#grid(Random, int)}) and many small spheres under a
+ * hierarchy - by building its mesh and hierarchies, compared with writing it
+ * to a {@link SceneCache} and reading it back
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneCacheBenchmark {
+    /** Fixed seed, so that every run uses the same scene */
+    private static final long SEED    = 5784;
+    /** Amount of cells per side of the height field - two triangles each */
+    private static final int  CELLS   = 400;
+    /** Amount of spheres */
+    private static final int  SPHERES = 20000;
+
+    private Scene scene;
+    private Path  file;
+
+    /**
+     * Builds the scene and writes its cache
+     *
+     * @throws IOException if the cache file cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        scene = build();
+        file = Files.createTempFile("benchmark", ".cache");
+        SceneCache.write(scene, file);
+    }
+
+    /**
+     * Deletes the cache file
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * @return the scene, with its mesh and hierarchies built
+     */
+    @Benchmark
+    public Scene build() {
+        Random random = new Random(SEED);
+        Scene result = new Scene("Benchmark scene");
+        result.geometries.add(GeometryFixtures.grid(random, CELLS));
+        for (int i = 0; i < SPHERES; ++i)
+            result.geometries.add(new Sphere(new Point(random.nextDouble() * 200 - 100,
+                    random.nextDouble() * 200 - 100, random.nextDouble() * 50), 0.5));
+        result.geometries.buildBVH(Geometries.SplitMethod.SAH);
+        return result;
+    }
+
+    /** Writes the scene to the cache file */
+    @Benchmark
+    public void write() {
+        SceneCache.write(scene, file);
+    }
+
+    /**
+     * @return the scene read back from the cache file
+     */
+    @Benchmark
+    public Scene read() {
+        return SceneCache.read(file);
+    }
+}
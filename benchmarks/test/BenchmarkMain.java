@@ -0,0 +1,29 @@
+package test;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the allocation profiler. Next to the operations
+ * per time unit of each benchmark, the profiler reports gc.alloc.rate.norm - the
+ * bytes allocated per operation.
+ */
+public final class BenchmarkMain {
+
+    /**
+     * Runs the benchmarks
+     * @param args regular expressions of the benchmarks to run, all of them if
+     *             empty - e.g. "IntersectionBenchmark.sphere" or "RenderBenchmark"
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0)
+            options.include("Benchmark");
+        for (String include : args)
+            options.include(include);
+        new Runner(options.addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,584 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bounding volume hierarchy (BVH) over the geometries of a {@link Geometries}
+ * list. The hierarchy is built once, and a ray skips every subtree whose
+ * bounding box it misses. Unbounded geometries (planes, tubes) cannot be put
+ * in the tree and are always tested.<br>
+ * The intersections are returned in the same order as the linear scan of the
+ * list would return them.
+ * <p>
+ * The hierarchy is built over the boxes of the geometries by
+ * {@link BoxHierarchy} - top-down with fork-join parallelism, the same for any
+ * amount of threads - and kept in its flat arrays in depth-first order, so a
+ * traversal reads consecutive memory instead of chasing a node object per step.
+ * The traversals are iterative, on a stack that every thread preallocates once
+ * to the depth of the hierarchy, and allocate nothing but the intersection
+ * points.
+ * <p>
+ * After geometries move (e.g. {@link Instance}s of an animation frame), the
+ * hierarchy can be refitted - its boxes recalculated bottom-up over the same
+ * tree - instead of built again. A refitted tree is valid, but it gets worse
+ * as the geometries drift away from the places they were grouped at, so the
+ * refit measures its surface area heuristic cost against the cost of the tree
+ * when it was built.
+ */
+class BVH extends Intersectable {
+    /**
+     * State of the traversals of one thread - the stack and the ray of
+     * {@link BoxHierarchy.Traversal}, and the closest intersection found so far
+     */
+    private static class Traversal extends BoxHierarchy.Traversal {
+        /** The closest intersection found so far (null if none found yet) */
+        GeoPoint       hit;
+        /** Its ray parameter - the bound for the rest of the traversal */
+        double         t;
+        /** Index of its geometry, to break ties the way the linear scan does (-1
+         * if none found yet) */
+        int            index;
+
+        /** First active ray of a packet at the nodes on the stack */
+        final int[]    firsts;
+        /** Index of the geometry of the closest intersection of every ray of a
+         * packet (-1 if none found yet) */
+        int[]          packetIndex = new int[0];
+        /** The closest intersection of every ray of a packet before a geometry is
+         * intersected */
+        GeoPoint[]     packetHits  = new GeoPoint[0];
+        /** The distance of the closest intersection of every ray of a packet before
+         * a geometry is intersected */
+        double[]       packetT     = new double[0];
+
+        /**
+         * @param depth the depth of the hierarchy
+         */
+        Traversal(int depth) {
+            super(depth);
+            firsts = new int[depth + 1];
+        }
+
+        /**
+         * Prepares a traversal for a packet of rays
+         *
+         * @param packet the packet
+         * @return the traversal state
+         */
+        Traversal start(RayPacket packet) {
+            if (packetIndex.length < packet.size) {
+                packetIndex = new int[packet.rays.length];
+                packetHits = new GeoPoint[packet.rays.length];
+                packetT = new double[packet.rays.length];
+            }
+            Arrays.fill(packetIndex, 0, packet.size, -1);
+            return this;
+        }
+
+        /**
+         * Prepares a traversal for a ray
+         *
+         * @param ray         the ray
+         * @param maxDistance only intersections nearer than this distance count
+         * @return the traversal state
+         */
+        Traversal start(Ray ray, double maxDistance) {
+            start(ray);
+            hit = null;
+            t = maxDistance;
+            index = -1;
+            return this;
+        }
+    }
+
+    /** All the geometries, in their original order */
+    final Intersectable[] geometries;
+    /** Indices of the unbounded geometries */
+    final int[] unbounded;
+    /** The split method used for the build */
+    final Geometries.SplitMethod splitMethod;
+    /** Bounding boxes of the nodes, as in {@link BoxHierarchy#bounds} (empty if
+     * there are no bounded geometries) */
+    final double[] bounds;
+    /** Links of the nodes, as in {@link BoxHierarchy#nodes} */
+    final int[] nodes;
+    /** Geometry indices of the leaves, as in {@link BoxHierarchy#items} */
+    final int[] items;
+    /** The box bounding all the bounded geometries (null if there are none) */
+    private BoundingBox box;
+    /** The surface area heuristic cost of the tree when it was built */
+    private final double builtCost;
+    /** Traversal state of each thread */
+    private final ThreadLocal<Traversal> traversal;
+
+    /**
+     * Builds the hierarchy over the given geometries
+     *
+     * @param geometries  the geometries
+     * @param splitMethod how to split a node into two children
+     */
+    BVH(List<Intersectable> geometries, Geometries.SplitMethod splitMethod) {
+        this.geometries = geometries.toArray(new Intersectable[0]);
+        this.splitMethod = splitMethod;
+        int n = this.geometries.length;
+        double[] boxes = new double[6 * n];
+        int[] bounded = new int[n];
+        int[] infinite = new int[n];
+        int nBounded = 0, nInfinite = 0;
+        for (int i = 0; i < n; ++i) {
+            BoundingBox box = this.geometries[i].getBoundingBox();
+            if (box == null) {
+                infinite[nInfinite++] = i;
+            } else {
+                bounded[nBounded++] = i;
+                for (int axis = 0; axis < 3; ++axis) {
+                    boxes[6 * i + axis] = box.min(axis);
+                    boxes[6 * i + axis + 3] = box.max(axis);
+                }
+            }
+        }
+        unbounded = Arrays.copyOf(infinite, nInfinite);
+        BoxHierarchy hierarchy = new BoxHierarchy(boxes, Arrays.copyOf(bounded, nBounded),
+                splitMethod == Geometries.SplitMethod.SAH);
+        bounds = hierarchy.bounds;
+        nodes = hierarchy.nodes;
+        items = hierarchy.items;
+        box = nodes.length == 0 ? null
+                : new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        builtCost = cost();
+        int depth = hierarchy.depth;
+        traversal = ThreadLocal.withInitial(() -> new Traversal(depth));
+    }
+
+    /**
+     * Restores a hierarchy that was built before, without building it again -
+     * for {@link GeometryCache}
+     *
+     * @param geometries  the geometries, in the order of the built hierarchy
+     * @param unbounded   indices of the unbounded geometries
+     * @param splitMethod the split method of the build
+     * @param bounds      the bounding boxes of the nodes
+     * @param nodes       the links of the nodes
+     * @param items       the geometry indices of the leaves
+     * @throws IllegalArgumentException if the arrays do not make a valid
+     *                                  hierarchy over the geometries
+     */
+    BVH(List<Intersectable> geometries, int[] unbounded, Geometries.SplitMethod splitMethod, double[] bounds,
+        int[] nodes, int[] items) {
+        this.geometries = geometries.toArray(new Intersectable[0]);
+        this.unbounded = unbounded;
+        this.splitMethod = splitMethod;
+        this.bounds = bounds;
+        this.nodes = nodes;
+        this.items = items;
+
+        int depth = BoxHierarchy.check(bounds, nodes, items.length);
+        int n = this.geometries.length;
+        for (int i : unbounded)
+            if (i < 0 || i >= n)
+                throw new IllegalArgumentException("Hierarchy refers to a missing geometry " + i);
+        for (int i : items)
+            if (i < 0 || i >= n)
+                throw new IllegalArgumentException("Hierarchy refers to a missing geometry " + i);
+        box = nodes.length == 0 ? null
+                : new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        builtCost = cost();
+        traversal = ThreadLocal.withInitial(() -> new Traversal(depth));
+    }
+
+    // ***************** Refit ********************** //
+
+    /**
+     * Recalculates the boxes of the nodes from the current boxes of the
+     * geometries, keeping the tree. The nodes are stored depth-first, so the
+     * children of every node come after it, and a backward pass over the nodes
+     * refits every node after its children.
+     *
+     * @param threshold the allowed growth of the cost of the tree relative to its
+     *                  cost when it was built
+     * @return true if the tree is refitted within the allowed cost, false if it
+     *         should be built again - it got too costly, or a geometry lost its
+     *         bounds
+     */
+    boolean refit(double threshold) {
+        for (int node = nodes.length / 2 - 1; node >= 0; --node) {
+            int link = nodes[2 * node], count = nodes[2 * node + 1], at = 6 * node;
+            if (count == 0) { // the union of the two children
+                int first = at + 6, second = 6 * link;
+                for (int axis = 0; axis < 3; ++axis) {
+                    bounds[at + axis] = Math.min(bounds[first + axis], bounds[second + axis]);
+                    bounds[at + 3 + axis] = Math.max(bounds[first + 3 + axis], bounds[second + 3 + axis]);
+                }
+                continue;
+            }
+            BoundingBox b = geometries[items[link]].getBoundingBox();
+            for (int k = link + 1; k < link + count && b != null; ++k) {
+                BoundingBox other = geometries[items[k]].getBoundingBox();
+                b = other == null ? null : b.union(other);
+            }
+            if (b == null) return false;
+            bounds[at] = b.minX;
+            bounds[at + 1] = b.minY;
+            bounds[at + 2] = b.minZ;
+            bounds[at + 3] = b.maxX;
+            bounds[at + 4] = b.maxY;
+            bounds[at + 5] = b.maxZ;
+        }
+        if (nodes.length > 0)
+            box = new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        return cost() <= threshold * builtCost;
+    }
+
+    /**
+     * The surface area heuristic cost of the tree - the expected cost of a ray
+     * through the root box, in geometry intersections
+     *
+     * @return the cost, 0 for an empty tree
+     */
+    double cost() {
+        if (nodes.length == 0) return 0;
+        double total = 0;
+        for (int node = 0; node < nodes.length / 2; ++node) {
+            int count = nodes[2 * node + 1];
+            total += area(node) * (count == 0 ? BoxHierarchy.TRAVERSAL_COST : count);
+        }
+        double rootArea = area(0);
+        // a root box of no area (all the geometries at one point) - count the geometries
+        return rootArea > 0 ? total / rootArea : items.length;
+    }
+
+    /**
+     * @param node index of a node
+     * @return the surface area of the node box
+     */
+    private double area(int node) {
+        return BoxHierarchy.surfaceArea(bounds, 6 * node);
+    }
+
+    // ***************** Traversal ********************** //
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        // intersections per geometry index, to return them in the original order
+        Map<Integer, List<GeoPoint>> found = new TreeMap<>();
+        for (int i : unbounded)
+            collect(i, ray, found);
+        if (nodes.length > 0) {
+            Traversal q = traversal.get().start(ray, Double.POSITIVE_INFINITY);
+            int[] stack = q.stack;
+            int top = 0, node = 0;
+            while (true) {
+                if (q.enter(bounds, node, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY) {
+                    int link = nodes[2 * node], count = nodes[2 * node + 1];
+                    if (count == 0) { // visit the first child now and the second one later
+                        stack[top++] = link;
+                        ++node;
+                        continue;
+                    }
+                    for (int k = link; k < link + count; ++k)
+                        collect(items[k], ray, found);
+                }
+                if (top == 0) break;
+                node = stack[--top];
+            }
+        }
+        if (found.isEmpty()) return null;
+
+        List<GeoPoint> result = new LinkedList<>();
+        for (List<GeoPoint> points : found.values())
+            result.addAll(points);
+        return result;
+    }
+
+    /**
+     * Intersects the ray with a single geometry and records the intersections
+     *
+     * @param i     index of the geometry
+     * @param ray   the ray
+     * @param found intersections found so far
+     */
+    private void collect(int i, Ray ray, Map<Integer, List<GeoPoint>> found) {
+        List<GeoPoint> points = geometries[i].findGeoIntersections(ray);
+        if (points != null) found.put(i, points);
+    }
+
+    /**
+     * Closest-hit traversal. Of the two children of a node the nearer one is
+     * visited first, and the farther one is put on the stack with the distance
+     * where the ray enters it - so it is skipped if a closer intersection is found
+     * by then.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Traversal q = traversal.get().start(ray, maxDistance);
+        for (int i : unbounded)
+            closest(i, ray, q);
+        if (nodes.length > 0 && q.enter(bounds, 0, q.t) != Double.POSITIVE_INFINITY) {
+            int[] stack = q.stack;
+            double[] entries = q.entries;
+            int top = 0, node = 0;
+            while (true) {
+                int link = nodes[2 * node], count = nodes[2 * node + 1];
+                if (count == 0) {
+                    int first = node + 1, second = link;
+                    double tFirst = q.enter(bounds, first, q.t), tSecond = q.enter(bounds, second, q.t);
+                    if (tSecond < tFirst) {
+                        first = link;
+                        second = node + 1;
+                        double tmp = tFirst;
+                        tFirst = tSecond;
+                        tSecond = tmp;
+                    }
+                    if (tFirst != Double.POSITIVE_INFINITY) {
+                        if (tSecond != Double.POSITIVE_INFINITY) {
+                            stack[top] = second;
+                            entries[top++] = tSecond;
+                        }
+                        node = first;
+                        continue;
+                    }
+                } else {
+                    for (int k = link; k < link + count; ++k)
+                        closest(items[k], ray, q);
+                }
+                // the next node on the stack that the ray enters before the closest intersection
+                do {
+                    if (top == 0) {
+                        GeoPoint hit = q.hit;
+                        q.hit = null;
+                        return hit;
+                    }
+                } while (entries[--top] > q.t);
+                node = stack[top];
+            }
+        }
+        GeoPoint hit = q.hit;
+        q.hit = null;
+        return hit;
+    }
+
+    /**
+     * Intersects the ray with a single geometry and keeps the intersection if it
+     * is the closest so far. Of two intersections at the same distance the one of
+     * the geometry that comes first in the list wins, as in the linear scan.
+     *
+     * @param i   index of the geometry
+     * @param ray the ray
+     * @param q   the traversal, with the closest intersection found so far
+     */
+    private void closest(int i, Ray ray, Traversal q) {
+        double bound = i < q.index ? Math.nextUp(q.t) : q.t;
+        GeoPoint gp = geometries[i].findClosestGeoIntersection(ray, bound);
+        if (gp != null && (gp.t < q.t || i < q.index)) {
+            q.hit = gp;
+            q.t = gp.t;
+            q.index = i;
+        }
+    }
+
+    /**
+     * Closest-hit traversal of a packet of rays. A node is visited once for the
+     * whole packet if any of its rays enters the node box before its closest
+     * intersection so far, and the child nearer along the direction of the first
+     * ray is visited first. The rays before the first one that enters a node are
+     * inactive below it, so a packet that diverges deep in the hierarchy does not
+     * drag its missing rays through the leaves. The result of every ray is the
+     * same as of the traversal of the ray alone.
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet) {
+        int from = packet.first;
+        if (from >= packet.size) return;
+        Traversal q = traversal.get().start(packet);
+        for (int i : unbounded)
+            closest(i, packet, q);
+        if (nodes.length == 0) return;
+
+        int[] stack = q.stack, firsts = q.firsts;
+        int top = 0, node = 0, first = from;
+        double dx = packet.dx[from], dy = packet.dy[from], dz = packet.dz[from];
+        while (true) {
+            first = packet.firstEntering(first, bounds, node);
+            if (first >= 0) {
+                int link = nodes[2 * node], count = nodes[2 * node + 1];
+                if (count == 0) {
+                    // the box corners nearest to the ray heads tell which child comes first
+                    int near = node + 1, far = link;
+                    if (nearCorner(far, dx, dy, dz) < nearCorner(near, dx, dy, dz)) {
+                        near = link;
+                        far = node + 1;
+                    }
+                    firsts[top] = first;
+                    stack[top++] = far;
+                    node = near;
+                    continue;
+                }
+                // the rays that enter the leaf meet its geometries one by one
+                for (int r = first; r >= 0; r = packet.firstEntering(r + 1, bounds, node))
+                    for (int k = link; k < link + count; ++k)
+                        closest(items[k], r, packet, q);
+            }
+            if (top == 0) return;
+            node = stack[--top];
+            first = firsts[top];
+        }
+    }
+
+    /**
+     * @param node index of a node
+     * @param dx   x of a direction
+     * @param dy   y of a direction
+     * @param dz   z of a direction
+     * @return the projection on the direction of the box corner that a ray in the
+     *         direction meets first
+     */
+    private double nearCorner(int node, double dx, double dy, double dz) {
+        int at = 6 * node;
+        return dx * bounds[at + (dx < 0 ? 3 : 0)] + dy * bounds[at + (dy < 0 ? 4 : 1)]
+                + dz * bounds[at + (dz < 0 ? 5 : 2)];
+    }
+
+    /**
+     * Intersects a ray of a packet with a single geometry, with the tie rule of
+     * {@link #closest(int, Ray, Traversal)}
+     *
+     * @param i      index of the geometry
+     * @param r      index of the ray in the packet
+     * @param packet the rays
+     * @param q      the traversal, with the geometry index of the closest
+     *               intersection of every ray
+     */
+    private void closest(int i, int r, RayPacket packet, Traversal q) {
+        int[] index = q.packetIndex;
+        double t = packet.t[r];
+        GeoPoint gp = geometries[i].findClosestGeoIntersection(packet.rays[r], i < index[r] ? Math.nextUp(t) : t);
+        if (gp != null && (gp.t < t || i < index[r])) {
+            packet.hits[r] = gp;
+            packet.t[r] = gp.t;
+            index[r] = i;
+        }
+    }
+
+    /**
+     * Intersects a packet of rays with a single geometry and keeps the
+     * intersections that are the closest so far, with the tie rule of
+     * {@link #closest(int, Ray, Traversal)} for every ray
+     *
+     * @param i      index of the geometry
+     * @param packet the rays
+     * @param q      the traversal, with the geometry index of the closest
+     *               intersection of every ray
+     */
+    private void closest(int i, RayPacket packet, Traversal q) {
+        int n = packet.size;
+        int[] index = q.packetIndex;
+        GeoPoint[] hits = q.packetHits;
+        double[] t = q.packetT;
+        for (int r = packet.first; r < n; ++r) {
+            hits[r] = packet.hits[r];
+            t[r] = packet.t[r];
+            if (i < index[r]) packet.t[r] = Math.nextUp(t[r]);
+        }
+        geometries[i].findClosestGeoIntersections(packet);
+        for (int r = packet.first; r < n; ++r) {
+            if (packet.hits[r] != hits[r]) index[r] = i;
+            else packet.t[r] = t[r];
+            hits[r] = null;
+        }
+    }
+
+    /**
+     * Any-hit traversal - returns at the first geometry that blocks the ray
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        for (int i : unbounded)
+            if (geometries[i].isOccluded(ray, maxDistance))
+                return true;
+        if (nodes.length == 0) return false;
+
+        Traversal q = traversal.get().start(ray, maxDistance);
+        int[] stack = q.stack;
+        int top = 0, node = 0;
+        while (true) {
+            if (q.enter(bounds, node, maxDistance) != Double.POSITIVE_INFINITY) {
+                int link = nodes[2 * node], count = nodes[2 * node + 1];
+                if (count == 0) {
+                    stack[top++] = link;
+                    ++node;
+                    continue;
+                }
+                for (int k = link; k < link + count; ++k)
+                    if (geometries[items[k]].isOccluded(ray, maxDistance))
+                        return true;
+            }
+            if (top == 0) return false;
+            node = stack[--top];
+        }
+    }
+
+    /**
+     * Multiplies the transparency of the geometries along the ray, returning at
+     * the first opaque blocker
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+        Double3 ktr = Double3.ONE;
+        for (int i : unbounded) {
+            ktr = transparency(i, ray, maxDistance, ktr);
+            if (ktr == Double3.ZERO)
+                return ktr;
+        }
+        if (nodes.length == 0) return ktr;
+
+        Traversal q = traversal.get().start(ray, maxDistance);
+        int[] stack = q.stack;
+        int top = 0, node = 0;
+        while (true) {
+            if (q.enter(bounds, node, maxDistance) != Double.POSITIVE_INFINITY) {
+                int link = nodes[2 * node], count = nodes[2 * node + 1];
+                if (count == 0) {
+                    stack[top++] = link;
+                    ++node;
+                    continue;
+                }
+                for (int k = link; k < link + count; ++k) {
+                    ktr = transparency(items[k], ray, maxDistance, ktr);
+                    if (ktr == Double3.ZERO)
+                        return ktr;
+                }
+            }
+            if (top == 0) return ktr;
+            node = stack[--top];
+        }
+    }
+
+    /**
+     * Multiplies the transparency factor by the transparency of a single geometry
+     *
+     * @param i           index of the geometry
+     * @param ray         the ray
+     * @param maxDistance only intersections nearer than this distance count
+     * @param ktr         the transparency factor so far
+     * @return the new factor, exactly {@link Double3#ZERO} if the geometry blocks
+     *         the ray
+     */
+    private Double3 transparency(int i, Ray ray, double maxDistance, Double3 ktr) {
+        Double3 kT = geometries[i].findTransparency(ray, maxDistance);
+        if (kT.equals(Double3.ZERO))
+            return Double3.ZERO;
+        return kT == Double3.ONE ? ktr : ktr.product(kT);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return unbounded.length > 0 ? null : box;
+    }
+}
@@ -0,0 +1,222 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+/**
+ * Axis-aligned bounding box (AABB) of a finite geometry, used for spatial
+ * culling of rays before running the exact intersection code of the geometry.
+ * The box is immutable.
+ */
+public class BoundingBox {
+    /** Relative widening of the far slab distance, so that floating-point errors
+     * never cull a ray that grazes the box */
+    static final double ROBUST_FACTOR = 1 + 1e-9;
+
+    /** Lower corner of the box */
+    final double minX, minY, minZ;
+    /** Upper corner of the box */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * Constructs a box from its lower and upper corner coordinates
+     *
+     * @param minX lower x
+     * @param minY lower y
+     * @param minZ lower z
+     * @param maxX upper x
+     * @param maxY upper y
+     * @param maxZ upper z
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest box containing all the given points
+     *
+     * @param points the points to bound (at least one)
+     */
+    public BoundingBox(Point... points) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+    }
+
+    /**
+     * Returns the smallest box containing both this box and the other one
+     *
+     * @param other the other box
+     * @return the union box
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * @return the lower corner of the box
+     */
+    public Point getMin() { return new Point(minX, minY, minZ); }
+
+    /**
+     * @return the upper corner of the box
+     */
+    public Point getMax() { return new Point(maxX, maxY, maxZ); }
+
+    /**
+     * Lower bound of the box along an axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the lower bound
+     */
+    double min(int axis) { return axis == 0 ? minX : axis == 1 ? minY : minZ; }
+
+    /**
+     * Upper bound of the box along an axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the upper bound
+     */
+    double max(int axis) { return axis == 0 ? maxX : axis == 1 ? maxY : maxZ; }
+
+    /**
+     * Center of the box along an axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the center coordinate
+     */
+    double center(int axis) { return (min(axis) + max(axis)) / 2; }
+
+    /**
+     * @return the surface area of the box (used by the surface area heuristic)
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Inverse of a ray direction component for the slab test. A zero component is
+     * replaced by a huge (but not overflowing) value of the same sign, so the slab
+     * test never multiplies zero by infinity
+     *
+     * @param d direction component
+     * @return the inverse component
+     */
+    static double inverse(double d) { return 1 / (d == 0 ? Math.copySign(1e-200, d) : d); }
+
+    /**
+     * Slab test of a ray against the box - the cheap rejection of a ray before the
+     * exact (and allocating) intersection code of a geometry
+     *
+     * @param ray the ray
+     * @return true if the ray enters the box in front of its head
+     */
+    public boolean intersects(Ray ray) {
+        return intersects(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Slab test of a ray against the box
+     *
+     * @param ray         the ray
+     * @param maxDistance the farthest distance along the ray that is of interest
+     * @return true if the ray enters the box between its head and maxDistance
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        Point head = ray.head;
+        Point dir = ray.direction;
+        return intersect(head.getX(), head.getY(), head.getZ(),
+                inverse(dir.getX()), inverse(dir.getY()), inverse(dir.getZ()), maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Slab test on precomputed ray data - a few multiplications, no allocations
+     *
+     * @param ox          ray head x
+     * @param oy          ray head y
+     * @param oz          ray head z
+     * @param ix          inverse of ray direction x (see {@link #inverse(double)})
+     * @param iy          inverse of ray direction y
+     * @param iz          inverse of ray direction z
+     * @param maxDistance the farthest distance along the ray that is of interest
+     * @return the distance where the ray enters the box (0 if it starts inside),
+     *         or {@link Double#POSITIVE_INFINITY} if it misses the box within
+     *         [0, maxDistance]
+     */
+    double intersect(double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance) {
+        return slab(minX, minY, minZ, maxX, maxY, maxZ, ox, oy, oz, ix, iy, iz, maxDistance);
+    }
+
+    /**
+     * Slab test of a box given by its coordinates on precomputed ray data - the
+     * one slab test of the boxes and of the nodes of the hierarchies, which keep
+     * their boxes in flat arrays (see {@link BoxHierarchy})
+     *
+     * @param minX        lower x of the box
+     * @param minY        lower y of the box
+     * @param minZ        lower z of the box
+     * @param maxX        upper x of the box
+     * @param maxY        upper y of the box
+     * @param maxZ        upper z of the box
+     * @param ox          ray head x
+     * @param oy          ray head y
+     * @param oz          ray head z
+     * @param ix          inverse of ray direction x (see {@link #inverse(double)})
+     * @param iy          inverse of ray direction y
+     * @param iz          inverse of ray direction z
+     * @param maxDistance the farthest distance along the ray that is of interest
+     * @return the distance where the ray enters the box (0 if it starts inside),
+     *         or {@link Double#POSITIVE_INFINITY} if it misses the box within
+     *         [0, maxDistance]
+     */
+    static double slab(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                       double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance) {
+        double tNear = 0, tFar = maxDistance;
+
+        double t1 = (minX - ox) * ix, t2 = (maxX - ox) * ix;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        t2 *= ROBUST_FACTOR;
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return Double.POSITIVE_INFINITY;
+
+        t1 = (minY - oy) * iy;
+        t2 = (maxY - oy) * iy;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        t2 *= ROBUST_FACTOR;
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return Double.POSITIVE_INFINITY;
+
+        t1 = (minZ - oz) * iz;
+        t2 = (maxZ - oz) * iz;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        t2 *= ROBUST_FACTOR;
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        return tNear > tFar ? Double.POSITIVE_INFINITY : tNear;
+    }
+
+    @Override
+    public String toString() { return "Box[" + getMin() + " - " + getMax() + "]"; }
+}
@@ -0,0 +1,510 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bounding volume hierarchy over the boxes of primitives, in flat arrays - the
+ * part that the hierarchy of a {@link Geometries} list ({@link BVH}) and the
+ * hierarchy of the faces of a {@link TriangleMesh} share. The primitives are
+ * given by their boxes and referred to by their indices, and the owner of the
+ * hierarchy intersects them.
+ * <p>
+ * The hierarchy is built top-down, by the binned surface area heuristic or by
+ * the median along the widest axis. The subtrees of large nodes are built in
+ * parallel with fork-join, each into arrays of its own that are then appended
+ * after the first subtree, so the hierarchy is the same for any amount of
+ * threads. The build runs in the fork-join pool of the calling thread, or in
+ * the common pool.
+ * <p>
+ * The nodes are kept in depth-first order - the boxes of the nodes in one
+ * array, the links of the nodes in another and the primitive indices of the
+ * leaves in a third, every leaf a sorted range of it. The traversals are
+ * iterative, on the stack of a {@link Traversal} that every thread preallocates
+ * once to the depth of the hierarchy.
+ */
+final class BoxHierarchy {
+    /** Maximal amount of primitives in a leaf that is made without asking the SAH */
+    private static final int MAX_LEAF_SIZE = 4;
+    /** Amount of bins for the binned surface area heuristic */
+    private static final int SAH_BINS = 16;
+    /** Cost of visiting a node relative to the cost of intersecting a primitive */
+    static final double TRAVERSAL_COST = 0.125;
+    /** Minimal amount of primitives in a node whose two subtrees are built in parallel */
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+    /** Bounding boxes of the nodes in depth-first order - minimal x, y, z and
+     * maximal x, y, z of each node (empty if there are no primitives) */
+    final double[] bounds;
+    /** Links of the nodes, two per node - for a leaf the offset of its primitive
+     * indices in {@link #items} and their amount, for an inner node the index of
+     * its second child and 0. The first child of an inner node follows it. */
+    final int[]    nodes;
+    /** Primitive indices of the leaves, leaf after leaf, sorted in each leaf */
+    final int[]    items;
+    /** Depth of the hierarchy, 0 if it is empty */
+    final int      depth;
+
+    /** Whether the nodes are split by the surface area heuristic, otherwise by
+     * the median */
+    private final boolean sah;
+    /** Boxes of the primitives, 6 coordinates per primitive - during the build */
+    private double[] boxes;
+    /** Box centers of the primitives, 3 coordinates per primitive - during the
+     * build */
+    private double[] centroids;
+
+    /**
+     * State of the traversals of one thread - the stack of the nodes yet to visit
+     * and the ray prepared for the box tests. The owners of the hierarchies extend
+     * it with the state of their searches.
+     */
+    static class Traversal {
+        /** Nodes yet to visit */
+        final int[]    stack;
+        /** Distances where the ray enters the nodes on the stack, for the
+         * closest-hit traversal */
+        final double[] entries;
+        /** Ray head */
+        double         ox, oy, oz;
+        /** Inverse of the ray direction */
+        double         ix, iy, iz;
+
+        /**
+         * @param depth the depth of the hierarchy
+         */
+        Traversal(int depth) {
+            stack = new int[depth + 1];
+            entries = new double[depth + 1];
+        }
+
+        /**
+         * Prepares the box tests for a ray
+         *
+         * @param ray the ray
+         */
+        void start(Ray ray) {
+            Point head = ray.head;
+            Point dir = ray.direction;
+            ox = head.getX();
+            oy = head.getY();
+            oz = head.getZ();
+            ix = BoundingBox.inverse(dir.getX());
+            iy = BoundingBox.inverse(dir.getY());
+            iz = BoundingBox.inverse(dir.getZ());
+        }
+
+        /**
+         * Slab test of a node box against the ray
+         *
+         * @param bounds      the boxes of the nodes
+         * @param node        index of the node
+         * @param maxDistance the farthest distance along the ray that is of interest
+         * @return the distance where the ray enters the box (0 if it starts inside),
+         *         or {@link Double#POSITIVE_INFINITY} if it misses the box within
+         *         [0, maxDistance]
+         */
+        double enter(double[] bounds, int node, double maxDistance) {
+            int at = 6 * node;
+            return BoundingBox.slab(bounds[at], bounds[at + 1], bounds[at + 2], bounds[at + 3], bounds[at + 4],
+                    bounds[at + 5], ox, oy, oz, ix, iy, iz, maxDistance);
+        }
+    }
+
+    /**
+     * Builds the hierarchy over primitives
+     *
+     * @param boxes minimal x, y, z and maximal x, y, z of the box of each
+     *              primitive
+     * @param items indices of the primitives to put in the hierarchy
+     * @param sah   whether to split the nodes by the binned surface area heuristic
+     *              rather than by the median along the widest axis
+     */
+    BoxHierarchy(double[] boxes, int[] items, boolean sah) {
+        this.boxes = boxes;
+        this.items = items.clone();
+        this.sah = sah;
+        centroids = new double[boxes.length / 2];
+        for (int i : items)
+            for (int axis = 0; axis < 3; ++axis)
+                centroids[3 * i + axis] = (boxes[6 * i + axis] + boxes[6 * i + axis + 3]) / 2;
+
+        int n = items.length;
+        if (n == 0) {
+            bounds = new double[0];
+            nodes = new int[0];
+        } else {
+            Subtree tree = parallel(() -> {
+                Subtree root = new Subtree(n);
+                build(root, 0, n);
+                return root;
+            });
+            bounds = Arrays.copyOf(tree.bounds, 6 * tree.count);
+            nodes = Arrays.copyOf(tree.nodes, 2 * tree.count);
+        }
+        depth = n == 0 ? 0 : depth(nodes, 0);
+        this.boxes = null;
+        centroids = null;
+    }
+
+    /**
+     * Checks the arrays of a hierarchy that was built before - for
+     * {@link GeometryCache}
+     *
+     * @param bounds    the bounding boxes of the nodes
+     * @param nodes     the links of the nodes
+     * @param itemCount the amount of primitive indices of the leaves
+     * @return the depth of the hierarchy
+     * @throws IllegalArgumentException if the arrays do not make a valid
+     *                                  hierarchy
+     */
+    static int check(double[] bounds, int[] nodes, int itemCount) {
+        int nodeCount = nodes.length / 2;
+        if (nodes.length % 2 != 0 || bounds.length != 3 * nodes.length || (nodeCount == 0) != (itemCount == 0))
+            throw new IllegalArgumentException("Hierarchy nodes must be given as pairs of links and boxes");
+        for (int node = 0; node < nodeCount; ++node) {
+            int link = nodes[2 * node], count = nodes[2 * node + 1];
+            boolean valid = count == 0 ? link > node + 1 && link < nodeCount // an inner node
+                    : link >= 0 && count > 0 && link + count <= itemCount; // a leaf
+            if (!valid)
+                throw new IllegalArgumentException("Bad link of hierarchy node " + node);
+        }
+        return nodeCount == 0 ? 0 : depth(nodes, 0);
+    }
+
+    /**
+     * @param nodes the links of the nodes
+     * @param node  index of a node
+     * @return the depth of the subtree of the node
+     */
+    private static int depth(int[] nodes, int node) {
+        return nodes[2 * node + 1] > 0 ? 1 : 1 + Math.max(depth(nodes, node + 1), depth(nodes, nodes[2 * node]));
+    }
+
+    /**
+     * Runs a build in the fork-join pool of the calling thread, so that its
+     * parallel parts run in the same pool - or in the common pool if the calling
+     * thread is not in a pool
+     *
+     * @param build the build
+     * @param <T>   the type of the build result
+     * @return the build result
+     */
+    private static <T> T parallel(Callable<T> build) {
+        ForkJoinTask<T> task = ForkJoinTask.adapt(build);
+        return ForkJoinTask.inForkJoinPool() ? task.invoke() : ForkJoinPool.commonPool().invoke(task);
+    }
+
+    // ***************** Build ********************** //
+
+    /**
+     * Nodes of a part of the hierarchy in depth-first order, in growing arrays -
+     * the whole hierarchy, or a subtree that is built in parallel and then
+     * appended to it
+     */
+    private static class Subtree {
+        /** Bounding boxes of the nodes, as in {@link BoxHierarchy#bounds} */
+        double[] bounds;
+        /** Links of the nodes, as in {@link BoxHierarchy#nodes} - the inner nodes
+         * refer to nodes of the subtree */
+        int[]    nodes;
+        /** Amount of the nodes */
+        int      count = 0;
+
+        /**
+         * @param items amount of primitives under the subtree, for the initial
+         *              capacity
+         */
+        Subtree(int items) {
+            int capacity = Math.max(1, 2 * items / MAX_LEAF_SIZE);
+            bounds = new double[6 * capacity];
+            nodes = new int[2 * capacity];
+        }
+
+        /**
+         * Makes sure there is room for more nodes
+         *
+         * @param more the amount of nodes to add
+         */
+        private void reserve(int more) {
+            if (2 * (count + more) > nodes.length) {
+                int capacity = Math.max(2 * nodes.length, 2 * (count + more));
+                nodes = Arrays.copyOf(nodes, capacity);
+                bounds = Arrays.copyOf(bounds, 3 * capacity);
+            }
+        }
+
+        /**
+         * Adds a node
+         *
+         * @return the index of the new node
+         */
+        int newNode() {
+            reserve(1);
+            return count++;
+        }
+
+        /**
+         * Appends the nodes of another subtree, shifting the links of its inner
+         * nodes to their new place
+         *
+         * @param other the other subtree
+         * @return the index of the first appended node
+         */
+        int append(Subtree other) {
+            reserve(other.count);
+            int first = count;
+            System.arraycopy(other.bounds, 0, bounds, 6 * first, 6 * other.count);
+            for (int k = 0; k < 2 * other.count; k += 2) {
+                boolean inner = other.nodes[k + 1] == 0;
+                nodes[2 * first + k] = inner ? other.nodes[k] + first : other.nodes[k];
+                nodes[2 * first + k + 1] = other.nodes[k + 1];
+            }
+            count += other.count;
+            return first;
+        }
+    }
+
+    /**
+     * Builds the subtree over a range of the primitive indices, reordering the
+     * range. The two subtrees of a large range are built in parallel.
+     *
+     * @param tree the nodes to add the subtree to
+     * @param from start of the range (inclusive)
+     * @param to   end of the range (exclusive)
+     */
+    private void build(Subtree tree, int from, int to) {
+        int node = tree.newNode();
+        double[] box = new double[6];
+        empty(box, 0);
+        for (int i = from; i < to; ++i)
+            union(box, boxes, 6 * items[i]);
+        System.arraycopy(box, 0, tree.bounds, 6 * node, 6);
+
+        int n = to - from;
+        int mid = n <= MAX_LEAF_SIZE ? from : split(from, to, box);
+        if (mid == from) { // a leaf, sorted to keep the original order of the primitives
+            Arrays.sort(items, from, to);
+            tree.nodes[2 * node] = from;
+            tree.nodes[2 * node + 1] = n;
+            return;
+        }
+        if (n < PARALLEL_THRESHOLD) {
+            build(tree, from, mid);
+            tree.nodes[2 * node] = tree.count; // the second child follows the first subtree
+            build(tree, mid, to);
+            return;
+        }
+
+        // the two parts of the range are disjoint, so the second subtree is built
+        // in parallel into its own arrays, and appended after the first one
+        ForkJoinTask<Subtree> second = ForkJoinTask.adapt(() -> {
+            Subtree subtree = new Subtree(to - mid);
+            build(subtree, mid, to);
+            return subtree;
+        }).fork();
+        build(tree, from, mid);
+        int link = tree.append(second.join()); // may grow the arrays, so before taking them
+        tree.nodes[2 * node] = link;
+    }
+
+    /**
+     * Chooses how to split a range of the primitives - by the binned surface area
+     * heuristic, or by the median along the widest axis if the split method is
+     * the median or the centers cannot be binned - and partitions the range
+     * accordingly
+     *
+     * @param from start of the range (inclusive)
+     * @param to   end of the range (exclusive)
+     * @param box  the box of the whole range
+     * @return the start of the second part, or {@code from} if a leaf is cheaper
+     *         than any split
+     */
+    private int split(int from, int to, double[] box) {
+        double[] cMin = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        double[] cMax = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int i = from; i < to; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                double c = centroids[3 * items[i] + axis];
+                if (c < cMin[axis]) cMin[axis] = c;
+                if (c > cMax[axis]) cMax[axis] = c;
+            }
+
+        int mid = sah ? sahSplit(from, to, box, cMin, cMax) : -1;
+        if (mid >= 0) return mid;
+        // median split along the widest axis
+        double dx = cMax[0] - cMin[0], dy = cMax[1] - cMin[1], dz = cMax[2] - cMin[2];
+        int axis = dx >= dy && dx >= dz ? 0 : dy >= dz ? 1 : 2;
+        mid = (from + to) >>> 1;
+        select(from, to, mid, axis);
+        return mid;
+    }
+
+    /**
+     * Finds the cheapest split of the range according to the binned surface area
+     * heuristic and partitions the range accordingly
+     *
+     * @param from start of the range (inclusive)
+     * @param to   end of the range (exclusive)
+     * @param box  the box of the whole range
+     * @param cMin lower bounds of the centers
+     * @param cMax upper bounds of the centers
+     * @return the start of the second part, {@code from} if a leaf is cheaper than
+     *         any split, or -1 if the centers cannot be binned
+     */
+    private int sahSplit(int from, int to, double[] box, double[] cMin, double[] cMax) {
+        int n = to - from;
+        double parentArea = surfaceArea(box, 0);
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBin = -1;
+        int[] counts = new int[SAH_BINS];
+        double[] bins = new double[6 * SAH_BINS];
+        double[] acc = new double[6];
+        double[] rightArea = new double[SAH_BINS];
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = cMax[axis] - cMin[axis];
+            if (extent <= 0) continue;
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < SAH_BINS; ++b)
+                empty(bins, 6 * b);
+            for (int i = from; i < to; ++i) {
+                int b = bin(centroids[3 * items[i] + axis], cMin[axis], extent);
+                ++counts[b];
+                union(bins, 6 * b, boxes, 6 * items[i]);
+            }
+
+            // sweep from the right to get the areas of all the right parts
+            empty(acc, 0);
+            for (int b = SAH_BINS - 1; b > 0; --b) {
+                union(acc, bins, 6 * b);
+                rightArea[b] = acc[0] > acc[3] ? 0 : surfaceArea(acc, 0);
+            }
+            // sweep from the left and evaluate the split after each bin
+            empty(acc, 0);
+            int leftCount = 0;
+            for (int b = 0; b < SAH_BINS - 1; ++b) {
+                union(acc, bins, 6 * b);
+                leftCount += counts[b];
+                if (leftCount == 0 || leftCount == n) continue;
+                double cost = TRAVERSAL_COST
+                        + (leftCount * surfaceArea(acc, 0) + (n - leftCount) * rightArea[b + 1]) / parentArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+        if (bestAxis < 0) return -1;
+        if (bestCost >= n && n <= 4 * MAX_LEAF_SIZE) return from;
+
+        // partition: primitives in the bins up to bestBin go first
+        double extent = cMax[bestAxis] - cMin[bestAxis];
+        int i = from, j = to - 1;
+        while (i <= j) {
+            if (bin(centroids[3 * items[i] + bestAxis], cMin[bestAxis], extent) <= bestBin) {
+                ++i;
+            } else {
+                int tmp = items[i];
+                items[i] = items[j];
+                items[j--] = tmp;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @param c      center coordinate
+     * @param min    lower bound of the centers
+     * @param extent extent of the centers
+     * @return the SAH bin of the center
+     */
+    private static int bin(double c, double min, double extent) {
+        int b = (int) (SAH_BINS * (c - min) / extent);
+        return b >= SAH_BINS ? SAH_BINS - 1 : b;
+    }
+
+    /**
+     * Reorders the range so that the k-th element (by center along the axis) is
+     * in its place, smaller ones are before it and larger ones after it
+     * (quickselect)
+     *
+     * @param from start of the range (inclusive)
+     * @param to   end of the range (exclusive)
+     * @param k    the position to place
+     * @param axis the axis to compare the centers along
+     */
+    private void select(int from, int to, int k, int axis) {
+        int lo = from, hi = to - 1;
+        while (lo < hi) {
+            double pivot = centroids[3 * items[(lo + hi) >>> 1] + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centroids[3 * items[i] + axis] < pivot) ++i;
+                while (centroids[3 * items[j] + axis] > pivot) --j;
+                if (i <= j) {
+                    int tmp = items[i];
+                    items[i++] = items[j];
+                    items[j--] = tmp;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    /**
+     * Empties a box, so that any union with it is the other box
+     *
+     * @param box boxes array
+     * @param at  offset of the box in the array
+     */
+    private static void empty(double[] box, int at) {
+        for (int axis = 0; axis < 3; ++axis) {
+            box[at + axis] = Double.POSITIVE_INFINITY;
+            box[at + axis + 3] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Widens a box to contain another box
+     *
+     * @param box   the box to widen
+     * @param boxes boxes array
+     * @param at    offset of the other box in the array
+     */
+    private static void union(double[] box, double[] boxes, int at) {
+        union(box, 0, boxes, at);
+    }
+
+    /**
+     * Widens a box in a boxes array to contain another box
+     *
+     * @param box   boxes array of the box to widen
+     * @param to    offset of the box to widen in its array
+     * @param boxes boxes array of the other box
+     * @param at    offset of the other box in its array
+     */
+    private static void union(double[] box, int to, double[] boxes, int at) {
+        for (int axis = 0; axis < 3; ++axis) {
+            if (boxes[at + axis] < box[to + axis]) box[to + axis] = boxes[at + axis];
+            if (boxes[at + axis + 3] > box[to + axis + 3]) box[to + axis + 3] = boxes[at + axis + 3];
+        }
+    }
+
+    /**
+     * @param box minimal x, y, z and maximal x, y, z of a box
+     * @param at  offset of the box in the array
+     * @return the surface area of the box
+     */
+    static double surfaceArea(double[] box, int at) {
+        double dx = box[at + 3] - box[at], dy = box[at + 4] - box[at + 1], dz = box[at + 5] - box[at + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
@@ -0,0 +1,205 @@
+package geometries;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Input of the binary caches ({@link GeometryCache}, {@code scene.SceneCache})
+ * - a cache file mapped into memory, read in the byte order of
+ * {@link java.io.DataOutputStream}.
+ * <p>
+ * A single mapping holds at most 2 GB, so the file is mapped a window at a
+ * time: when a read reaches the end of the window, the next window is mapped
+ * from the read position on, and arrays are copied across the windows in
+ * pieces. A cache of any size is read, and a cache that fits in one window is
+ * mapped once.
+ */
+public final class CacheInput implements AutoCloseable {
+    /** The largest window - the most a single mapping holds */
+    public static final int   MAX_WINDOW = Integer.MAX_VALUE;
+
+    /** The mapped file, null for an input in memory */
+    private final FileChannel channel;
+    /** Size of the input in bytes */
+    private final long        size;
+    /** Size of the windows in bytes */
+    private final int         windowSize;
+    /** The window mapped now */
+    private ByteBuffer        window;
+    /** Position of the window in the input */
+    private long              windowStart = 0;
+
+    /**
+     * Opens a cache file in windows of the largest size
+     *
+     * @param file the cache file
+     * @throws IOException on an I/O error, e.g. a missing file
+     */
+    public CacheInput(Path file) throws IOException {
+        this(file, MAX_WINDOW);
+    }
+
+    /**
+     * Opens a cache file in windows of the given size
+     *
+     * @param file       the cache file
+     * @param windowSize size of the windows in bytes - at least the size of a
+     *                   long
+     * @throws IOException              on an I/O error, e.g. a missing file
+     * @throws IllegalArgumentException if the window is too small
+     */
+    public CacheInput(Path file, int windowSize) throws IOException {
+        if (windowSize < Long.BYTES) throw new IllegalArgumentException("Cache window is too small");
+        this.windowSize = windowSize;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            map(0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a cache held in memory
+     *
+     * @param buffer the cache, from its position to its limit
+     */
+    public CacheInput(ByteBuffer buffer) {
+        channel = null;
+        size = buffer.remaining();
+        windowSize = MAX_WINDOW;
+        window = buffer.slice();
+    }
+
+    /**
+     * Maps the window that starts at the given position
+     *
+     * @param start position of the window in the input
+     * @throws IOException on an I/O error
+     */
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+        windowStart = start;
+    }
+
+    /**
+     * @param bytes amount of bytes to read next
+     * @return the window, with the bytes in it
+     * @throws BufferUnderflowException if the input ends before the bytes
+     * @throws IllegalStateException    on an I/O error
+     */
+    private ByteBuffer window(int bytes) {
+        if (window.remaining() >= bytes) return window;
+        if (channel != null && remaining() >= bytes) {
+            try {
+                map(position());
+            } catch (IOException e) {
+                throw new IllegalStateException("I/O error - cannot map the cache", e);
+            }
+            return window;
+        }
+        throw new BufferUnderflowException();
+    }
+
+    /**
+     * @return the position of the next byte in the input
+     */
+    public long position() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * @return amount of bytes left in the input
+     */
+    public long remaining() {
+        return size - position();
+    }
+
+    /**
+     * @return the next byte
+     */
+    public byte get() {
+        return window(Byte.BYTES).get();
+    }
+
+    /**
+     * @return the next short
+     */
+    public short getShort() {
+        return window(Short.BYTES).getShort();
+    }
+
+    /**
+     * @return the next int
+     */
+    public int getInt() {
+        return window(Integer.BYTES).getInt();
+    }
+
+    /**
+     * @return the next double
+     */
+    public double getDouble() {
+        return window(Double.BYTES).getDouble();
+    }
+
+    /**
+     * Fills an array with the next bytes
+     *
+     * @param array the array
+     */
+    public void get(byte[] array) {
+        for (int i = 0; i < array.length; ) {
+            ByteBuffer w = window(Byte.BYTES);
+            int n = Math.min(array.length - i, w.remaining());
+            w.get(array, i, n);
+            i += n;
+        }
+    }
+
+    /**
+     * Fills an array with the next ints
+     *
+     * @param array the array
+     */
+    public void get(int[] array) {
+        for (int i = 0; i < array.length; ) {
+            ByteBuffer w = window(Integer.BYTES);
+            int n = Math.min(array.length - i, w.remaining() / Integer.BYTES);
+            w.asIntBuffer().get(array, i, n);
+            w.position(w.position() + n * Integer.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * Fills an array with the next doubles
+     *
+     * @param array the array
+     */
+    public void get(double[] array) {
+        for (int i = 0; i < array.length; ) {
+            ByteBuffer w = window(Double.BYTES);
+            int n = Math.min(array.length - i, w.remaining() / Double.BYTES);
+            w.asDoubleBuffer().get(array, i, n);
+            w.position(w.position() + n * Double.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * Closes the file - the windows mapped from it stay valid
+     *
+     * @throws IOException on an I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+}
@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Point;
 import primitives.Ray;
 
 import java.util.List;
@@ -11,7 +12,9 @@ import java.util.List;
 public class Cylinder extends Tube
 {
     // The height of the cylinder
-    final private double height;
+    final double height;
+    // The axis-aligned box bounding the cylinder
+    final private BoundingBox box;
     /**
      * Constructs a new Cylinder object with the specified axis, radius, and height.
      *
@@ -23,6 +26,28 @@ public class Cylinder extends Tube
     {
         super(axis,radius);
         this.height = height;
+
+        // the box of the two base centers, widened by the extent of a base disc
+        // along each axis: radius * sqrt(1 - d^2) for the axis direction component d
+        Point bottom = axis.head;
+        Point top = axis.getPoint(height);
+        double dx = axis.direction.getX(), dy = axis.direction.getY(), dz = axis.direction.getZ();
+        double ex = radius * Math.sqrt(Math.max(0, 1 - dx * dx));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - dy * dy));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - dz * dz));
+        this.box = new BoundingBox(Math.min(bottom.getX(), top.getX()) - ex, Math.min(bottom.getY(), top.getY()) - ey,
+                Math.min(bottom.getZ(), top.getZ()) - ez, Math.max(bottom.getX(), top.getX()) + ex,
+                Math.max(bottom.getY(), top.getY()) + ey, Math.max(bottom.getZ(), top.getZ()) + ez);
+    }
+
+    /**
+     * Unlike a tube, a cylinder is finite.
+     *
+     * @return the box bounding the cylinder's two base discs
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
     }
 
     /**
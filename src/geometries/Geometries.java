@@ -3,20 +3,147 @@ package geometries;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Collections;
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
 public class Geometries extends Intersectable {
-    private List<Intersectable> geometries=new LinkedList<Intersectable>();
+    /**
+     * How the bounding volume hierarchy splits a node into two children
+     */
+    public enum SplitMethod {
+        /** Split the geometries into two halves along the widest axis - fast build */
+        MEDIAN,
+        /** Split where the surface area heuristic estimates the cheapest traversal */
+        SAH
+    }
+
+    List<Intersectable> geometries=new LinkedList<Intersectable>();
+    /** Bounding volume hierarchy over the geometries, null while they are scanned linearly */
+    BVH bvh = null;
+    /** Uniform grid over the geometries, null unless it was chosen instead of the hierarchy */
+    UniformGrid grid = null;
+    /** Time of the last build of the hierarchy, in nanoseconds */
+    private long buildNanos = 0;
     Geometries(){}
     public Geometries(Intersectable... geometries)
     {
         this();
         add(geometries);
     }
+
+    /**
+     * Adds geometries to the list. A previously built hierarchy or grid is
+     * dropped, since it does not cover the new geometries - call
+     * {@link #buildBVH(SplitMethod)} or {@link #buildGrid()} again after all the
+     * geometries are added.
+     *
+     * @param geometries the geometries to add
+     */
     public void add(Intersectable... geometries)
     {
         Collections.addAll(this.geometries, geometries);
+        bvh = null;
+        grid = null;
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the geometries, so that rays are
+     * intersected only with geometries whose bounding boxes they hit. Should be
+     * called once, after the scene is complete and before rendering. The
+     * intersections found are the same as without the hierarchy.
+     * <p>
+     * The build is parallel: it runs in the fork-join pool of the calling
+     * thread, or in the common pool - so the amount of build threads is set by
+     * calling from a pool of that parallelism.
+     *
+     * @param splitMethod how to split the hierarchy nodes
+     * @return the geometries object itself
+     */
+    public Geometries buildBVH(SplitMethod splitMethod) {
+        long start = System.nanoTime();
+        grid = null;
+        bvh = new BVH(geometries, splitMethod);
+        buildNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Builds a uniform grid over the geometries instead of a hierarchy - rays
+     * walk through the grid cells along them and are intersected only with the
+     * geometries listed in these cells. For dense scenes of similar-sized
+     * geometries the grid may beat the hierarchy; a scene of very different
+     * sizes or a few dense clusters is better served by the hierarchy. The
+     * resolution is chosen from the amount of geometries and their bounds. The
+     * intersections found are the same as without the grid.
+     *
+     * @return the geometries object itself
+     */
+    public Geometries buildGrid() {
+        long start = System.nanoTime();
+        bvh = null;
+        grid = new UniformGrid(geometries);
+        buildNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Updates the hierarchy (or the grid) after geometries in the list moved, e.g.
+     * {@link Instance}s whose transforms were changed for the next frame of an
+     * animation. Nested lists are updated first.
+     * <p>
+     * The hierarchy is refitted - its boxes are recalculated over the same tree,
+     * which is much faster than building it again. The refitted tree gets worse as
+     * the geometries drift apart from the places they were grouped at, so when its
+     * surface area heuristic cost grows beyond the given factor of its cost when it
+     * was built, the hierarchy is built again instead. A grid is always built
+     * again, since its cells cannot be refitted.
+     *
+     * @param rebuildThreshold the allowed growth of the hierarchy cost, e.g. 1.5
+     *                         to rebuild when a ray costs 50% more than after
+     *                         the build
+     * @return true if the hierarchy of the list was built again
+     * @throws IllegalArgumentException if the threshold is below 1
+     */
+    public boolean refit(double rebuildThreshold) {
+        if (rebuildThreshold < 1)
+            throw new IllegalArgumentException("The rebuild threshold must be at least 1");
+        for (Intersectable geometry : geometries)
+            if (geometry instanceof Geometries nested)
+                nested.refit(rebuildThreshold);
+        long start = System.nanoTime();
+        boolean rebuilt = false;
+        if (grid != null) {
+            grid = new UniformGrid(geometries);
+        } else if (bvh != null && !bvh.refit(rebuildThreshold)) {
+            bvh = new BVH(geometries, bvh.splitMethod);
+            rebuilt = true;
+        }
+        buildNanos = System.nanoTime() - start;
+        return rebuilt;
+    }
+
+    /**
+     * @return the hierarchy or the grid over the geometries, or null while they
+     *         are scanned linearly
+     */
+    private Intersectable accelerator() {
+        return bvh != null ? bvh : grid;
+    }
+
+    /**
+     * The time of building (or refitting) the hierarchies of the geometries - of
+     * the list itself (or its grid), and of the nested lists and meshes in it
+     *
+     * @return the total build time in nanoseconds, 0 if nothing was built
+     */
+    public long getBuildNanos() {
+        long total = accelerator() == null ? 0 : buildNanos;
+        for (Intersectable geometry : geometries) {
+            if (geometry instanceof Geometries nested) total += nested.getBuildNanos();
+            else if (geometry instanceof TriangleMesh mesh) total += mesh.getBuildNanos();
+        }
+        return total;
     }
 
     /**
@@ -27,6 +154,9 @@ public class Geometries extends Intersectable {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        Intersectable accelerator = accelerator();
+        if (accelerator != null)
+            return accelerator.findGeoIntersections(ray);
         List<GeoPoint> res = null;
         for (Intersectable geometry : this.geometries) {
             List<GeoPoint> resi = geometry.findGeoIntersections(ray);
@@ -39,4 +169,110 @@ public class Geometries extends Intersectable {
         }
         return res;
     }
+
+    /**
+     * Finds the closest intersection of the ray with the geometries in the list.
+     * Each geometry is asked only for intersections nearer than the closest one
+     * found so far.
+     *
+     * @param ray         The ray to check for intersections.
+     * @param maxDistance only intersections nearer than this distance count
+     * @return the closest intersection point, or null
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Intersectable accelerator = accelerator();
+        if (accelerator != null)
+            return accelerator.findClosestGeoIntersection(ray, maxDistance);
+        GeoPoint closest = null;
+        for (Intersectable geometry : this.geometries) {
+            GeoPoint gp = geometry.findClosestGeoIntersection(ray, maxDistance);
+            if (gp != null) {
+                closest = gp;
+                maxDistance = gp.t;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersections of a packet of rays with the geometries in
+     * the list - through the hierarchy, whose nodes are visited once for the whole
+     * packet, or by passing the whole packet to every geometry in turn.
+     *
+     * @param packet the rays, with their closest intersections so far
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet) {
+        Intersectable accelerator = accelerator();
+        if (accelerator != null) {
+            accelerator.findClosestGeoIntersections(packet);
+            return;
+        }
+        for (Intersectable geometry : this.geometries)
+            geometry.findClosestGeoIntersections(packet);
+    }
+
+    /**
+     * Checks whether any of the geometries blocks the ray, stopping at the first
+     * blocker.
+     *
+     * @param ray         The ray to check.
+     * @param maxDistance only intersections nearer than this distance block
+     * @return true if there is an intersection nearer than maxDistance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        Intersectable accelerator = accelerator();
+        if (accelerator != null)
+            return accelerator.isOccluded(ray, maxDistance);
+        for (Intersectable geometry : this.geometries)
+            if (geometry.isOccluded(ray, maxDistance))
+                return true;
+        return false;
+    }
+
+    /**
+     * Multiplies the transparency of the geometries along the ray, stopping at
+     * the first opaque blocker.
+     *
+     * @param ray         The ray to check.
+     * @param maxDistance only intersections nearer than this distance count
+     * @return the transparency factor, {@link Double3#ZERO} if the ray is blocked
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+        Intersectable accelerator = accelerator();
+        if (accelerator != null)
+            return accelerator.findTransparency(ray, maxDistance);
+        Double3 ktr = Double3.ONE;
+        for (Intersectable geometry : this.geometries) {
+            Double3 kT = geometry.findTransparency(ray, maxDistance);
+            if (kT.equals(Double3.ZERO))
+                return Double3.ZERO;
+            if (kT != Double3.ONE)
+                ktr = ktr.product(kT);
+        }
+        return ktr;
+    }
+
+    /**
+     * The box bounding all the geometries in the list
+     *
+     * @return the union of the geometries' boxes, or null if the list is empty or
+     *         contains an unbounded geometry
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        Intersectable accelerator = accelerator();
+        if (accelerator != null)
+            return accelerator.getBoundingBox();
+        BoundingBox box = null;
+        for (Intersectable geometry : geometries) {
+            BoundingBox b = geometry.getBoundingBox();
+            if (b == null) return null;
+            box = box == null ? b : box.union(b);
+        }
+        return box;
+    }
 }
@@ -1,8 +1,10 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 /**
  * The Geometry interface represents geometric shapes in a 3D space.
@@ -20,6 +22,18 @@ public abstract class Geometry extends Intersectable
      */
     public abstract Vector getNormal(Point p);
 
+    /**
+     * Calculates the normal vector at an intersection point of the geometry. The
+     * point may carry more than its coordinates, e.g. the face of a mesh, so this
+     * is the way to get the normal during the ray tracing.
+     *
+     * @param gp an intersection point of the geometry
+     * @return The normal vector at the given point.
+     */
+    public Vector getNormal(GeoPoint gp) {
+        return getNormal(gp.point);
+    }
+
     /**
      *
      *
@@ -59,4 +73,19 @@ public abstract class Geometry extends Intersectable
         this.material = material;
         return this;
     }
+
+    /**
+     * An opaque geometry blocks the ray with any intersection, so it is enough to
+     * look for one instead of collecting all of them.
+     *
+     * @param ray         The ray to check.
+     * @param maxDistance only intersections nearer than this distance count
+     * @return the transparency factor, {@link Double3#ZERO} if the ray is blocked
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+        if (material.kT.equals(Double3.ZERO))
+            return isOccludedHelper(ray, maxDistance) ? Double3.ZERO : Double3.ONE;
+        return super.findTransparencyHelper(ray, maxDistance);
+    }
 }
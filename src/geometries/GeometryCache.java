@@ -0,0 +1,463 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of geometries for the scene cache ({@code scene.SceneCache}).
+ * <p>
+ * A geometry is written as a tag of its type, its emission and material, and
+ * the parameters of its shape. A {@link Geometries} list is written with all
+ * its geometries and its bounding volume hierarchy, and a {@link TriangleMesh}
+ * with its arrays in leaf order and its own hierarchy - so reading them back
+ * takes no build at all. A material shared by several geometries is written
+ * once and is shared again after reading, and so is the object shared by
+ * several {@link Instance}s - with its hierarchy, and with the transform of
+ * every instance.
+ * <p>
+ * Only the geometry types of this package can be written, and only as
+ * themselves - not subclasses of them.
+ */
+public final class GeometryCache {
+    // Tags of the geometry types
+    private static final byte GEOMETRIES = 0, SPHERE = 1, PLANE = 2, TRIANGLE = 3, POLYGON = 4, TUBE = 5,
+            CYLINDER = 6, MESH = 7, INSTANCE = 8;
+    // How a list of geometries is intersected - linearly, by its hierarchy or by its grid
+    private static final byte LINEAR = 0, HIERARCHY = 1, GRID = 2;
+    /** Size of the buffer for writing arrays */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    // Indices of the materials written so far
+    private final Map<Material, Integer>      materialIndices = new IdentityHashMap<>();
+    // The materials read so far, by index
+    private final List<Material>              materials       = new ArrayList<>();
+    // Indices of the objects of instances written so far
+    private final Map<Intersectable, Integer> objectIndices   = new IdentityHashMap<>();
+    // The objects of instances read so far, by index
+    private final List<Intersectable>         objects         = new ArrayList<>();
+    // Buffer for writing arrays
+    private ByteBuffer                        chunk;
+
+    /** The cache is used only through the static methods */
+    private GeometryCache() {}
+
+    /**
+     * Writes a geometry, with all its parts and hierarchies
+     *
+     * @param geometry the geometry
+     * @param out      the output
+     * @throws IOException              on an I/O error
+     * @throws IllegalArgumentException if the geometry or a part of it is of a
+     *                                  type that cannot be cached
+     */
+    public static void write(Intersectable geometry, DataOutputStream out) throws IOException {
+        new GeometryCache().writeGeometry(geometry, out);
+    }
+
+    /**
+     * Reads a geometry written by {@link #write(Intersectable, DataOutputStream)}
+     *
+     * @param in the input, positioned at the geometry; it is left positioned
+     *           after it
+     * @return the geometry
+     * @throws IllegalArgumentException          if the input is not a cached
+     *                                           geometry
+     * @throws java.nio.BufferUnderflowException if the input ends too early
+     */
+    public static Intersectable read(CacheInput in) {
+        return new GeometryCache().readGeometry(in);
+    }
+
+    // ***************** Writing ********************** //
+
+    /**
+     * Writes a geometry of any of the supported types
+     *
+     * @param geometry the geometry
+     * @param out      the output
+     * @throws IOException on an I/O error
+     */
+    private void writeGeometry(Intersectable geometry, DataOutputStream out) throws IOException {
+        Class<?> type = geometry.getClass();
+        if (type == Geometries.class) {
+            writeGeometries((Geometries) geometry, out);
+            return;
+        }
+        if (type == Instance.class) {
+            writeInstance((Instance) geometry, out);
+            return;
+        }
+        byte tag = type == Sphere.class ? SPHERE : type == Plane.class ? PLANE : type == Triangle.class ? TRIANGLE
+                : type == Polygon.class ? POLYGON : type == Tube.class ? TUBE : type == Cylinder.class ? CYLINDER
+                : type == TriangleMesh.class ? MESH : -1;
+        if (tag < 0)
+            throw new IllegalArgumentException("Geometry of type " + type.getName() + " cannot be cached");
+        out.writeByte(tag);
+        Geometry g = (Geometry) geometry;
+        writeColor(g.emission, out);
+        writeMaterial(g.getMaterial(), out);
+
+        switch (tag) {
+            case SPHERE -> {
+                Sphere sphere = (Sphere) g;
+                writePoint(sphere.center, out);
+                out.writeDouble(sphere.radius);
+            }
+            case PLANE -> {
+                Plane plane = (Plane) g;
+                writePoint(plane.point, out);
+                writePoint(plane.normal, out);
+            }
+            case TRIANGLE, POLYGON -> {
+                List<Point> vertices = ((Polygon) g).vertices;
+                out.writeInt(vertices.size());
+                for (Point vertex : vertices)
+                    writePoint(vertex, out);
+            }
+            case TUBE, CYLINDER -> {
+                Tube tube = (Tube) g;
+                writePoint(tube.axis.head, out);
+                writePoint(tube.axis.direction, out);
+                out.writeDouble(tube.radius);
+                if (tag == CYLINDER)
+                    out.writeDouble(((Cylinder) g).height);
+            }
+            default -> {
+                TriangleMesh mesh = (TriangleMesh) g;
+                writeDoubles(mesh.vertices, out);
+                writeInts(mesh.faces, out);
+                writeDoubles(mesh.bounds, out);
+                writeInts(mesh.nodes, out);
+            }
+        }
+    }
+
+    /**
+     * Writes a list of geometries and its hierarchy, if it has one - or only a
+     * mark of its grid, which is built again on reading
+     *
+     * @param geometries the list
+     * @param out        the output
+     * @throws IOException on an I/O error
+     */
+    private void writeGeometries(Geometries geometries, DataOutputStream out) throws IOException {
+        out.writeByte(GEOMETRIES);
+        out.writeInt(geometries.geometries.size());
+        for (Intersectable geometry : geometries.geometries)
+            writeGeometry(geometry, out);
+
+        BVH bvh = geometries.bvh;
+        out.writeByte(bvh != null ? HIERARCHY : geometries.grid != null ? GRID : LINEAR);
+        if (bvh == null) return;
+        out.writeByte(bvh.splitMethod.ordinal());
+        writeInts(bvh.unbounded, out);
+        writeDoubles(bvh.bounds, out);
+        writeInts(bvh.nodes, out);
+        writeInts(bvh.items, out);
+    }
+
+    /**
+     * Writes an instance - its object, all of it the first time and only its
+     * index later, and its transform
+     *
+     * @param instance the instance
+     * @param out      the output
+     * @throws IOException on an I/O error
+     */
+    private void writeInstance(Instance instance, DataOutputStream out) throws IOException {
+        out.writeByte(INSTANCE);
+        Intersectable object = instance.getObject();
+        Integer index = objectIndices.get(object);
+        if (index != null) {
+            out.writeInt(index);
+        } else {
+            // the object may hold instances of other objects, so its index is taken
+            // after it is written - as it is after it is read
+            out.writeInt(-1);
+            writeGeometry(object, out);
+            objectIndices.put(object, objectIndices.size());
+        }
+        for (double number : instance.getTransform().getRows())
+            out.writeDouble(number);
+    }
+
+    /**
+     * Writes a material - all of it the first time, and only its index later
+     *
+     * @param material the material
+     * @param out      the output
+     * @throws IOException on an I/O error
+     */
+    private void writeMaterial(Material material, DataOutputStream out) throws IOException {
+        Integer index = materialIndices.get(material);
+        if (index != null) {
+            out.writeInt(index);
+            return;
+        }
+        index = materialIndices.size();
+        materialIndices.put(material, index);
+        out.writeInt(index);
+        for (Double3 k : new Double3[] { material.kD, material.kS, material.kT, material.kR })
+            writeDouble3(k, out);
+        out.writeInt(material.nShininess);
+    }
+
+    /**
+     * Writes an array of doubles - its length and its elements
+     *
+     * @param array the array
+     * @param out   the output
+     * @throws IOException on an I/O error
+     */
+    private void writeDoubles(double[] array, DataOutputStream out) throws IOException {
+        out.writeInt(array.length);
+        if (chunk == null) chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        for (int i = 0; i < array.length; ) {
+            int n = Math.min(array.length - i, CHUNK_SIZE / Double.BYTES);
+            chunk.clear();
+            chunk.asDoubleBuffer().put(array, i, n);
+            out.write(chunk.array(), 0, n * Double.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * Writes an array of ints - its length and its elements
+     *
+     * @param array the array
+     * @param out   the output
+     * @throws IOException on an I/O error
+     */
+    private void writeInts(int[] array, DataOutputStream out) throws IOException {
+        out.writeInt(array.length);
+        if (chunk == null) chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        for (int i = 0; i < array.length; ) {
+            int n = Math.min(array.length - i, CHUNK_SIZE / Integer.BYTES);
+            chunk.clear();
+            chunk.asIntBuffer().put(array, i, n);
+            out.write(chunk.array(), 0, n * Integer.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * @param point a point (or a vector)
+     * @param out   the output
+     * @throws IOException on an I/O error
+     */
+    private static void writePoint(Point point, DataOutputStream out) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        out.writeDouble(point.getZ());
+    }
+
+    /**
+     * @param color a color
+     * @param out   the output
+     * @throws IOException on an I/O error
+     */
+    private static void writeColor(Color color, DataOutputStream out) throws IOException {
+        out.writeDouble(color.getRed());
+        out.writeDouble(color.getGreen());
+        out.writeDouble(color.getBlue());
+    }
+
+    /**
+     * @param k   a triad of coefficients
+     * @param out the output
+     * @throws IOException on an I/O error
+     */
+    private static void writeDouble3(Double3 k, DataOutputStream out) throws IOException {
+        out.writeDouble(k.getD1());
+        out.writeDouble(k.getD2());
+        out.writeDouble(k.getD3());
+    }
+
+    // ***************** Reading ********************** //
+
+    /**
+     * Reads a geometry of any of the supported types
+     *
+     * @param in the input
+     * @return the geometry
+     */
+    private Intersectable readGeometry(CacheInput in) {
+        byte tag = in.get();
+        if (tag == GEOMETRIES)
+            return readGeometries(in);
+        if (tag == INSTANCE)
+            return readInstance(in);
+        if (tag < SPHERE || tag > MESH)
+            throw new IllegalArgumentException("Unknown cached geometry type " + tag);
+        Color emission = readColor(in);
+        Material material = readMaterial(in);
+
+        Geometry geometry = switch (tag) {
+            case SPHERE -> new Sphere(readPoint(in), in.getDouble());
+            case PLANE -> new Plane(readPoint(in), readVector(in));
+            case TRIANGLE, POLYGON -> {
+                Point[] vertices = new Point[readLength(in, 3 * Double.BYTES)];
+                for (int i = 0; i < vertices.length; ++i)
+                    vertices[i] = readPoint(in);
+                if (tag == POLYGON)
+                    yield new Polygon(vertices);
+                if (vertices.length != 3)
+                    throw new IllegalArgumentException("A cached triangle must have 3 vertices");
+                yield new Triangle(vertices[0], vertices[1], vertices[2]);
+            }
+            case TUBE -> new Tube(new Ray(readPoint(in), readVector(in)), in.getDouble());
+            case CYLINDER -> new Cylinder(new Ray(readPoint(in), readVector(in)), in.getDouble(), in.getDouble());
+            default -> new TriangleMesh(readDoubles(in), readInts(in), readDoubles(in), readInts(in));
+        };
+        return geometry.setEmission(emission).setMaterial(material);
+    }
+
+    /**
+     * Reads a list of geometries, and restores its hierarchy or grid if it had one
+     *
+     * @param in the input
+     * @return the list
+     */
+    private Geometries readGeometries(CacheInput in) {
+        Geometries geometries = new Geometries();
+        int n = in.getInt();
+        for (int i = 0; i < n; ++i)
+            geometries.add(readGeometry(in));
+        byte accelerator = in.get();
+        if (accelerator == GRID) { // the grid is cheap to build and is not cached
+            geometries.buildGrid();
+        } else if (accelerator == HIERARCHY) {
+            Geometries.SplitMethod[] methods = Geometries.SplitMethod.values();
+            int method = in.get();
+            if (method < 0 || method >= methods.length)
+                throw new IllegalArgumentException("Unknown cached split method " + method);
+            // the restored hierarchy checks that its links and indices are valid
+            geometries.bvh = new BVH(geometries.geometries, readInts(in), methods[method], readDoubles(in),
+                    readInts(in), readInts(in));
+        } else if (accelerator != LINEAR) {
+            throw new IllegalArgumentException("Unknown cached accelerator " + accelerator);
+        }
+        return geometries;
+    }
+
+    /**
+     * Reads an instance - its object, all of it the first time and only its
+     * index later, and its transform
+     *
+     * @param in the input
+     * @return the instance
+     */
+    private Instance readInstance(CacheInput in) {
+        int index = in.getInt();
+        Intersectable object;
+        if (index < 0) {
+            object = readGeometry(in);
+            objects.add(object);
+        } else if (index < objects.size()) {
+            object = objects.get(index);
+        } else {
+            throw new IllegalArgumentException("Cached instance refers to a missing object " + index);
+        }
+        double[] rows = new double[12];
+        for (int i = 0; i < rows.length; ++i)
+            rows[i] = in.getDouble();
+        return new Instance(object, Transform.fromRows(rows));
+    }
+
+    /**
+     * Reads a material - all of it the first time, and only its index later
+     *
+     * @param in the input
+     * @return the material
+     */
+    private Material readMaterial(CacheInput in) {
+        int index = in.getInt();
+        if (index < materials.size() && index >= 0)
+            return materials.get(index);
+        if (index != materials.size())
+            throw new IllegalArgumentException("Cached geometry refers to a missing material " + index);
+        Material material = new Material().setKd(readDouble3(in)).setKs(readDouble3(in)).setkT(readDouble3(in))
+                .setkR(readDouble3(in)).setShininess(in.getInt());
+        materials.add(material);
+        return material;
+    }
+
+    /**
+     * @param in the input
+     * @return an array of doubles - its length and its elements
+     */
+    private static double[] readDoubles(CacheInput in) {
+        double[] array = new double[readLength(in, Double.BYTES)];
+        in.get(array);
+        return array;
+    }
+
+    /**
+     * @param in the input
+     * @return an array of ints - its length and its elements
+     */
+    private static int[] readInts(CacheInput in) {
+        int[] array = new int[readLength(in, Integer.BYTES)];
+        in.get(array);
+        return array;
+    }
+
+    /**
+     * @param in    the input
+     * @param bytes size of an element of the array
+     * @return the length of an array
+     * @throws IllegalArgumentException if the array cannot fit in the rest of the
+     *                                  input
+     */
+    private static int readLength(CacheInput in, int bytes) {
+        int length = in.getInt();
+        if (length < 0 || (long) length * bytes > in.remaining())
+            throw new IllegalArgumentException("Bad cached array length " + length);
+        return length;
+    }
+
+    /**
+     * @param in the input
+     * @return a point
+     */
+    private static Point readPoint(CacheInput in) {
+        return new Point(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return a vector
+     */
+    private static Vector readVector(CacheInput in) {
+        return new Vector(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return a color
+     */
+    private static Color readColor(CacheInput in) {
+        return new Color(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return a triad of coefficients
+     */
+    private static Double3 readDouble3(CacheInput in) {
+        return new Double3(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+}
@@ -0,0 +1,152 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.List;
+
+/**
+ * An instance of a shared object placed in the scene by an affine transform.
+ * The object - a single geometry, a {@link Geometries} group with its own
+ * hierarchy, a {@link TriangleMesh} - is kept once in its own (object) space,
+ * and every instance of it only holds a reference to it and a transform. A
+ * ray is transformed into the object space and intersected with the object
+ * there, and the intersections are transformed back.
+ * <p>
+ * The instances are bounded, so a hierarchy built over a list of instances
+ * (see {@link Geometries#buildBVH(Geometries.SplitMethod)}) is a two-level
+ * structure: the top level over the instances, and the bottom level of the
+ * shared object, built once for all of its instances. Thousands of copies of a
+ * large model take the memory of a single copy.
+ * <p>
+ * The intersection points are in the scene space, with their normal in the
+ * scene space in {@link GeoPoint#normal}, since the geometry of the point
+ * knows only its object space.
+ */
+public class Instance extends Intersectable {
+    /** The shared object */
+    private final Intersectable object;
+    /** From the object space to the scene space */
+    private Transform transform;
+    /** The box bounding the instance in the scene space (null if unbounded) */
+    private BoundingBox box;
+
+    /**
+     * Places an object in the scene. The object should be complete, with its
+     * hierarchy built, since the bounds of the instance are taken from it here.
+     *
+     * @param object    the object
+     * @param transform the transform from the object space to the scene space
+     */
+    public Instance(Intersectable object, Transform transform) {
+        this.object = object;
+        setTransform(transform);
+    }
+
+    /**
+     * Moves the instance - e.g. for the next frame of an animation. The list
+     * holding the instance should be refitted after its instances moved (see
+     * {@link Geometries#refit(double)}), and no rendering may run meanwhile.
+     *
+     * @param transform the new transform from the object space to the scene space
+     * @return the instance itself
+     */
+    public Instance setTransform(Transform transform) {
+        this.transform = transform;
+        BoundingBox b = object.getBoundingBox();
+        if (b == null) {
+            box = null;
+            return this;
+        }
+        // the box of the transformed corners of the object box
+        Point[] corners = new Point[8];
+        for (int i = 0; i < 8; ++i)
+            corners[i] = transform.apply(new Point((i & 1) == 0 ? b.minX : b.maxX, (i & 2) == 0 ? b.minY : b.maxY,
+                    (i & 4) == 0 ? b.minZ : b.maxZ));
+        box = new BoundingBox(corners);
+        return this;
+    }
+
+    /**
+     * @return the shared object
+     */
+    public Intersectable getObject() {
+        return object;
+    }
+
+    /**
+     * @return the transform from the object space to the scene space
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+    /**
+     * @param ray a ray in the scene space
+     * @return the ray in the object space - with a direction of unit length, so
+     *         its distances are the scene distances multiplied by the length of
+     *         the transformed scene direction
+     */
+    private Ray toObject(Ray ray) {
+        return new Ray(transform.applyInverse(ray.head), transform.applyInverse(ray.direction));
+    }
+
+    /**
+     * @param ray a ray in the scene space
+     * @return the factor from the scene distances along the ray to the object
+     *         distances along it
+     */
+    private double scale(Ray ray) {
+        return transform.applyInverse(ray.direction).length();
+    }
+
+    /**
+     * Brings an intersection point of the object back to the scene space
+     *
+     * @param gp    the point in the object space
+     * @param scale the factor from the scene distances to the object distances
+     * @return the point, changed in place
+     */
+    private GeoPoint toScene(GeoPoint gp, double scale) {
+        Vector normal = gp.normal != null ? gp.normal : gp.geometry.getNormal(gp);
+        gp.normal = transform.applyNormal(normal);
+        gp.point = transform.apply(gp.point);
+        gp.t /= scale;
+        return gp;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        List<GeoPoint> points = object.findGeoIntersections(toObject(ray));
+        if (points == null) return null;
+        double scale = scale(ray);
+        for (GeoPoint gp : points)
+            toScene(gp, scale);
+        return points;
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double scale = scale(ray);
+        GeoPoint gp = object.findClosestGeoIntersection(toObject(ray), maxDistance * scale);
+        return gp == null ? null : toScene(gp, scale);
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return object.isOccluded(toObject(ray), maxDistance * scale(ray));
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+        return object.findTransparency(toObject(ray), maxDistance * scale(ray));
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+}
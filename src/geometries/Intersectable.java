@@ -2,8 +2,10 @@ package geometries;
 import java.util.List;
 import java.util.Objects;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 public abstract class Intersectable
 {
     /**
@@ -20,6 +22,31 @@ public abstract class Intersectable
          */
         public Point point;
 
+        /**
+         * The ray parameter of the point - its distance from the ray head. Set by
+         * the closest-hit query, NaN if unknown.
+         */
+        public double t = Double.NaN;
+
+        /**
+         * The surface coordinates of the point - for a triangle, the barycentric
+         * weights of its second and third vertices. NaN if unknown.
+         */
+        public double u = Double.NaN, v = Double.NaN;
+
+        /**
+         * The index of the face that was hit, for geometries made of faces such as
+         * a {@link TriangleMesh}. -1 for other geometries.
+         */
+        public int face = -1;
+
+        /**
+         * The normal at the point, when the geometry cannot calculate it from the
+         * point - set for points of an {@link Instance}, whose geometry is in
+         * another space. Null if the geometry calculates it.
+         */
+        public Vector normal = null;
+
         /**
          * Constructs a GeoPoint object with the specified geometry and point
          * coordinates.
@@ -32,6 +59,35 @@ public abstract class Intersectable
             this.point = point;
         }
 
+        /**
+         * Constructs a GeoPoint object with the specified geometry, point
+         * coordinates and ray parameter.
+         *
+         * @param geometry The geometry information of the point.
+         * @param point    The actual point coordinates.
+         * @param t        The ray parameter of the point.
+         */
+        public GeoPoint(Geometry geometry, Point point, double t) {
+            this(geometry, point);
+            this.t = t;
+        }
+
+        /**
+         * Constructs a GeoPoint object with the specified geometry, point
+         * coordinates, ray parameter and surface coordinates.
+         *
+         * @param geometry The geometry information of the point.
+         * @param point    The actual point coordinates.
+         * @param t        The ray parameter of the point.
+         * @param u        The first surface coordinate of the point.
+         * @param v        The second surface coordinate of the point.
+         */
+        public GeoPoint(Geometry geometry, Point point, double t, double u, double v) {
+            this(geometry, point, t);
+            this.u = u;
+            this.v = v;
+        }
+
         /**
          * Checks if this GeoPoint is equal to another object.
          *
@@ -91,4 +147,152 @@ public abstract class Intersectable
      *         object.
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray);
+
+    /**
+     * Finds the intersection closest to the ray head.
+     *
+     * @param ray The ray to intersect with the object.
+     * @return the closest intersection with its ray parameter {@link GeoPoint#t},
+     *         or null if there are no intersections
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersectionHelper(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the intersection closest to the ray head that is nearer than a given
+     * distance. Composite objects shrink the distance as they find intersections,
+     * so farther parts of them are not intersected at all.
+     *
+     * @param ray         The ray to intersect with the object.
+     * @param maxDistance only intersections nearer than this distance count
+     * @return the closest intersection with its ray parameter {@link GeoPoint#t},
+     *         or null if there is no intersection nearer than maxDistance
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        return findClosestGeoIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * Finds the intersection closest to the ray head that is nearer than a given
+     * distance. The default implementation picks it from all the intersections;
+     * subclasses may override it with a cheaper calculation.
+     *
+     * @param ray         The ray to intersect with the object.
+     * @param maxDistance only intersections nearer than this distance count
+     * @return the closest intersection with its ray parameter, or null
+     */
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> points = findGeoIntersectionsHelper(ray);
+        if (points == null)
+            return null;
+        GeoPoint closest = null;
+        for (GeoPoint gp : points) {
+            double t = gp.point.distance(ray.head);
+            if (t < maxDistance) {
+                closest = gp;
+                maxDistance = t;
+            }
+        }
+        if (closest != null)
+            closest.t = maxDistance;
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersections of a packet of rays - for every ray of the
+     * packet, the intersection nearer than the closest one the packet holds
+     * replaces it. The result for each ray is the same as by
+     * {@link #findClosestGeoIntersection(Ray, double)}.
+     *
+     * @param packet the rays, with their closest intersections so far
+     */
+    public final void findClosestGeoIntersections(RayPacket packet) {
+        findClosestGeoIntersectionsHelper(packet);
+    }
+
+    /**
+     * Finds the closest intersections of a packet of rays. The default
+     * implementation intersects the rays one by one; geometries that gain from
+     * handling the rays together override it.
+     *
+     * @param packet the rays, with their closest intersections so far
+     */
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet) {
+        for (int r = packet.first; r < packet.size; ++r)
+            packet.offer(r, findClosestGeoIntersectionHelper(packet.rays[r], packet.t[r]));
+    }
+
+    /**
+     * Checks whether the object blocks the ray before a given distance (any-hit
+     * query). Stops at the first intersection found, regardless of the material.
+     *
+     * @param ray         The ray to check, e.g. from a point toward a light source.
+     * @param maxDistance only intersections nearer than this distance block
+     * @return true if there is an intersection nearer than maxDistance
+     */
+    public final boolean isOccluded(Ray ray, double maxDistance) {
+        return isOccludedHelper(ray, maxDistance);
+    }
+
+    /**
+     * Checks whether the object blocks the ray before a given distance. The
+     * default implementation asks for the closest intersection; composite objects
+     * override it to stop at the first one.
+     *
+     * @param ray         The ray to check.
+     * @param maxDistance only intersections nearer than this distance block
+     * @return true if there is an intersection nearer than maxDistance
+     */
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return findClosestGeoIntersectionHelper(ray, maxDistance) != null;
+    }
+
+    /**
+     * Computes how much light passes along the ray up to a given distance - the
+     * product of the transparency coefficients (kT) of all the intersections on
+     * the way. Returns as soon as an opaque intersection is found, so the whole
+     * segment is walked only while the intersections are transparent.
+     *
+     * @param ray         The ray to check, e.g. from a point toward a light source.
+     * @param maxDistance only intersections nearer than this distance count
+     * @return the transparency factor, {@link Double3#ZERO} if the ray is blocked
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance) {
+        return findTransparencyHelper(ray, maxDistance);
+    }
+
+    /**
+     * Computes the transparency of the object along the ray up to a given
+     * distance. The default implementation goes over all the intersections.
+     *
+     * @param ray         The ray to check.
+     * @param maxDistance only intersections nearer than this distance count
+     * @return the transparency factor, {@link Double3#ZERO} if the ray is blocked
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> points = findGeoIntersectionsHelper(ray);
+        if (points == null)
+            return Double3.ONE;
+        Double3 ktr = Double3.ONE;
+        for (GeoPoint gp : points) {
+            if (gp.point.distance(ray.head) < maxDistance) {
+                Double3 kT = gp.geometry.getMaterial().kT;
+                if (kT.equals(Double3.ZERO))
+                    return Double3.ZERO; // opaque blocker
+                ktr = ktr.product(kT);
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Returns the axis-aligned box that bounds the object, for spatial culling of
+     * rays. Unbounded (infinite) objects have no box.
+     *
+     * @return the bounding box, or null if the object is unbounded
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
 }
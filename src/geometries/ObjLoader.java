@@ -0,0 +1,370 @@
+package geometries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streaming reader of Wavefront OBJ files into a {@link TriangleMesh}.
+ * <p>
+ * The file is read in fixed size blocks and parsed byte by byte, straight into
+ * the growing coordinates and indices arrays of the mesh - no line strings, no
+ * points and no triangles are created on the way. So besides the mesh itself,
+ * the loader takes a fixed amount of memory however large the file is.
+ * <p>
+ * Only the geometry is read: the vertex lines ({@code v}) and the face lines
+ * ({@code f}). Faces of more than three vertices are split into a fan of
+ * triangles, texture and normal indices ({@code v/vt/vn}) are skipped, and
+ * negative (relative) indices are supported. All the other lines - texture
+ * coordinates, normals, groups, materials, comments - are ignored.
+ * <p>
+ * After a load, the loader reports the amounts read, the parsing and the
+ * hierarchy build times and the throughput in triangles per second.
+ */
+public class ObjLoader {
+    /** Size of the blocks read from the file */
+    private static final int BLOCK_SIZE = 1 << 16;
+    /** Initial capacity of the arrays, in vertices and in triangles */
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    /** Exact powers of ten for the fast path of the number parsing */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /** logger for reporting the load statistics and I/O failures */
+    private static final Logger logger = Logger.getLogger("ObjLoader");
+
+    // The input and its current block
+    private InputStream in;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int          position, limit;
+    // Number of the current line, for error messages
+    private long         line;
+
+    // The vertices read so far - x, y and z of each
+    private double[] vertices;
+    private int      vertexCount;
+    // The triangles read so far - three vertex indices of each
+    private int[]    faces;
+    private int      faceCount;
+    // The vertex indices of the current face line
+    private int[]    polygon = new int[16];
+
+    // Statistics of the last load
+    private long parseNanos, buildNanos;
+
+    /**
+     * Loads a mesh from an OBJ file
+     *
+     * @param file the file
+     * @return the mesh of all the faces in the file
+     * @throws IllegalStateException    on an I/O error
+     * @throws IllegalArgumentException if the file is malformed or has no faces
+     */
+    public TriangleMesh load(Path file) {
+        try (InputStream input = Files.newInputStream(file)) {
+            return load(input);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing file " + file, e);
+        }
+    }
+
+    /**
+     * Loads a mesh from OBJ text. The stream is read to its end and is not closed.
+     *
+     * @param input the OBJ text
+     * @return the mesh of all the faces in the text
+     * @throws IOException              on an I/O error
+     * @throws IllegalArgumentException if the text is malformed or has no faces
+     */
+    public TriangleMesh load(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        in = input;
+        position = limit = 0;
+        line = 0;
+        vertices = new double[3 * INITIAL_CAPACITY];
+        faces = new int[3 * INITIAL_CAPACITY];
+        vertexCount = faceCount = 0;
+        try {
+            parse();
+        } finally {
+            in = null;
+        }
+        if (faceCount == 0)
+            throw new IllegalArgumentException("No faces in the OBJ input");
+        double[] meshVertices = Arrays.copyOf(vertices, 3 * vertexCount);
+        int[] meshFaces = Arrays.copyOf(faces, 3 * faceCount);
+        vertices = null;
+        faces = null;
+        long parsed = System.nanoTime();
+        parseNanos = parsed - start;
+
+        TriangleMesh mesh = new TriangleMesh(meshVertices, meshFaces, false);
+        buildNanos = System.nanoTime() - parsed;
+        logger.info(String.format("Loaded %d vertices and %d triangles: parsing %.3f s (%.0f triangles/s), "
+                + "hierarchy build %.3f s", vertexCount, faceCount, parseNanos / 1e9, getTrianglesPerSecond(),
+                buildNanos / 1e9));
+        return mesh;
+    }
+
+    /**
+     * @return the amount of vertices of the last load
+     */
+    public int getVertexCount() { return vertexCount; }
+
+    /**
+     * @return the amount of triangles of the last load, after splitting the
+     *         faces into triangles
+     */
+    public int getTriangleCount() { return faceCount; }
+
+    /**
+     * @return the time of parsing the file in the last load, in nanoseconds
+     */
+    public long getParseNanos() { return parseNanos; }
+
+    /**
+     * @return the time of building the hierarchy of the mesh in the last load, in
+     *         nanoseconds
+     */
+    public long getBuildNanos() { return buildNanos; }
+
+    /**
+     * @return the parsing throughput of the last load in triangles per second
+     */
+    public double getTrianglesPerSecond() {
+        return parseNanos == 0 ? 0 : faceCount * 1e9 / parseNanos;
+    }
+
+    // ***************** Parsing ********************** //
+
+    /**
+     * Parses the whole input, line by line
+     *
+     * @throws IOException on an I/O error
+     */
+    private void parse() throws IOException {
+        int c;
+        while ((c = next()) >= 0) {
+            ++line;
+            // skip the indentation
+            while (c == ' ' || c == '\t') c = next();
+            if (c == 'v') {
+                c = next();
+                if (c == ' ' || c == '\t') vertex();
+                else skipLine(c);
+            } else if (c == 'f') {
+                c = next();
+                if (c == ' ' || c == '\t') face();
+                else skipLine(c);
+            } else {
+                skipLine(c);
+            }
+        }
+    }
+
+    /**
+     * @return the next byte of the input, or -1 at its end
+     * @throws IOException on an I/O error
+     */
+    private int next() throws IOException {
+        if (position == limit) {
+            limit = in.read(block, 0, BLOCK_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return block[position++] & 0xFF;
+    }
+
+    /**
+     * Takes the last byte back, so that {@link #next()} returns it again
+     */
+    private void back() {
+        --position;
+    }
+
+    /**
+     * Skips the rest of the line
+     *
+     * @param c the current byte
+     * @throws IOException on an I/O error
+     */
+    private void skipLine(int c) throws IOException {
+        while (c >= 0 && c != '\n') c = next();
+    }
+
+    /**
+     * Skips spaces and tabs
+     *
+     * @return the first other byte, or -1 at the end of the input
+     * @throws IOException on an I/O error
+     */
+    private int skipSpaces() throws IOException {
+        int c = next();
+        while (c == ' ' || c == '\t') c = next();
+        return c;
+    }
+
+    /**
+     * Reads a vertex line - three coordinates, and an optional weight that is
+     * ignored
+     *
+     * @throws IOException on an I/O error
+     */
+    private void vertex() throws IOException {
+        if (3 * vertexCount == vertices.length)
+            vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+        int at = 3 * vertexCount;
+        for (int axis = 0; axis < 3; ++axis)
+            vertices[at + axis] = number();
+        ++vertexCount;
+        skipLine(next());
+    }
+
+    /**
+     * Reads a face line and adds its fan of triangles
+     *
+     * @throws IOException on an I/O error
+     */
+    private void face() throws IOException {
+        int n = 0;
+        int c = skipSpaces();
+        while (c >= 0 && c != '\n' && c != '\r' && c != '#') {
+            back();
+            if (n == polygon.length) polygon = Arrays.copyOf(polygon, 2 * n);
+            polygon[n++] = index();
+            c = skipSpaces();
+        }
+        skipLine(c);
+        if (n < 3)
+            throw error("A face must have at least 3 vertices");
+
+        for (int k = 1; k < n - 1; ++k) {
+            if (3 * faceCount == faces.length)
+                faces = Arrays.copyOf(faces, 2 * faces.length);
+            int at = 3 * faceCount++;
+            faces[at] = polygon[0];
+            faces[at + 1] = polygon[k];
+            faces[at + 2] = polygon[k + 1];
+        }
+    }
+
+    /**
+     * Reads a vertex reference of a face - a vertex index, optionally followed by
+     * texture and normal indices that are skipped
+     *
+     * @return the zero based index of the vertex
+     * @throws IOException on an I/O error
+     */
+    private int index() throws IOException {
+        int c = next();
+        boolean negative = c == '-';
+        if (negative) c = next();
+        if (c < '0' || c > '9')
+            throw error("Bad vertex index");
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) throw error("Vertex index too large");
+            c = next();
+        }
+        // skip the texture and normal indices
+        while (c >= 0 && c != ' ' && c != '\t' && c != '\n' && c != '\r') c = next();
+        if (c >= 0) back();
+
+        long index = negative ? vertexCount - value : value - 1;
+        if (value == 0 || index < 0 || index >= vertexCount)
+            throw error("Face refers to a missing vertex");
+        return (int) index;
+    }
+
+    /**
+     * Reads a decimal number. Numbers of up to 18 significant digits with small
+     * exponents are computed exactly from their digits; any other number is
+     * passed to {@link Double#parseDouble(String)}.
+     *
+     * @return the number
+     * @throws IOException on an I/O error
+     */
+    private double number() throws IOException {
+        int c = skipSpaces();
+        boolean negative = c == '-';
+        if (c == '-' || c == '+') c = next();
+
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean any = false;
+        for (boolean fraction = false; ; c = next()) {
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) ++digits;
+                    if (fraction) --exponent;
+                } else if (!fraction) {
+                    ++exponent; // an insignificant digit of the integer part
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            // nan, inf and other words - rare, so a string may be built for them
+            StringBuilder text = new StringBuilder();
+            if (negative) text.append('-');
+            while (c >= 0 && c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                text.append((char) c);
+                c = next();
+            }
+            if (c >= 0) back();
+            try {
+                return Double.parseDouble(text.toString());
+            } catch (NumberFormatException e) {
+                throw error("Bad number " + text);
+            }
+        }
+        if (c == 'e' || c == 'E') {
+            c = next();
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') c = next();
+            if (c < '0' || c > '9')
+                throw error("Bad number exponent");
+            int e = 0;
+            while (c >= '0' && c <= '9') {
+                if (e < 10000) e = e * 10 + (c - '0');
+                c = next();
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (c >= 0) back();
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length && mantissa < 1L << 53) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length && mantissa < 1L << 53) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            value = Double.parseDouble(mantissa + "E" + exponent);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @param message what is wrong
+     * @return an exception for a malformed input, with the line number
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " in OBJ line " + line);
+    }
+}
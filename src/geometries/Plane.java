@@ -15,9 +15,9 @@ import static primitives.Util.isZero;
 public class Plane extends Geometry
 {
     // A point on the plane
-    final private Point point;
+    final Point point;
     // The normal vector to the plane
-    final private Vector normal;
+    final Vector normal;
     /**
      * Constructs a new Plane object with the specified point on the plane and its normal vector.
      *
@@ -65,6 +65,16 @@ public class Plane extends Geometry
         return normal;
     }
 
+    /**
+     * A plane is infinite, so it has no bounding box.
+     *
+     * @return null
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
     /**
      * Computes the intersection points of a given {@link Ray} with the plane. If
      * the ray doesn't intersect the plane, the method returns null.
@@ -75,20 +85,84 @@ public class Plane extends Geometry
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        double t = findIntersectionT(ray);
+        return t <= 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
+
+    /**
+     * Computes the intersection of a given {@link Ray} with the plane, if it is
+     * nearer than maxDistance.
+     *
+     * @param ray         the ray to intersect with the plane
+     * @param maxDistance only an intersection nearer than this distance counts
+     * @return the intersection point, or null
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double t = findIntersectionT(ray);
+        return t <= 0 || t >= maxDistance ? null : new GeoPoint(this, ray.getPoint(t), t);
+    }
+
+    /**
+     * Intersects a packet of rays with the plane - the calculation of
+     * {@link #findIntersectionT(Ray)}, on the coordinate arrays of the packet
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet) {
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        for (int r = packet.first; r < packet.size; ++r) {
+            double nv = nx * packet.dx[r] + ny * packet.dy[r] + nz * packet.dz[r];
+            if (isZero(nv)) // parallel to the plane
+                continue;
+            double dx = point.getX() - packet.ox[r], dy = point.getY() - packet.oy[r], dz = point.getZ() - packet.oz[r];
+            if (isZero(dx) && isZero(dy) && isZero(dz)) // starts at the point of the plane
+                continue;
+            double t = alignZero((nx * dx + ny * dy + nz * dz) / nv);
+            if (t > 0 && t < packet.t[r]) {
+                packet.hits[r] = new GeoPoint(this, packet.rays[r].getPoint(t), t);
+                packet.t[r] = t;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the plane is crossed by the ray before a given distance,
+     * without creating the intersection point.
+     *
+     * @param ray         the ray to check
+     * @param maxDistance only an intersection nearer than this distance blocks
+     * @return true if the ray crosses the plane nearer than maxDistance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        double t = findIntersectionT(ray);
+        return t > 0 && t < maxDistance;
+    }
+
+    /**
+     * Calculates the ray parameter t at which the ray intersects the plane. Works
+     * on the coordinates, so that nothing is allocated.
+     *
+     * @param ray the ray to intersect with the plane
+     * @return the parameter t, or 0 if the ray doesn't intersect the plane in front
+     *         of its head
+     */
+    double findIntersectionT(Ray ray) {
         // Calculate the dot product of the plane's normal vector with the ray's
         // direction vector
         double nv = normal.dotProduct(ray.direction);
         if (isZero(nv)) { // if the dot product is zero, the ray is parallel to the plane and doesn't
             // intersect
-            return null;
-        }
-        try {
-            // Calculate the parameter t at which the ray intersects the plane
-            Vector pSubtractP0 = point.subtract(ray.head);
-            double t = alignZero((normal.dotProduct(pSubtractP0)) / nv);
-            return t <= 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
-        } catch (Exception ex) { // if an exception occurs during the calculation, return null
-            return null;
+            return 0;
         }
+        // the vector from the ray head to the point of the plane
+        double dx = point.getX() - ray.head.getX();
+        double dy = point.getY() - ray.head.getY();
+        double dz = point.getZ() - ray.head.getZ();
+        if (isZero(dx) && isZero(dy) && isZero(dz)) // the ray starts at the point of the plane
+            return 0;
+        // Calculate the parameter t at which the ray intersects the plane
+        double t = alignZero((normal.getX() * dx + normal.getY() * dy + normal.getZ() * dz) / nv);
+        return t <= 0 ? 0 : t;
     }
 }
@@ -1,6 +1,5 @@
 package geometries;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static primitives.Util.isZero;
@@ -23,6 +22,8 @@ public class Polygon extends Geometry {
     protected final Plane       plane;
     /** The size of the polygon - the amount of the vertices in the polygon */
     private final int size;
+    /** The axis-aligned box bounding the polygon's vertices */
+    protected final BoundingBox box;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -50,6 +51,7 @@ public class Polygon extends Geometry {
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
         this.vertices = List.of(vertices);
         size          = vertices.length;
+        box           = new BoundingBox(vertices);
 
         // Generate the plane according to the first three vertices and associate the
         // polygon with this plane.
@@ -86,6 +88,9 @@ public class Polygon extends Geometry {
     @Override
     public Vector getNormal(Point point) { return plane.getNormal(); }
 
+    @Override
+    public BoundingBox getBoundingBox() { return box; }
+
 
     /**
      * Computes the intersection points between a given ray and the polygon.
@@ -96,29 +101,102 @@ public class Polygon extends Geometry {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        double t = findIntersectionT(ray, Double.POSITIVE_INFINITY);
+        return t == 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
+
+    /**
+     * Computes the intersection between a given ray and the polygon, if it is
+     * nearer than maxDistance.
+     *
+     * @param ray         the ray to intersect with the polygon
+     * @param maxDistance only an intersection nearer than this distance counts
+     * @return the intersection point, or null
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double t = findIntersectionT(ray, maxDistance);
+        return t == 0 ? null : new GeoPoint(this, ray.getPoint(t), t);
+    }
+
+    /**
+     * Checks whether the polygon blocks the ray before a given distance, without
+     * creating the intersection point.
+     *
+     * @param ray         the ray to check
+     * @param maxDistance only an intersection nearer than this distance blocks
+     * @return true if the ray crosses the polygon nearer than maxDistance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return findIntersectionT(ray, maxDistance) != 0;
+    }
 
+    /**
+     * Calculates the ray parameter t at which the ray intersects the polygon. The
+     * plane is intersected before the edges are tested, since it rejects a far
+     * intersection cheaper. Nothing is allocated on the way.
+     *
+     * @param ray         the ray to intersect with the polygon
+     * @param maxDistance only an intersection nearer than this distance counts
+     * @return the parameter t, or 0 if there is no intersection nearer than
+     *         maxDistance
+     */
+    private double findIntersectionT(Ray ray, double maxDistance) {
+        if (!box.intersects(ray, maxDistance))
+            return 0;
+        double t = plane.findIntersectionT(ray);
+        return t == 0 || t >= maxDistance || !isInside(ray) ? 0 : t;
+    }
+
+    /**
+     * Checks whether the line of the ray passes inside the polygon's edges. For
+     * each edge, the normal of the triangle it forms with the ray head is
+     * calculated by coordinates, so that nothing is allocated.
+     *
+     * @param ray the ray to check
+     * @return true if the ray's line crosses the polygon's interior
+     */
+    protected boolean isInside(Ray ray) {
         int len = vertices.size();
         Point p0 = ray.head;
         Vector v = ray.direction;
-        List<Vector> vectors = new ArrayList<>(len);
-
-        // all the vectors
-        for (Point vertex : vertices) {
-            vectors.add(vertex.subtract(p0));
-        }
 
         int sign = 0;
         for (int i = 0; i < len; i++) {
             // calculate the normal using the formula in the course slides
-            Vector n = vectors.get(i).crossProduct(vectors.get((i + 1) % len)).normalize();
-            double dotProd = v.dotProduct(n);
+            double dotProd = edgeNormalDotProduct(p0, vertices.get(i), vertices.get((i + 1) % len), v);
 
             if (i == 0)
                 sign = dotProd > 0 ? 1 : -1;
 
             if (!compareSign(sign, dotProd) || isZero(dotProd))
-                return null;
+                return false;
         }
-        return plane.findGeoIntersectionsHelper(ray);
+        return true;
+    }
+
+    /**
+     * Calculates the dot product of a direction with the normalized normal of the
+     * triangle formed by the ray head and an edge - the same as
+     * {@code v.dotProduct(a.subtract(p0).crossProduct(b.subtract(p0)).normalize())}
+     * without the intermediate vectors.
+     *
+     * @param p0 the ray head
+     * @param a  the first vertex of the edge
+     * @param b  the second vertex of the edge
+     * @param v  the direction
+     * @return the dot product, or 0 if the ray head lies on the line of the edge
+     */
+    static double edgeNormalDotProduct(Point p0, Point a, Point b, Vector v) {
+        double ax = a.getX() - p0.getX(), ay = a.getY() - p0.getY(), az = a.getZ() - p0.getZ();
+        double bx = b.getX() - p0.getX(), by = b.getY() - p0.getY(), bz = b.getZ() - p0.getZ();
+        double nx = ay * bz - az * by;
+        double ny = az * bx - ax * bz;
+        double nz = ax * by - ay * bx;
+        if (isZero(nx) && isZero(ny) && isZero(nz))
+            return 0;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        return v.getX() * (nx / length) + v.getY() * (ny / length) + v.getZ() * (nz / length);
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Point;
+import primitives.Ray;
+
+/**
+ * A packet of coherent rays - e.g. the primary rays of a block of neighboring
+ * pixels - that are intersected with the geometries together (see
+ * {@link Intersectable#findClosestGeoIntersections(RayPacket)}).
+ * <p>
+ * The rays are kept as structure of arrays: a primitive array for every
+ * coordinate of the heads, the directions and the inverse directions, so the
+ * intersectors of the simple geometries run tight loops over consecutive
+ * doubles, and a hierarchy node is visited once for the whole packet instead of
+ * once per ray. For every ray the packet holds its closest intersection found
+ * so far and its distance, which is the limit for the rest of the search.
+ * <p>
+ * A packet is reused for many blocks of rays: it is cleared, filled with
+ * {@link #add(Ray)} and intersected. It is not thread-safe - every thread
+ * keeps its own packet.
+ */
+public final class RayPacket {
+    /** The rays */
+    final Ray[]      rays;
+    /** Ray heads */
+    final double[]   ox, oy, oz;
+    /** Ray directions */
+    final double[]   dx, dy, dz;
+    /** Inverse ray directions, for the box tests (see {@link BoundingBox#inverse(double)}) */
+    final double[]   ix, iy, iz;
+    /** Distance of the closest intersection of each ray found so far - the
+     * limit of the rest of the search */
+    final double[]   t;
+    /** The closest intersection of each ray found so far (null if none) */
+    final GeoPoint[] hits;
+    /** Amount of rays in the packet */
+    int              size = 0;
+    /** Index of the first active ray - the intersectors skip the rays before it,
+     * which a hierarchy traversal found to miss the node being visited */
+    int              first = 0;
+
+    /**
+     * Creates an empty packet
+     *
+     * @param capacity the maximal amount of rays in the packet
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public RayPacket(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Ray packet capacity must be positive");
+        rays = new Ray[capacity];
+        ox = new double[capacity];
+        oy = new double[capacity];
+        oz = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        dz = new double[capacity];
+        ix = new double[capacity];
+        iy = new double[capacity];
+        iz = new double[capacity];
+        t = new double[capacity];
+        hits = new GeoPoint[capacity];
+    }
+
+    /**
+     * Removes all the rays from the packet
+     *
+     * @return the packet itself
+     */
+    public RayPacket clear() {
+        for (int r = 0; r < size; ++r) {
+            rays[r] = null;
+            hits[r] = null;
+        }
+        size = 0;
+        first = 0;
+        return this;
+    }
+
+    /**
+     * Adds a ray to the packet, with no intersection found yet
+     *
+     * @param ray the ray
+     * @return the packet itself
+     * @throws IllegalStateException if the packet is full
+     */
+    public RayPacket add(Ray ray) {
+        if (size == rays.length) throw new IllegalStateException("Ray packet is full");
+        Point head = ray.head;
+        Point dir = ray.direction;
+        int r = size++;
+        rays[r] = ray;
+        ox[r] = head.getX();
+        oy[r] = head.getY();
+        oz[r] = head.getZ();
+        dx[r] = dir.getX();
+        dy[r] = dir.getY();
+        dz[r] = dir.getZ();
+        ix[r] = BoundingBox.inverse(dx[r]);
+        iy[r] = BoundingBox.inverse(dy[r]);
+        iz[r] = BoundingBox.inverse(dz[r]);
+        t[r] = Double.POSITIVE_INFINITY;
+        hits[r] = null;
+        return this;
+    }
+
+    /**
+     * @return the amount of rays in the packet
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param r index of a ray in the packet
+     * @return the ray
+     */
+    public Ray getRay(int r) {
+        return rays[r];
+    }
+
+    /**
+     * @param r index of a ray in the packet
+     * @return the closest intersection of the ray, null if it has none
+     */
+    public GeoPoint getHit(int r) {
+        return hits[r];
+    }
+
+    /**
+     * Records an intersection of a ray if it is nearer than the closest one so far
+     *
+     * @param r  index of the ray
+     * @param gp the intersection, with its distance
+     */
+    void offer(int r, GeoPoint gp) {
+        if (gp != null && gp.t < t[r]) {
+            hits[r] = gp;
+            t[r] = gp.t;
+        }
+    }
+
+    /**
+     * Slab test of a hierarchy node against the rays of the packet, each up to
+     * its closest intersection so far (see {@link BoundingBox#slab})
+     *
+     * @param from   index of the first ray to test
+     * @param bounds the boxes of the hierarchy nodes (see
+     *               {@link BoxHierarchy#bounds})
+     * @param node   index of the node
+     * @return index of the first ray from the given one that enters the box
+     *         before its closest intersection, -1 if none does
+     */
+    int firstEntering(int from, double[] bounds, int node) {
+        int at = 6 * node;
+        double minX = bounds[at], minY = bounds[at + 1], minZ = bounds[at + 2];
+        double maxX = bounds[at + 3], maxY = bounds[at + 4], maxZ = bounds[at + 5];
+        for (int r = from; r < size; ++r)
+            if (BoundingBox.slab(minX, minY, minZ, maxX, maxY, maxZ, ox[r], oy[r], oz[r], ix[r], iy[r], iz[r], t[r])
+                    != Double.POSITIVE_INFINITY)
+                return r;
+        return -1;
+    }
+}
@@ -7,6 +7,7 @@ import primitives.Vector;
 import java.util.List;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * The Sphere class represents a sphere in 3D space, defined by its center point and radius.
@@ -15,7 +16,9 @@ import static primitives.Util.alignZero;
 public class Sphere extends RadialGeometry
 {
     // The center point of the sphere
-    final private Point center;
+    final Point center;
+    // The axis-aligned box bounding the sphere
+    final private BoundingBox box;
     /**
      * Constructs a new Sphere object with the specified center point and radius.
      *
@@ -26,6 +29,8 @@ public class Sphere extends RadialGeometry
     {
         super(radius);
         this.center = center;
+        this.box = new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
     }
     /**
      * Returns the normal vector to the sphere at the specified point (not implemented).
@@ -36,7 +41,12 @@ public class Sphere extends RadialGeometry
     @Override
     public Vector getNormal(Point p)
     {
-        return (p.subtract(center).normalize());
+        return Vector.normalized(p.getX() - center.getX(), p.getY() - center.getY(), p.getZ() - center.getZ());
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
     }
 
     /**
@@ -47,6 +57,8 @@ public class Sphere extends RadialGeometry
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        if (!box.intersects(ray))
+            return null;
         Point p0 = ray.head;
 
         // If the beginning point of the ray is on the sphere center, return the point
@@ -54,10 +66,8 @@ public class Sphere extends RadialGeometry
         if (p0.equals(center))
             return List.of(new GeoPoint(this, ray.getPoint(radius)));
 
-        Vector u = center.subtract(p0);
-        double tM = alignZero(ray.direction.dotProduct(u));
-        double d2 = u.lengthSquared() - tM * tM; // squared d
-        double delta2 = alignZero((radius*radius) - d2);
+        double tM = projection(ray);
+        double delta2 = alignZero((radius*radius) - distanceSquared(ray, tM));
 
         // If there are no intersections, return null
         if (delta2 <= 0)
@@ -73,4 +83,120 @@ public class Sphere extends RadialGeometry
         return t1 <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t2))) // P2 only
                 : List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2))); // P1 & P2
     }
+
+    /**
+     * Finds the nearer intersection of a given ray with the sphere - P1 if it is in
+     * front of the ray head, P2 otherwise.
+     *
+     * @param ray         the ray to intersect with the sphere
+     * @param maxDistance only an intersection nearer than this distance counts
+     * @return the closest intersection point, or null
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double t = findClosestT(ray, maxDistance);
+        return t == 0 ? null : new GeoPoint(this, ray.getPoint(t), t);
+    }
+
+    /**
+     * Intersects a packet of rays with the sphere - the calculation of
+     * {@link #findClosestGeoIntersectionHelper(Ray, double)}, on the coordinate
+     * arrays of the packet
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet) {
+        double cx = center.getX(), cy = center.getY(), cz = center.getZ(), r2 = radius * radius;
+        for (int r = packet.first; r < packet.size; ++r) {
+            double maxDistance = packet.t[r];
+            if (box.intersect(packet.ox[r], packet.oy[r], packet.oz[r], packet.ix[r], packet.iy[r], packet.iz[r],
+                    maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            double ux = cx - packet.ox[r], uy = cy - packet.oy[r], uz = cz - packet.oz[r];
+            double t;
+            if (isZero(ux) && isZero(uy) && isZero(uz)) { // the ray starts at the center
+                t = radius;
+            } else {
+                double tM = alignZero(packet.dx[r] * ux + packet.dy[r] * uy + packet.dz[r] * uz);
+                double delta2 = alignZero(r2 - (ux * ux + uy * uy + uz * uz - tM * tM));
+                if (delta2 <= 0)
+                    continue;
+                double tH = Math.sqrt(delta2);
+                t = alignZero(tM - tH); // P1
+                if (t <= 0)
+                    t = alignZero(tM + tH); // P2
+                if (t <= 0)
+                    continue;
+            }
+            if (t < maxDistance) {
+                packet.hits[r] = new GeoPoint(this, packet.rays[r].getPoint(t), t);
+                packet.t[r] = t;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the sphere blocks the ray before a given distance, without
+     * creating the intersection point.
+     *
+     * @param ray         the ray to check
+     * @param maxDistance only an intersection nearer than this distance blocks
+     * @return true if the ray crosses the sphere nearer than maxDistance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return findClosestT(ray, maxDistance) != 0;
+    }
+
+    /**
+     * Calculates the ray parameter of the nearer intersection in front of the ray
+     * head. Nothing is allocated on the way.
+     *
+     * @param ray         the ray to intersect with the sphere
+     * @param maxDistance only an intersection nearer than this distance counts
+     * @return the parameter t, or 0 if there is no intersection nearer than
+     *         maxDistance
+     */
+    private double findClosestT(Ray ray, double maxDistance) {
+        if (!box.intersects(ray, maxDistance))
+            return 0;
+        if (ray.head.equals(center))
+            return radius < maxDistance ? radius : 0;
+
+        double tM = projection(ray);
+        double delta2 = alignZero((radius*radius) - distanceSquared(ray, tM));
+        if (delta2 <= 0)
+            return 0;
+
+        double tH = Math.sqrt(delta2);
+        double t = alignZero(tM - tH); // P1
+        if (t <= 0)
+            t = alignZero(tM + tH); // P2
+        return t <= 0 || t >= maxDistance ? 0 : t;
+    }
+
+    /**
+     * Calculates the ray parameter of the projection of the center on the ray
+     *
+     * @param ray the ray
+     * @return the parameter tM
+     */
+    private double projection(Ray ray) {
+        Vector v = ray.direction;
+        return alignZero(v.getX() * (center.getX() - ray.head.getX()) + v.getY() * (center.getY() - ray.head.getY())
+                + v.getZ() * (center.getZ() - ray.head.getZ()));
+    }
+
+    /**
+     * Calculates the squared distance of the center from the ray
+     *
+     * @param ray the ray
+     * @param tM  the ray parameter of the projection of the center on the ray
+     * @return the squared distance d
+     */
+    private double distanceSquared(Ray ray, double tM) {
+        double ux = center.getX() - ray.head.getX();
+        double uy = center.getY() - ray.head.getY();
+        double uz = center.getZ() - ray.head.getZ();
+        return ux * ux + uy * uy + uz * uz - tM * tM;
+    }
 }
@@ -12,9 +12,23 @@ import static primitives.Util.isZero;
 /**
  * The Triangle class represents a triangle in 3D space, defined by its three vertices.
  * It extends the Polygon class.
+ * <p>
+ * The intersection is calculated by the Moller-Trumbore algorithm over the
+ * edges from the first vertex, which are precomputed by coordinates. A single
+ * test gives the ray parameter and the barycentric coordinates of the point, and
+ * nothing is allocated unless the ray hits the triangle.
  */
 public class Triangle extends Polygon
 {
+    // The first vertex of the triangle
+    private final double v0x, v0y, v0z;
+    // The edge from the first vertex to the second one
+    private final double e1x, e1y, e1z;
+    // The edge from the first vertex to the third one
+    private final double e2x, e2y, e2z;
+    // The inverse of the length of the cross product of the edges - of twice the area
+    private final double invArea2;
+
     /**
      * Constructs a new Triangle object with the specified vertices.
      *
@@ -25,45 +39,127 @@ public class Triangle extends Polygon
     public Triangle(Point p1, Point p2, Point p3)
     {
         super(p1, p2, p3);
+        v0x = p1.getX();
+        v0y = p1.getY();
+        v0z = p1.getZ();
+        e1x = p2.getX() - v0x;
+        e1y = p2.getY() - v0y;
+        e1z = p2.getZ() - v0z;
+        e2x = p3.getX() - v0x;
+        e2y = p3.getY() - v0y;
+        e2z = p3.getZ() - v0z;
+        double nx = e1y * e2z - e1z * e2y;
+        double ny = e1z * e2x - e1x * e2z;
+        double nz = e1x * e2y - e1y * e2x;
+        invArea2 = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
     }
 
     /**
-     * Computes the intersections of a given ray with this triangle.
+     * Computes the intersection point between a given ray and the triangle.
      *
-     * @param ray the ray to intersect with this triangle
-     * @return a list of intersection points between the ray and the triangle, or
-     *         null if there are no intersections
+     * @param ray the ray to find intersections with the triangle
+     * @return a list with the intersection point, or null if there is no
+     *         intersection
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> planeIntersection = this.plane.findGeoIntersections(ray);
-        if (planeIntersection == null)
-            return null;
-
-        // Check if the ray starts at one of the triangle's vertices
-        Point rayP0 = ray.head;
-        Vector rayDir = ray.direction;
+        GeoPoint gp = findClosestGeoIntersectionHelper(ray, Double.POSITIVE_INFINITY);
+        return gp == null ? null : List.of(gp);
+    }
 
-        // Calculate the normals of the triangle's three edges
-        Vector v1 = this.vertices.get(0).subtract(rayP0);
-        Vector v2 = this.vertices.get(1).subtract(rayP0);
-        Vector n1 = v1.crossProduct(v2).normalize();
-        double vn1 = alignZero(rayDir.dotProduct(n1));
-        if (vn1 == 0)
+    /**
+     * Computes the intersection between a given ray and the triangle, if it is
+     * nearer than maxDistance. The point carries the ray parameter and its
+     * barycentric coordinates.
+     *
+     * @param ray         the ray to intersect with the triangle
+     * @param maxDistance only an intersection nearer than this distance counts
+     * @return the intersection point, or null
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Vector d = ray.direction;
+        // P = d x e2
+        double px = d.getY() * e2z - d.getZ() * e2y;
+        double py = d.getZ() * e2x - d.getX() * e2z;
+        double pz = d.getX() * e2y - d.getY() * e2x;
+        // the determinant is -d.n times twice the area - zero if the ray is parallel
+        // to the triangle
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det * invArea2))
             return null;
+        double invDet = 1 / det;
 
-        Vector v3 = this.vertices.get(2).subtract(rayP0);
-        Vector n2 = v2.crossProduct(v3).normalize();
-        double vn2 = alignZero(rayDir.dotProduct(n2));
-        if (vn1 * vn2 <= 0)
+        // T = p0 - v0, u = T.P / det
+        double tx = ray.head.getX() - v0x;
+        double ty = ray.head.getY() - v0y;
+        double tz = ray.head.getZ() - v0z;
+        double u = alignZero((tx * px + ty * py + tz * pz) * invDet);
+        if (u <= 0 || u >= 1)
             return null;
 
-        Vector n3 = v3.crossProduct(v1).normalize();
-        double vn3 = rayDir.dotProduct(n3);
-        if (vn1 * vn3 <= 0)
+        // Q = T x e1, v = d.Q / det
+        double qx = ty * e1z - tz * e1y;
+        double qy = tz * e1x - tx * e1z;
+        double qz = tx * e1y - ty * e1x;
+        double v = alignZero((d.getX() * qx + d.getY() * qy + d.getZ() * qz) * invDet);
+        if (v <= 0 || alignZero(u + v - 1) >= 0)
             return null;
 
-        planeIntersection.get(0).geometry = this;
-        return planeIntersection;
+        // t = e2.Q / det
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        return t <= 0 || t >= maxDistance ? null : new GeoPoint(this, ray.getPoint(t), t, u, v);
+    }
+
+    /**
+     * Intersects a packet of rays with the triangle - the calculation of
+     * {@link #findClosestGeoIntersectionHelper(Ray, double)}, on the coordinate
+     * arrays of the packet
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet) {
+        for (int r = packet.first; r < packet.size; ++r) {
+            double dx = packet.dx[r], dy = packet.dy[r], dz = packet.dz[r];
+            double px = dy * e2z - dz * e2y;
+            double py = dz * e2x - dx * e2z;
+            double pz = dx * e2y - dy * e2x;
+            double det = e1x * px + e1y * py + e1z * pz;
+            if (isZero(det * invArea2))
+                continue;
+            double invDet = 1 / det;
+
+            double tx = packet.ox[r] - v0x;
+            double ty = packet.oy[r] - v0y;
+            double tz = packet.oz[r] - v0z;
+            double u = alignZero((tx * px + ty * py + tz * pz) * invDet);
+            if (u <= 0 || u >= 1)
+                continue;
+
+            double qx = ty * e1z - tz * e1y;
+            double qy = tz * e1x - tx * e1z;
+            double qz = tx * e1y - ty * e1x;
+            double v = alignZero((dx * qx + dy * qy + dz * qz) * invDet);
+            if (v <= 0 || alignZero(u + v - 1) >= 0)
+                continue;
+
+            double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+            if (t > 0 && t < packet.t[r]) {
+                packet.hits[r] = new GeoPoint(this, packet.rays[r].getPoint(t), t, u, v);
+                packet.t[r] = t;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the triangle blocks the ray before a given distance. The
+     * same test as the closest hit, since the point is created only on a hit.
+     *
+     * @param ray         the ray to check
+     * @param maxDistance only an intersection nearer than this distance blocks
+     * @return true if the ray crosses the triangle nearer than maxDistance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return findClosestGeoIntersectionHelper(ray, maxDistance) != null;
     }
 }
@@ -0,0 +1,485 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Indexed triangle mesh - many triangles that share their vertices, one
+ * material and one emission. The vertices are kept as coordinates in a single
+ * double array, and the triangles (faces) as triples of vertex indices in a
+ * single int array, so a mesh of a million triangles takes tens of megabytes
+ * instead of a million {@link Triangle} objects.
+ * <p>
+ * The mesh has its own bounding volume hierarchy over the boxes of the faces,
+ * built in the constructor by {@link BoxHierarchy} with the binned surface area
+ * heuristic and kept in its flat arrays. The faces are reordered so that every
+ * leaf refers to a contiguous range of them. The traversals are iterative, on a
+ * stack that every thread preallocates once to the depth of the hierarchy.
+ * <p>
+ * The intersection points carry the index of the face they hit and their
+ * barycentric coordinates on it.
+ */
+public class TriangleMesh extends Geometry {
+    /** The vertices - x, y and z of each vertex */
+    final double[]         vertices;
+    /** The faces - indices of the three vertices of each face, in leaf order */
+    final int[]            faces;
+    /** Bounding boxes of the hierarchy nodes, as in {@link BoxHierarchy#bounds} */
+    final double[]         bounds;
+    /** Links of the hierarchy nodes, as in {@link BoxHierarchy#nodes} - the
+     * primitives of a leaf are a range of the faces */
+    final int[]            nodes;
+    /** The box bounding the whole mesh */
+    private final BoundingBox box;
+    /** Time of building the hierarchy, in nanoseconds (0 if it was restored) */
+    private final long buildNanos;
+    /** Traversal state of each thread */
+    private final ThreadLocal<Query> traversal;
+
+    /**
+     * Constructs a mesh and builds its hierarchy. The arrays are copied.
+     *
+     * @param vertices the coordinates of the vertices - x, y and z of each vertex
+     * @param faces    the indices of the three vertices of each triangle, the
+     *                 first vertex being 0
+     * @throws IllegalArgumentException if there are no faces, an array is not of
+     *                                  triples or a face refers to a missing vertex
+     */
+    public TriangleMesh(double[] vertices, int[] faces) {
+        this(vertices, faces, true);
+    }
+
+    /**
+     * Constructs a mesh and builds its hierarchy, optionally taking over the
+     * vertices array instead of copying it - for loaders that build the arrays
+     * themselves
+     *
+     * @param vertices the coordinates of the vertices - x, y and z of each vertex
+     * @param faces    the indices of the three vertices of each triangle, the
+     *                 first vertex being 0
+     * @param copy     whether to copy the vertices array
+     * @throws IllegalArgumentException if there are no faces, an array is not of
+     *                                  triples or a face refers to a missing vertex
+     */
+    TriangleMesh(double[] vertices, int[] faces, boolean copy) {
+        checkFaces(vertices, faces);
+        this.vertices = copy ? vertices.clone() : vertices;
+
+        int n = faces.length / 3;
+        long start = System.nanoTime();
+        double[] boxes = new double[6 * n];
+        int[] order = new int[n];
+        for (int f = 0; f < n; ++f) {
+            order[f] = f;
+            for (int axis = 0; axis < 3; ++axis) {
+                double a = vertices[3 * faces[3 * f] + axis];
+                double b = vertices[3 * faces[3 * f + 1] + axis];
+                double c = vertices[3 * faces[3 * f + 2] + axis];
+                boxes[6 * f + axis] = Math.min(a, Math.min(b, c));
+                boxes[6 * f + axis + 3] = Math.max(a, Math.max(b, c));
+            }
+        }
+        BoxHierarchy hierarchy = new BoxHierarchy(boxes, order, true);
+        bounds = hierarchy.bounds;
+        nodes = hierarchy.nodes;
+
+        // the faces in the order of the leaves
+        this.faces = new int[faces.length];
+        for (int f = 0; f < n; ++f)
+            System.arraycopy(faces, 3 * hierarchy.items[f], this.faces, 3 * f, 3);
+        box = new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        buildNanos = System.nanoTime() - start;
+        int depth = hierarchy.depth;
+        traversal = ThreadLocal.withInitial(() -> new Query(depth));
+    }
+
+    /**
+     * Restores a mesh whose hierarchy was built before, taking over its arrays
+     * without building the hierarchy again - for {@link GeometryCache}
+     *
+     * @param vertices the coordinates of the vertices - x, y and z of each vertex
+     * @param faces    the vertex indices of the faces, in leaf order
+     * @param bounds   the bounding boxes of the hierarchy nodes
+     * @param nodes    the links of the hierarchy nodes
+     * @throws IllegalArgumentException if the arrays do not make a valid mesh
+     */
+    TriangleMesh(double[] vertices, int[] faces, double[] bounds, int[] nodes) {
+        checkFaces(vertices, faces);
+        int depth = BoxHierarchy.check(bounds, nodes, faces.length / 3);
+        this.vertices = vertices;
+        this.faces = faces;
+        this.bounds = bounds;
+        this.nodes = nodes;
+        box = new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        buildNanos = 0;
+        traversal = ThreadLocal.withInitial(() -> new Query(depth));
+    }
+
+    /**
+     * Checks that the arrays of a mesh are consistent
+     *
+     * @param vertices the coordinates of the vertices
+     * @param faces    the vertex indices of the faces
+     * @throws IllegalArgumentException if there are no faces, an array is not of
+     *                                  triples or a face refers to a missing vertex
+     */
+    private static void checkFaces(double[] vertices, int[] faces) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("Vertices must be given as triples of coordinates");
+        if (faces.length == 0 || faces.length % 3 != 0)
+            throw new IllegalArgumentException("Faces must be given as triples of vertex indices");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("Face refers to a missing vertex " + index);
+    }
+
+    /**
+     * @return the amount of triangles in the mesh
+     */
+    public int getFaceCount() { return faces.length / 3; }
+
+    /**
+     * @return the amount of vertices in the mesh
+     */
+    public int getVertexCount() { return vertices.length / 3; }
+
+    /**
+     * @param index index of a vertex, the first vertex being 0
+     * @return the vertex
+     */
+    public Point getVertex(int index) {
+        Objects.checkIndex(index, getVertexCount());
+        return new Point(vertices[3 * index], vertices[3 * index + 1], vertices[3 * index + 2]);
+    }
+
+    /**
+     * @return the time of building the hierarchy of the mesh in nanoseconds, 0 if
+     *         the hierarchy was restored from a cache
+     */
+    public long getBuildNanos() { return buildNanos; }
+
+    @Override
+    public BoundingBox getBoundingBox() { return box; }
+
+    // ***************** Traversal ********************** //
+
+    /**
+     * State of the traversals of one thread - the stack and the ray of
+     * {@link BoxHierarchy.Traversal}, the ray direction for the face tests, and
+     * the closest intersection found so far
+     */
+    private static class Query extends BoxHierarchy.Traversal {
+        /** The ray */
+        Ray    ray;
+        /** Ray direction */
+        double dx, dy, dz;
+        /** The bound of the search - the ray parameter of the closest
+         * intersection found so far, or the maximal distance */
+        double t;
+        /** The face of the closest intersection found so far, -1 if none */
+        int    face;
+
+        /**
+         * @param depth the depth of the hierarchy
+         */
+        Query(int depth) {
+            super(depth);
+        }
+
+        /**
+         * Prepares a traversal for a ray
+         *
+         * @param ray         the ray
+         * @param maxDistance only intersections nearer than this distance count
+         * @return the traversal state
+         */
+        Query start(Ray ray, double maxDistance) {
+            start(ray);
+            this.ray = ray;
+            Vector dir = ray.direction;
+            dx = dir.getX();
+            dy = dir.getY();
+            dz = dir.getZ();
+            t = maxDistance;
+            face = -1;
+            return this;
+        }
+    }
+
+    /**
+     * Intersects the ray with a face by the Moller-Trumbore algorithm, the same
+     * way as {@link Triangle} does, without allocating anything. A face too thin
+     * to have a normal (see {@link #isDegenerate(int)}) is never hit, so every
+     * intersection can be shaded.
+     *
+     * @param q           the query
+     * @param face        index of the face
+     * @param maxDistance only an intersection nearer than this distance counts
+     * @param uv          if not null, receives the barycentric coordinates of the
+     *                    intersection
+     * @return the ray parameter of the intersection, or 0 if there is none nearer
+     *         than maxDistance
+     */
+    private double intersect(Query q, int face, double maxDistance, double[] uv) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double v0x = vertices[a], v0y = vertices[a + 1], v0z = vertices[a + 2];
+        double e1x = vertices[b] - v0x, e1y = vertices[b + 1] - v0y, e1z = vertices[b + 2] - v0z;
+        double e2x = vertices[c] - v0x, e2y = vertices[c + 1] - v0y, e2z = vertices[c + 2] - v0z;
+
+        // N = e1 x e2, of twice the area of the face
+        double nx = e1y * e2z - e1z * e2y;
+        double ny = e1z * e2x - e1x * e2z;
+        double nz = e1x * e2y - e1y * e2x;
+        if (isZero(nx) && isZero(ny) && isZero(nz))
+            return 0;
+
+        // P = d x e2
+        double px = q.dy * e2z - q.dz * e2y;
+        double py = q.dz * e2x - q.dx * e2z;
+        double pz = q.dx * e2y - q.dy * e2x;
+        // the determinant is -d.N - zero relative to the area if the ray is parallel
+        // to the face, as in Triangle (|det| / |N| below 2^-40), without the root
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (det * det < 0x1p-80 * (nx * nx + ny * ny + nz * nz))
+            return 0;
+        double invDet = 1 / det;
+
+        // T = p0 - v0, u = T.P / det
+        double tx = q.ox - v0x, ty = q.oy - v0y, tz = q.oz - v0z;
+        double u = alignZero((tx * px + ty * py + tz * pz) * invDet);
+        if (u <= 0 || u >= 1)
+            return 0;
+
+        // Q = T x e1, v = d.Q / det
+        double qx = ty * e1z - tz * e1y;
+        double qy = tz * e1x - tx * e1z;
+        double qz = tx * e1y - ty * e1x;
+        double v = alignZero((q.dx * qx + q.dy * qy + q.dz * qz) * invDet);
+        if (v <= 0 || alignZero(u + v - 1) >= 0)
+            return 0;
+
+        // t = e2.Q / det
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        if (t <= 0 || t >= maxDistance)
+            return 0;
+        if (uv != null) {
+            uv[0] = u;
+            uv[1] = v;
+        }
+        return t;
+    }
+
+    /**
+     * Creates the intersection point of the ray with a face
+     *
+     * @param q    the query
+     * @param face index of the face
+     * @param t    the ray parameter of the intersection
+     * @return the intersection point, with its face and barycentric coordinates
+     */
+    private GeoPoint geoPoint(Query q, int face, double t) {
+        double[] uv = new double[2];
+        intersect(q, face, Math.nextUp(t), uv);
+        GeoPoint gp = new GeoPoint(this, q.ray.getPoint(t), t, uv[0], uv[1]);
+        gp.face = face;
+        return gp;
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Query q = traversal.get().start(ray, maxDistance);
+        if (q.enter(bounds, 0, q.t) != Double.POSITIVE_INFINITY)
+            closest(q);
+        GeoPoint hit = q.face < 0 ? null : geoPoint(q, q.face, q.t);
+        q.ray = null;
+        return hit;
+    }
+
+    /**
+     * Closest-hit traversal of a hierarchy whose root box the ray is known to
+     * enter. Of the two children of a node the nearer one is visited first, and
+     * the farther one is put on the stack with the distance where the ray enters
+     * it - so it is skipped if a closer intersection is found by then.
+     *
+     * @param q the query
+     */
+    private void closest(Query q) {
+        int[] stack = q.stack;
+        double[] entries = q.entries;
+        int top = 0, node = 0;
+        while (true) {
+            int link = nodes[2 * node], count = nodes[2 * node + 1];
+            if (count == 0) {
+                int first = node + 1, second = link;
+                double tFirst = q.enter(bounds, first, q.t), tSecond = q.enter(bounds, second, q.t);
+                if (tSecond < tFirst) {
+                    first = link;
+                    second = node + 1;
+                    double tmp = tFirst;
+                    tFirst = tSecond;
+                    tSecond = tmp;
+                }
+                if (tFirst != Double.POSITIVE_INFINITY) {
+                    if (tSecond != Double.POSITIVE_INFINITY) {
+                        stack[top] = second;
+                        entries[top++] = tSecond;
+                    }
+                    node = first;
+                    continue;
+                }
+            } else {
+                for (int f = link, end = link + count; f < end; ++f) {
+                    double t = intersect(q, f, q.t, null);
+                    if (t != 0) {
+                        q.t = t;
+                        q.face = f;
+                    }
+                }
+            }
+            // the next node on the stack that the ray enters before the closest intersection
+            do {
+                if (top == 0) return;
+            } while (entries[--top] > q.t);
+            node = stack[top];
+        }
+    }
+
+    /**
+     * Any-hit traversal - returns at the first face that blocks the ray
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        Query q = traversal.get().start(ray, maxDistance);
+        int[] stack = q.stack;
+        int top = 0, node = 0;
+        boolean occluded = false;
+        while (!occluded) {
+            if (q.enter(bounds, node, maxDistance) != Double.POSITIVE_INFINITY) {
+                int link = nodes[2 * node], count = nodes[2 * node + 1];
+                if (count == 0) { // visit the first child now and the second one later
+                    stack[top++] = link;
+                    ++node;
+                    continue;
+                }
+                for (int f = link, end = link + count; f < end && !occluded; ++f)
+                    occluded = intersect(q, f, maxDistance, null) != 0;
+            }
+            if (top == 0) break;
+            node = stack[--top];
+        }
+        q.ray = null;
+        return occluded;
+    }
+
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        Query q = traversal.get().start(ray, Double.POSITIVE_INFINITY);
+        List<GeoPoint> result = new LinkedList<>();
+        int[] stack = q.stack;
+        int top = 0, node = 0;
+        while (true) {
+            if (q.enter(bounds, node, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY) {
+                int link = nodes[2 * node], count = nodes[2 * node + 1];
+                if (count == 0) {
+                    stack[top++] = link;
+                    ++node;
+                    continue;
+                }
+                for (int f = link, end = link + count; f < end; ++f) {
+                    double t = intersect(q, f, Double.POSITIVE_INFINITY, null);
+                    if (t != 0)
+                        result.add(geoPoint(q, f, t));
+                }
+            }
+            if (top == 0) break;
+            node = stack[--top];
+        }
+        q.ray = null;
+        return result.isEmpty() ? null : result;
+    }
+
+    // ***************** Normals ********************** //
+
+    /**
+     * Calculates the normal of a face
+     *
+     * @param face index of the face
+     * @return the unit normal, by the right hand rule on the order of the face's
+     *         vertices
+     * @throws IllegalArgumentException if the face is degenerate
+     */
+    public Vector getNormal(int face) {
+        double[] n = crossEdges(face);
+        return Vector.normalized(n[0], n[1], n[2]);
+    }
+
+    /**
+     * @param face index of the face
+     * @return true if the face is too thin to have a normal - all the components
+     *         of the cross product of its edges are zero
+     */
+    private boolean isDegenerate(int face) {
+        double[] n = crossEdges(face);
+        return isZero(n[0]) && isZero(n[1]) && isZero(n[2]);
+    }
+
+    /**
+     * @param face index of the face
+     * @return the cross product of the edges from the first vertex of the face to
+     *         the second and to the third one
+     */
+    private double[] crossEdges(int face) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+        double e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+        double e2z = vertices[c + 2] - vertices[a + 2];
+        return new double[] { e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x };
+    }
+
+    /**
+     * Returns the normal of the face of an intersection point
+     *
+     * @param gp an intersection point of the mesh
+     * @return the unit normal of the face the point is on
+     */
+    @Override
+    public Vector getNormal(GeoPoint gp) {
+        return gp.face < 0 ? getNormal(gp.point) : getNormal(gp.face);
+    }
+
+    /**
+     * Returns the normal of the face a point is on. The face is searched among all
+     * the faces, skipping the degenerate ones - prefer
+     * {@link #getNormal(GeoPoint)} for intersection points.
+     *
+     * @param p a point on the mesh
+     * @return the unit normal of the face the point is on
+     * @throws IllegalArgumentException if the point is not on the mesh
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        for (int face = 0; face < getFaceCount(); ++face) {
+            if (isDegenerate(face)) continue;
+            Vector n = getNormal(face);
+            int a = 3 * faces[3 * face];
+            double distance = n.getX() * (p.getX() - vertices[a]) + n.getY() * (p.getY() - vertices[a + 1])
+                    + n.getZ() * (p.getZ() - vertices[a + 2]);
+            if (!isZero(distance)) continue;
+            // a ray from above the point, along the normal, hits the face at the point
+            Query q = new Query(0).start(new Ray(p.add(n), n.scale(-1)), 2);
+            if (intersect(q, face, 2, null) != 0)
+                return n;
+        }
+        throw new IllegalArgumentException("The point is not on the mesh");
+    }
+}
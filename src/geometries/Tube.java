@@ -49,6 +49,16 @@ public class Tube extends RadialGeometry
 
     }
 
+    /**
+     * A tube is infinite along its axis, so it has no bounding box.
+     *
+     * @return null
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
     /**
      *
      * This method finds the intersections of the given ray with this cylinder.
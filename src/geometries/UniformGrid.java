@@ -0,0 +1,424 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over the geometries of a {@link Geometries} list - an
+ * alternative to the {@link BVH} for dense scenes of similar-sized geometries.
+ * The box of the bounded geometries is divided into equal cells, every cell
+ * lists the geometries whose bounding boxes overlap it, and a ray walks only
+ * through the cells it pierces, in order along the ray (3D-DDA). Unbounded
+ * geometries (planes, tubes) cannot be put in the grid and are always tested.
+ * <br>
+ * The intersections are returned in the same order as the linear scan of the
+ * list would return them.
+ * <p>
+ * The resolution is chosen automatically from the amount of geometries and the
+ * shape of their box: about {@value #DENSITY} cells per geometry, in cubic
+ * cells as far as the box allows.
+ * <p>
+ * A geometry that overlaps several cells is listed in all of them, so every
+ * thread keeps a mailbox - the number of the last ray each geometry was tested
+ * with - and a geometry is intersected at most once per ray.
+ */
+class UniformGrid extends Intersectable {
+    /** Cells per geometry that the automatic resolution aims at */
+    private static final int DENSITY = 3;
+    /** Maximal amount of cells along an axis */
+    private static final int MAX_RESOLUTION = 128;
+
+    /**
+     * State of the traversals of one thread - the mailbox of the geometries, the
+     * ray prepared for the walk, and the closest intersection found so far
+     */
+    private static class Traversal {
+        /** Number of the last ray each geometry was tested with */
+        final int[] mailbox;
+        /** Number of the current ray */
+        int         ray = 0;
+        /** Ray head */
+        double      ox, oy, oz;
+        /** Inverse of the ray direction */
+        double      ix, iy, iz;
+        /** The closest intersection found so far (null if none found yet) */
+        GeoPoint    hit;
+        /** Its ray parameter - the bound for the rest of the walk */
+        double      t;
+        /** Index of its geometry, to break ties the way the linear scan does (-1
+         * if none found yet) */
+        int         index;
+
+        /**
+         * @param count the amount of geometries
+         */
+        Traversal(int count) {
+            mailbox = new int[count];
+        }
+
+        /**
+         * Prepares a traversal for a new ray
+         *
+         * @param ray         the ray
+         * @param maxDistance only intersections nearer than this distance count
+         * @return the traversal state
+         */
+        Traversal start(Ray ray, double maxDistance) {
+            if (++this.ray == 0) { // the ray numbers wrapped around - forget the old ones
+                Arrays.fill(mailbox, 0);
+                this.ray = 1;
+            }
+            Point head = ray.head;
+            Point dir = ray.direction;
+            ox = head.getX();
+            oy = head.getY();
+            oz = head.getZ();
+            ix = BoundingBox.inverse(dir.getX());
+            iy = BoundingBox.inverse(dir.getY());
+            iz = BoundingBox.inverse(dir.getZ());
+            hit = null;
+            t = maxDistance;
+            index = -1;
+            return this;
+        }
+
+        /**
+         * Marks a geometry as tested with the current ray
+         *
+         * @param i index of the geometry
+         * @return true if the geometry has not been tested with the ray yet
+         */
+        boolean first(int i) {
+            if (mailbox[i] == ray) return false;
+            mailbox[i] = ray;
+            return true;
+        }
+    }
+
+    /**
+     * Visitor of the geometries in the cells along a ray
+     */
+    @FunctionalInterface
+    private interface CellVisitor {
+        /**
+         * Visits the geometries of a cell
+         *
+         * @param cell index of the cell
+         * @param exit the distance where the ray leaves the cell
+         * @return true to stop the walk
+         */
+        boolean visit(int cell, double exit);
+    }
+
+    /** All the geometries, in their original order */
+    final Intersectable[] geometries;
+    /** Indices of the unbounded geometries */
+    final int[] unbounded;
+    /** The box bounding all the bounded geometries (null if there are none) */
+    private final BoundingBox box;
+    /** Amount of cells along each axis */
+    final int nx, ny, nz;
+    /** Size of a cell along each axis */
+    private final double sx, sy, sz;
+    /** Start of the geometry indices of each cell in {@link #items}, and the
+     * end of the last cell */
+    private final int[] cells;
+    /** Geometry indices of the cells, cell after cell, sorted in each cell */
+    private final int[] items;
+    /** Traversal state of each thread */
+    private final ThreadLocal<Traversal> traversal;
+
+    /**
+     * Builds the grid over the given geometries, with the automatic resolution
+     *
+     * @param geometries the geometries
+     */
+    UniformGrid(List<Intersectable> geometries) {
+        this.geometries = geometries.toArray(new Intersectable[0]);
+        int n = this.geometries.length;
+        BoundingBox[] boxes = new BoundingBox[n];
+        int[] infinite = new int[n];
+        int nInfinite = 0, nBounded = 0;
+        BoundingBox all = null;
+        for (int i = 0; i < n; ++i) {
+            BoundingBox b = this.geometries[i].getBoundingBox();
+            boxes[i] = b;
+            if (b == null) {
+                infinite[nInfinite++] = i;
+            } else {
+                all = all == null ? b : all.union(b);
+                ++nBounded;
+            }
+        }
+        unbounded = Arrays.copyOf(infinite, nInfinite);
+        box = all;
+        traversal = ThreadLocal.withInitial(() -> new Traversal(n));
+        if (all == null) {
+            nx = ny = nz = 0;
+            sx = sy = sz = 0;
+            cells = new int[1];
+            items = new int[0];
+            return;
+        }
+
+        // cubic cells sized so that the grid has about DENSITY cells per geometry -
+        // a flat box gets a single layer of cells across its thin axis
+        double dx = all.maxX - all.minX, dy = all.maxY - all.minY, dz = all.maxZ - all.minZ;
+        double longest = Math.max(dx, Math.max(dy, dz));
+        double perUnit = longest == 0 ? 0 : Math.cbrt((double) DENSITY * nBounded) / longest;
+        nx = resolution(dx * perUnit);
+        ny = resolution(dy * perUnit);
+        nz = resolution(dz * perUnit);
+        sx = dx / nx;
+        sy = dy / ny;
+        sz = dz / nz;
+
+        // count the geometries of each cell, then fill the cells in geometry order
+        int[] start = new int[nx * ny * nz + 1];
+        for (BoundingBox b : boxes)
+            if (b != null)
+                forCells(b, cell -> ++start[cell + 1]);
+        for (int cell = 0; cell < nx * ny * nz; ++cell)
+            start[cell + 1] += start[cell];
+        int[] next = Arrays.copyOf(start, start.length - 1);
+        int[] filled = new int[start[start.length - 1]];
+        for (int i = 0; i < n; ++i)
+            if (boxes[i] != null) {
+                final int item = i;
+                forCells(boxes[i], cell -> filled[next[cell]++] = item);
+            }
+        cells = start;
+        items = filled;
+    }
+
+    /**
+     * @param cells the ideal amount of cells along an axis
+     * @return the amount of cells along the axis
+     */
+    private static int resolution(double cells) {
+        return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(cells)));
+    }
+
+    /**
+     * Calls an action for every cell that a box overlaps
+     *
+     * @param b      the box, inside the grid box
+     * @param action the action, given the cell index
+     */
+    private void forCells(BoundingBox b, IntConsumer action) {
+        int x0 = cell(b.minX - box.minX, sx, nx), x1 = cell(b.maxX - box.minX, sx, nx);
+        int y0 = cell(b.minY - box.minY, sy, ny), y1 = cell(b.maxY - box.minY, sy, ny);
+        int z0 = cell(b.minZ - box.minZ, sz, nz), z1 = cell(b.maxZ - box.minZ, sz, nz);
+        for (int z = z0; z <= z1; ++z)
+            for (int y = y0; y <= y1; ++y)
+                for (int x = x0; x <= x1; ++x)
+                    action.accept((z * ny + y) * nx + x);
+    }
+
+    /**
+     * @param offset distance from the grid minimum along an axis
+     * @param size   cell size along the axis
+     * @param count  amount of cells along the axis
+     * @return the cell along the axis that contains the offset, clamped into the
+     *         grid
+     */
+    private static int cell(double offset, double size, int count) {
+        if (size == 0) return 0;
+        return Math.max(0, Math.min(count - 1, (int) (offset / size)));
+    }
+
+    // ***************** Traversal ********************** //
+
+    /**
+     * Walks through the cells that the ray pierces, in order along the ray (3D-DDA
+     * of Amanatides and Woo), and visits each of them until the visitor stops
+     *
+     * @param q           the traversal, prepared for the ray
+     * @param maxDistance the farthest distance along the ray that is of interest
+     * @param visitor     the visitor of the cells
+     */
+    private void walk(Traversal q, double maxDistance, CellVisitor visitor) {
+        if (box == null) return;
+        double enter = box.intersect(q.ox, q.oy, q.oz, q.ix, q.iy, q.iz, maxDistance);
+        if (enter == Double.POSITIVE_INFINITY) return;
+
+        // the cell where the ray enters the grid
+        int x = cell(q.ox + enter / q.ix - box.minX, sx, nx);
+        int y = cell(q.oy + enter / q.iy - box.minY, sy, ny);
+        int z = cell(q.oz + enter / q.iz - box.minZ, sz, nz);
+        // the step, the distance to the next cell boundary and its increment per axis
+        int stepX = q.ix < 0 ? -1 : 1, stepY = q.iy < 0 ? -1 : 1, stepZ = q.iz < 0 ? -1 : 1;
+        double nextX = (box.minX + (x + (stepX > 0 ? 1 : 0)) * sx - q.ox) * q.ix;
+        double nextY = (box.minY + (y + (stepY > 0 ? 1 : 0)) * sy - q.oy) * q.iy;
+        double nextZ = (box.minZ + (z + (stepZ > 0 ? 1 : 0)) * sz - q.oz) * q.iz;
+        double deltaX = sx * Math.abs(q.ix), deltaY = sy * Math.abs(q.iy), deltaZ = sz * Math.abs(q.iz);
+
+        while (true) {
+            double exit = Math.min(nextX, Math.min(nextY, nextZ));
+            if (visitor.visit((z * ny + y) * nx + x, exit) || exit > maxDistance) return;
+            if (nextX == exit) {
+                x += stepX;
+                if (x < 0 || x >= nx) return;
+                nextX += deltaX;
+            } else if (nextY == exit) {
+                y += stepY;
+                if (y < 0 || y >= ny) return;
+                nextY += deltaY;
+            } else {
+                z += stepZ;
+                if (z < 0 || z >= nz) return;
+                nextZ += deltaZ;
+            }
+        }
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        // intersections per geometry index, to return them in the original order
+        Map<Integer, List<GeoPoint>> found = new TreeMap<>();
+        for (int i : unbounded)
+            collect(i, ray, found);
+        Traversal q = traversal.get().start(ray, Double.POSITIVE_INFINITY);
+        walk(q, Double.POSITIVE_INFINITY, (cell, exit) -> {
+            for (int k = cells[cell]; k < cells[cell + 1]; ++k)
+                if (q.first(items[k]))
+                    collect(items[k], ray, found);
+            return false;
+        });
+        if (found.isEmpty()) return null;
+
+        List<GeoPoint> result = new LinkedList<>();
+        for (List<GeoPoint> points : found.values())
+            result.addAll(points);
+        return result;
+    }
+
+    /**
+     * Intersects the ray with a single geometry and records the intersections
+     *
+     * @param i     index of the geometry
+     * @param ray   the ray
+     * @param found intersections found so far
+     */
+    private void collect(int i, Ray ray, Map<Integer, List<GeoPoint>> found) {
+        List<GeoPoint> points = geometries[i].findGeoIntersections(ray);
+        if (points != null) found.put(i, points);
+    }
+
+    /**
+     * Closest-hit traversal. The cells are visited in order along the ray, so the
+     * walk stops at the first cell that the closest intersection found so far
+     * lies in - a geometry that overlaps several cells may intersect the ray
+     * beyond the cell it was tested in.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Traversal q = traversal.get().start(ray, maxDistance);
+        for (int i : unbounded)
+            closest(i, ray, q);
+        walk(q, maxDistance, (cell, exit) -> {
+            for (int k = cells[cell]; k < cells[cell + 1]; ++k)
+                if (q.first(items[k]))
+                    closest(items[k], ray, q);
+            return q.t <= exit;
+        });
+        GeoPoint hit = q.hit;
+        q.hit = null;
+        return hit;
+    }
+
+    /**
+     * Intersects the ray with a single geometry and keeps the intersection if it
+     * is the closest so far. Of two intersections at the same distance the one of
+     * the geometry that comes first in the list wins, as in the linear scan.
+     *
+     * @param i   index of the geometry
+     * @param ray the ray
+     * @param q   the traversal, with the closest intersection found so far
+     */
+    private void closest(int i, Ray ray, Traversal q) {
+        double bound = i < q.index ? Math.nextUp(q.t) : q.t;
+        GeoPoint gp = geometries[i].findClosestGeoIntersection(ray, bound);
+        if (gp != null && (gp.t < q.t || i < q.index)) {
+            q.hit = gp;
+            q.t = gp.t;
+            q.index = i;
+        }
+    }
+
+    /**
+     * Any-hit traversal - returns at the first geometry that blocks the ray
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        for (int i : unbounded)
+            if (geometries[i].isOccluded(ray, maxDistance))
+                return true;
+        Traversal q = traversal.get().start(ray, maxDistance);
+        walk(q, maxDistance, (cell, exit) -> {
+            for (int k = cells[cell]; k < cells[cell + 1]; ++k)
+                if (q.first(items[k]) && geometries[items[k]].isOccluded(ray, maxDistance)) {
+                    q.index = items[k];
+                    return true;
+                }
+            return false;
+        });
+        return q.index >= 0;
+    }
+
+    /**
+     * Multiplies the transparency of the geometries along the ray, returning at
+     * the first opaque blocker
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+        Double3 ktr = Double3.ONE;
+        for (int i : unbounded) {
+            ktr = transparency(i, ray, maxDistance, ktr);
+            if (ktr == Double3.ZERO)
+                return ktr;
+        }
+        Traversal q = traversal.get().start(ray, maxDistance);
+        Double3[] result = { ktr };
+        walk(q, maxDistance, (cell, exit) -> {
+            for (int k = cells[cell]; k < cells[cell + 1]; ++k)
+                if (q.first(items[k])) {
+                    result[0] = transparency(items[k], ray, maxDistance, result[0]);
+                    if (result[0] == Double3.ZERO)
+                        return true;
+                }
+            return false;
+        });
+        return result[0];
+    }
+
+    /**
+     * Multiplies the transparency factor by the transparency of a single geometry
+     *
+     * @param i           index of the geometry
+     * @param ray         the ray
+     * @param maxDistance only intersections nearer than this distance count
+     * @param ktr         the transparency factor so far
+     * @return the new factor, exactly {@link Double3#ZERO} if the geometry blocks
+     *         the ray
+     */
+    private Double3 transparency(int i, Ray ray, double maxDistance, Double3 ktr) {
+        Double3 kT = geometries[i].findTransparency(ray, maxDistance);
+        if (kT.equals(Double3.ZERO))
+            return Double3.ZERO;
+        return kT == Double3.ONE ? ktr : ktr.product(kT);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return unbounded.length > 0 ? null : box;
+    }
+}
@@ -17,6 +17,13 @@ public class DirectionalLight extends Light implements LightSource{
         super(intensity);
         this.direction = dir.normalize();
     }
+    /**
+     * @return the direction of the light
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     /**
      * Returns the intensity of the light at a given point.
      *
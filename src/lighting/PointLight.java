@@ -59,6 +59,34 @@ public class PointLight extends Light implements LightSource{
         this.kQ = kQ;
         return this;
     }
+    /**
+     * @return the position of the light
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the constant attenuation factor
+     */
+    public double getKc() {
+        return kC;
+    }
+
+    /**
+     * @return the linear attenuation factor
+     */
+    public double getKl() {
+        return kL;
+    }
+
+    /**
+     * @return the quadratic attenuation factor
+     */
+    public double getKq() {
+        return kQ;
+    }
+
     /**
      * Calculates and returns the intensity of the light at the specified point. The
      * intensity is attenuated based on the distance from the light source.
@@ -78,7 +106,8 @@ public class PointLight extends Light implements LightSource{
         if (p.equals(position)) {//check if p==position ,because vector zero is bad
             return null;
         }
-        return p.subtract(position).normalize();//return the normalized vector of (p-position)
+        //return the normalized vector of (p-position), without the intermediate vector
+        return Vector.normalized(p.getX() - position.getX(), p.getY() - position.getY(), p.getZ() - position.getZ());
     }
     /**
      * Returns the distance from the light source to a given point.
@@ -81,6 +81,20 @@ public class SpotLight extends PointLight{
         return this;
     }
 
+    /**
+     * @return the direction of the light beam
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the narrowing exponent of the beam (1 for a regular spotlight)
+     */
+    public double getNarrowBeam() {
+        return narrowBeam;
+    }
+
     @Override
     public Color getIntensity(Point point) {
         // check if it is flashlight
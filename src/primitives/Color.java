@@ -51,6 +51,21 @@ public class Color {
      */
     public Color(java.awt.Color other) { rgb = new Double3(other.getRed(), other.getGreen(), other.getBlue()); }
 
+    /**
+     * @return the red component, without upper limit
+     */
+    public double getRed() { return rgb.d1; }
+
+    /**
+     * @return the green component, without upper limit
+     */
+    public double getGreen() { return rgb.d2; }
+
+    /**
+     * @return the blue component, without upper limit
+     */
+    public double getBlue() { return rgb.d3; }
+
     /**
      * Color getter - returns the color after converting it into java.awt.Color
      * object During the conversion any component bigger than 255 is set to 255
@@ -63,6 +78,18 @@ public class Color {
         return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
     }
 
+    /**
+     * Packs the color into an int as 0xRRGGBB, with the same conversion as
+     * {@link #getColor()} but without creating a java.awt.Color object
+     * @return the packed RGB components, each clamped to 255
+     */
+    public int getRGB() {
+        int ir = (int) rgb.d1;
+        int ig = (int) rgb.d2;
+        int ib = (int) rgb.d3;
+        return (ir > 255 ? 255 : ir) << 16 | (ig > 255 ? 255 : ig) << 8 | (ib > 255 ? 255 : ib);
+    }
+
     /**
      * Operation of adding this and one or more other colors (by component)
      * @param  colors one or more other colors to add
@@ -45,6 +45,21 @@ public class Double3 {
         this.d3 = value;
     }
 
+    /**
+     * @return the first number
+     */
+    public double getD1() { return d1; }
+
+    /**
+     * @return the second number
+     */
+    public double getD2() { return d2; }
+
+    /**
+     * @return the third number
+     */
+    public double getD3() { return d3; }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -45,13 +45,15 @@ public class Ray
      */
     public Point getPoint(double t)
     {
-        try {
-            if (isZero(t))
-                return head;
-            return head.add(direction.scale(t));
-        } catch (Exception e) {
+        if (isZero(t))
             return head;
-        }
+        // computed by components, without the intermediate scaled vector
+        double dx = direction.xyz.d1 * t;
+        double dy = direction.xyz.d2 * t;
+        double dz = direction.xyz.d3 * t;
+        if (isZero(dx) && isZero(dy) && isZero(dz)) // too short a move
+            return head;
+        return new Point(head.xyz.d1 + dx, head.xyz.d2 + dy, head.xyz.d3 + dz);
     }
     /**
      * In the points list - find the point with minimal distance from the ray head
@@ -77,7 +79,7 @@ public class Ray
         GeoPoint closest = null;
         double minDistance = Double.MAX_VALUE;
         for (GeoPoint p : points) {
-            double distance = p.point.distance(head);
+            double distance = p.point.distanceSquared(head); // same order as the distance, without a root
             if (distance < minDistance) {
                 closest = p;
                 minDistance = distance;
@@ -93,8 +95,9 @@ public class Ray
      * @param normal The surface normal at the starting point.
      */
     public Ray(Point p, Vector dir, Vector normal) {
-        Vector delta = normal.scale(normal.dotProduct(dir) > 0 ? DELTA : -DELTA);
-        this.head = p.add(delta);
+        double delta = normal.dotProduct(dir) > 0 ? DELTA : -DELTA;
+        this.head = new Point(p.xyz.d1 + normal.xyz.d1 * delta, p.xyz.d2 + normal.xyz.d2 * delta,
+                p.xyz.d3 + normal.xyz.d3 * delta);
         this.direction = dir;
     }
 }
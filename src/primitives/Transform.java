@@ -0,0 +1,247 @@
+package primitives;
+
+/**
+ * Affine transform of the 3D space - a linear part (a 3x3 matrix) followed by a
+ * translation. The transform is immutable, and keeps its inverse, which is
+ * calculated once when it is created.
+ * <p>
+ * Transforms are made of translations, scalings and rotations, and are combined
+ * with {@link #then(Transform)}: {@code a.then(b)} applies {@code a} first and
+ * {@code b} after it.
+ */
+public final class Transform {
+    /** The determinant of a singular linear part, relative to the product of
+     * its row lengths */
+    private static final double   SINGULAR = 0x1p-40;
+    /** The transform that leaves every point in its place */
+    public static final Transform IDENTITY = new Transform(new double[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0 });
+
+    /** The matrix rows, 4 numbers each - 3 of the linear part and 1 of the
+     * translation */
+    private final double[] m;
+    /** The rows of the inverse transform */
+    private final double[] inv;
+
+    /**
+     * Creates a transform from its matrix rows, and calculates its inverse
+     *
+     * @param m the rows, 4 numbers each
+     * @throws IllegalArgumentException if the transform cannot be inverted
+     */
+    private Transform(double[] m) {
+        this.m = m;
+        // the inverse of the linear part is its adjugate divided by its determinant
+        double c00 = m[5] * m[10] - m[6] * m[9], c01 = m[6] * m[8] - m[4] * m[10], c02 = m[4] * m[9] - m[5] * m[8];
+        double det = m[0] * c00 + m[1] * c01 + m[2] * c02;
+        // the determinant is at most the product of the row lengths, which it
+        // reaches for perpendicular rows - so it is compared with that product, and
+        // a small scaling is not taken for a singular one
+        double rows = Math.sqrt((m[0] * m[0] + m[1] * m[1] + m[2] * m[2]) * (m[4] * m[4] + m[5] * m[5] + m[6] * m[6])
+                * (m[8] * m[8] + m[9] * m[9] + m[10] * m[10]));
+        if (!(Math.abs(det) > SINGULAR * rows))
+            throw new IllegalArgumentException("Transform cannot be inverted");
+        double[] r = new double[12];
+        r[0] = c00 / det;
+        r[1] = (m[2] * m[9] - m[1] * m[10]) / det;
+        r[2] = (m[1] * m[6] - m[2] * m[5]) / det;
+        r[4] = c01 / det;
+        r[5] = (m[0] * m[10] - m[2] * m[8]) / det;
+        r[6] = (m[2] * m[4] - m[0] * m[6]) / det;
+        r[8] = c02 / det;
+        r[9] = (m[1] * m[8] - m[0] * m[9]) / det;
+        r[10] = (m[0] * m[5] - m[1] * m[4]) / det;
+        // the inverse translation undoes the translation after the inverse linear part
+        for (int row = 0; row < 12; row += 4)
+            r[row + 3] = -(r[row] * m[3] + r[row + 1] * m[7] + r[row + 2] * m[11]);
+        inv = r;
+    }
+
+    /**
+     * Creates a transform from its matrix rows and the rows of its inverse
+     *
+     * @param m   the rows
+     * @param inv the rows of the inverse
+     */
+    private Transform(double[] m, double[] inv) {
+        this.m = m;
+        this.inv = inv;
+    }
+
+    /**
+     * @param offset the translation
+     * @return the transform that moves every point by the offset
+     */
+    public static Transform translate(Vector offset) {
+        return new Transform(new double[] { 1, 0, 0, offset.xyz.d1, 0, 1, 0, offset.xyz.d2, 0, 0, 1, offset.xyz.d3 });
+    }
+
+    /**
+     * @param factor the scale factor
+     * @return the transform that scales the space uniformly around the origin
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public static Transform scale(double factor) {
+        return scale(factor, factor, factor);
+    }
+
+    /**
+     * @param x the scale factor along the x axis
+     * @param y the scale factor along the y axis
+     * @param z the scale factor along the z axis
+     * @return the transform that scales the space around the origin
+     * @throws IllegalArgumentException if a factor is zero
+     */
+    public static Transform scale(double x, double y, double z) {
+        return new Transform(new double[] { x, 0, 0, 0, 0, y, 0, 0, 0, 0, z, 0 });
+    }
+
+    /**
+     * @param axis    the rotation axis, through the origin
+     * @param degrees the rotation angle, counterclockwise when the axis points at
+     *                the viewer
+     * @return the transform that rotates the space around the axis
+     */
+    public static Transform rotate(Vector axis, double degrees) {
+        Vector u = axis.normalize();
+        double x = u.xyz.d1, y = u.xyz.d2, z = u.xyz.d3;
+        double angle = Math.toRadians(degrees), c = Math.cos(angle), s = Math.sin(angle), t = 1 - c;
+        double[] m = {
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y, 0,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x, 0,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c, 0 };
+        // the inverse of a rotation is its transpose
+        double[] inv = { m[0], m[4], m[8], 0, m[1], m[5], m[9], 0, m[2], m[6], m[10], 0 };
+        return new Transform(m, inv);
+    }
+
+    /**
+     * Combines the transform with another one
+     *
+     * @param next the transform to apply after this one
+     * @return the transform that applies this transform and then the other one
+     */
+    public Transform then(Transform next) {
+        return new Transform(multiply(next.m, m), multiply(inv, next.inv));
+    }
+
+    /**
+     * Creates a transform from its matrix rows - e.g. rows saved by
+     * {@link #getRows()}
+     *
+     * @param rows the rows, 4 numbers each - 3 of the linear part and 1 of the
+     *             translation
+     * @return the transform
+     * @throws IllegalArgumentException if there are not 12 numbers, or the
+     *                                  transform cannot be inverted
+     */
+    public static Transform fromRows(double[] rows) {
+        if (rows.length != 12) throw new IllegalArgumentException("A transform has 3 rows of 4 numbers");
+        return new Transform(rows.clone());
+    }
+
+    /**
+     * @return a copy of the matrix rows, 4 numbers each - 3 of the linear part
+     *         and 1 of the translation
+     */
+    public double[] getRows() {
+        return m.clone();
+    }
+
+    /**
+     * @return the inverse transform
+     */
+    public Transform inverse() {
+        return new Transform(inv, m);
+    }
+
+    /**
+     * Multiplies two affine matrices, given by their rows
+     *
+     * @param a the left matrix
+     * @param b the right matrix
+     * @return the rows of the product - the transform that applies b and then a
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] r = new double[12];
+        for (int row = 0; row < 12; row += 4) {
+            for (int col = 0; col < 4; ++col)
+                r[row + col] = a[row] * b[col] + a[row + 1] * b[4 + col] + a[row + 2] * b[8 + col];
+            r[row + 3] += a[row + 3];
+        }
+        return r;
+    }
+
+    /**
+     * @param p a point
+     * @return the transformed point
+     */
+    public Point apply(Point p) {
+        return applyPoint(m, p);
+    }
+
+    /**
+     * @param p a point
+     * @return the point transformed by the inverse transform
+     */
+    public Point applyInverse(Point p) {
+        return applyPoint(inv, p);
+    }
+
+    /**
+     * @param v a vector
+     * @return the transformed vector (not normalized) - the translation does not
+     *         move vectors
+     */
+    public Vector apply(Vector v) {
+        return applyVector(m, v);
+    }
+
+    /**
+     * @param v a vector
+     * @return the vector transformed by the inverse transform (not normalized)
+     */
+    public Vector applyInverse(Vector v) {
+        return applyVector(inv, v);
+    }
+
+    /**
+     * Transforms a normal of a surface - by the inverse transpose of the linear
+     * part, so that it stays perpendicular to the transformed surface
+     *
+     * @param n a normal
+     * @return the normal of the transformed surface, normalized
+     */
+    public Vector applyNormal(Vector n) {
+        double x = n.xyz.d1, y = n.xyz.d2, z = n.xyz.d3;
+        return Vector.normalized(inv[0] * x + inv[4] * y + inv[8] * z, inv[1] * x + inv[5] * y + inv[9] * z,
+                inv[2] * x + inv[6] * y + inv[10] * z);
+    }
+
+    /**
+     * @param r the matrix rows
+     * @param p a point
+     * @return the point multiplied by the matrix
+     */
+    private static Point applyPoint(double[] r, Point p) {
+        double x = p.xyz.d1, y = p.xyz.d2, z = p.xyz.d3;
+        return new Point(r[0] * x + r[1] * y + r[2] * z + r[3], r[4] * x + r[5] * y + r[6] * z + r[7],
+                r[8] * x + r[9] * y + r[10] * z + r[11]);
+    }
+
+    /**
+     * @param r the matrix rows
+     * @param v a vector
+     * @return the vector multiplied by the linear part of the matrix
+     */
+    private static Vector applyVector(double[] r, Vector v) {
+        double x = v.xyz.d1, y = v.xyz.d2, z = v.xyz.d3;
+        return new Vector(r[0] * x + r[1] * y + r[2] * z, r[4] * x + r[5] * y + r[6] * z,
+                r[8] * x + r[9] * y + r[10] * z);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Transform[%s %s %s %s; %s %s %s %s; %s %s %s %s]", m[0], m[1], m[2], m[3], m[4], m[5],
+                m[6], m[7], m[8], m[9], m[10], m[11]);
+    }
+}
@@ -1,5 +1,7 @@
 package primitives;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /** Util class is used for some internal utilities, e.g. controlling accuracy
  * @author Dan */
 public final class Util {
@@ -45,12 +47,33 @@ public final class Util {
         return (n1 < 0 && n2 < 0) || (n1 > 0 && n2 > 0);
     }
 
-    /** Provide a real random number in range between min and max
+    /** Provide a real random number in range between min and max, from the
+     * generator of the calling thread, so threads do not contend for a shared one
      * @param  min value (included)
      * @param  max value (excluded)
      * @return     the random value */
     public static double random(double min, double max) {
-        return Math.random() * (max - min) + min;
+        return ThreadLocalRandom.current().nextDouble() * (max - min) + min;
+    }
+
+    /** Mixes the bits of an integer - a small change of the value changes about
+     * half of the bits of the result. Used to derive deterministic pseudo-random
+     * values from indices, e.g. of pixels and samples.
+     * @param  value the value
+     * @return       the hash of the value */
+    public static int hash(int value) {
+        value ^= value >>> 16;
+        value *= 0x7feb352d;
+        value ^= value >>> 15;
+        value *= 0x846ca68b;
+        return value ^ value >>> 16;
+    }
+
+    /** Maps the bits of an integer into the unit interval
+     * @param  bits the integer, its bits taken as unsigned
+     * @return      the value in [0,1) */
+    public static double toUnit(int bits) {
+        return (bits & 0xFFFFFFFFL) * 0x1p-32;
     }
 
 }
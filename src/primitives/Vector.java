@@ -1,4 +1,7 @@
 package primitives;
+
+import static primitives.Util.isZero;
+
 /**
  * This class represents a vector in three-dimensional space.
  * Inherits from the Point class.
@@ -32,6 +35,24 @@ public class Vector extends Point
         if(this.xyz.equals(Double3.ZERO))
             throw new IllegalArgumentException("Vector is zero");
     }
+    /**
+     * Creates the unit vector in the direction of the given components. Gives the
+     * same result as {@code new Vector(x, y, z).normalize()} without creating the
+     * intermediate vector.
+     *
+     * @param x The x-coordinate of the direction.
+     * @param y The y-coordinate of the direction.
+     * @param z The z-coordinate of the direction.
+     * @return A new normalized vector.
+     * @throws IllegalArgumentException If the direction is zero.
+     */
+    public static Vector normalized(double x, double y, double z)
+    {
+        if(isZero(x) && isZero(y) && isZero(z))
+            throw new IllegalArgumentException("Vector is zero");
+        double length = Math.sqrt((x*x)+(y*y)+(z*z));
+        return new Vector(x/length, y/length, z/length);
+    }
     /**
      * Adds the given vector to this vector and returns the result as a new vector.
      *
@@ -94,13 +115,15 @@ public class Vector extends Point
     }
 
     /**
-     * Returns a new vector representing this vector normalized to unit length.
+     * Returns a vector representing this vector normalized to unit length - this
+     * vector itself if its length is exactly 1.
      *
-     * @return A new normalized vector.
+     * @return A normalized vector.
      */
     public Vector normalize()
     {
-        return new Vector(xyz.reduce(length()));
+        double length = length();
+        return length == 1 ? this : new Vector(xyz.reduce(length));
     }
     @Override
     public boolean equals(Object obj)
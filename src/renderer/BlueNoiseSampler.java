@@ -0,0 +1,154 @@
+package renderer;
+
+import java.util.Random;
+
+/**
+ * Samples on the R2 sequence - the additive recurrence by the plastic number,
+ * which covers the pixel evenly for any amount of first samples - shifted in
+ * every pixel by the values of a blue-noise mask tiled over the image. With few
+ * samples, the error of neighboring pixels is anti-correlated: it is high
+ * frequency noise with no clumps, which the eye takes as smoother than white
+ * noise of the same amount.
+ * <p>
+ * The mask is built once by the void-and-cluster method - the pixels of a small
+ * torus are ranked so that the pixels of every rank below a threshold are spread
+ * as evenly as possible.
+ */
+public final class BlueNoiseSampler implements Sampler {
+    /** Side of the mask in pixels - a power of two */
+    static final int            SIZE    = 64;
+    /** The steps of the R2 sequence along the two axes - the inverse powers of
+     * the plastic number */
+    private static final double STEP_X  = 0.7548776662466927, STEP_Y = 0.5698402909980532;
+    /** Offset of the mask lookup of the second axis, so the two axes are shifted
+     * by unrelated values */
+    private static final int    SHIFT_X = SIZE / 2 + 5, SHIFT_Y = SIZE / 2 - 11;
+
+    /**
+     * Holder of the mask, built at the first use - lazily, and without locking
+     * afterwards
+     */
+    private static final class Mask {
+        /** The mask values in [0,1), row by row */
+        static final double[] VALUES = voidAndCluster(SIZE, 1.5, 5784);
+    }
+
+    @Override
+    public void sample(int j, int i, int index, double[] point) {
+        double[] mask = Mask.VALUES;
+        int m = SIZE - 1;
+        double shiftX = mask[(i & m) * SIZE + (j & m)];
+        double shiftY = mask[((i + SHIFT_Y) & m) * SIZE + ((j + SHIFT_X) & m)];
+        point[0] = fraction(index * STEP_X + shiftX);
+        point[1] = fraction(index * STEP_Y + shiftY);
+    }
+
+    /**
+     * @param value a non-negative value
+     * @return its fractional part
+     */
+    private static double fraction(double value) {
+        return value - Math.floor(value);
+    }
+
+    /**
+     * @param size  side of the torus in pixels, a power of two
+     * @param sigma deviation of the Gaussian filter that finds the clusters and
+     *              the voids
+     * @param seed  seed of the initial random pattern
+     * @return the rank of every pixel, as (rank + 0.5) / pixels, row by row
+     */
+    static double[] voidAndCluster(int size, double sigma, long seed) {
+        int n = size * size, m = size - 1;
+        // the filter by the toroidal offset between two pixels
+        double[] filter = new double[n];
+        for (int dy = 0; dy < size; ++dy)
+            for (int dx = 0; dx < size; ++dx) {
+                int x = Math.min(dx, size - dx), y = Math.min(dy, size - dy);
+                filter[dy * size + dx] = Math.exp(-(x * x + y * y) / (2 * sigma * sigma));
+            }
+
+        // initial pattern: a tenth of the pixels at random, spread by swapping the
+        // tightest cluster into the largest void until they coincide
+        boolean[] pattern = new boolean[n];
+        double[] energy = new double[n];
+        Random random = new Random(seed);
+        int ones = n / 10;
+        for (int placed = 0; placed < ones; ) {
+            int p = random.nextInt(n);
+            if (!pattern[p]) {
+                pattern[p] = true;
+                update(energy, filter, size, m, p, 1);
+                ++placed;
+            }
+        }
+        for (int swap = 0; swap < n; ++swap) {
+            int cluster = extreme(pattern, energy, true);
+            pattern[cluster] = false;
+            update(energy, filter, size, m, cluster, -1);
+            int hole = extreme(pattern, energy, false);
+            pattern[hole] = true;
+            update(energy, filter, size, m, hole, 1);
+            if (hole == cluster) break;
+        }
+
+        int[] rank = new int[n];
+        // the ranks below the initial pattern - removing its tightest clusters
+        boolean[] work = pattern.clone();
+        double[] workEnergy = energy.clone();
+        for (int r = ones - 1; r >= 0; --r) {
+            int cluster = extreme(work, workEnergy, true);
+            work[cluster] = false;
+            update(workEnergy, filter, size, m, cluster, -1);
+            rank[cluster] = r;
+        }
+        // the ranks above it - filling the largest voids
+        for (int r = ones; r < n; ++r) {
+            int hole = extreme(pattern, energy, false);
+            pattern[hole] = true;
+            update(energy, filter, size, m, hole, 1);
+            rank[hole] = r;
+        }
+
+        double[] values = new double[n];
+        for (int p = 0; p < n; ++p)
+            values[p] = (rank[p] + 0.5) / n;
+        return values;
+    }
+
+    /**
+     * Adds or removes the filter around a pixel to the energy of all the pixels
+     *
+     * @param energy the filtered pattern
+     * @param filter the filter by the toroidal offset
+     * @param size   side of the torus
+     * @param m      side - 1, the mask of the coordinates
+     * @param p      the pixel
+     * @param sign   1 to add, -1 to remove
+     */
+    private static void update(double[] energy, double[] filter, int size, int m, int p, int sign) {
+        int px = p % size, py = p / size;
+        for (int y = 0; y < size; ++y) {
+            int row = ((y - py) & m) * size;
+            for (int x = 0; x < size; ++x)
+                energy[y * size + x] += sign * filter[row + ((x - px) & m)];
+        }
+    }
+
+    /**
+     * @param pattern the pixels that are set
+     * @param energy  the filtered pattern
+     * @param cluster true for the set pixel of the highest energy - the tightest
+     *                cluster, false for the unset pixel of the lowest energy - the
+     *                largest void
+     * @return the pixel, the first of equals
+     */
+    private static int extreme(boolean[] pattern, double[] energy, boolean cluster) {
+        int best = -1;
+        for (int p = 0; p < pattern.length; ++p)
+            if (pattern[p] == cluster
+                    && (best < 0 || (cluster ? energy[p] > energy[best] : energy[p] < energy[best])))
+                best = p;
+        return best;
+    }
+}
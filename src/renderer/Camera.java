@@ -1,11 +1,19 @@
 package renderer;
 
+import geometries.RayPacket;
 import primitives.*;
+import scene.Scene;
+import scene.SceneCache;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static primitives.Util.isZero;
 
@@ -26,6 +34,10 @@ public class Camera implements Cloneable{
     private final String CAMERA = "Camera";
     private final String RAY_TRACER = "Ray tracer";
     private final String DISTANCE = "camera cant be in distance 0";
+    /** logger for reporting the render times, the passes and the failures */
+    private static final Logger logger = Logger.getLogger("Camera");
+    /** amount of renderings started in their own threads, for naming the threads */
+    private static final AtomicInteger renderCount = new AtomicInteger();
     /**
      * turn on - off antialising super samplin
      */
@@ -40,6 +52,60 @@ public class Camera implements Cloneable{
     private int threads = 1;
     private static final int SPARE_THREADS = 2;
     private boolean print = false;
+    /** Side of the square tiles the image is split into for rendering, in pixels */
+    private int tileSize = 16;
+    /** The order in which the tiles are rendered */
+    private TileOrder tileOrder = TileOrder.HILBERT;
+    /** Side of the square blocks of pixels whose primary rays are traced as a
+     * packet, 0 to trace every ray alone */
+    private int packetSize = 0;
+    /** Samples of every pixel in the first pass of the variance-driven sampling,
+     * 0 if it is off */
+    private int minSamples = 0;
+    /** Average amount of samples per pixel of the variance-driven sampling - the
+     * budget of the whole image */
+    private int samplesPerPixel = 0;
+    /** The default sampler of the variance-driven sampling */
+    private static final Sampler HALTON = new HaltonSampler();
+    /** Places the rays of a pixel - null for the regular grid of the beam and
+     * the Halton sequence of the variance-driven sampling */
+    private Sampler sampler = null;
+    /** The samples of the last variance-driven or progressive rendering, null
+     * if none */
+    SampleAccumulator samples;
+    /** Wall-clock budget of the progressive rendering in milliseconds, 0 for
+     * none */
+    private long progressiveMillis = 0;
+    /** Noise level at which the progressive rendering stops, 0 for none */
+    private double targetNoise = 0;
+    /** Least time between two previews of the progressive rendering in
+     * nanoseconds */
+    private static final long PREVIEW_NANOS = 250_000_000L;
+    /** The mean colors of the progressive rendering in progress or done, as
+     * last published after a complete pass, null before the first pass */
+    private volatile FrameBuffer preview;
+    /** Estimated noise of the last progressive rendering */
+    private volatile double noise = 0;
+    /** The checkpoint file of the rendering, null for none */
+    private Path checkpointFile = null;
+    /** Time between the checkpoints in milliseconds, 0 to save one only when the
+     * rendering is cancelled */
+    private long checkpointMillis = 0;
+    /** Version of the scene given with the checkpoint, null for none */
+    private String checkpointVersion = null;
+    /** Handle of the rendering in progress, null if it was not started by
+     * {@link #renderImage()} or {@link #startRender()} */
+    private RenderHandle handle;
+    /** Checkpoint of the rendering in progress, null if checkpointing is off */
+    private Checkpoint checkpoint;
+    /** High dynamic range colors of the last rendered image */
+    private FrameBuffer frameBuffer;
+    /** How the frame buffer is mapped into the image */
+    private ToneMapping toneMapping = ToneMapping.CLAMP;
+    /** Exposure correction in stops applied before the tone mapping */
+    private double exposure = 0;
+    /** Time of the last rendering, in nanoseconds */
+    private long renderNanos = 0;
 
 
     public Camera setNumOfRays(int numOfRays) {
@@ -77,6 +143,233 @@ public class Camera implements Cloneable{
         return this;
     }
 
+    /**
+     * Sets the side of the square tiles the image is split into - each tile is
+     * rendered by a single thread
+     *
+     * @param tileSize tile side in pixels
+     * @return the camera itself
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the packet mode - the primary rays of every square block of pixels are
+     * traced together as a packet (see {@link RayPacket}), which shares
+     * the hierarchy node visits between the coherent rays of neighboring pixels.
+     * Used only when a pixel has a single ray; the image is the same as without
+     * packets. Packets pay off over long lists of geometries; a hierarchy
+     * traverses coherent single rays at least as fast.
+     *
+     * @param packetSize side of the blocks in pixels, e.g. 4 or 8 - 0 to trace
+     *                   every ray alone
+     * @return the camera itself
+     */
+    public Camera setPacketSize(int packetSize) {
+        if (packetSize < 0 || packetSize > 16)
+            throw new IllegalArgumentException("Packet size must be between 0 and 16");
+        this.packetSize = packetSize;
+        return this;
+    }
+
+    /**
+     * Sets the variance-driven sampling - every pixel gets a few samples at
+     * random positions in it, and the rest of the samples of the whole image go,
+     * in successive passes, to the pixels whose mean color is the least certain.
+     * Flat regions stop at the first samples, and the budget goes to the edges,
+     * the reflections and the shadows. Used unless the adaptive super-sampling is
+     * set.
+     *
+     * @param minSamples      samples of every pixel in the first pass, at least 2
+     *                        for the variance - 0 to turn the mode off
+     * @param samplesPerPixel the average amount of samples per pixel - the budget
+     *                        of the whole image, at least minSamples
+     * @return the camera itself
+     */
+    public Camera setVarianceSampling(int minSamples, int samplesPerPixel) {
+        if (minSamples != 0 && (minSamples < 2 || samplesPerPixel < minSamples))
+            throw new IllegalArgumentException(
+                    "Variance sampling needs at least 2 samples per pixel and a budget of at least as many");
+        this.minSamples = minSamples;
+        this.samplesPerPixel = samplesPerPixel;
+        return this;
+    }
+
+    /**
+     * Sets the progressive rendering - the whole image is rendered at one sample
+     * per pixel, and then sample after sample is added to every pixel until the
+     * time is up or the noise is low enough. A preview of the samples so far can
+     * be written at any time during the rendering by {@link #writeSnapshot()}.
+     * The samples are placed by the sampler of the camera (see
+     * {@link #setSampler(Sampler)}). Used unless the adaptive super-sampling is
+     * set.
+     *
+     * @param budgetMillis the wall-clock time budget in milliseconds, 0 for none
+     * @param targetNoise  the estimated noise of the image (the root mean square
+     *                     of the standard errors of the pixel means) to stop at, 0
+     *                     for none
+     * @return the camera itself
+     */
+    public Camera setProgressive(long budgetMillis, double targetNoise) {
+        if (budgetMillis < 0 || targetNoise < 0)
+            throw new IllegalArgumentException("Progressive time budget and noise must not be negative");
+        this.progressiveMillis = budgetMillis;
+        this.targetNoise = targetNoise;
+        return this;
+    }
+
+    /**
+     * Writes the preview of the progressive rendering into the image - the mean
+     * colors after a recent complete pass (the preview is published at most
+     * every quarter of a second). May be called from another thread while the
+     * rendering runs.
+     *
+     * @return the camera itself
+     * @throws IllegalStateException if no pass is complete yet
+     */
+    public Camera writeSnapshot() {
+        FrameBuffer snapshot = preview;
+        if (snapshot == null)
+            throw new IllegalStateException("No pass of the progressive rendering is complete yet");
+        synchronized (imageWriter) {
+            snapshot.toneMap(imageWriter, toneMapping, exposure);
+            imageWriter.writeToImage();
+        }
+        return this;
+    }
+
+    /**
+     * @return the estimated noise of the last progressive rendering - the root
+     *         mean square of the standard errors of the pixel means
+     */
+    public double getNoise() {
+        return noise;
+    }
+
+    /**
+     * Sets the checkpointing of the rendering - the pixels rendered so far are
+     * saved to a file from time to time and when the rendering is cancelled (see
+     * {@link #startRender()}), and a rendering of the same scene with the same
+     * camera settings goes on from the file instead of starting over. The file is
+     * deleted when the rendering is complete. A progressive rendering that goes
+     * on has its whole time budget again.
+     * <p>
+     * The scene is the same if its digest is (see
+     * {@link SceneCache#digest(Scene)}) - any change of a light, a material or a
+     * geometry starts the rendering over. The digest takes a pass over the whole
+     * scene when the rendering starts. A scene that cannot be cached has no
+     * digest, and only its settings, the amount of its lights and its bounds are
+     * compared; such a scene should be given a version that changes with it
+     * (see {@link #setCheckpoint(Path, long, String)}).
+     *
+     * @param file           the checkpoint file, null to turn checkpointing off
+     * @param intervalMillis time between the checkpoints in milliseconds, 0 to
+     *                       save one only when the rendering is cancelled
+     * @return the camera itself
+     */
+    public Camera setCheckpoint(Path file, long intervalMillis) {
+        return setCheckpoint(file, intervalMillis, null);
+    }
+
+    /**
+     * Sets the checkpointing of the rendering, as
+     * {@link #setCheckpoint(Path, long)} does, with a version of the scene given
+     * by the caller - a checkpoint is resumed only by a rendering of the same
+     * version, in addition to the same scene and camera settings
+     *
+     * @param file           the checkpoint file, null to turn checkpointing off
+     * @param intervalMillis time between the checkpoints in milliseconds, 0 to
+     *                       save one only when the rendering is cancelled
+     * @param version        version of the scene, null for none
+     * @return the camera itself
+     */
+    public Camera setCheckpoint(Path file, long intervalMillis, String version) {
+        if (intervalMillis < 0) throw new IllegalArgumentException("Checkpoint interval must not be negative");
+        this.checkpointFile = file;
+        this.checkpointMillis = intervalMillis;
+        this.checkpointVersion = version;
+        return this;
+    }
+
+    /**
+     * Sets how the rays of a pixel are placed in it - for the beam of every pixel
+     * (see {@link #setNumOfRaysSuperSampeling(int)}) and for the variance-driven
+     * and the progressive sampling. A low-discrepancy sampler reaches the error of the regular grid
+     * with several times fewer rays.
+     *
+     * @param sampler the sampler, null for the regular grid of the beam and the
+     *                {@link HaltonSampler} of the variance-driven and the
+     *                progressive sampling
+     * @return the camera itself
+     */
+    public Camera setSampler(Sampler sampler) {
+        this.sampler = sampler;
+        return this;
+    }
+
+    /**
+     * Sets the order in which the tiles are rendered. The image is the same in
+     * any order.
+     *
+     * @param tileOrder the order of the tiles
+     * @return the camera itself
+     */
+    public Camera setTileOrder(TileOrder tileOrder) {
+        this.tileOrder = tileOrder;
+        return this;
+    }
+
+    /**
+     * Sets how the rendered colors are mapped into the image. The default -
+     * clamping with no exposure correction - cuts every component above 255.
+     *
+     * @param toneMapping how to map the colors into 0..255
+     * @param exposure    exposure correction in stops
+     * @return the camera itself
+     */
+    public Camera setToneMapping(ToneMapping toneMapping, double exposure) {
+        this.toneMapping = toneMapping;
+        this.exposure = exposure;
+        return this;
+    }
+
+    /**
+     * @return the high dynamic range colors of the last rendered image, null
+     *         before rendering
+     */
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    /**
+     * @return the time of the last rendering in nanoseconds - the time of tracing
+     *         the rays, without building the hierarchies of the scene (see
+     *         {@link geometries.Geometries#getBuildNanos()})
+     */
+    public long getRenderNanos() {
+        return renderNanos;
+    }
+
+    /**
+     * Maps the last rendered image into the image writer again with another tone
+     * mapping, without tracing the rays again. Overwrites anything drawn on the
+     * image after rendering, such as a grid.
+     *
+     * @param toneMapping how to map the colors into 0..255
+     * @param exposure    exposure correction in stops
+     * @return the camera itself
+     */
+    public Camera toneMap(ToneMapping toneMapping, double exposure) {
+        if (frameBuffer == null)
+            throw new IllegalStateException("The image is not rendered yet");
+        setToneMapping(toneMapping, exposure);
+        frameBuffer.toneMap(imageWriter, toneMapping, exposure);
+        return this;
+    }
+
 
 
     private Camera(){}
@@ -139,20 +432,37 @@ public class Camera implements Cloneable{
     public static Builder getBuilder() { return new Builder(); }
 
     public Ray constructRay(int nX, int nY, int j, int i) {
-        Point pCenter = p0.add(vTo.scale(distance));
-
         double Ry = (double) height / nY;
         double Rx = (double) width / nX;
 
         double yI = -(i - (double) (nY - 1) / 2) * Ry;
         double xJ = (j - (double) (nX - 1) / 2) * Rx;
 
-        Point pIJ = pCenter;
-        if (xJ != 0) pIJ = pIJ.add(vRight.scale(xJ));
-        if (yI != 0) pIJ = pIJ.add(vUp.scale(yI));
+        return constructRayThrough(xJ, yI);
+    }
 
-        Vector vIJ = pIJ.subtract(p0);
-        return new Ray(p0, vIJ);
+    /**
+     * Constructs a ray from the camera through a point on the view plane. The
+     * point is calculated by components, without creating the intermediate points
+     * and vectors.
+     *
+     * @param x distance of the point from the view plane center to the right
+     * @param y distance of the point from the view plane center upwards
+     * @return the ray
+     */
+    private Ray constructRayThrough(double x, double y) {
+        double pX = viewPlanePC.getX(), pY = viewPlanePC.getY(), pZ = viewPlanePC.getZ();
+        if (x != 0) {
+            pX += vRight.getX() * x;
+            pY += vRight.getY() * x;
+            pZ += vRight.getZ() * x;
+        }
+        if (y != 0) {
+            pX += vUp.getX() * y;
+            pY += vUp.getY() * y;
+            pZ += vUp.getZ() * y;
+        }
+        return new Ray(p0, new Vector(pX - p0.getX(), pY - p0.getY(), pZ - p0.getZ()));
     }
 
     /**
@@ -297,115 +607,497 @@ public class Camera implements Cloneable{
      * Renders the image by iterating through each pixel in the image writer and
      * casting a ray for each pixel, then writing the resulting color to the image
      * writer. Throws a MissingResourceException if either the image writer or the
-     * ray tracer base are not set.
+     * ray tracer base are not set. The render time is logged at the end, apart
+     * from the time the hierarchies of the scene took to build - at the info
+     * level with printing on, and at the fine level otherwise.
      */
     public Camera renderImage() {
+        return renderImage(new RenderHandle(this));
+    }
+
+    /**
+     * Starts rendering the image in a new thread, as {@link #renderImage()} does.
+     * The thread is named "Render" with the number of the rendering, and is not a
+     * daemon - the process does not exit before the rendering ends, unless it is
+     * cancelled (see {@link RenderHandle#cancel()}). A failure of the rendering is
+     * logged, and thrown by {@link RenderHandle#await()}.
+     *
+     * @return the handle of the rendering, which cancels it or waits for it
+     */
+    public RenderHandle startRender() {
+        String name = "Render " + renderCount.incrementAndGet();
+        return startRender(task -> {
+            Thread thread = new Thread(task, name);
+            thread.setUncaughtExceptionHandler((t, e) -> logger.log(Level.SEVERE, t.getName() + " failed", e));
+            thread.start();
+        });
+    }
+
+    /**
+     * Starts rendering the image in a task of the given executor, as
+     * {@link #renderImage()} does. A failure of the rendering is thrown by
+     * {@link RenderHandle#await()}, and from the task to the executor.
+     *
+     * @param executor the executor of the rendering
+     * @return the handle of the rendering, which cancels it or waits for it
+     */
+    public RenderHandle startRender(Executor executor) {
+        if (executor == null) throw new IllegalArgumentException("Executor cannot be null");
+        RenderHandle render = new RenderHandle(this);
+        executor.execute(() -> renderImage(render));
+        return render;
+    }
+
+    /**
+     * Renders the image by the mode of the camera
+     *
+     * @param render the handle of the rendering
+     * @return the camera itself
+     */
+    private Camera renderImage(RenderHandle render) {
+        handle = render;
+        long start = System.nanoTime();
         try {
             if (adaptiveSuperSamplingFlag) {
                 renderImageAdaptive();
+            } else if (progressiveMillis > 0 || targetNoise > 0) {
+                renderImageProgressive();
+            } else if (minSamples > 0) {
+                renderImageVariance();
             } else {
                 renderImageBeam();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (RuntimeException | Error e) {
+            render.finish(e);
+            throw e;
         }
+        renderNanos = System.nanoTime() - start;
+        render.finish(null);
+        Level level = print ? Level.INFO : Level.FINE;
+        if (rayTracer != null && logger.isLoggable(level))
+            logger.log(level, String.format("Render %.3f s, hierarchy build %.3f s", renderNanos / 1e9,
+                    rayTracer.scene.geometries.getBuildNanos() / 1e9));
         return this;
     }
 
+    /**
+     * @return true if the rendering in progress was cancelled
+     */
+    private boolean isCancelled() {
+        return handle != null && handle.isCancelled();
+    }
 
-    private void renderImageAdaptive() throws InterruptedException {
-        int nX = imageWriter.getNx();
-        int nY = imageWriter.getNy();
+    /**
+     * @param tile a tile of the image
+     * @return true if the tile is not to be rendered in the current pass - the
+     *         rendering was cancelled, or the tile is done in the checkpoint
+     */
+    private boolean skip(TileScheduler.Tile tile) {
+        return isCancelled() || checkpoint != null && checkpoint.isDone(tile);
+    }
 
-        final Pixel thePixel = new Pixel(nY, nX,true);
-        Thread[] threads = new Thread[this.threads];
-        for (int i = 0; i < this.threads; i++) {
-            threads[i] = new Thread(() -> {
-                Pixel pixel = new Pixel();
-                while (thePixel.nextPixel(pixel)) {
-                    try {
-                        primitives.Color color = adaptiveSuperSampling(nX, nY, pixel.col, pixel.row, numOfRaysSuperSampeling);
-                        imageWriter.writePixel(pixel.col, pixel.row, new Color(color.getColor()));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            });
-        }
+    /**
+     * Writes a rendered tile into the buffer of the rendering, through the
+     * checkpoint if it is on
+     *
+     * @param tile  the tile
+     * @param write writes the tile into the buffer
+     */
+    private void commitTile(TileScheduler.Tile tile, Runnable write) {
+        if (checkpoint == null) write.run();
+        else checkpoint.commit(tile, write);
+    }
 
-        for (Thread thread : threads) thread.start();
-        for (Thread thread : threads) thread.join();
-        if (print) System.out.print("\r100%\n");
+    /**
+     * Opens the checkpoint of a rendering if checkpointing is set, and loads the
+     * checkpoint file into the buffer if it was saved by a rendering of the same
+     * scene and camera settings
+     *
+     * @param scheduler   the tiles of the rendering
+     * @param buffer      the colors of the pixels, null if the rendering
+     *                    accumulates samples
+     * @param accumulator the samples of the pixels, null if the rendering writes
+     *                    the colors
+     * @return true if the rendering goes on from the checkpoint
+     */
+    private boolean openCheckpoint(TileScheduler scheduler, FrameBuffer buffer, SampleAccumulator accumulator) {
+        checkpoint = checkpointFile == null ? null
+                : new Checkpoint(checkpointFile, checkpointMillis, checkpointKey(), scheduler.getTiles().size(),
+                        buffer, accumulator);
+        return checkpoint != null && checkpoint.load();
     }
 
-    private primitives.Color adaptiveSuperSampling(int nX, int nY, int j, int i, int numOfRays) throws Exception {
-        int numOfRaysInRowCol = (int) Math.floor(Math.sqrt(numOfRays));
-        if (numOfRaysInRowCol == 1) {
-            return rayTracer.traceRay(constructRay(nX, nY, j, i));
+    /**
+     * Closes the checkpoint of the rendering - saves it if the rendering was
+     * cancelled, and deletes the file if the rendering is complete
+     */
+    private void closeCheckpoint() {
+        if (checkpoint == null) return;
+        if (isCancelled()) checkpoint.save();
+        else checkpoint.delete();
+        checkpoint = null;
+    }
+
+    /**
+     * @return description of everything the rendered pixels depend on - the
+     *         image, the tiles, the rendering mode, the camera and the scene - so
+     *         a checkpoint is resumed only by the same rendering
+     */
+    private String checkpointKey() {
+        Scene scene = rayTracer.scene;
+        String content;
+        try {
+            content = "digest " + SceneCache.digest(scene);
+        } catch (IllegalArgumentException e) {
+            logger.warning("The scene cannot be digested for its checkpoint - changes of its lights and geometries"
+                    + " are not noticed: " + e.getMessage());
+            content = scene.background + " " + scene.ambientLight.getIntensity() + ", lights " + scene.lights.size()
+                    + ", bounds " + scene.geometries.getBoundingBox();
         }
+        String mode = adaptiveSuperSamplingFlag ? "adaptive " + numOfRaysSuperSampeling
+                : progressiveMillis > 0 || targetNoise > 0 ? "progressive"
+                : minSamples > 0 ? "variance " + minSamples + "/" + samplesPerPixel
+                : "beam " + numOfRaysSuperSampeling;
+        return "image " + imageWriter.getNx() + "x" + imageWriter.getNy() + ", tiles " + tileSize + " " + tileOrder
+                + ", " + mode + ", sampler " + (sampler == null ? "default" : sampler.key())
+                + ", camera " + p0 + " " + vTo + " " + vUp + " " + width + "x" + height + " at " + distance
+                + ", tracer " + rayTracer.getClass().getName() + ", scene " + scene.name + " " + content
+                + ", version " + checkpointVersion;
+    }
 
-        Point Pc = p0.add(vTo.scale(distance));
-        double Ry = height / nY;
-        double Rx = width / nX;
-        double Yi = (i - (nY / 2d)) * Ry + Ry / 2d;
-        double Xj = (j - (nX / 2d)) * Rx + Rx / 2d;
-        Point Pij = Pc.add(vRight.scale(-Xj)).add(vUp.scale(-Yi));
 
-        double PRy = Ry / numOfRaysInRowCol;
-        double PRx = Rx / numOfRaysInRowCol;
-        return adaptiveSuperSamplingRec(Pij, Rx, Ry, PRx, PRy, null);
+    /**
+     * Renders the image with adaptive super-sampling. The image is split into
+     * tiles that are rendered in parallel, as in {@link #renderImageBeam()};
+     * every tile keeps the corner samples it traced, so a corner shared by
+     * neighboring pixels or sub-squares is traced once in the tile. The tiles do
+     * not share their corners: a corner on the border of two tiles is traced by
+     * each of them, which costs 1% to 4% more rays with tiles of 16 pixels.
+     */
+    private void renderImageAdaptive() {
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        frameBuffer = new FrameBuffer(nX, nY);
+        try (TileScheduler scheduler = new TileScheduler(nX, nY, tileSize, tileOrder)) {
+            openCheckpoint(scheduler, frameBuffer, null);
+            scheduler.render(threads, tile -> {
+                if (!skip(tile)) renderTileAdaptive(tile, nX, nY);
+            }, print);
+        }
+        closeCheckpoint();
+        frameBuffer.toneMap(imageWriter, toneMapping, exposure);
     }
 
-    private primitives.Color adaptiveSuperSamplingRec(Point centerP, double width, double height, double minWidth, double minHeight, List<Point> prePoints) throws Exception {
-        if (width < minWidth * 2 || height < minHeight * 2) {
-            return rayTracer.traceRay(new Ray(p0,centerP.subtract(p0)));
+    /**
+     * Renders the pixels of a single tile with adaptive super-sampling and writes
+     * the whole tile to the frame buffer
+     *
+     * @param tile the tile
+     * @param nX   image width in pixels
+     * @param nY   image height in pixels
+     */
+    private void renderTileAdaptive(TileScheduler.Tile tile, int nX, int nY) {
+        int width = tile.x1 - tile.x0;
+        float[] rgb = new float[3 * width * (tile.y1 - tile.y0)];
+        int numOfRaysInRowCol = (int) Math.floor(Math.sqrt(numOfRaysSuperSampeling));
+        CornerLattice lattice = numOfRaysInRowCol == 1 ? null : new CornerLattice(tile, nX, nY, numOfRaysInRowCol);
+        for (int i = tile.y0, k = 0; i < tile.y1; ++i)
+            for (int j = tile.x0; j < tile.x1; ++j) {
+                primitives.Color color = lattice == null
+                        ? rayTracer.traceRay(constructRay(nX, nY, j, i))
+                        : lattice.pixel(j, i);
+                rgb[k++] = (float) color.getRed();
+                rgb[k++] = (float) color.getGreen();
+                rgb[k++] = (float) color.getBlue();
+            }
+        commitTile(tile, () -> frameBuffer.writeTile(tile.x0, tile.y0, width, tile.y1 - tile.y0, rgb));
+    }
+
+    /**
+     * The samples of the adaptive super-sampling of a tile, on an integer
+     * lattice over the tile. A pixel side has {@link #steps} lattice steps - twice
+     * the largest power of two not above the amount of rays in a pixel row - so
+     * the corners of every square and sub-square of the recursion and the centers
+     * of the smallest squares are lattice points. A corner traced once is kept by
+     * its lattice coordinates and reused by every square of the tile that has
+     * it; the lattice of a neighboring tile traces the corners of their common
+     * border again.
+     */
+    private class CornerLattice {
+        /** The first pixel column and row of the tile */
+        private final int                x0, y0;
+        /** Image size in pixels */
+        private final int                nX, nY;
+        /** Maximal amount of rays in a pixel row */
+        private final int                raysInRow;
+        /** Lattice steps per pixel side */
+        private final int                steps;
+        /** Amount of corners in a row of the tile (corners are at even lattice points) */
+        private final int                stride;
+        /** The colors of the corners traced so far, row after row (null if not yet) */
+        private final primitives.Color[] corners;
+
+        /**
+         * @param tile      the tile
+         * @param nX        image width in pixels
+         * @param nY        image height in pixels
+         * @param raysInRow maximal amount of rays in a pixel row (at least 2)
+         */
+        CornerLattice(TileScheduler.Tile tile, int nX, int nY, int raysInRow) {
+            this.x0 = tile.x0;
+            this.y0 = tile.y0;
+            this.nX = nX;
+            this.nY = nY;
+            this.raysInRow = raysInRow;
+            this.steps = 2 * Integer.highestOneBit(raysInRow);
+            this.stride = (tile.x1 - tile.x0) * steps / 2 + 1;
+            this.corners = new primitives.Color[stride * ((tile.y1 - tile.y0) * steps / 2 + 1)];
+        }
+
+        /**
+         * @param j column of a pixel of the tile
+         * @param i row of a pixel of the tile
+         * @return the color of the pixel
+         */
+        primitives.Color pixel(int j, int i) {
+            int half = steps / 2;
+            return square((j - x0) * steps + half, (i - y0) * steps + half, half, null);
         }
 
-        List<Point> nextCenterPList = new LinkedList<>();
-        List<Point> cornersList = new LinkedList<>();
-        List<primitives.Color> colorList = new LinkedList<>();
-
-        for (int i = -1; i <= 1; i += 2) {
-            for (int j = -1; j <= 1; j += 2) {
-                Point tempCorner = centerP.add(vRight.scale(i * width / 2)).add(vUp.scale(j * height / 2));
-                cornersList.add(tempCorner);
-                if (prePoints == null || !isInList(prePoints, tempCorner)) {
-                    Ray tempRay = new Ray(p0,tempCorner.subtract(p0));
-                    nextCenterPList.add(centerP.add(vRight.scale(i * width / 4)).add(vUp.scale(j * height / 4)));
-                    colorList.add(rayTracer.traceRay(tempRay));
+        /**
+         * Samples a square of the pixel adaptively: its four corners are sampled,
+         * and unless they all have the same color, the quarters towards the corners
+         * that the enclosing square did not have are sampled recursively.
+         *
+         * @param u          lattice column of the square center
+         * @param v          lattice row of the square center
+         * @param half       half of the square side in lattice steps
+         * @param preCorners lattice coordinates of the corners of the enclosing
+         *                   square, column and row of each (null for a whole pixel)
+         * @return the color of the square
+         */
+        private primitives.Color square(int u, int v, int half, int[] preCorners) {
+            if (half * raysInRow < steps) // smaller than the smallest square
+                return rayTracer.traceRay(ray(u, v));
+
+            int[] cornersList = new int[8];
+            int[] nextCenters = new int[8];
+            primitives.Color[] colors = new primitives.Color[4];
+            int count = 0;
+            for (int i = -1, c = 0; i <= 1; i += 2)
+                for (int j = -1; j <= 1; j += 2, c += 2) {
+                    int cu = u + i * half, cv = v - j * half;
+                    cornersList[c] = cu;
+                    cornersList[c + 1] = cv;
+                    if (preCorners == null || !isCorner(preCorners, cu, cv)) {
+                        nextCenters[2 * count] = u + i * half / 2;
+                        nextCenters[2 * count + 1] = v - j * half / 2;
+                        colors[count++] = corner(cu, cv);
+                    }
                 }
-            }
+
+            if (count == 0) return primitives.Color.BLACK;
+
+            boolean isAllEquals = true;
+            for (int k = 1; k < count && isAllEquals; ++k)
+                isAllEquals = colors[0].isAlmostEquals(colors[k]);
+            if (isAllEquals && count > 1) return colors[0];
+
+            primitives.Color color = primitives.Color.BLACK;
+            for (int k = 0; k < count; ++k)
+                color = color.add(square(nextCenters[2 * k], nextCenters[2 * k + 1], half / 2, cornersList));
+            return color.reduce(count);
         }
 
-        if (nextCenterPList == null || nextCenterPList.size() == 0) {
-            return primitives.Color.BLACK;
+        /**
+         * @param corners lattice coordinates of corners, column and row of each
+         * @param u       lattice column of a point
+         * @param v       lattice row of a point
+         * @return true if the point is one of the corners
+         */
+        private boolean isCorner(int[] corners, int u, int v) {
+            for (int c = 0; c < corners.length; c += 2)
+                if (corners[c] == u && corners[c + 1] == v) return true;
+            return false;
         }
 
-        boolean isAllEquals = true;
-        primitives.Color tempColor = colorList.get(0);
-        for (primitives.Color color : colorList) {
-            if (!tempColor.isAlmostEquals(color)) {
-                isAllEquals = false;
-                break;
+        /**
+         * @param u lattice column of a corner (even)
+         * @param v lattice row of a corner (even)
+         * @return the color of the corner, traced at its first use in the tile
+         */
+        private primitives.Color corner(int u, int v) {
+            int index = (v >> 1) * stride + (u >> 1);
+            primitives.Color color = corners[index];
+            if (color == null) {
+                color = rayTracer.traceRay(ray(u, v));
+                corners[index] = color;
             }
+            return color;
         }
 
-        if (isAllEquals && colorList.size() > 1) {
-            return tempColor;
+        /**
+         * @param u lattice column
+         * @param v lattice row
+         * @return the ray from the camera through the lattice point
+         */
+        private Ray ray(int u, int v) {
+            double x = ((double) x0 * steps + u - nX * steps / 2d) * (width / nX / steps);
+            double y = -((double) y0 * steps + v - nY * steps / 2d) * (height / nY / steps);
+            return constructRayThrough(x, y);
         }
+    }
 
-        tempColor = primitives.Color.BLACK;
-        for (Point center : nextCenterPList) {
-            tempColor = tempColor.add(adaptiveSuperSamplingRec(center, width / 2, height / 2, minWidth, minHeight, cornersList));
+    /**
+     * Renders the image with the variance-driven sampling (see
+     * {@link #setVarianceSampling(int, int)}). Every pass renders the tiles in
+     * parallel; the next pass hands out the rest of the budget by the errors of
+     * the pixels after it. The sample positions of a pixel depend only on the
+     * pixel and the number of the sample, so the image is the same for any
+     * amount of threads. A checkpoint keeps the allocation of the current pass
+     * and the rest of the budget, so a rendering that goes on does the same
+     * passes.
+     */
+    private void renderImageVariance() {
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        SampleAccumulator accumulator = new SampleAccumulator(nX, nY);
+        long budget = (long) samplesPerPixel * nX * nY;
+        int[] pass = new int[nX * nY];
+        Arrays.fill(pass, minSamples);
+        int passes = 0;
+        try (TileScheduler scheduler = new TileScheduler(nX, nY, tileSize, tileOrder)) {
+            if (openCheckpoint(scheduler, null, accumulator)) {
+                passes = checkpoint.pass;
+                budget = checkpoint.budget;
+                pass = checkpoint.allocation;
+            } else if (checkpoint != null) checkpoint.nextPass(passes, budget, pass);
+            while (pass != null) {
+                int[] newSamples = pass;
+                scheduler.render(threads, tile -> {
+                    if (!skip(tile)) sampleTile(tile, nX, nY, accumulator, newSamples);
+                }, print);
+                if (isCancelled()) break;
+                for (int n : newSamples)
+                    budget -= n;
+                pass = budget <= 0 ? null : accumulator.allocate((int) Math.min(budget, (long) nX * nY));
+                if (checkpoint != null) checkpoint.nextPass(++passes, budget, pass);
+            }
         }
-        return tempColor.reduce(nextCenterPList.size());
+        closeCheckpoint();
+        samples = accumulator;
+        frameBuffer = accumulator.toFrameBuffer();
+        frameBuffer.toneMap(imageWriter, toneMapping, exposure);
     }
 
-    private boolean isInList(List<Point> pointsList, Point point) {
-        for (Point tempPoint : pointsList) {
-            if (point.isAlmostEquals(tempPoint)) return true;
+    /**
+     * Renders the image progressively (see {@link #setProgressive(long, double)}).
+     * Every pass adds a sample to every pixel, tile by tile in parallel. The mean
+     * colors so far are published as the preview after the first pass, and then
+     * after a pass only if a quarter of a second has passed since the last one,
+     * since a preview is a copy of the whole image. The noise is estimated with
+     * every preview, and after every pass if there is a noise target. The first
+     * pass is always complete; a later pass that runs out of time skips its
+     * remaining tiles. A cancelled rendering ends with the samples so far. The
+     * estimated noise is logged - at the info level with printing on, and at the
+     * fine level otherwise.
+     */
+    private void renderImageProgressive() {
+        Level level = print ? Level.INFO : Level.FINE;
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        long deadline = progressiveMillis > 0 ? System.nanoTime() + progressiveMillis * 1_000_000
+                : Long.MAX_VALUE;
+        SampleAccumulator accumulator = new SampleAccumulator(nX, nY);
+        int[] one = new int[nX * nY];
+        Arrays.fill(one, 1);
+        preview = null;
+        samples = accumulator;
+        int passes = 0;
+        // whether the preview is of all the samples so far
+        boolean published = false;
+        long nextPreview = 0;
+        try (TileScheduler scheduler = new TileScheduler(nX, nY, tileSize, tileOrder)) {
+            if (openCheckpoint(scheduler, null, accumulator) && checkpoint.pass > 0) {
+                passes = checkpoint.pass;
+                preview = accumulator.toFrameBuffer();
+                noise = accumulator.noise();
+            }
+            while (!isCancelled()) {
+                boolean complete = passes == 0;
+                scheduler.render(threads, tile -> {
+                    if (!skip(tile) && (complete || System.nanoTime() < deadline))
+                        sampleTile(tile, nX, nY, accumulator, one);
+                }, false);
+                if (isCancelled()) break;
+                ++passes;
+                if (checkpoint != null) checkpoint.nextPass(passes, 0, null);
+                long now = System.nanoTime();
+                published = now >= nextPreview;
+                if (published) {
+                    preview = accumulator.toFrameBuffer();
+                    nextPreview = now + PREVIEW_NANOS;
+                }
+                if (published || targetNoise > 0) {
+                    noise = accumulator.noise();
+                    if (logger.isLoggable(level))
+                        logger.log(level, String.format("Pass %d, noise %.4f", passes, noise));
+                    // a flat image has no noise from the second pass on
+                    if (passes > 1 && (noise == 0 || noise <= targetNoise)) break;
+                }
+                if (now >= deadline) break;
+            }
+        }
+        closeCheckpoint();
+        if (!isCancelled() && !published) {
+            preview = accumulator.toFrameBuffer();
+            noise = accumulator.noise();
+        }
+        frameBuffer = isCancelled() || preview == null ? accumulator.toFrameBuffer() : preview;
+        synchronized (imageWriter) {
+            frameBuffer.toneMap(imageWriter, toneMapping, exposure);
         }
-        return false;
+    }
+
+    /**
+     * Adds samples to the pixels of a tile, placed by the sampler of the camera
+     * (the Halton sequence if none is set). The samples are gathered for the
+     * tile and added to the pixels when the tile is done, so a checkpoint never
+     * holds a part of a tile.
+     *
+     * @param tile        the tile
+     * @param nX          image width in pixels
+     * @param nY          image height in pixels
+     * @param accumulator the samples of the pixels
+     * @param newSamples  the amount of samples to add to every pixel of the image
+     */
+    private void sampleTile(TileScheduler.Tile tile, int nX, int nY, SampleAccumulator accumulator,
+                            int[] newSamples) {
+        Sampler placement = sampler != null ? sampler : HALTON;
+        double[] point = new double[2];
+        SampleAccumulator tileSamples = new SampleAccumulator(tile.x1 - tile.x0, tile.y1 - tile.y0);
+        for (int i = tile.y0, t = 0; i < tile.y1; ++i)
+            for (int j = tile.x0; j < tile.x1; ++j, ++t) {
+                int pixel = i * nX + j;
+                for (int s = 0; s < newSamples[pixel]; ++s) {
+                    placement.sample(j, i, accumulator.counts[pixel] + s, point);
+                    tileSamples.add(t, rayTracer.traceRay(constructRayInPixel(nX, nY, j, i, point)));
+                }
+            }
+        commitTile(tile, () -> accumulator.add(tileSamples, tile.x0, tile.y0));
+    }
+
+    /**
+     * @param nX    image width in pixels
+     * @param nY    image height in pixels
+     * @param j     column of the pixel
+     * @param i     row of the pixel
+     * @param point position in the pixel, x to the right and y downwards in [0,1)
+     * @return the ray from the camera through the position in the pixel
+     */
+    private Ray constructRayInPixel(int nX, int nY, int j, int i, double[] point) {
+        return constructRayThrough((j + point[0] - nX / 2d) * (width / nX),
+                -(i + point[1] - nY / 2d) * (height / nY));
     }
 
     public Camera setMultithreading(int threads) {
@@ -460,6 +1152,14 @@ public class Camera implements Cloneable{
         imageWriter.writeToImage();
         return this;
     }
+    /**
+     * Renders the image with a beam of rays through each pixel. The image is split
+     * into tiles that are rendered in parallel by the amount of threads set by
+     * {@link #setMultithreading(int)}; the result is the same for any amount of
+     * threads and any tile order. The colors are kept in the frame buffer and
+     * tone mapped into the image at the end. A cancelled rendering ends with the
+     * tiles done so far.
+     */
     public void renderImageBeam()
     {//track rays, if its a beam and more
 
@@ -468,36 +1168,92 @@ public class Camera implements Cloneable{
         if (rayTracer == null)
             throw new MissingResourceException(RESOURCE, CAMERA_CLASS, RAY_TRACER);
 
-        //if(numOfRaysSuperSampeling==0||numOfRaysSuperSampeling==1)//no supersampeling
-        //renderImage();//calls for creating the picture
-
-        //else,supersampleing
-        //runs on all the image
-        for(int i=0;i<imageWriter.getNx();i++)
-        {
-            for(int j=0;j<imageWriter.getNy();j++)
-            {
-//                if(numOfRays == 1 || numOfRays == 0)
-//                {
-//                    Ray ray = constructRay(imageWriter.getNx(), imageWriter.getNy(), j, i);
-//                    Color rayColor = rayTracer.traceRay(ray);
-//                    imageWriter.writePixel(j, i, rayColor);
-//                }
-                //creating a list of all the rays in the beam, calculating their color and eriting the image
-//                else {
-                    List<Ray> rays = constructBeamForEacjPixel(imageWriter.getNx(), imageWriter.getNy(), j, i,numOfRaysSuperSampeling);
-                    Color rayColor = rayTracer.traceRay(rays);//new func,gets a list of rays
-                    imageWriter.writePixel(j, i, rayColor);
-//                }
-            }
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        frameBuffer = new FrameBuffer(nX, nY);
+        try (TileScheduler scheduler = new TileScheduler(nX, nY, tileSize, tileOrder)) {
+            openCheckpoint(scheduler, frameBuffer, null);
+            scheduler.render(threads, tile -> {
+                if (!skip(tile)) renderTile(tile, nX, nY);
+            }, print);
         }
+        closeCheckpoint();
+        frameBuffer.toneMap(imageWriter, toneMapping, exposure);
+    }
+
+    /**
+     * Renders the pixels of a single tile - creating a beam of rays for each
+     * pixel and calculating its color - and writes the whole tile to the frame
+     * buffer
+     *
+     * @param tile the tile
+     * @param nX   image width in pixels
+     * @param nY   image height in pixels
+     */
+    private void renderTile(TileScheduler.Tile tile, int nX, int nY) {
+        int width = tile.x1 - tile.x0;
+        float[] rgb = new float[3 * width * (tile.y1 - tile.y0)];
+        if (packetSize > 0 && (int) Math.floor(Math.sqrt(numOfRaysSuperSampeling)) == 1
+                && (sampler == null || numOfRaysSuperSampeling <= 1))
+            renderTilePackets(tile, nX, nY, rgb);
+        else
+            for (int i = tile.y0, k = 0; i < tile.y1; ++i)
+                for (int j = tile.x0; j < tile.x1; ++j) {
+                    List<Ray> rays = constructBeamForEacjPixel(nX, nY, j, i, numOfRaysSuperSampeling);
+                    Color color = rayTracer.traceRay(rays);
+                    rgb[k++] = (float) color.getRed();
+                    rgb[k++] = (float) color.getGreen();
+                    rgb[k++] = (float) color.getBlue();
+                }
+        commitTile(tile, () -> frameBuffer.writeTile(tile.x0, tile.y0, width, tile.y1 - tile.y0, rgb));
     }
 
 
+    /**
+     * Renders the pixels of a single tile by packets - the primary rays of each
+     * block of pixels are traced together
+     *
+     * @param tile the tile
+     * @param nX   image width in pixels
+     * @param nY   image height in pixels
+     * @param rgb  the colors of the tile pixels, row after row
+     */
+    private void renderTilePackets(TileScheduler.Tile tile, int nX, int nY, float[] rgb) {
+        int width = tile.x1 - tile.x0;
+        RayPacket packet = new RayPacket(packetSize * packetSize);
+        Color[] colors = new Color[packetSize * packetSize];
+        for (int i0 = tile.y0; i0 < tile.y1; i0 += packetSize)
+            for (int j0 = tile.x0; j0 < tile.x1; j0 += packetSize) {
+                int i1 = Math.min(i0 + packetSize, tile.y1), j1 = Math.min(j0 + packetSize, tile.x1);
+                packet.clear();
+                for (int i = i0; i < i1; ++i)
+                    for (int j = j0; j < j1; ++j)
+                        packet.add(constructRay(nX, nY, j, i));
+                rayTracer.tracePacket(packet, colors);
+                for (int i = i0, r = 0; i < i1; ++i)
+                    for (int j = j0; j < j1; ++j, ++r) {
+                        int k = 3 * ((i - tile.y0) * width + j - tile.x0);
+                        rgb[k] = (float) colors[r].getRed();
+                        rgb[k + 1] = (float) colors[r].getGreen();
+                        rgb[k + 2] = (float) colors[r].getBlue();
+                    }
+            }
+    }
+
 public List<Ray> constructBeamForEacjPixel(int nX, int nY, int j, int i, int raysAmountSuper)
     {
         if(isZero(distance))
             throw new IllegalArgumentException(DISTANCE);
+        if (sampler != null && raysAmountSuper > 1) { //the rays at the samples of the pixel instead of the grid
+            List<Ray> beamRays = new ArrayList<>(raysAmountSuper);
+            double[] point = new double[2];
+            for (int k = 0; k < raysAmountSuper; ++k) {
+                sampler.sample(j, i, k, point);
+                beamRays.add(constructRayInPixel(nX, nY, j, i, point));
+            }
+            return beamRays;
+        }
+
         int numOfRays = (int)Math.floor(Math.sqrt(raysAmountSuper)); //num of rays in each row or column
 
         if (numOfRays==1) //if the beam is only one ray
@@ -505,8 +1261,8 @@ public List<Ray> constructBeamForEacjPixel(int nX, int nY, int j, int i, int ray
 
         double Ry= height/nY;
         double Rx=width/nX;
-        double Yi=(i-(nY-1)/2d)*Ry;
-        double Xj=(j-(nX-1)/2d)*Rx;
+        double Yi=(i-nY/2d)*Ry; //the top left corner of the pixel
+        double Xj=(j-nX/2d)*Rx;
 
         double PRy = Ry / numOfRays; //height distance between each ray
         double PRx = Rx / numOfRays; //width distance between each ray
@@ -525,23 +1281,12 @@ public List<Ray> constructBeamForEacjPixel(int nX, int nY, int j, int i, int ray
 
     private Ray constructRaysForEachPixel(double Ry,double Rx, double yi, double xj, int j, int i)
     {//creating a ray of beam rays
-        Point Pc = p0.add(vTo.scale(distance)); //the center of the screen point
-
         double yStartingi =  (i *Ry + Ry/2d); //The pixel starting point on the y axis
         double xStartingj=   (j *Rx + Rx/2d); //The pixel starting point on the x axis
 
-        Point Pij = Pc; //The center point at the pixel through which a beam is fired
-        //Moving the point through which a beam is fired on the x axis
-        if (!isZero(xStartingj + xj))
-        {
-            Pij = Pij.add(vRight.scale(xStartingj + xj));
-        }
-        //Moving the point through which a beam is fired on the y axis
-        if (!isZero(yStartingi + yi))
-        {
-            Pij = Pij.add(vUp.scale(-yStartingi -yi ));
-        }
-        Vector Vij = Pij.subtract(p0);
-        return new Ray(p0,Vij);//create the ray throw the point we calculate here
+        //Moving the point through which a beam is fired from the center of the screen on the x and y axes
+        double x = isZero(xStartingj + xj) ? 0 : xStartingj + xj;
+        double y = isZero(yStartingi + yi) ? 0 : -yStartingi - yi;
+        return constructRayThrough(x, y);//create the ray throw the point we calculate here
     }
 }
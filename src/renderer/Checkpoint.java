@@ -0,0 +1,286 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checkpoint of a rendering in progress - the colors or the samples of the
+ * pixels rendered so far, the tiles of the current pass that are done and the
+ * state of the passes - saved to a file from time to time, so a rendering that
+ * was cancelled or killed goes on from the checkpoint instead of starting over.
+ * <p>
+ * The file starts with a magic number and a format version, then a key that
+ * describes the scene and the camera settings; a checkpoint is resumed only by
+ * a rendering of the same key. Every save writes a temporary file and moves it
+ * over the previous checkpoint, so a rendering killed while saving leaves the
+ * previous checkpoint whole.
+ * <p>
+ * The rendering threads hand over every finished tile by
+ * {@link #commit(TileScheduler.Tile, Runnable)}: the tile is written into the
+ * buffer and marked done together, and a save never sees a tile half written.
+ */
+class Checkpoint {
+    /** The first bytes of every checkpoint file - "RTCP" */
+    private static final int MAGIC   = 0x52544350;
+    /** Version of the file format */
+    private static final int VERSION = 1;
+
+    /** logger for reporting the checkpoints and I/O failures */
+    private static final Logger logger = Logger.getLogger("Checkpoint");
+
+    /** The checkpoint file */
+    private final Path                  file;
+    /** Time between the saves in nanoseconds, 0 to save only when asked */
+    private final long                  intervalNanos;
+    /** Description of the scene and the camera settings of the rendering */
+    private final String                key;
+    /** The colors of the pixels, for the renderings of a single pass - null
+     * otherwise */
+    private final FrameBuffer           frameBuffer;
+    /** The samples of the pixels, for the renderings of many passes - null
+     * otherwise */
+    private final SampleAccumulator     accumulator;
+    /** The tiles of the current pass that are done, by their index */
+    private final BitSet                done;
+    /** Amount of tiles in a pass */
+    private final int                   tiles;
+    /** Amount of pixels in the image */
+    private final int                   pixels;
+    /** Held shared by the threads that commit tiles, and exclusively by a save */
+    private final ReadWriteLock         lock     = new ReentrantReadWriteLock();
+    /** Time of the next save by {@link System#nanoTime()} */
+    private final AtomicLong            nextSave = new AtomicLong();
+
+    /** Amount of passes that are complete */
+    int   pass       = 0;
+    /** The rest of the sample budget before the current pass */
+    long  budget     = 0;
+    /** The amount of samples of every pixel in the current pass, null if the
+     * rendering does not need it */
+    int[] allocation = null;
+
+    /**
+     * @param file          the checkpoint file
+     * @param intervalMillis time between the saves in milliseconds, 0 to save
+     *                       only when asked
+     * @param key           description of the scene and the camera settings
+     * @param tiles         amount of tiles in a pass
+     * @param frameBuffer   the colors of the pixels, null if the rendering
+     *                      accumulates samples
+     * @param accumulator   the samples of the pixels, null if the rendering
+     *                      writes the colors
+     */
+    Checkpoint(Path file, long intervalMillis, String key, int tiles, FrameBuffer frameBuffer,
+               SampleAccumulator accumulator) {
+        this.file = file;
+        this.intervalNanos = intervalMillis * 1_000_000;
+        this.key = key;
+        this.frameBuffer = frameBuffer;
+        this.accumulator = accumulator;
+        this.done = new BitSet(tiles);
+        this.tiles = tiles;
+        this.pixels = frameBuffer != null ? frameBuffer.getNx() * frameBuffer.getNy() : accumulator.counts.length;
+        nextSave.set(System.nanoTime() + intervalNanos);
+    }
+
+    /**
+     * @param tile a tile of the image
+     * @return true if the tile is done in the current pass
+     */
+    boolean isDone(TileScheduler.Tile tile) {
+        synchronized (done) {
+            return done.get(tile.index);
+        }
+    }
+
+    /**
+     * Hands over a finished tile - writes it into the buffer and marks it done,
+     * and saves the checkpoint if its time has come
+     *
+     * @param tile  the tile
+     * @param write writes the tile into the buffer of the checkpoint
+     */
+    void commit(TileScheduler.Tile tile, Runnable write) {
+        lock.readLock().lock();
+        try {
+            write.run();
+            synchronized (done) {
+                done.set(tile.index);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long next = nextSave.get();
+        if (intervalNanos > 0 && System.nanoTime() >= next
+                && nextSave.compareAndSet(next, Long.MAX_VALUE)) {
+            try {
+                save();
+            } catch (IllegalStateException e) {
+                // logged by the save - the rendering goes on, and the save is tried
+                // again after the interval
+                nextSave.set(System.nanoTime() + intervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Starts the next pass - no tile of it is done yet
+     *
+     * @param pass       amount of passes that are complete
+     * @param budget     the rest of the sample budget
+     * @param allocation the amount of samples of every pixel in the pass, null
+     *                   if the rendering does not need it
+     */
+    void nextPass(int pass, long budget, int[] allocation) {
+        lock.writeLock().lock();
+        try {
+            this.pass = pass;
+            this.budget = budget;
+            this.allocation = allocation;
+            synchronized (done) {
+                done.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Saves the checkpoint, waiting for the tiles being committed
+     *
+     * @throws IllegalStateException on an I/O error
+     */
+    void save() {
+        long start = System.nanoTime();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.writeLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+                1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key);
+            out.writeInt(pass);
+            out.writeLong(budget);
+            long[] words = done.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words)
+                out.writeLong(word);
+            out.writeInt(allocation == null ? -1 : allocation.length);
+            if (allocation != null)
+                for (int samples : allocation)
+                    out.writeInt(samples);
+            if (frameBuffer != null) frameBuffer.write(out);
+            else accumulator.write(out);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - cannot write checkpoint " + temporary, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - cannot replace checkpoint " + file, e);
+        }
+        nextSave.set(System.nanoTime() + intervalNanos);
+        logger.info(String.format("Wrote checkpoint %s, pass %d: %.3f s", file, pass,
+                (System.nanoTime() - start) / 1e9));
+    }
+
+    /**
+     * Loads the checkpoint file into the buffer, if the file exists and was
+     * saved by a rendering of the same key. A checkpoint of another rendering,
+     * or a damaged one, is ignored - it is replaced by the next save. The
+     * lengths in the file are checked against the amounts of tiles and pixels
+     * before anything is allocated by them, so a damaged length starts the
+     * rendering over too.
+     *
+     * @return true if the checkpoint was loaded, false if the rendering starts
+     *         over
+     * @throws IllegalStateException on an I/O error other than a damaged file
+     */
+    boolean load() {
+        if (!Files.exists(file)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+                1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(key)) {
+                logger.info("Checkpoint " + file + " is of another rendering - starting over");
+                return false;
+            }
+            int loadedPass = in.readInt();
+            long loadedBudget = in.readLong();
+            int wordCount = in.readInt();
+            if (loadedPass < 0 || wordCount < 0 || wordCount > (tiles + Long.SIZE - 1) / Long.SIZE)
+                return damaged("has a bad pass or amount of tiles", null);
+            long[] words = new long[wordCount];
+            for (int w = 0; w < words.length; ++w)
+                words[w] = in.readLong();
+            if (BitSet.valueOf(words).length() > tiles)
+                return damaged("has tiles out of the image", null);
+            int length = in.readInt();
+            if (length != -1 && length != pixels)
+                return damaged("has an allocation of " + length + " pixels instead of " + pixels, null);
+            int[] loadedAllocation = length < 0 ? null : new int[length];
+            for (int p = 0; p < length; ++p)
+                loadedAllocation[p] = in.readInt();
+            if (frameBuffer != null) frameBuffer.read(in);
+            else accumulator.read(in);
+
+            pass = loadedPass;
+            budget = loadedBudget;
+            allocation = loadedAllocation;
+            done.clear();
+            done.or(BitSet.valueOf(words));
+        } catch (EOFException e) {
+            return damaged("is truncated", e);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - cannot read checkpoint " + file, e);
+        }
+        logger.info(String.format("Resumed checkpoint %s: pass %d, %d tiles done", file, pass, done.cardinality()));
+        return true;
+    }
+
+    /**
+     * Gives up a damaged checkpoint file. The tiles are not marked done, so the
+     * colors read so far are rendered again, but the samples would be added to,
+     * so they are cleared.
+     *
+     * @param reason what is wrong with the file
+     * @param e      the exception of the damage, null if none
+     * @return false - the rendering starts over
+     */
+    private boolean damaged(String reason, Exception e) {
+        if (accumulator != null) accumulator.clear();
+        logger.log(Level.WARNING, "Checkpoint " + file + " " + reason + " - starting over", e);
+        return false;
+    }
+
+    /**
+     * Deletes the checkpoint file - the rendering is complete
+     *
+     * @throws IllegalStateException on an I/O error
+     */
+    void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - cannot delete checkpoint " + file, e);
+        }
+    }
+}
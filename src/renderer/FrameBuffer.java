@@ -0,0 +1,325 @@
+package renderer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import primitives.Color;
+
+/**
+ * High dynamic range frame buffer - the colors of the rendered pixels as floats,
+ * without the 255 limit of the image. The renderer writes into the buffer, and a
+ * separate tone mapping pass converts it into an {@link ImageWriter}, so the
+ * exposure and the tone mapping can be changed without tracing the rays again.
+ * The buffer can be saved losslessly to a PFM file and loaded later.
+ * <p>
+ * The pixels are kept in a float array, three components per pixel in rows.
+ * Like the image writer, threads may write disjoint pixels or tiles concurrently
+ * without locking.
+ */
+public class FrameBuffer {
+    /** Horizontal resolution of the image - number of pixels in row */
+    private final int     nX;
+    /** Vertical resolution of the image - number of pixels in column */
+    private final int     nY;
+    /** The pixels - row by row, red, green and blue of each pixel */
+    private final float[] rgb;
+
+    /** The largest amount of components of a buffer - the longest array a JVM
+     * allocates */
+    private static final long MAX_COMPONENTS = Integer.MAX_VALUE - 8;
+    /** Size in bytes of the chunks of a PFM file that are read or written at a
+     * time */
+    private static final int  CHUNK          = 1 << 16;
+
+    /** logger for reporting I/O failures */
+    private static final Logger logger = Logger.getLogger("FrameBuffer");
+
+    /**
+     * Creates a black frame buffer
+     *
+     * @param nX amount of pixels by width
+     * @param nY amount of pixels by height
+     * @throws IllegalArgumentException if the buffer has no pixels or more than
+     *                                  an array can hold
+     */
+    public FrameBuffer(int nX, int nY) {
+        if (nX < 1 || nY < 1) throw new IllegalArgumentException("Frame buffer must have pixels");
+        if (3L * nX * nY > MAX_COMPONENTS)
+            throw new IllegalArgumentException("Frame buffer of " + nX + "x" + nY + " pixels is too large");
+        this.nX = nX;
+        this.nY = nY;
+        this.rgb = new float[3 * nX * nY];
+    }
+
+    /**
+     * @return the amount of horizontal pixels
+     */
+    public int getNx() { return nX; }
+
+    /**
+     * @return the amount of vertical pixels
+     */
+    public int getNy() { return nY; }
+
+    /**
+     * @param  xIndex X axis index of the pixel
+     * @param  yIndex Y axis index of the pixel
+     * @return        index of the red component of the pixel in the array
+     */
+    private int index(int xIndex, int yIndex) {
+        return 3 * (Objects.checkIndex(yIndex, nY) * nX + Objects.checkIndex(xIndex, nX));
+    }
+
+    /**
+     * Writes the color of a pixel
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @param color  color of the pixel
+     */
+    public void writePixel(int xIndex, int yIndex, Color color) {
+        int i = index(xIndex, yIndex);
+        rgb[i] = (float) color.getRed();
+        rgb[i + 1] = (float) color.getGreen();
+        rgb[i + 2] = (float) color.getBlue();
+    }
+
+    /**
+     * Writes a whole rectangular tile, a row at a time
+     *
+     * @param x0     X axis index of the left column of the tile
+     * @param y0     Y axis index of the top row of the tile
+     * @param width  amount of columns in the tile
+     * @param height amount of rows in the tile
+     * @param colors the colors of the tile row by row, three components per pixel
+     */
+    public void writeTile(int x0, int y0, int width, int height, float[] colors) {
+        Objects.checkFromIndexSize(x0, width, nX);
+        Objects.checkFromIndexSize(y0, height, nY);
+        Objects.checkFromIndexSize(0, 3 * width * height, colors.length);
+        for (int row = 0; row < height; ++row)
+            System.arraycopy(colors, 3 * row * width, rgb, 3 * ((y0 + row) * nX + x0), 3 * width);
+    }
+
+    /**
+     * Reads the color of a pixel
+     *
+     * @param  xIndex X axis index of the pixel
+     * @param  yIndex Y axis index of the pixel
+     * @return        the color of the pixel
+     */
+    public Color readPixel(int xIndex, int yIndex) {
+        int i = index(xIndex, yIndex);
+        return new Color(rgb[i], rgb[i + 1], rgb[i + 2]);
+    }
+
+    /**
+     * Converts the buffer into the image. The colors are scaled by the exposure
+     * and then mapped into 0..255 by the tone mapping. With {@link ToneMapping#CLAMP}
+     * and exposure 0 the pixels are the same as writing the colors directly to the
+     * image writer, except for a rare component just below a whole number that
+     * the float rounds up by one level. Can be run again with other parameters at
+     * any time.
+     *
+     * @param imageWriter the image, of the same resolution as the buffer
+     * @param toneMapping how to map the colors into 0..255
+     * @param exposure    exposure correction in stops - the colors are scaled by
+     *                    2 to the power of the exposure
+     * @return the buffer itself
+     */
+    public FrameBuffer toneMap(ImageWriter imageWriter, ToneMapping toneMapping, double exposure) {
+        if (imageWriter.getNx() != nX || imageWriter.getNy() != nY)
+            throw new IllegalArgumentException("Image resolution differs from the frame buffer");
+        double scale = Math.pow(2, exposure);
+        int[] row = new int[nX];
+        for (int y = 0, i = 0; y < nY; ++y) {
+            for (int x = 0; x < nX; ++x, i += 3) {
+                double r = rgb[i] * scale, g = rgb[i + 1] * scale, b = rgb[i + 2] * scale;
+                if (toneMapping == ToneMapping.REINHARD) {
+                    double luminance = (0.2126 * r + 0.7152 * g + 0.0722 * b) / 255;
+                    double k = 1 / (1 + luminance);
+                    r *= k;
+                    g *= k;
+                    b *= k;
+                }
+                row[x] = pack(r, g, b);
+            }
+            imageWriter.writeTile(0, y, nX, 1, row);
+        }
+        return this;
+    }
+
+    /**
+     * Packs color components into 0xRRGGBB the same way as {@link Color#getRGB()}
+     *
+     * @param  r red component
+     * @param  g green component
+     * @param  b blue component
+     * @return   the packed components, each clamped to 255
+     */
+    private static int pack(double r, double g, double b) {
+        int ir = (int) r;
+        int ig = (int) g;
+        int ib = (int) b;
+        return (ir > 255 ? 255 : ir) << 16 | (ig > 255 ? 255 : ig) << 8 | (ib > 255 ? 255 : ib);
+    }
+
+    // ***************** PFM files ********************** //
+
+    /**
+     * @param  imageName file name, not including the file extension '.pfm'
+     * @return           the file in the images directory
+     */
+    private static Path pfmFile(String imageName) {
+        return Path.of(ImageWriter.FOLDER_PATH, imageName + ".pfm");
+    }
+
+    /**
+     * Saves the buffer losslessly into a PFM (portable float map) file in the
+     * images directory. The components are saved as they are, 255 being white.
+     * The floats are written in chunks, so the file may be larger than a byte
+     * array can hold.
+     *
+     * @param imageName file name, not including the file extension '.pfm'
+     * @return the buffer itself
+     */
+    public FrameBuffer writeToPfm(String imageName) {
+        byte[] header = ("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII);
+        try (FileChannel channel = FileChannel.open(pfmFile(imageName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            data.put(header);
+            // PFM rows go from the bottom of the image to the top
+            for (int y = nY - 1; y >= 0; --y)
+                for (int i = 3 * y * nX, end = i + 3 * nX; i < end; ++i) {
+                    if (data.remaining() < Float.BYTES) flush(channel, data);
+                    data.putFloat(rgb[i]);
+                }
+            flush(channel, data);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing directory " + ImageWriter.FOLDER_PATH, e);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the bytes put into a chunk to the file and empties the chunk
+     *
+     * @param channel the file
+     * @param data    the chunk
+     * @throws IOException on an I/O error
+     */
+    private static void flush(FileChannel channel, ByteBuffer data) throws IOException {
+        data.flip();
+        while (data.hasRemaining())
+            channel.write(data);
+        data.clear();
+    }
+
+    /**
+     * Loads a frame buffer from a PFM (portable float map) file in the images
+     * directory, as written by {@link #writeToPfm(String)}. The size in the
+     * header is checked against the length of the file before the buffer is
+     * allocated, and the floats are read in chunks.
+     *
+     * @param  imageName file name, not including the file extension '.pfm'
+     * @return           the loaded frame buffer
+     * @throws IllegalArgumentException if the file is not an RGB PFM file, or its
+     *                                  size is bad or larger than the file
+     */
+    public static FrameBuffer readPfm(String imageName) {
+        Path file = pfmFile(imageName);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = ByteBuffer.allocate(CHUNK);
+            fill(channel, data);
+            // the header is four whitespace separated tokens, followed by a single
+            // whitespace character
+            String[] tokens = new String[4];
+            for (int t = 0; t < tokens.length; ++t) {
+                while (data.hasRemaining() && Character.isWhitespace(data.get(data.position())))
+                    data.get();
+                StringBuilder token = new StringBuilder();
+                while (data.hasRemaining() && !Character.isWhitespace(data.get(data.position())))
+                    token.append((char) data.get());
+                tokens[t] = token.toString();
+            }
+            if (!data.hasRemaining() || !tokens[0].equals("PF"))
+                throw new IllegalArgumentException("Not an RGB PFM file: " + file);
+            data.get();
+
+            int width = Integer.parseInt(tokens[1]);
+            int height = Integer.parseInt(tokens[2]);
+            if (width < 1 || height < 1 || 3L * width * height > MAX_COMPONENTS)
+                throw new IllegalArgumentException("PFM file has a bad size " + width + "x" + height + ": " + file);
+            if (channel.size() - channel.position() + data.remaining() < 3L * Float.BYTES * width * height)
+                throw new IllegalArgumentException("PFM file is too short: " + file);
+
+            FrameBuffer buffer = new FrameBuffer(width, height);
+            data.order(Double.parseDouble(tokens[3]) < 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            for (int y = height - 1; y >= 0; --y)
+                for (int i = 3 * y * width, end = i + 3 * width; i < end; ++i) {
+                    if (data.remaining() < Float.BYTES) {
+                        data.compact();
+                        fill(channel, data);
+                        if (data.remaining() < Float.BYTES)
+                            throw new IllegalArgumentException("PFM file is too short: " + file);
+                    }
+                    buffer.rgb[i] = data.getFloat();
+                }
+            return buffer;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing file " + file, e);
+        }
+    }
+
+    /**
+     * Reads the file into the free part of a chunk, until the chunk is full or
+     * the file ends, and prepares the chunk for getting the bytes
+     *
+     * @param channel the file
+     * @param data    the chunk
+     * @throws IOException on an I/O error
+     */
+    private static void fill(FileChannel channel, ByteBuffer data) throws IOException {
+        int read = 0;
+        while (data.hasRemaining() && read >= 0)
+            read = channel.read(data);
+        data.flip();
+    }
+
+    /**
+     * Writes the pixels to a stream, as floats row by row (see
+     * {@link #read(DataInputStream)})
+     *
+     * @param out the stream
+     * @throws IOException on an I/O error
+     */
+    void write(DataOutputStream out) throws IOException {
+        for (float component : rgb)
+            out.writeFloat(component);
+    }
+
+    /**
+     * Reads the pixels of a buffer of the same size from a stream, as written by
+     * {@link #write(DataOutputStream)}
+     *
+     * @param in the stream
+     * @throws IOException on an I/O error, e.g. a truncated stream
+     */
+    void read(DataInputStream in) throws IOException {
+        for (int i = 0; i < rgb.length; ++i)
+            rgb[i] = in.readFloat();
+    }
+}
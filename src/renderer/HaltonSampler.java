@@ -0,0 +1,39 @@
+package renderer;
+
+import primitives.Util;
+
+/**
+ * Samples on the Halton sequence of bases 2 and 3 - the k-th sample is at the
+ * radical inverses of k in the two bases, so any amount of first samples covers
+ * the pixel evenly. Every pixel shifts the sequence by an offset of its own
+ * (modulo the pixel), so neighboring pixels do not repeat the same pattern.
+ */
+public final class HaltonSampler implements Sampler {
+    @Override
+    public void sample(int j, int i, int index, double[] point) {
+        int hash = Sampler.pixelHash(j, i);
+        point[0] = wrap(radicalInverse(2, index) + Util.toUnit(hash));
+        point[1] = wrap(radicalInverse(3, index) + Util.toUnit(Util.hash(hash)));
+    }
+
+    /**
+     * @param base  the base of the sequence
+     * @param index index in the sequence
+     * @return the index-th element of the van der Corput sequence of the base - the
+     *         digits of the index mirrored around the point, in [0,1)
+     */
+    static double radicalInverse(int base, int index) {
+        double result = 0, digit = 1d / base;
+        for (int n = index; n > 0; n /= base, digit /= base)
+            result += (n % base) * digit;
+        return result;
+    }
+
+    /**
+     * @param value a value in [0,2)
+     * @return the value modulo 1
+     */
+    static double wrap(double value) {
+        return value >= 1 ? value - 1 : value;
+    }
+}
@@ -1,8 +1,10 @@
 package renderer;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,7 +15,13 @@ import primitives.Color;
 /** Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution.
+ * <p>
+ * The pixels are written straight into the int array backing the image, one
+ * 0xRRGGBB int per pixel in rows. Each pixel is a separate array element and the
+ * writer keeps no other state, so threads may write disjoint pixels or tiles
+ * concurrently without locking; the image must be saved only after all the
+ * writing threads are joined.
  * @author Dan */
 public class ImageWriter {
     /** Horizontal resolution of the image - number of pixels in row */
@@ -23,10 +31,12 @@ public class ImageWriter {
 
     /** Directory path for the image file generation - relative to the user
      * directory */
-    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+    static final String         FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
     /** Image generation buffer (the matrix of the pixels) */
     private BufferedImage       image;
+    /** The pixels of the image buffer - row by row, 0xRRGGBB per pixel */
+    private final int[]         pixels;
     /** image file name, not including the file extension '.png' */
     private String              imageName;
     /** logger for reporting I/O failures */
@@ -43,6 +53,7 @@ public class ImageWriter {
         this.nY        = nY;
 
         image          = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        pixels         = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
     }
 
     // ***************** Getters/Setters ********************** //
@@ -75,7 +86,37 @@ public class ImageWriter {
      * @param yIndex Y axis index of the pixel
      * @param color  final color of the pixel */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        writePixel(xIndex, yIndex, color.getRGB());
+    }
+
+    /** Writes a packed color of a specific pixel into pixel color matrix
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @param rgb    final color of the pixel as 0xRRGGBB */
+    public void writePixel(int xIndex, int yIndex, int rgb) {
+        pixels[Objects.checkIndex(yIndex, nY) * nX + Objects.checkIndex(xIndex, nX)] = rgb;
+    }
+
+    /** Writes a whole rectangular tile into pixel color matrix, a row at a time
+     * @param x0     X axis index of the left column of the tile
+     * @param y0     Y axis index of the top row of the tile
+     * @param width  amount of columns in the tile
+     * @param height amount of rows in the tile
+     * @param rgb    the colors of the tile row by row, as 0xRRGGBB */
+    public void writeTile(int x0, int y0, int width, int height, int[] rgb) {
+        Objects.checkFromIndexSize(x0, width, nX);
+        Objects.checkFromIndexSize(y0, height, nY);
+        Objects.checkFromIndexSize(0, width * height, rgb.length);
+        for (int row = 0; row < height; ++row)
+            System.arraycopy(rgb, row * width, pixels, (y0 + row) * nX + x0, width);
+    }
+
+    /** Reads the color of a specific pixel in pixel color matrix
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @return the color of the pixel as 0xRRGGBB */
+    public int readPixel(int xIndex, int yIndex) {
+        return pixels[Objects.checkIndex(yIndex, nY) * nX + Objects.checkIndex(xIndex, nX)];
     }
 
 }
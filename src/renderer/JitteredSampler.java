@@ -0,0 +1,38 @@
+package renderer;
+
+import primitives.Util;
+
+/**
+ * Stratified jittered samples - the pixel is split into n x n equal cells, the
+ * smallest grid with a cell for each of the planned samples, and the k-th sample
+ * is at a random point of the k-th cell (row by row). Samples beyond the cells
+ * start another round over the cells. Unlike a regular grid, no two pixels put
+ * their samples at the same positions, so the error is noise rather than
+ * aliasing.
+ */
+public final class JitteredSampler implements Sampler {
+    /** Cells per side of the pixel */
+    private final int side;
+
+    /**
+     * @param samples the amount of samples planned per pixel
+     * @throws IllegalArgumentException if the amount is not positive
+     */
+    public JitteredSampler(int samples) {
+        if (samples < 1) throw new IllegalArgumentException("Jittered sampler needs at least one sample");
+        side = (int) Math.ceil(Math.sqrt(samples));
+    }
+
+    @Override
+    public void sample(int j, int i, int index, double[] point) {
+        int cell = index % (side * side);
+        int hash = Util.hash(Sampler.pixelHash(j, i) + index);
+        point[0] = (cell % side + Util.toUnit(hash)) / side;
+        point[1] = (cell / side + Util.toUnit(Util.hash(hash))) / side;
+    }
+
+    @Override
+    public String key() {
+        return getClass().getName() + " " + side + "x" + side;
+    }
+}
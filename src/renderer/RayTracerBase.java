@@ -1,5 +1,6 @@
 package renderer;
 
+import geometries.RayPacket;
 import primitives.Color;
 import primitives.Ray;
 import scene.Scene;
@@ -32,4 +33,18 @@ public abstract class RayTracerBase {
      * @return The average color at the intersection point.
      */
     public abstract Color traceRay(List<Ray> rays);
+
+    /**
+     * Traces a packet of primary rays, each of them as a beam of a single ray -
+     * the color of every ray is the one {@link #traceRay(List)} gives for the list
+     * of that ray alone. The default traces the rays one by one; a tracer may find
+     * their closest intersections together.
+     *
+     * @param packet the rays
+     * @param colors the colors of the rays, by their order in the packet
+     */
+    public void tracePacket(RayPacket packet, Color[] colors) {
+        for (int r = 0; r < packet.size(); ++r)
+            colors[r] = traceRay(List.of(packet.getRay(r)));
+    }
 }
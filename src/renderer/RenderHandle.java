@@ -0,0 +1,105 @@
+package renderer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handle of a rendering of a camera started by {@link Camera#startRender()} -
+ * the rendering runs in its own thread, and the handle cancels it or waits for
+ * it to end. A rendering that fails ends at once, and the exception it failed
+ * with is thrown, wrapped, to the threads waiting for it.
+ * <p>
+ * A cancelled rendering stops handing out tiles: the tiles being rendered are
+ * finished, the image holds the tiles done so far, and the checkpoint of the
+ * camera, if set (see {@link Camera#setCheckpoint(java.nio.file.Path, long)}),
+ * is saved, so the next rendering of the same scene goes on from it. A render
+ * that must survive a termination of the process cancels its handle in a
+ * shutdown hook and waits there for the rendering to end.
+ */
+public final class RenderHandle {
+    /** The rendering camera */
+    private final Camera         camera;
+    /** Whether the rendering was cancelled */
+    private volatile boolean     cancelled = false;
+    /** Released when the rendering ends */
+    private final CountDownLatch done      = new CountDownLatch(1);
+    /** The exception the rendering failed with, null if it did not fail */
+    private volatile Throwable   failure   = null;
+
+    /**
+     * @param camera the rendering camera
+     */
+    RenderHandle(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Cancels the rendering - returns at once, the rendering ends after the
+     * tiles being rendered (see {@link #await()})
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if the rendering was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the rendering ended - complete, cancelled or failed
+     */
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Waits for the rendering to end
+     *
+     * @return the camera, with the image rendered
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws ExecutionException   if the rendering failed - caused by the
+     *                              exception it failed with
+     */
+    public Camera await() throws InterruptedException, ExecutionException {
+        done.await();
+        checkFailure();
+        return camera;
+    }
+
+    /**
+     * Waits for the rendering to end, at most the given time
+     *
+     * @param millis the maximal time to wait in milliseconds
+     * @return true if the rendering ended, false if the time is up
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws ExecutionException   if the rendering failed - caused by the
+     *                              exception it failed with
+     */
+    public boolean await(long millis) throws InterruptedException, ExecutionException {
+        if (!done.await(millis, TimeUnit.MILLISECONDS)) return false;
+        checkFailure();
+        return true;
+    }
+
+    /**
+     * @throws ExecutionException if the rendering failed
+     */
+    private void checkFailure() throws ExecutionException {
+        if (failure != null) throw new ExecutionException("Rendering failed", failure);
+    }
+
+    /**
+     * Marks the end of the rendering
+     *
+     * @param failure the exception the rendering failed with, null if it did not
+     *                fail
+     */
+    void finish(Throwable failure) {
+        this.failure = failure;
+        done.countDown();
+    }
+}
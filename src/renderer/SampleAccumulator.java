@@ -0,0 +1,217 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Running sums of the samples of every pixel of an image - the sum of the sample
+ * colors, the sum of their squares and the amount of samples - from which the
+ * mean color of a pixel and the error of the mean are estimated. The renderer
+ * adds samples pixel by pixel and hands out more samples to the pixels whose
+ * mean is the least certain (see {@link #allocate(int)}).
+ * <p>
+ * The pixels are indexed row by row. Like the frame buffer, threads may add
+ * samples to disjoint pixels concurrently without locking.
+ */
+class SampleAccumulator {
+    /** Horizontal resolution of the image - number of pixels in row */
+    private final int      nX;
+    /** Vertical resolution of the image - number of pixels in column */
+    private final int      nY;
+    /** Sums of the sample colors - red, green and blue of each pixel */
+    private final double[] sums;
+    /** Sums of the squares of the sample color components of each pixel */
+    private final double[] squares;
+    /** Amount of samples of each pixel */
+    final int[]            counts;
+
+    /** Relative variance below which a pixel is considered flat, so rounding
+     * errors of the sums do not draw samples to it */
+    private static final double FLAT = 1e-9;
+
+    /**
+     * Creates an accumulator with no samples
+     *
+     * @param nX amount of pixels by width
+     * @param nY amount of pixels by height
+     */
+    SampleAccumulator(int nX, int nY) {
+        this.nX = nX;
+        this.nY = nY;
+        sums = new double[3 * nX * nY];
+        squares = new double[nX * nY];
+        counts = new int[nX * nY];
+    }
+
+    /**
+     * Adds a sample to a pixel
+     *
+     * @param pixel index of the pixel
+     * @param color color of the sample
+     */
+    void add(int pixel, Color color) {
+        double r = color.getRed(), g = color.getGreen(), b = color.getBlue();
+        sums[3 * pixel] += r;
+        sums[3 * pixel + 1] += g;
+        sums[3 * pixel + 2] += b;
+        squares[pixel] += r * r + g * g + b * b;
+        ++counts[pixel];
+    }
+
+    /**
+     * Adds the samples of a tile, gathered by an accumulator of the size of the
+     * tile, to the pixels of the tile
+     *
+     * @param tile the samples of the tile
+     * @param x0   the first column of the tile
+     * @param y0   the first row of the tile
+     */
+    void add(SampleAccumulator tile, int x0, int y0) {
+        for (int y = 0, t = 0; y < tile.nY; ++y)
+            for (int x = 0, pixel = (y0 + y) * nX + x0; x < tile.nX; ++x, ++t, ++pixel) {
+                sums[3 * pixel] += tile.sums[3 * t];
+                sums[3 * pixel + 1] += tile.sums[3 * t + 1];
+                sums[3 * pixel + 2] += tile.sums[3 * t + 2];
+                squares[pixel] += tile.squares[t];
+                counts[pixel] += tile.counts[t];
+            }
+    }
+
+    /**
+     * Estimates the standard error of the mean color of a pixel - the square
+     * root of the sample variance, summed over the components, divided by the
+     * amount of samples
+     *
+     * @param pixel index of the pixel
+     * @return the error, 0 if the pixel has less than two samples or all its
+     *         samples have the same color
+     */
+    double error(int pixel) {
+        int n = counts[pixel];
+        if (n < 2) return 0;
+        double r = sums[3 * pixel], g = sums[3 * pixel + 1], b = sums[3 * pixel + 2];
+        double meanSquares = squares[pixel] / n;
+        double deviation = meanSquares - (r * r + g * g + b * b) / ((double) n * n);
+        if (deviation <= FLAT * (meanSquares + 1)) return 0;
+        return Math.sqrt(deviation / (n - 1));
+    }
+
+    /**
+     * Hands out samples to the pixels in proportion to the error of their means.
+     * The error of a pixel is taken as the largest error in its 3x3 neighborhood,
+     * so an edge that the first samples of a pixel missed is found through its
+     * neighbors. A pixel gets at most as many samples as it already has, so the
+     * errors are estimated again before a pixel takes a large share - the samples
+     * left over are for the next pass.
+     *
+     * @param samples the amount of samples to hand out
+     * @return the amount of new samples of every pixel, null if no pixel has an
+     *         error
+     */
+    int[] allocate(int samples) {
+        double[] errors = new double[nX * nY];
+        for (int p = 0; p < errors.length; ++p)
+            errors[p] = error(p);
+        double[] dilated = new double[nX * nY];
+        double total = 0;
+        for (int i = 0; i < nY; ++i)
+            for (int j = 0; j < nX; ++j) {
+                double e = 0;
+                for (int y = Math.max(0, i - 1); y <= Math.min(nY - 1, i + 1); ++y)
+                    for (int x = Math.max(0, j - 1); x <= Math.min(nX - 1, j + 1); ++x)
+                        e = Math.max(e, errors[y * nX + x]);
+                dilated[i * nX + j] = e;
+                total += e;
+            }
+        if (total == 0) return null;
+
+        // cumulative rounding hands out exactly the given amount before the caps
+        int[] result = new int[nX * nY];
+        double cumulative = 0;
+        long handed = 0;
+        for (int p = 0; p < result.length; ++p) {
+            cumulative += dilated[p];
+            long upTo = (long) Math.floor(cumulative / total * samples);
+            result[p] = (int) Math.min(upTo - handed, counts[p]);
+            handed = upTo;
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the noise of the whole image - the root mean square of the
+     * errors of the pixels (see {@link #error(int)})
+     *
+     * @return the noise, 0 if no pixel has an error yet
+     */
+    double noise() {
+        double sum = 0;
+        for (int p = 0; p < counts.length; ++p) {
+            double e = error(p);
+            sum += e * e;
+        }
+        return Math.sqrt(sum / counts.length);
+    }
+
+    /**
+     * @return a frame buffer of the mean colors of the pixels, black where a
+     *         pixel has no samples
+     */
+    FrameBuffer toFrameBuffer() {
+        float[] rgb = new float[3 * nX * nY];
+        for (int pixel = 0; pixel < counts.length; ++pixel) {
+            int n = Math.max(1, counts[pixel]);
+            rgb[3 * pixel] = (float) (sums[3 * pixel] / n);
+            rgb[3 * pixel + 1] = (float) (sums[3 * pixel + 1] / n);
+            rgb[3 * pixel + 2] = (float) (sums[3 * pixel + 2] / n);
+        }
+        FrameBuffer frameBuffer = new FrameBuffer(nX, nY);
+        frameBuffer.writeTile(0, 0, nX, nY, rgb);
+        return frameBuffer;
+    }
+
+    /**
+     * Removes all the samples
+     */
+    void clear() {
+        Arrays.fill(sums, 0);
+        Arrays.fill(squares, 0);
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Writes the sums and the amounts of samples to a stream (see
+     * {@link #read(DataInputStream)})
+     *
+     * @param out the stream
+     * @throws IOException on an I/O error
+     */
+    void write(DataOutputStream out) throws IOException {
+        for (double sum : sums)
+            out.writeDouble(sum);
+        for (double square : squares)
+            out.writeDouble(square);
+        for (int count : counts)
+            out.writeInt(count);
+    }
+
+    /**
+     * Reads the samples of an accumulator of the same size from a stream, as
+     * written by {@link #write(DataOutputStream)}
+     *
+     * @param in the stream
+     * @throws IOException on an I/O error, e.g. a truncated stream
+     */
+    void read(DataInputStream in) throws IOException {
+        for (int i = 0; i < sums.length; ++i)
+            sums[i] = in.readDouble();
+        for (int i = 0; i < squares.length; ++i)
+            squares[i] = in.readDouble();
+        for (int i = 0; i < counts.length; ++i)
+            counts[i] = in.readInt();
+    }
+}
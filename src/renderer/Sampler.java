@@ -0,0 +1,44 @@
+package renderer;
+
+import primitives.Util;
+
+/**
+ * Places the samples of a pixel - the points in the pixel the rays of the pixel
+ * go through. The k-th sample of a pixel depends only on the pixel and on k, so
+ * the image is the same for any amount of threads and any order of the pixels,
+ * and a sampler has no state that the threads share, so it needs no locking.
+ * <p>
+ * The samplers differ in how evenly they spread the samples of a pixel - the
+ * evener, the fewer rays a pixel needs for the same error.
+ */
+public interface Sampler {
+    /**
+     * Places a sample in a pixel
+     *
+     * @param j     column of the pixel
+     * @param i     row of the pixel
+     * @param index number of the sample in the pixel, from 0
+     * @param point the position of the sample in the pixel, x to the right and y
+     *              downwards in [0,1) - written into its first two elements
+     */
+    void sample(int j, int i, int index, double[] point);
+
+    /**
+     * @return description of the sampler and its parameters, for the key of a
+     *         checkpoint - two samplers that place different samples must differ
+     *         in it. The class name, for samplers without parameters.
+     */
+    default String key() {
+        return getClass().getName();
+    }
+
+    /**
+     * @param j column of a pixel
+     * @param i row of a pixel
+     * @return a hash of the pixel, to decorrelate the samples of neighboring
+     *         pixels
+     */
+    static int pixelHash(int j, int i) {
+        return Util.hash(j + Util.hash(i));
+    }
+}
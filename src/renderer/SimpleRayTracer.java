@@ -6,10 +6,13 @@ import scene.Scene;
 
 import java.util.List;
 import geometries.Intersectable.GeoPoint;
+import geometries.RayPacket;
 import static primitives.Util.alignZero;
 
 public class SimpleRayTracer extends RayTracerBase{
     private static final double DELTA = 0.1;
+    /** The accuracy of {@link Util#alignZero(double)} - differences below it are zero */
+    private static final double ALIGN_ACCURACY = 0x1p-40;
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     private static final double MIN_CALC_COLOR_K = 0.001;
     private static final Double3 INIT_CALC_COLOR_K = Double3.ONE;
@@ -46,13 +49,13 @@ public class SimpleRayTracer extends RayTracerBase{
      *
      * @param geoPoint The geometric point in the scene.
      * @param ray      The ray that intersects the geometric point.
+     * @param normal   The normal of the geometry at the point.
      * @param k        The coefficient values for local effects.
      * @return The calculated color due to local effects at the given point.
      */
-    private Color calcLocalEffects(GeoPoint geoPoint, Ray ray, Double3 k) {
+    private Color calcLocalEffects(GeoPoint geoPoint, Ray ray, Vector normal, Double3 k) {
         Color color = geoPoint.geometry.getEmission();
         Vector vector = ray.direction;
-        Vector normal = geoPoint.geometry.getNormal(geoPoint.point);
         double nv = alignZero(normal.dotProduct(vector));
         if (nv == 0)
             return color;
@@ -102,8 +105,11 @@ public class SimpleRayTracer extends RayTracerBase{
      * @return the specular color at the given point
      */
     private Double3 calcSpecular(Material material, Vector normal, Vector lightVector, double nl, Vector vector) {
-        Vector reflectedVector = lightVector.subtract(normal.scale(2 * nl));
-        double max = Math.max(0, vector.scale(-1).dotProduct(reflectedVector));
+        // the reflected vector r = l - 2(n.l)n and -v.r, by coordinates - without the intermediate vectors
+        double rx = lightVector.getX() - normal.getX() * (2 * nl);
+        double ry = lightVector.getY() - normal.getY() * (2 * nl);
+        double rz = lightVector.getZ() - normal.getZ() * (2 * nl);
+        double max = Math.max(0, -vector.getX() * rx + -vector.getY() * ry + -vector.getZ() * rz);
         return material.kS.scale(Math.pow(max, material.nShininess));
 
     }
@@ -139,8 +145,10 @@ public class SimpleRayTracer extends RayTracerBase{
      * @return The calculated color at the given point.
      */
     private Color calcColor(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(geoPoint, ray, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(geoPoint, ray, level, k));
+        // calculated once for both effects - an instance has calculated it already
+        Vector normal = geoPoint.normal != null ? geoPoint.normal : geoPoint.geometry.getNormal(geoPoint);
+        Color color = calcLocalEffects(geoPoint, ray, normal, k);
+        return 1 == level ? color : color.add(calcGlobalEffects(geoPoint, ray, normal, level, k));
     }
     /**
      * Checks if a given point is unshaded by finding intersections between the point and the light source.
@@ -163,21 +171,9 @@ public class SimpleRayTracer extends RayTracerBase{
         // Create a ray from the point towards the light source
         Ray lightRay = new Ray(point, lightDirection);
 
-        // Find intersections of the ray with other objects in the scene
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
-        if (intersections == null)
-            return true; // No intersections, so the point is unshaded
-
-        // Calculate the distance from the point to the light source
-        double lightDistance = light.getDistance(gp.point);
-
-        // Check if any intersection points are between the point and the light source
-        for (GeoPoint gp1 : intersections) {
-            if (Util.alignZero(gp1.point.distance(gp.point) - lightDistance) <= 0)
-                return false; // Intersection is between the point and the light source, so the point is shaded
-        }
-
-        return true; // No intersections block the light, so the point is unshaded
+        // The point is unshaded if no object blocks the ray between the point and the light source -
+        // the search stops at the first blocker
+        return !scene.geometries.isOccluded(lightRay, shadowBound(gp.point, lightRay, light.getDistance(gp.point)));
     }
 
     /**
@@ -211,14 +207,14 @@ public class SimpleRayTracer extends RayTracerBase{
      *
      * @param gp    The geometric point in the scene.
      * @param ray   The ray that intersects the geometric point.
+     * @param n     The normal of the geometry at the point.
      * @param level The recursion level for global effects.
      * @param k     The coefficient values for global effects.
      * @return The calculated color due to global effects at the given point.
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
+    private Color calcGlobalEffects(GeoPoint gp, Ray ray, Vector n, int level, Double3 k) {
         Color color = Color.BLACK;
         Vector v = ray.direction;
-        Vector n = gp.geometry.getNormal(gp.point);
         Material material = gp.geometry.getMaterial();
         return calcGlobalEffects(gp, level, color, material.kR, k, constructReflectedRay(gp, v, n))
                 .add(calcGlobalEffects(gp, level, color, material.kT, k, constructRefractedRay(gp, v, n)));
@@ -232,8 +228,7 @@ public class SimpleRayTracer extends RayTracerBase{
      *         intersections.
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        return intersections == null ? null : ray.findClosestGeoPoint(intersections);
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
     /**
      * Constructs a refracted ray at a given geometric point.
@@ -255,7 +250,10 @@ public class SimpleRayTracer extends RayTracerBase{
      * @return The reflected ray.
      */
     private Ray constructReflectedRay(GeoPoint gp, Vector v, Vector n) {
-        Vector reflectedVector = v.subtract(n.scale(2 * v.dotProduct(n)));
+        // r = v - 2(v.n)n, by coordinates - without the intermediate vector
+        double vn2 = 2 * v.dotProduct(n);
+        Vector reflectedVector = new Vector(v.getX() - n.getX() * vn2, v.getY() - n.getY() * vn2,
+                v.getZ() - n.getZ() * vn2);
         return new Ray(gp.point, reflectedVector, n);
     }
     /**
@@ -275,25 +273,58 @@ public class SimpleRayTracer extends RayTracerBase{
         // Create a ray from the point towards the light source
         Ray lightRay = new Ray(gp.point, lightDirection, n);
 
-        // Find intersections of the ray with other objects in the scene
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
-        if (intersections == null)
-            return Double3.ONE; // No intersections, so the transparency factor is 1 (fully transparent)
-
-        Double3 ktr = Double3.ONE; // Initial transparency factor
-        double lightDistance = light.getDistance(gp.point);
+        // Multiply the transparency of the objects between the point and the light source - the search
+        // stops at the first opaque object, and walks the whole way only through transparent ones
+        Double3 ktr = scene.geometries.findTransparency(lightRay,
+                shadowBound(gp.point, lightRay, light.getDistance(gp.point)));
+        return ktr.lowerThan(MIN_CALC_COLOR_K) ? Double3.ZERO : ktr; // too low - fully opaque
+    }
+    /**
+     * Converts the distance of a light from a shaded point into the bound of the
+     * shadow queries. An object blocks the light if its distance from the shaded
+     * point is at most the distance of the light from the point, up to the
+     * accuracy of {@link Util#alignZero(double)}; the queries measure the
+     * distance along the shadow ray from its head, which is moved off the
+     * surface. The bound is the distance along the ray at which the distance
+     * from the point reaches the light.
+     *
+     * @param point         the shaded point
+     * @param lightRay      the shadow ray, with a unit direction
+     * @param lightDistance the distance of the light from the point
+     * @return the distance along the ray below which an object blocks the light
+     */
+    private static double shadowBound(Point point, Ray lightRay, double lightDistance) {
+        if (lightDistance == Double.POSITIVE_INFINITY) return lightDistance;
+        // the offset of the head from the point, and its projection on the direction
+        double ex = lightRay.head.getX() - point.getX();
+        double ey = lightRay.head.getY() - point.getY();
+        double ez = lightRay.head.getZ() - point.getZ();
+        Vector dir = lightRay.direction;
+        double ed = ex * dir.getX() + ey * dir.getY() + ez * dir.getZ();
+        double limit = lightDistance + ALIGN_ACCURACY;
+        // the positive root of |e + t*dir| = limit
+        return -ed + Math.sqrt(ed * ed - (ex * ex + ey * ey + ez * ez) + limit * limit);
+    }
 
-        // Calculate the transparency factor by considering each intersected object
-        for (GeoPoint gp1 : intersections) {
-            if (alignZero(gp1.point.distance(gp.point) - lightDistance) <= 0) {
-                ktr = ktr.product(gp1.geometry.getMaterial().kT); // Reduce transparency factor based on the object's transparency
-                if (ktr.lowerThan(MIN_CALC_COLOR_K))
-                    return Double3.ZERO; // Transparency factor is too low, return zero (fully opaque)
-            }
+    /**
+     * Finds the closest intersections of the whole packet together, then shades
+     * every ray alone
+     *
+     * @param packet the rays
+     * @param colors the colors of the rays, by their order in the packet
+     */
+    @Override
+    public void tracePacket(RayPacket packet, Color[] colors) {
+        scene.geometries.findClosestGeoIntersections(packet);
+        for (int r = 0; r < packet.size(); ++r) {
+            GeoPoint hit = packet.getHit(r);
+            Ray ray = packet.getRay(r);
+            // as traceRay(List) sums a beam of this ray alone
+            colors[r] = scene.background.add(hit == null ? scene.background : calcColor(hit, ray))
+                    .add(scene.ambientLight.getIntensity()).reduce(1);
         }
-
-        return ktr; // Return the final transparency factor
     }
+
     /**
      * @param rays List of surrounding rays(the beam)
      * @return average color
@@ -0,0 +1,30 @@
+package renderer;
+
+import primitives.Util;
+
+/**
+ * Samples on the first two dimensions of the Sobol sequence. Every aligned
+ * block of 2^m samples is a (0,m,2)-net: each of the 2^m rectangles of area
+ * 2^-m of any shape holds exactly one sample. Every pixel scrambles the digits
+ * of the sequence by its own random bits, which keeps the net property.
+ */
+public final class SobolSampler implements Sampler {
+    @Override
+    public void sample(int j, int i, int index, double[] point) {
+        int hash = Sampler.pixelHash(j, i);
+        point[0] = Util.toUnit(Integer.reverse(index) ^ hash);
+        point[1] = Util.toUnit(secondDimension(index) ^ Util.hash(hash));
+    }
+
+    /**
+     * @param index index in the sequence
+     * @return the second dimension of the Sobol sequence, as 32 bits of fraction -
+     *         by the direction numbers of the polynomial x + 1
+     */
+    static int secondDimension(int index) {
+        int result = 0;
+        for (int v = 1 << 31; index != 0; index >>>= 1, v ^= v >>> 1)
+            if ((index & 1) != 0) result ^= v;
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+package renderer;
+
+/**
+ * The order in which the tiles of the image are handed out for rendering
+ */
+public enum TileOrder {
+    /** Row by row, from the top left corner */
+    SCANLINE,
+    /** From the center of the image outward - the interesting part is ready first */
+    SPIRAL,
+    /** Along a Hilbert curve - consecutive tiles are neighbours, which keeps the caches warm */
+    HILBERT
+}
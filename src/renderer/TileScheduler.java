@@ -0,0 +1,271 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Splits the image into square tiles and renders them - in parallel on a
+ * work-stealing {@link ForkJoinPool} when more than one thread is requested.
+ * Every pixel belongs to exactly one tile and is rendered exactly once, so the
+ * result does not depend on the amount of threads. The pool is started by the
+ * first parallel rendering and kept for the next ones - the passes of a
+ * rendering run on the same threads - until the scheduler is closed.
+ * <p>
+ * This is the lock-free work distribution of the renderer: a thread takes a
+ * whole tile at a time by splitting the range of a fork-join task, instead of
+ * taking single pixels from a synchronized dispenser, and the progress is
+ * counted once per tile.
+ */
+class TileScheduler implements AutoCloseable {
+    /**
+     * A rectangular region of the image
+     */
+    static class Tile {
+        /** First column and row of the tile */
+        final int x0, y0;
+        /** Column and row after the last ones of the tile */
+        final int x1, y1;
+        /** Position of the tile in the order they are handed out */
+        final int index;
+
+        /**
+         * @param index position of the tile in the order
+         * @param x0    first column
+         * @param y0    first row
+         * @param x1    column after the last one
+         * @param y1    row after the last one
+         */
+        Tile(int index, int x0, int y0, int x1, int y1) {
+            this.index = index;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+        }
+    }
+
+    /** The tiles in the order they are handed out */
+    private final List<Tile> tiles;
+    /** The threads of the parallel renderings, null before the first one */
+    private ForkJoinPool pool;
+
+    /**
+     * Splits the image into tiles
+     *
+     * @param nX       image width in pixels
+     * @param nY       image height in pixels
+     * @param tileSize tile side in pixels (the tiles at the right and bottom edges
+     *                 may be smaller)
+     * @param order    the order of the tiles
+     */
+    TileScheduler(int nX, int nY, int tileSize, TileOrder order) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        int tilesX = (nX + tileSize - 1) / tileSize;
+        int tilesY = (nY + tileSize - 1) / tileSize;
+        tiles = new ArrayList<>(tilesX * tilesY);
+        for (int[] t : switch (order) {
+            case SCANLINE -> scanline(tilesX, tilesY);
+            case SPIRAL -> spiral(tilesX, tilesY);
+            case HILBERT -> hilbert(tilesX, tilesY);
+        }) {
+            int x0 = t[0] * tileSize, y0 = t[1] * tileSize;
+            tiles.add(new Tile(tiles.size(), x0, y0, Math.min(x0 + tileSize, nX), Math.min(y0 + tileSize, nY)));
+        }
+    }
+
+    /**
+     * @return the tiles in the order they are handed out
+     */
+    List<Tile> getTiles() { return tiles; }
+
+    /**
+     * Renders all the tiles
+     *
+     * @param threads  amount of rendering threads; 1 renders in the calling thread
+     *                 (another amount than in the last rendering starts a new pool)
+     * @param renderer renders a single tile; must be safe to call concurrently
+     *                 for different tiles
+     * @param print    whether to print the progress percentage
+     */
+    void render(int threads, Consumer<Tile> renderer, boolean print) {
+        Progress progress = new Progress(tiles.size(), print);
+        if (threads <= 1) {
+            for (Tile tile : tiles) {
+                renderer.accept(tile);
+                progress.tileDone();
+            }
+        } else {
+            if (pool != null && pool.getParallelism() != threads) close();
+            if (pool == null) pool = new ForkJoinPool(threads);
+            pool.invoke(new TileRange(renderer, progress, 0, tiles.size()));
+        }
+        progress.finish();
+    }
+
+    /**
+     * Stops the threads of the parallel renderings
+     */
+    @Override
+    public void close() {
+        if (pool == null) return;
+        pool.shutdown();
+        pool = null;
+    }
+
+    /**
+     * Fork-join task rendering a range of the tile list. It splits the range in
+     * halves until a single tile remains; idle threads steal the larger halves
+     * that are still waiting, and every thread goes over its tiles in order. An
+     * empty range renders nothing.
+     */
+    private class TileRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** Renders a single tile */
+        private final Consumer<Tile> renderer;
+        /** Progress of the whole image */
+        private final Progress progress;
+        /** Range of the tile list */
+        private final int from, to;
+
+        /**
+         * @param renderer renders a single tile
+         * @param progress progress of the whole image
+         * @param from     first tile index (inclusive)
+         * @param to       last tile index (exclusive)
+         */
+        TileRange(Consumer<Tile> renderer, Progress progress, int from, int to) {
+            this.renderer = renderer;
+            this.progress = progress;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileRange(renderer, progress, from, mid), new TileRange(renderer, progress, mid, to));
+            } else if (to > from) {
+                renderer.accept(tiles.get(from));
+                progress.tileDone();
+            }
+        }
+    }
+
+    /**
+     * Counts the rendered tiles and prints the percentage when it changes
+     */
+    private static class Progress {
+        /** Amount of tiles in the image */
+        private final int total;
+        /** Whether to print */
+        private final boolean print;
+        /** Amount of tiles done */
+        private final AtomicInteger done = new AtomicInteger();
+        /** The last percentage printed */
+        private final AtomicInteger percent = new AtomicInteger(-1);
+
+        /**
+         * @param total amount of tiles in the image
+         * @param print whether to print
+         */
+        Progress(int total, boolean print) {
+            this.total = total;
+            this.print = print;
+        }
+
+        /** Counts a finished tile */
+        void tileDone() {
+            int count = done.incrementAndGet();
+            if (!print) return;
+            int p = (int) (100L * count / total);
+            int last = percent.get();
+            if (p > last && percent.compareAndSet(last, p))
+                System.out.printf("\r %02d%%", p);
+        }
+
+        /** Ends the progress line */
+        void finish() {
+            if (print) System.out.print("\r100%\n");
+        }
+    }
+
+    // ***************** Tile orders ********************** //
+
+    /**
+     * @param tilesX amount of tile columns
+     * @param tilesY amount of tile rows
+     * @return tile coordinates row by row
+     */
+    private static List<int[]> scanline(int tilesX, int tilesY) {
+        List<int[]> order = new ArrayList<>(tilesX * tilesY);
+        for (int ty = 0; ty < tilesY; ++ty)
+            for (int tx = 0; tx < tilesX; ++tx)
+                order.add(new int[] { tx, ty });
+        return order;
+    }
+
+    /**
+     * @param tilesX amount of tile columns
+     * @param tilesY amount of tile rows
+     * @return tile coordinates along a square spiral from the center tile outward
+     */
+    private static List<int[]> spiral(int tilesX, int tilesY) {
+        int total = tilesX * tilesY;
+        List<int[]> order = new ArrayList<>(total);
+        int tx = (tilesX - 1) / 2, ty = (tilesY - 1) / 2;
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { -1, 0 }, { 0, -1 } };
+        int direction = 0;
+        // legs of lengths 1,1,2,2,3,3... - the spiral leaves the image on some legs,
+        // so it goes on until all the tiles inside the image are met
+        for (int leg = 0; order.size() < total; ++leg) {
+            int length = leg / 2 + 1;
+            for (int step = 0; step < length && order.size() < total; ++step) {
+                if (tx >= 0 && tx < tilesX && ty >= 0 && ty < tilesY)
+                    order.add(new int[] { tx, ty });
+                tx += directions[direction][0];
+                ty += directions[direction][1];
+            }
+            direction = (direction + 1) % 4;
+        }
+        return order;
+    }
+
+    /**
+     * @param tilesX amount of tile columns
+     * @param tilesY amount of tile rows
+     * @return tile coordinates along a Hilbert curve covering the image
+     */
+    private static List<int[]> hilbert(int tilesX, int tilesY) {
+        int n = 1;
+        while (n < tilesX || n < tilesY) n <<= 1;
+        List<int[]> order = new ArrayList<>(tilesX * tilesY);
+        for (int d = 0; d < n * n; ++d) {
+            // convert the distance along the curve to coordinates
+            int x = 0, y = 0;
+            for (int s = 1, t = d; s < n; s <<= 1, t >>= 2) {
+                int rx = 1 & (t >> 1);
+                int ry = 1 & (t ^ rx);
+                if (ry == 0) { // rotate the quadrant
+                    if (rx == 1) {
+                        x = s - 1 - x;
+                        y = s - 1 - y;
+                    }
+                    int tmp = x;
+                    x = y;
+                    y = tmp;
+                }
+                x += s * rx;
+                y += s * ry;
+            }
+            if (x < tilesX && y < tilesY)
+                order.add(new int[] { x, y });
+        }
+        return order;
+    }
+}
@@ -0,0 +1,15 @@
+package renderer;
+
+/**
+ * How the unlimited colors of the {@link FrameBuffer} are mapped into the 0..255
+ * range of the image
+ */
+public enum ToneMapping {
+    /** Components above 255 are cut to 255 - bright areas lose their detail */
+    CLAMP,
+    /**
+     * Reinhard operator on the luminance, L / (1 + L) with 255 as L = 1 - bright
+     * areas are compressed smoothly and the hue is kept
+     */
+    REINHARD
+}
@@ -0,0 +1,301 @@
+package scene;
+
+import geometries.CacheInput;
+import geometries.Geometries;
+import geometries.GeometryCache;
+import geometries.Intersectable;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary cache of a whole scene - its background, lights and geometries,
+ * together with the bounding volume hierarchies that were built over them.
+ * <p>
+ * A scene that takes long to prepare (a large loaded mesh, a hierarchy over
+ * many geometries) is written once after it is built, and later runs read it
+ * back instead: the file is mapped into memory and the arrays of meshes and
+ * hierarchies are copied out of it in bulk, so nothing is parsed and no
+ * hierarchy is built again. A single mapping holds at most 2 GB, so a larger
+ * cache is mapped in windows of 2 GB (see {@link CacheInput}).
+ * <p>
+ * The file starts with a magic number and a format version, then the scene
+ * name, background and ambient light, the lights and the geometries (see
+ * {@link GeometryCache}). Only the light types of the lighting package can be
+ * written.
+ */
+public final class SceneCache {
+    /** The first bytes of every cache file - "RTSC" */
+    private static final int MAGIC   = 0x52545343;
+    /** Version of the file format */
+    private static final int VERSION = 2;
+    // Tags of the light types
+    private static final byte DIRECTIONAL = 0, POINT = 1, SPOT = 2;
+
+    /** logger for reporting the cache statistics and I/O failures */
+    private static final Logger logger = Logger.getLogger("SceneCache");
+
+    /** The cache is used only through the static methods */
+    private SceneCache() {}
+
+    /**
+     * Writes a scene to a cache file, replacing the file if it exists. The
+     * hierarchies should be built before, so that they are cached with the scene.
+     *
+     * @param scene the scene
+     * @param file  the cache file
+     * @throws IllegalStateException    on an I/O error
+     * @throws IllegalArgumentException if a light or a geometry of the scene is
+     *                                  of a type that cannot be cached
+     */
+    public static void write(Scene scene, Path file) {
+        long start = System.nanoTime();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),
+                1 << 16))) {
+            writeScene(scene, out);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - cannot write scene cache " + file, e);
+        }
+        logger.info(String.format("Wrote scene cache %s: %.3f s", file, (System.nanoTime() - start) / 1e9));
+    }
+
+    /**
+     * Digest of the content of a scene - the SHA-256 hash of the cache that
+     * {@link #write(Scene, Path)} would write, without writing it. Scenes that
+     * differ in anything that is cached - a light, a material, an emission, a
+     * single vertex, or their hierarchies - have different digests. It takes a
+     * pass over the whole scene, so a large scene takes about as long as
+     * writing its cache.
+     *
+     * @param scene the scene
+     * @return the digest in hexadecimal
+     * @throws IllegalArgumentException if a light or a geometry of the scene is
+     *                                  of a type that cannot be cached
+     */
+    public static String digest(Scene scene) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DigestOutputStream(OutputStream.nullOutputStream(), digest), 1 << 16))) {
+            writeScene(scene, out);
+        } catch (IOException e) {
+            // the output goes nowhere, so it does not fail
+            throw new IllegalStateException("I/O error - cannot digest scene", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Writes a scene - the header of the cache, the scene settings, the lights
+     * and the geometries
+     *
+     * @param scene the scene
+     * @param out   the output
+     * @throws IOException on an I/O error
+     */
+    private static void writeScene(Scene scene, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeBoolean(scene.name != null);
+        if (scene.name != null) out.writeUTF(scene.name);
+        writeColor(scene.background, out);
+        writeColor(scene.ambientLight.getIntensity(), out);
+        out.writeInt(scene.lights.size());
+        for (LightSource light : scene.lights)
+            writeLight(light, out);
+        GeometryCache.write(scene.geometries, out);
+    }
+
+    /**
+     * Reads a scene from a cache file written by {@link #write(Scene, Path)}
+     *
+     * @param file the cache file
+     * @return the scene, with its hierarchies ready for rendering
+     * @throws IllegalStateException    on an I/O error, e.g. a missing file
+     * @throws IllegalArgumentException if the file is not a scene cache of this
+     *                                  version, or is damaged
+     */
+    public static Scene read(Path file) {
+        return read(file, CacheInput.MAX_WINDOW);
+    }
+
+    /**
+     * Reads a scene from a cache file, mapped in windows of the given size
+     *
+     * @param file       the cache file
+     * @param windowSize size of the windows in bytes
+     * @return the scene, with its hierarchies ready for rendering
+     * @throws IllegalStateException    on an I/O error, e.g. a missing file
+     * @throws IllegalArgumentException if the file is not a scene cache of this
+     *                                  version, or is damaged
+     */
+    static Scene read(Path file, int windowSize) {
+        long start = System.nanoTime();
+        Scene scene;
+        try (CacheInput in = new CacheInput(file, windowSize)) {
+            if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC)
+                throw new IllegalArgumentException("Not a scene cache: " + file);
+            int version = in.getInt();
+            if (version != VERSION)
+                throw new IllegalArgumentException("Scene cache version " + version + " instead of " + VERSION);
+            scene = new Scene(in.get() != 0 ? readUTF(in) : null);
+            scene.setBackground(readColor(in));
+            scene.setAmbientLight(new AmbientLight(readColor(in), 1d));
+            int n = in.getInt();
+            List<LightSource> lights = new LinkedList<>();
+            for (int i = 0; i < n; ++i)
+                lights.add(readLight(in));
+            scene.setLights(lights);
+            Intersectable geometries = GeometryCache.read(in);
+            if (!(geometries instanceof Geometries))
+                throw new IllegalArgumentException("The geometries of a cached scene must be a list");
+            scene.setGeometries((Geometries) geometries);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated scene cache: " + file, e);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing file " + file, e);
+        }
+        logger.info(String.format("Read scene cache %s: %.3f s", file, (System.nanoTime() - start) / 1e9));
+        return scene;
+    }
+
+    /**
+     * Writes a light - a tag of its type, its intensity and its parameters
+     *
+     * @param light the light
+     * @param out   the output
+     * @throws IOException              on an I/O error
+     * @throws IllegalArgumentException if the light is of a type that cannot be
+     *                                  cached
+     */
+    private static void writeLight(LightSource light, DataOutputStream out) throws IOException {
+        Class<?> type = light.getClass();
+        if (type == DirectionalLight.class) {
+            DirectionalLight directional = (DirectionalLight) light;
+            out.writeByte(DIRECTIONAL);
+            writeColor(directional.getIntensity(), out);
+            writePoint(directional.getDirection(), out);
+        } else if (type == PointLight.class || type == SpotLight.class) {
+            PointLight point = (PointLight) light;
+            out.writeByte(type == SpotLight.class ? SPOT : POINT);
+            writeColor(point.getIntensity(), out);
+            writePoint(point.getPosition(), out);
+            out.writeDouble(point.getKc());
+            out.writeDouble(point.getKl());
+            out.writeDouble(point.getKq());
+            if (light instanceof SpotLight spot) {
+                writePoint(spot.getDirection(), out);
+                out.writeDouble(spot.getNarrowBeam());
+            }
+        } else {
+            throw new IllegalArgumentException("Light of type " + type.getName() + " cannot be cached");
+        }
+    }
+
+    /**
+     * Reads a light written by {@link #writeLight(LightSource, DataOutputStream)}
+     *
+     * @param in the input
+     * @return the light
+     */
+    private static LightSource readLight(CacheInput in) {
+        byte tag = in.get();
+        Color intensity = readColor(in);
+        if (tag == DIRECTIONAL)
+            return new DirectionalLight(intensity, readVector(in));
+        if (tag != POINT && tag != SPOT)
+            throw new IllegalArgumentException("Unknown cached light type " + tag);
+        Point position = readPoint(in);
+        double kC = in.getDouble(), kL = in.getDouble(), kQ = in.getDouble();
+        if (tag == POINT)
+            return new PointLight(intensity, position).setKc(kC).setKl(kL).setKq(kQ);
+        return new SpotLight(intensity, position, readVector(in)).setKc(kC).setKl(kL).setKq(kQ)
+                .setNarrowBeam(in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return a string written by {@link DataOutputStream#writeUTF(String)}
+     */
+    private static String readUTF(CacheInput in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        // modified UTF-8 differs from UTF-8 only in the null character and
+        // supplementary characters, which scene names do not have
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param point a point (or a vector)
+     * @param out   the output
+     * @throws IOException on an I/O error
+     */
+    private static void writePoint(Point point, DataOutputStream out) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        out.writeDouble(point.getZ());
+    }
+
+    /**
+     * @param color a color
+     * @param out   the output
+     * @throws IOException on an I/O error
+     */
+    private static void writeColor(Color color, DataOutputStream out) throws IOException {
+        out.writeDouble(color.getRed());
+        out.writeDouble(color.getGreen());
+        out.writeDouble(color.getBlue());
+    }
+
+    /**
+     * @param in the input
+     * @return a point
+     */
+    private static Point readPoint(CacheInput in) {
+        return new Point(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return a vector
+     */
+    private static Vector readVector(CacheInput in) {
+        return new Vector(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return a color
+     */
+    private static Color readColor(CacheInput in) {
+        return new Color(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+}
@@ -0,0 +1,207 @@
+package fixtures;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import geometries.Instance;
+import geometries.Intersectable;
+import geometries.Sphere;
+import geometries.Triangle;
+import geometries.TriangleMesh;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+/**
+ * Scenes, meshes and rays shared by the unit tests and the benchmarks of the
+ * geometries, so a benchmark measures what the tests check
+ */
+public final class GeometryFixtures {
+    /** Don't let anyone instantiate this class. */
+    private GeometryFixtures() {}
+
+    /**
+     * Creates a random scene of spheres and triangles in the cube [-100,100]^3
+     *
+     * @param random random generator
+     * @param count  amount of geometries
+     * @return the geometries
+     */
+    public static Intersectable[] randomScene(Random random, int count) {
+        Intersectable[] result = new Intersectable[count];
+        for (int i = 0; i < count; ++i) {
+            Point p = randomPoint(random, 100);
+            if (i % 2 == 0) {
+                result[i] = new Sphere(p, 0.5 + random.nextDouble() * 2);
+            } else {
+                result[i] = new Triangle(p, p.add(new Vector(1 + random.nextDouble() * 2, 0, random.nextDouble())),
+                        p.add(new Vector(0, 1 + random.nextDouble() * 2, random.nextDouble())));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates random rays from the outside of the scene towards its interior
+     *
+     * @param random random generator
+     * @param count  amount of rays
+     * @return the rays
+     */
+    public static Ray[] randomRays(Random random, int count) {
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; ++i) {
+            Point head = randomPoint(random, 300);
+            rays[i] = new Ray(head, randomPoint(random, 80).subtract(head));
+        }
+        return rays;
+    }
+
+    /**
+     * @param random random generator
+     * @param size   half the size of the cube
+     * @return a random point in the cube [-size,size]^3
+     */
+    private static Point randomPoint(Random random, double size) {
+        return new Point((random.nextDouble() * 2 - 1) * size, (random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size);
+    }
+
+    /**
+     * Creates instances of a unit sphere at random places in the cube
+     * [-100,100]^3
+     *
+     * @param random random generator
+     * @param count  amount of instances
+     * @return the instances
+     */
+    public static Instance[] randomInstances(Random random, int count) {
+        Sphere sphere = new Sphere(Point.ZERO, 1);
+        Instance[] instances = new Instance[count];
+        for (int i = 0; i < count; ++i)
+            instances[i] = new Instance(sphere, Transform.translate(randomPoint(random, 100).subtract(Point.ZERO)));
+        return instances;
+    }
+
+    /**
+     * Moves every instance by a random step
+     *
+     * @param random random generator
+     * @param scene  the instances
+     * @param step   the maximal step along each axis
+     */
+    public static void move(Random random, Instance[] scene, double step) {
+        for (Instance instance : scene) {
+            Vector offset = new Vector((random.nextDouble() * 2 - 1) * step, (random.nextDouble() * 2 - 1) * step,
+                    (random.nextDouble() * 2 - 1) * step);
+            instance.setTransform(instance.getTransform().then(Transform.translate(offset)));
+        }
+    }
+
+    /**
+     * Runs a task in a fork-join pool of the given parallelism, so that a
+     * parallel build in it uses that amount of threads
+     *
+     * @param threads the parallelism of the pool
+     * @param task    the task
+     * @param <T>     the type of the task result
+     * @return the task result
+     * @throws Exception if the task fails
+     */
+    public static <T> T inPool(int threads, Callable<T> task) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(task).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Creates a random height field - a grid of n x n cells of two triangles each
+     * over the square [-100,100]^2, with random heights in [0,20]
+     *
+     * @param random random generator
+     * @param n      amount of cells per side
+     * @return the vertices - x, y and z of each, for the faces of
+     *         {@link #gridFaces(int)}
+     */
+    public static double[] gridVertices(Random random, int n) {
+        return gridVertices(random, n, 20);
+    }
+
+    /**
+     * Creates a random height field - a grid of n x n cells of two triangles each
+     * over the square [-100,100]^2, with random heights between 0 and the given
+     * height
+     *
+     * @param random random generator
+     * @param n      amount of cells per side
+     * @param height the height of the highest possible vertex, negative for a
+     *               field below the plane z = 0
+     * @return the vertices - x, y and z of each, for the faces of
+     *         {@link #gridFaces(int)}
+     */
+    public static double[] gridVertices(Random random, int n, double height) {
+        double[] vertices = new double[3 * (n + 1) * (n + 1)];
+        for (int i = 0, k = 0; i <= n; ++i)
+            for (int j = 0; j <= n; ++j) {
+                vertices[k++] = -100 + 200d * j / n;
+                vertices[k++] = -100 + 200d * i / n;
+                vertices[k++] = random.nextDouble() * height;
+            }
+        return vertices;
+    }
+
+    /**
+     * @param n amount of cells per side of the grid
+     * @return the faces of the grid of {@link #gridVertices(Random, int)}
+     */
+    public static int[] gridFaces(int n) {
+        int[] faces = new int[6 * n * n];
+        for (int i = 0, k = 0; i < n; ++i)
+            for (int j = 0; j < n; ++j) {
+                int a = i * (n + 1) + j, b = a + 1, c = a + n + 1, d = c + 1;
+                faces[k++] = a;
+                faces[k++] = b;
+                faces[k++] = d;
+                faces[k++] = a;
+                faces[k++] = d;
+                faces[k++] = c;
+            }
+        return faces;
+    }
+
+    /**
+     * @param vertices the vertices of a mesh
+     * @param faces    the faces of a mesh
+     * @return the same faces as separate triangles
+     */
+    public static Triangle[] triangles(double[] vertices, int[] faces) {
+        Triangle[] triangles = new Triangle[faces.length / 3];
+        for (int f = 0; f < triangles.length; ++f) {
+            Point[] p = new Point[3];
+            for (int k = 0; k < 3; ++k) {
+                int v = 3 * faces[3 * f + k];
+                p[k] = new Point(vertices[v], vertices[v + 1], vertices[v + 2]);
+            }
+            triangles[f] = new Triangle(p[0], p[1], p[2]);
+        }
+        return triangles;
+    }
+
+    /**
+     * Creates a mesh of a random height field - a grid of n x n cells of two
+     * triangles each over the square [-100,100]^2 at heights [-20,0], with the
+     * faces of {@link #gridFaces(int)}
+     *
+     * @param random random generator
+     * @param n      amount of cells per side
+     * @return the mesh
+     */
+    public static TriangleMesh grid(Random random, int n) {
+        return new TriangleMesh(gridVertices(random, n, -20), gridFaces(n));
+    }
+}
@@ -0,0 +1,176 @@
+package fixtures;
+
+import static java.awt.Color.*;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.RayTracerBase;
+import renderer.Sampler;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+/**
+ * Scenes, cameras and samplers shared by the unit tests and the benchmarks of
+ * the rendering, so a benchmark measures what the tests check. Each scene of
+ * the rendering tests fills the given scene and returns a camera builder aimed
+ * at it, the caller adds the image writer.
+ */
+public final class RenderFixtures {
+    /** Independent uniform samples - the baseline the samplers should beat */
+    public static final Sampler WHITE_NOISE = (j, i, index, point) -> {
+        int hash = Util.hash(Sampler.pixelHash(j, i) + index);
+        point[0] = Util.toUnit(hash);
+        point[1] = Util.toUnit(Util.hash(hash));
+    };
+
+    /** Don't let anyone instantiate this class. */
+    private RenderFixtures() {}
+
+    /**
+     * @return a scene with every kind of flat and round geometry, reflection,
+     *         transparency and all the kinds of lights
+     */
+    public static Scene benchmarkScene() {
+        Scene scene = new Scene("Benchmark").setAmbientLight(new AmbientLight(new Color(WHITE), 0.1));
+        scene.geometries.add(
+                new Sphere(new Point(-40, 0, -100), 30).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30).setkT(0.4)),
+                new Sphere(new Point(40, 10, -120), 25).setEmission(new Color(RED))
+                        .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(60).setkR(0.3)),
+                new Triangle(new Point(-100, -40, -200), new Point(100, -40, -200), new Point(0, 80, -220))
+                        .setEmission(new Color(30, 30, 30)).setMaterial(new Material().setKd(0.6).setKs(0.2)),
+                new Polygon(new Point(-60, -50, -60), new Point(-20, -50, -60), new Point(-20, -50, -20),
+                        new Point(-60, -50, -20)).setEmission(new Color(GREEN))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(20)),
+                new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)).setEmission(new Color(20, 20, 20))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.2).setShininess(10).setkR(0.2)));
+        scene.lights.add(new SpotLight(new Color(600, 400, 300), new Point(-80, 80, 0), new Vector(1, -1, -2))
+                .setKl(1e-4).setKq(1e-6));
+        scene.lights.add(new PointLight(new Color(300, 300, 500), new Point(80, 60, -20)).setKl(1e-4).setKq(1e-6));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 80), new Vector(0.5, -1, -0.5)));
+        return scene;
+    }
+
+    /**
+     * @param tracer      the ray tracer
+     * @param n           amount of pixels per side of the image
+     * @param raysInPixel the maximal amount of rays of a pixel
+     * @return the camera rendering the benchmark scene adaptively
+     */
+    public static Camera adaptiveCamera(RayTracerBase tracer, int n, int raysInPixel) {
+        return Camera.getBuilder().setLocation(new Point(0, 0, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(100).setVpSize(200, 200)
+                .setRayTracer(tracer).setImageWriter(new ImageWriter("Adaptive", n, n)).build()
+                .setAdaptiveSuperSamplingFlag(true).setNumOfRaysSuperSampeling(raysInPixel);
+    }
+
+    /**
+     * @param  scene the scene to fill with a sphere inside a transparent sphere
+     * @return       the camera builder of the scene
+     */
+    public static Camera.Builder twoSpheres(Scene scene) {
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setkT(0.3)),
+                new Sphere(new Point(0, 0, -50), 25d).setEmission(new Color(RED))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100)));
+        scene.lights.add(new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+                .setKl(0.0004).setKq(0.0000006));
+        return cameraBuilder(scene, 1000, 150);
+    }
+
+    /**
+     * @param  scene the scene to fill with two spheres reflected by two mirrors
+     * @return       the camera builder of the scene
+     */
+    public static Camera.Builder twoSpheresOnMirrors(Scene scene) {
+        scene.geometries.add(
+                new Sphere(new Point(-950, -900, -1000), 400d).setEmission(new Color(0, 50, 100))
+                        .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)
+                                .setkT(new Double3(0.5, 0, 0))),
+                new Sphere(new Point(-950, -900, -1000), 200d).setEmission(new Color(100, 50, 20))
+                        .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500), new Point(670, 670, 3000))
+                        .setEmission(new Color(20, 20, 20)).setMaterial(new Material().setkR(1)),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                        new Point(-1500, -1500, -2000)).setEmission(new Color(20, 20, 20))
+                        .setMaterial(new Material().setkR(new Double3(0.5, 0, 0.4))));
+        scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4))
+                .setKl(0.00001).setKq(0.000005));
+        return cameraBuilder(scene, 10000, 2500);
+    }
+
+    /**
+     * @param  scene the scene to fill with two triangles partially shadowed by a
+     *               transparent sphere
+     * @return       the camera builder of the scene
+     */
+    public static Camera.Builder trianglesTransparentSphere(Scene scene) {
+        scene.geometries.add(
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)),
+                new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)),
+                new Sphere(new Point(60, 50, -50), 30d).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30).setkT(0.6)));
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
+        scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1))
+                .setKl(4E-5).setKq(2E-7));
+        return cameraBuilder(scene, 1000, 200);
+    }
+
+    /**
+     * @param  scene the scene to fill with a sphere lighted by a directional, a
+     *               point and a spot light
+     * @return       the camera builder of the scene
+     */
+    public static Camera.Builder lightSphereMultiple(Scene scene) {
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(BLUE).reduce(2))
+                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(301)));
+        scene.lights.add(new DirectionalLight(new Color(400, 0, 0), new Vector(-1, 1, -1)));
+        scene.lights.add(new PointLight(new Color(500, 500, 0), new Point(0, 30, 10)).setKl(0.0000003).setKq(0.0000001));
+        scene.lights.add(new SpotLight(new Color(0, 900, 0), new Point(-100, -70, 50), new Vector(1, -1, -2))
+                .setKl(0.0000000001).setKq(0.000000001));
+        return cameraBuilder(scene, 1000, 200);
+    }
+
+    /**
+     * @param  scene the scene to fill with two triangles lighted by a
+     *               directional, a point and a spot light
+     * @return       the camera builder of the scene
+     */
+    public static Camera.Builder lightTrianglesMultiple(Scene scene) {
+        Material material = new Material().setKd(0.5).setKs(0.5).setShininess(300);
+        scene.geometries.add(
+                new Triangle(new Point(-110, -110, -150), new Point(95, 100, -150), new Point(110, -110, -150))
+                        .setMaterial(material),
+                new Triangle(new Point(-110, -110, -150), new Point(95, 100, -150), new Point(-75, 78, 100))
+                        .setMaterial(material));
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), new Double3(0.15)));
+        scene.lights.add(new DirectionalLight(new Color(0, 255, 0), new Vector(-2, -2, -2)));
+        scene.lights.add(new PointLight(new Color(255, 0, 0), new Point(40, -70, -100)).setKl(0.0005).setKq(0.0005));
+        scene.lights.add(new SpotLight(new Color(0, 0, 255), new Point(12, 0, 0), new Vector(0, -2, -1))
+                .setKl(0.0001).setKq(0.000005));
+        return cameraBuilder(scene, 1000, 200);
+    }
+
+    /**
+     * @param  scene    the scene
+     * @param  distance the distance of the camera and of the view plane from the
+     *                  origin, the camera looks down the z axis
+     * @param  size     the width and height of the view plane
+     * @return          the camera builder of the scene
+     */
+    private static Camera.Builder cameraBuilder(Scene scene, double distance, double size) {
+        return Camera.getBuilder().setLocation(new Point(0, 0, distance))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(distance)
+                .setVpSize(size, size).setRayTracer(new SimpleRayTracer(scene));
+    }
+}
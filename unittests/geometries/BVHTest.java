@@ -0,0 +1,222 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static fixtures.GeometryFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bounding volume hierarchy of {@link Geometries}
+ */
+class BVHTest {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED = 5784;
+
+    /**
+     * Test method for {@link Geometries#buildBVH(Geometries.SplitMethod)} - the
+     * hierarchy must return exactly the intersections of the linear scan
+     */
+    @Test
+    void testSameIntersections() {
+        Random random = new Random(SEED);
+        Intersectable[] scene = randomScene(random, 2000);
+        Ray[] rays = randomRays(random, 2000);
+        Plane floor = new Plane(new Point(0, 0, -150), new Vector(0, 0.1, 1));
+        Geometries linear = new Geometries(scene);
+        linear.add(floor);
+
+        for (Geometries.SplitMethod method : Geometries.SplitMethod.values()) {
+            Geometries bvh = new Geometries(scene);
+            bvh.add(floor);
+            bvh.buildBVH(method);
+            for (Ray ray : rays) {
+                List<Intersectable.GeoPoint> expected = linear.findGeoIntersections(ray);
+                List<Intersectable.GeoPoint> result = bvh.findGeoIntersections(ray);
+                if (expected == null) {
+                    assertNull(result, method + ": wrong intersections for " + ray);
+                } else {
+                    assertNotNull(result, method + ": missing intersections for " + ray);
+                    assertEquals(expected.size(), result.size(), method + ": wrong amount of intersections");
+                    for (int i = 0; i < expected.size(); ++i)
+                        assertSame(expected.get(i).geometry, result.get(i).geometry, method + ": wrong order");
+                }
+            }
+        }
+
+        // adding a geometry drops the hierarchy, so the new geometry is found too
+        Geometries geometries = new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH);
+        Sphere far = new Sphere(new Point(1000, 0, 0), 1);
+        geometries.add(far);
+        List<Intersectable.GeoPoint> result = geometries
+                .findGeoIntersections(new Ray(new Point(1000, 0, 10), new Vector(0, 0, -1)));
+        assertEquals(2, result.size(), "geometry added after build is not intersected");
+    }
+
+    /**
+     * Test method for {@link Intersectable#findClosestGeoIntersection(Ray, double)}
+     * - with and without the hierarchy it must find the closest of all the
+     * intersections, and nothing beyond the distance limit
+     */
+    @Test
+    void testClosestIntersection() {
+        Random random = new Random(SEED);
+        Intersectable[] scene = randomScene(random, 2000);
+        Ray[] rays = randomRays(random, 2000);
+        Geometries linear = new Geometries(scene);
+        Geometries median = new Geometries(scene).buildBVH(Geometries.SplitMethod.MEDIAN);
+        Geometries sah = new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH);
+
+        for (Ray ray : rays) {
+            List<Intersectable.GeoPoint> all = linear.findGeoIntersections(ray);
+            Intersectable.GeoPoint expected = ray.findClosestGeoPoint(all);
+            for (Geometries geometries : new Geometries[] { linear, median, sah }) {
+                Intersectable.GeoPoint result = geometries.findClosestGeoIntersection(ray);
+                if (expected == null) {
+                    assertNull(result, "wrong closest intersection for " + ray);
+                    continue;
+                }
+                assertNotNull(result, "missing closest intersection for " + ray);
+                assertSame(expected.geometry, result.geometry, "wrong closest geometry for " + ray);
+                assertEquals(expected.point, result.point, "wrong closest point for " + ray);
+                assertEquals(ray.head.distance(result.point), result.t, 1e-9, "wrong ray parameter");
+                assertNull(geometries.findClosestGeoIntersection(ray, result.t * 0.999),
+                        "intersection beyond the distance limit for " + ray);
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link Intersectable#isOccluded(Ray, double)} and
+     * {@link Intersectable#findTransparency(Ray, double)} - with and without the
+     * hierarchy they must agree with the intersections on the segment
+     */
+    @Test
+    void testOcclusion() {
+        Random random = new Random(SEED);
+        Intersectable[] scene = randomScene(random, 1000);
+        for (int i = 0; i < scene.length; i += 3) // every third geometry is transparent
+            ((Geometry) scene[i]).setMaterial(new Material().setkT(0.5));
+        Ray[] rays = randomRays(random, 2000);
+        Geometries linear = new Geometries(scene);
+        Geometries sah = new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH);
+
+        for (Ray ray : rays) {
+            double maxDistance = 200 + random.nextDouble() * 200;
+            List<Intersectable.GeoPoint> all = linear.findGeoIntersections(ray);
+            boolean blocked = false;
+            Double3 expected = Double3.ONE;
+            if (all != null)
+                for (Intersectable.GeoPoint gp : all)
+                    if (gp.point.distance(ray.head) < maxDistance) {
+                        blocked = true;
+                        expected = expected.product(gp.geometry.getMaterial().kT);
+                    }
+            for (Geometries geometries : new Geometries[] { linear, sah }) {
+                assertEquals(blocked, geometries.isOccluded(ray, maxDistance), "wrong occlusion for " + ray);
+                assertEquals(expected, geometries.findTransparency(ray, maxDistance), "wrong transparency for " + ray);
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link Geometries#buildBVH(Geometries.SplitMethod)} in
+     * parallel - a hierarchy large enough to be built by several threads must
+     * find the same closest intersections as the linear scan, for any amount of
+     * threads
+     */
+    @Test
+    void testParallelBuild() throws Exception {
+        Random random = new Random(SEED);
+        Intersectable[] scene = randomScene(random, 20000);
+        Ray[] rays = randomRays(random, 1000);
+        Geometries linear = new Geometries(scene);
+        Geometries single = inPool(1, () -> new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH));
+        Geometries parallel = inPool(4, () -> new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH));
+        assertTrue(parallel.getBuildNanos() > 0, "the build time is not reported");
+
+        for (Ray ray : rays) {
+            Intersectable.GeoPoint expected = linear.findClosestGeoIntersection(ray);
+            for (Geometries geometries : new Geometries[] { single, parallel }) {
+                Intersectable.GeoPoint result = geometries.findClosestGeoIntersection(ray);
+                if (expected == null) {
+                    assertNull(result, "wrong closest intersection for " + ray);
+                } else {
+                    assertNotNull(result, "missing closest intersection for " + ray);
+                    assertSame(expected.geometry, result.geometry, "wrong closest geometry for " + ray);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link Geometries#getBoundingBox()}
+     */
+    @Test
+    void testBoundingBox() {
+        Geometries geometries = new Geometries(new Sphere(new Point(0, 0, 0), 1),
+                new Triangle(new Point(2, 0, 0), new Point(3, 1, 0), new Point(2, 0, 5)));
+        BoundingBox box = geometries.getBoundingBox();
+        assertEquals(new Point(-1, -1, -1), box.getMin(), "wrong lower corner");
+        assertEquals(new Point(3, 1, 5), box.getMax(), "wrong upper corner");
+
+        geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)));
+        assertNull(geometries.getBoundingBox(), "unbounded geometries have no box");
+    }
+
+    /**
+     * Test method for {@link Geometries#refit(double)} - after the geometries move
+     * the refitted hierarchy finds the intersections of the linear scan, and it
+     * is built again when it degrades beyond the threshold
+     */
+    @Test
+    void testRefit() {
+        Random random = new Random(SEED);
+        Instance[] scene = randomInstances(random, 2000);
+        Geometries linear = new Geometries(scene);
+        Geometries refitted = new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH);
+        Geometries nested = new Geometries(new Geometries(scene).buildBVH(Geometries.SplitMethod.SAH));
+        Ray[] rays = randomRays(random, 500);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: small moves are refitted, and the intersections stay right
+        for (int frame = 0; frame < 3; ++frame) {
+            move(random, scene, 1);
+            assertFalse(refitted.refit(2), "TC01: small moves must not rebuild the hierarchy");
+            nested.refit(2);
+            for (Ray ray : rays) {
+                Intersectable.GeoPoint expected = linear.findClosestGeoIntersection(ray);
+                Intersectable.GeoPoint result = refitted.findClosestGeoIntersection(ray);
+                Intersectable.GeoPoint inner = nested.findClosestGeoIntersection(ray);
+                if (expected == null) {
+                    assertNull(result, "TC01: wrong intersection for " + ray);
+                    assertNull(inner, "TC01: wrong nested intersection for " + ray);
+                    continue;
+                }
+                assertEquals(expected.t, result.t, 1e-9, "TC01: wrong distance for " + ray);
+                assertEquals(expected.t, inner.t, 1e-9, "TC01: wrong nested distance for " + ray);
+            }
+        }
+        // TC02: scattering the geometries degrades the tree, which is built again
+        move(random, scene, 100);
+        assertTrue(refitted.refit(1.2), "TC02: the degraded hierarchy must be built again");
+        assertFalse(refitted.refit(1.2), "TC02: the new hierarchy must not be built again");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a threshold below 1 is rejected
+        assertThrows(IllegalArgumentException.class, () -> refitted.refit(0.5), "TC11: bad threshold");
+        // TC12: the bounds follow the moved geometries
+        BoundingBox box = refitted.getBoundingBox();
+        for (Instance instance : scene) {
+            BoundingBox b = instance.getBoundingBox();
+            assertTrue(b.minX >= box.minX && b.maxX <= box.maxX, "TC12: the refitted box must cover " + b);
+        }
+    }
+}
@@ -2,6 +2,31 @@ package geometries;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.junit.jupiter.api.Test;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
 class CylinderTest {
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link geometries.Cylinder#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Cylinder along the z axis
+        Cylinder cylinder = new Cylinder(new Ray(new Point(1, 2, 3), new Vector(0, 0, 1)), 2, 5);
+        BoundingBox box = cylinder.getBoundingBox();
+        assertEquals(new Point(-1, 0, 3), box.getMin(), "Wrong lower corner of the cylinder's box");
+        assertEquals(new Point(3, 4, 8), box.getMax(), "Wrong upper corner of the cylinder's box");
+
+        // TC02: Slanted cylinder - the box must contain the rims of both bases
+        cylinder = new Cylinder(new Ray(Point.ZERO, new Vector(1, 1, 0)), 1, Math.sqrt(2));
+        box = cylinder.getBoundingBox();
+        double e = Math.sqrt(0.5);
+        assertEquals(new Point(-e, -e, -1), box.getMin(), "Wrong lower corner of a slanted cylinder's box");
+        assertEquals(new Point(1 + e, 1 + e, 1), box.getMax(), "Wrong upper corner of a slanted cylinder's box");
+    }
+}
@@ -0,0 +1,189 @@
+package geometries;
+
+import fixtures.GeometryFixtures;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GeometryCache}
+ */
+class GeometryCacheTest {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED = 5784;
+
+    /**
+     * @param geometry a geometry
+     * @return the geometry written to bytes
+     * @throws IOException never - the output is in memory
+     */
+    private static ByteBuffer write(Intersectable geometry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GeometryCache.write(geometry, out);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    /**
+     * @param bytes a cached geometry
+     * @return the geometry read from the bytes
+     */
+    private static Intersectable read(byte[] bytes) {
+        return GeometryCache.read(new CacheInput(ByteBuffer.wrap(bytes)));
+    }
+
+    /**
+     * @param random random generator
+     * @return a list of geometries of all the types that can be cached, with a
+     *         shared material, instances of a shared object and a hierarchy
+     */
+    private static Geometries scene(Random random) {
+        Material shared = new Material().setKd(0.5).setKs(0.25).setShininess(30).setkT(0.1);
+        Intersectable[] shapes = GeometryFixtures.randomScene(random, 400);
+        for (Intersectable shape : shapes)
+            ((Geometry) shape).setMaterial(shared).setEmission(new Color(10, 20, 30));
+        Geometries original = new Geometries(shapes);
+        original.add(new Plane(new Point(0, 0, -150), new Vector(0, 0.1, 1)),
+                new Polygon(new Point(-50, -50, 120), new Point(50, -50, 120), new Point(50, 50, 120),
+                        new Point(-50, 50, 120)),
+                new Tube(new Ray(new Point(0, 120, 0), new Vector(1, 0, 0)), 5),
+                new Cylinder(new Ray(new Point(0, -120, 0), new Vector(0, 0, 1)), 5, 30),
+                new TriangleMesh(GeometryFixtures.gridVertices(random, 20), GeometryFixtures.gridFaces(20)),
+                new Geometries(new Sphere(new Point(0, 0, 0), 3)));
+        Geometries model = new Geometries(GeometryFixtures.randomScene(random, 20))
+                .buildBVH(Geometries.SplitMethod.SAH);
+        original.add(new Instance(model, Transform.scale(0.1).then(Transform.translate(new Vector(0, 0, 140)))),
+                new Instance(model, Transform.rotate(new Vector(0, 0, 1), 30).then(Transform.scale(1e-4))),
+                new Instance(new Instance(model, Transform.translate(new Vector(0, 140, 0))), Transform.IDENTITY));
+        return original.buildBVH(Geometries.SplitMethod.SAH);
+    }
+
+    /**
+     * Asserts that the geometries read back are those written
+     *
+     * @param original the written geometries
+     * @param restored the geometries read back
+     * @param random   random generator
+     */
+    private static void assertRestored(Geometries original, Geometries restored, Random random) {
+        assertNotNull(restored.bvh, "the hierarchy must be restored");
+        assertEquals(original.geometries.size(), restored.geometries.size(), "wrong amount of geometries");
+        Material material = ((Geometry) restored.geometries.get(0)).getMaterial();
+        assertSame(material, ((Geometry) restored.geometries.get(1)).getMaterial(), "the material must be shared");
+        assertEquals(((Geometry) original.geometries.get(0)).getMaterial().kD, material.kD, "wrong material");
+        assertEquals(30, material.nShininess, "wrong material");
+        int count = original.geometries.size();
+        Intersectable object = ((Instance) restored.geometries.get(count - 3)).getObject();
+        assertSame(object, ((Instance) restored.geometries.get(count - 2)).getObject(), "the object must be shared");
+        assertSame(object, ((Instance) ((Instance) restored.geometries.get(count - 1)).getObject()).getObject(),
+                "the object must be shared by a nested instance");
+
+        for (Ray ray : GeometryFixtures.randomRays(random, 2000)) {
+            Intersectable.GeoPoint expected = original.findClosestGeoIntersection(ray);
+            Intersectable.GeoPoint result = restored.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(result, "wrong closest intersection for " + ray);
+                continue;
+            }
+            assertNotNull(result, "missing closest intersection for " + ray);
+            assertEquals(expected.t, result.t, 1e-9, "wrong distance for " + ray);
+            assertSame(expected.geometry.getClass(), result.geometry.getClass(), "wrong geometry for " + ray);
+            assertTrue(expected.geometry.getEmission().isAlmostEquals(result.geometry.getEmission()),
+                    "wrong emission");
+
+            List<Intersectable.GeoPoint> all = original.findGeoIntersections(ray);
+            assertEquals(all.size(), restored.findGeoIntersections(ray).size(), "wrong amount of intersections");
+            assertTrue(restored.isOccluded(ray, expected.t * 1.001), "the closest intersection must occlude");
+        }
+    }
+
+    /**
+     * Test method for {@link GeometryCache#write(Intersectable, java.io.DataOutputStream)}
+     * and {@link GeometryCache#read(CacheInput)} - the geometries read back must
+     * find the same intersections as the written ones
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        Random random = new Random(SEED);
+        Geometries original = scene(random);
+        CacheInput in = new CacheInput(write(original));
+        Geometries restored = (Geometries) GeometryCache.read(in);
+        assertEquals(0, in.remaining(), "the whole geometry must be read");
+        assertRestored(original, restored, random);
+    }
+
+    /**
+     * Test method for {@link GeometryCache#read(CacheInput)} of a file mapped in
+     * windows - every array and many numbers cross the windows, and the
+     * geometries read back must be the same
+     */
+    @Test
+    void testWindows() throws IOException {
+        Random random = new Random(SEED);
+        Geometries original = scene(random);
+        Path file = Files.createTempFile("geometry", ".cache");
+        try {
+            Files.write(file, write(original).array());
+            try (CacheInput in = new CacheInput(file, 100)) {
+                Geometries restored = (Geometries) GeometryCache.read(in);
+                assertEquals(0, in.remaining(), "the whole geometry must be read");
+                assertRestored(original, restored, random);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test method for {@link GeometryCache#write(Intersectable, java.io.DataOutputStream)}
+     * and {@link GeometryCache#read(CacheInput)} with input that cannot be cached
+     * or read
+     */
+    @Test
+    void testErrors() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a subclass of a cached geometry type
+        Sphere custom = new Sphere(new Point(0, 0, 0), 1) {};
+        assertThrows(IllegalArgumentException.class, () -> write(new Geometries(custom)), "TC01: unknown type");
+        // TC02: an unknown tag
+        assertThrows(IllegalArgumentException.class, () -> read(new byte[] { 99 }), "TC02: unknown tag");
+        // TC03: an instance of an object that was not written
+        assertThrows(IllegalArgumentException.class, () -> read(new byte[] { 8, 0, 0, 0, 0 }),
+                "TC03: missing object");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a mesh whose arrays are cut off
+        ByteBuffer bytes = write(new TriangleMesh(new double[] { 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new int[] { 0, 1, 2 }));
+        bytes.limit(bytes.limit() - 4);
+        assertThrows(IllegalArgumentException.class, () -> GeometryCache.read(new CacheInput(bytes)),
+                "TC11: truncated mesh");
+        // TC12: a polygon with a negative amount of vertices
+        ByteBuffer polygon = write(new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0)));
+        polygon.putInt(polygon.limit() - 9 * Double.BYTES - Integer.BYTES, -1);
+        assertThrows(IllegalArgumentException.class, () -> GeometryCache.read(new CacheInput(polygon)),
+                "TC12: negative amount of vertices");
+        // TC13: a window smaller than a number
+        Path file = Files.createTempFile("geometry", ".cache");
+        try {
+            assertThrows(IllegalArgumentException.class, () -> new CacheInput(file, 4), "TC13: small window");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
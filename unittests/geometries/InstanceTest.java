@@ -0,0 +1,141 @@
+package geometries;
+
+import fixtures.GeometryFixtures;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Instance}
+ */
+class InstanceTest {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED = 5784;
+
+    /**
+     * Checks that an instance finds the same closest intersection as the same
+     * geometry with the coordinates in the scene space
+     *
+     * @param instance the instance
+     * @param baked    the geometry in the scene space
+     * @param rays     the rays
+     * @param message  the prefix of the failure messages
+     */
+    private static void assertSameHits(Intersectable instance, Intersectable baked, Ray[] rays, String message) {
+        int hits = 0;
+        for (Ray ray : rays) {
+            Intersectable.GeoPoint expected = baked.findClosestGeoIntersection(ray);
+            Intersectable.GeoPoint result = instance.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(result, message + ": wrong intersection for " + ray);
+                continue;
+            }
+            ++hits;
+            assertNotNull(result, message + ": missing intersection for " + ray);
+            assertEquals(expected.t, result.t, 1e-7, message + ": wrong distance for " + ray);
+            assertEquals(0, expected.point.distance(result.point), 1e-7, message + ": wrong point for " + ray);
+            assertEquals(1, expected.geometry.getNormal(expected).dotProduct(result.normal), 1e-9,
+                    message + ": wrong normal for " + ray);
+            assertFalse(instance.isOccluded(ray, expected.t * 0.999), message + ": occluded beyond the limit");
+            assertTrue(instance.isOccluded(ray, expected.t * 1.001), message + ": not occluded");
+        }
+        assertTrue(hits > rays.length / 10, message + ": too few rays hit - the test is too weak");
+    }
+
+    /**
+     * @param random random generator
+     * @param target the point the rays aim near
+     * @return random rays aimed near the target
+     */
+    private static Ray[] rays(Random random, Point target) {
+        Ray[] rays = new Ray[500];
+        for (int i = 0; i < rays.length; ++i) {
+            Point head = target.add(new Vector(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100,
+                    150));
+            Point aim = target.add(new Vector(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10,
+                    random.nextDouble() * 20 - 10));
+            rays[i] = new Ray(head, aim.subtract(head));
+        }
+        return rays;
+    }
+
+    /**
+     * Test method for {@link Instance} of single geometries - the same
+     * intersections, distances and normals as the geometries placed directly
+     */
+    @Test
+    void testTransformedGeometries() {
+        Random random = new Random(SEED);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a moved and scaled sphere
+        Transform t = Transform.scale(4).then(Transform.translate(new Vector(10, -20, 5)));
+        assertSameHits(new Instance(new Sphere(Point.ZERO, 2), t), new Sphere(new Point(10, -20, 5), 8),
+                rays(random, new Point(10, -20, 5)), "TC01");
+        // TC02: a triangle by a rotation, a non-uniform scaling and a move
+        t = Transform.rotate(new Vector(1, 2, 3), 70).then(Transform.scale(2, 0.5, 3))
+                .then(Transform.translate(new Vector(-5, 4, 1)));
+        Point a = new Point(-6, -5, 0), b = new Point(7, -4, 1), c = new Point(0, 8, -2);
+        assertSameHits(new Instance(new Triangle(a, b, c), t),
+                new Triangle(t.apply(a), t.apply(b), t.apply(c)), rays(random, t.apply(Point.ZERO)), "TC02");
+        // TC03: a group in a group of instances, each with its own transform
+        Transform inner = Transform.translate(new Vector(3, 0, 0)), outer = Transform.rotate(new Vector(0, 0, 1), 45);
+        Instance nested = new Instance(new Geometries(new Instance(new Sphere(Point.ZERO, 8), inner)), outer);
+        assertSameHits(nested, new Sphere(inner.then(outer).apply(Point.ZERO), 8),
+                rays(random, inner.then(outer).apply(Point.ZERO)), "TC03");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the bounding box of the instance covers the transformed object
+        BoundingBox box = new Instance(new Sphere(Point.ZERO, 1), Transform.translate(new Vector(5, 0, 0)))
+                .getBoundingBox();
+        assertEquals(4, box.minX, 1e-9, "TC11: wrong box");
+        assertEquals(6, box.maxX, 1e-9, "TC11: wrong box");
+        // TC12: an instance of an unbounded geometry is unbounded
+        assertNull(new Instance(new Plane(Point.ZERO, new Vector(0, 0, 1)), Transform.IDENTITY).getBoundingBox(),
+                "TC12: a plane instance must be unbounded");
+    }
+
+    /**
+     * Test method for a hierarchy over instances of a shared mesh - the two-level
+     * structure finds the intersections of the baked copies
+     */
+    @Test
+    void testTwoLevel() {
+        Random random = new Random(SEED);
+        TriangleMesh mesh = new TriangleMesh(GeometryFixtures.gridVertices(random, 10),
+                GeometryFixtures.gridFaces(10));
+        Geometries instances = new Geometries(), baked = new Geometries();
+        for (int i = 0; i < 5; ++i) {
+            Transform t = Transform.rotate(new Vector(1, 0, 0), 20 * i).then(Transform.scale(0.2))
+                    .then(Transform.translate(new Vector(45 * i - 80, 0, 10)));
+            instances.add(new Instance(mesh, t));
+            for (int face = 0; face < mesh.getFaceCount(); ++face) {
+                int[] f = { mesh.faces[3 * face], mesh.faces[3 * face + 1], mesh.faces[3 * face + 2] };
+                Point[] p = new Point[3];
+                for (int k = 0; k < 3; ++k)
+                    p[k] = t.apply(new Point(mesh.vertices[3 * f[k]], mesh.vertices[3 * f[k] + 1],
+                            mesh.vertices[3 * f[k] + 2]));
+                baked.add(new Triangle(p[0], p[1], p[2]));
+            }
+        }
+        instances.buildBVH(Geometries.SplitMethod.SAH);
+        for (Ray ray : GeometryFixtures.randomRays(random, 2000)) {
+            Intersectable.GeoPoint expected = baked.findClosestGeoIntersection(ray);
+            Intersectable.GeoPoint result = instances.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(result, "wrong intersection for " + ray);
+                continue;
+            }
+            assertNotNull(result, "missing intersection for " + ray);
+            assertEquals(expected.t, result.t, 1e-7, "wrong distance for " + ray);
+            List<Intersectable.GeoPoint> all = baked.findGeoIntersections(ray);
+            assertEquals(all.size(), instances.findGeoIntersections(ray).size(), "wrong amount of intersections");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ObjLoader}
+ */
+class ObjLoaderTest {
+
+    /**
+     * @param text OBJ text
+     * @return a stream of the text
+     */
+    private static InputStream obj(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test method for {@link ObjLoader#load(InputStream)}
+     */
+    @Test
+    void testLoad() throws IOException {
+        ObjLoader loader = new ObjLoader();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a unit square in the z=0 plane as a quad with texture and normal
+        // indices, and a triangle above it by relative indices, among other lines
+        TriangleMesh mesh = loader.load(obj("""
+                # a square and a triangle
+                mtllib scene.mtl
+                o square
+                v 0 0 0
+                v 1.0 0 0
+                v 1 1e0 0
+                  v 0 +1 0.0
+                vt 0 0
+                vn 0 0 1
+                usemtl white
+                s off
+                f 1/1/1 2/1/1 3/1/1 4/1/1
+                v -0.5 -0.5 2
+                v 2.5e-1 -.5 2\r
+                v 0.25 0.5 2 1.0
+                f -3 -2 -1 # the triangle
+                """));
+        assertEquals(7, loader.getVertexCount(), "TC01: wrong amount of vertices");
+        assertEquals(3, loader.getTriangleCount(), "TC01: wrong amount of triangles");
+        assertEquals(3, mesh.getFaceCount(), "TC01: wrong amount of faces");
+        Intersectable.GeoPoint gp = mesh.findClosestGeoIntersection(new Ray(new Point(0.5, 0.25, 5),
+                new Vector(0, 0, -1)));
+        assertEquals(new Point(0.5, 0.25, 0), gp.point, "TC01: the square must be hit");
+        gp = mesh.findClosestGeoIntersection(new Ray(new Point(-0.2, -0.2, 5), new Vector(0, 0, -1)));
+        assertEquals(new Point(-0.2, -0.2, 2), gp.point, "TC01: the triangle must be hit");
+        assertTrue(loader.getTrianglesPerSecond() > 0, "TC01: no throughput reported");
+
+        // TC02: a face of a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> loader.load(obj("v 0 0 0\nv 1 0 0\nf 1 2 3\n")),
+                "TC02: missing vertex");
+        // TC03: a malformed coordinate
+        assertThrows(IllegalArgumentException.class, () -> loader.load(obj("v 0 zero 0\n")),
+                "TC03: malformed coordinate");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: no faces
+        assertThrows(IllegalArgumentException.class, () -> loader.load(obj("v 0 0 0\n")), "TC11: no faces");
+        // TC12: a face of two vertices
+        assertThrows(IllegalArgumentException.class, () -> loader.load(obj("v 0 0 0\nv 1 0 0\nf 1 2\n")),
+                "TC12: face of two vertices");
+        // TC13: no line break at the end
+        loader.load(obj("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3"));
+        assertEquals(1, loader.getTriangleCount(), "TC13: the last line is lost");
+    }
+
+    /**
+     * Test method for the number parsing of {@link ObjLoader#load(InputStream)} -
+     * the coordinates must be the same as {@link Double#parseDouble(String)} reads
+     */
+    @Test
+    void testNumbers() throws IOException {
+        Random random = new Random(5784);
+        StringBuilder text = new StringBuilder();
+        double[] expected = new double[3000];
+        for (int i = 0; i < expected.length; ++i) {
+            String number = switch (i % 4) {
+                case 0 -> Double.toString((random.nextDouble() - 0.5) * 1000);
+                case 1 -> String.format(Locale.ROOT, "%.6f", (random.nextDouble() - 0.5) * 100);
+                case 2 -> String.format(Locale.ROOT, "%.3e", (random.nextDouble() - 0.5) * 1e-5);
+                default -> Double.toString((random.nextDouble() - 0.5) * 1e30);
+            };
+            expected[i] = Double.parseDouble(number);
+            text.append(i % 3 == 0 ? "v " : " ").append(number).append(i % 3 == 2 ? "\n" : "");
+        }
+        text.append("f 1 2 3\n");
+        TriangleMesh mesh = new ObjLoader().load(obj(text.toString()));
+        assertEquals(expected.length / 3, mesh.getVertexCount(), "wrong amount of vertices");
+        for (int i = 0; i < mesh.getVertexCount(); ++i) {
+            Point vertex = mesh.getVertex(i);
+            assertEquals(expected[3 * i], vertex.getX(), "wrong x of vertex " + i);
+            assertEquals(expected[3 * i + 1], vertex.getY(), "wrong y of vertex " + i);
+            assertEquals(expected[3 * i + 2], vertex.getZ(), "wrong z of vertex " + i);
+        }
+    }
+}
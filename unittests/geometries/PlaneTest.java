@@ -111,4 +111,14 @@ class PlaneTest {
         assertNull(plane.findIntersections(ray),
                 "TC17: ERROR: Ray is neither orthogonal nor parallel to the plane and begins in the same point which appears as reference point in the plane, there should be null");
     }
+
+    /**
+     * Test method for {@link geometries.Plane#getBoundingBox()}
+     */
+    @Test
+    void testGetBoundingBox() {
+        // =============== Boundary Values Tests ==================
+        // TC11: the plane is infinite, so it has no box
+        assertNull(new Plane(Point.ZERO, new Vector(0, 0, 1)).getBoundingBox(), "TC11: the plane must be unbounded");
+    }
 }
\ No newline at end of file
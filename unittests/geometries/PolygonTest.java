@@ -143,4 +143,39 @@ class PolygonTest {
         assertNull(pol.findIntersections(ray), errorBadIntersection);
 
     }
+
+    /**
+     * Test method for {@link geometries.Polygon#getBoundingBox()} - and the slab test
+     * of the box, which rejects the rays that miss it before the exact
+     * intersection
+     */
+    @Test
+    void testGetBoundingBox() {
+        Polygon polygon = new Polygon(new Point(1, 0, 0), new Point(2, 1, 0), new Point(1, 2, 0),
+                new Point(0, 1, 0));
+        BoundingBox box = polygon.getBoundingBox();
+        Vector down = new Vector(0, 0, -1);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the box of the polygon - flat, in the plane of the polygon
+        assertEquals(new Point(0, 0, 0), box.getMin(), "TC01: wrong lower corner");
+        assertEquals(new Point(2, 2, 0), box.getMax(), "TC01: wrong upper corner");
+        // TC02: a ray that misses the box
+        Ray ray = new Ray(new Point(3, 3, 1), down);
+        assertFalse(box.intersects(ray), "TC02: the box must reject the ray");
+        assertNull(polygon.findIntersections(ray), "TC02: the ray misses the polygon");
+        // TC03: a ray through the box outside the polygon
+        ray = new Ray(new Point(0.1, 0.1, 1), down);
+        assertTrue(box.intersects(ray), "TC03: the ray crosses the box");
+        assertNull(polygon.findIntersections(ray), "TC03: the ray misses the polygon");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the box is behind the head of the ray
+        ray = new Ray(new Point(1, 1, 1), new Vector(0, 0, 1));
+        assertFalse(box.intersects(ray), "TC11: the box must reject the ray");
+        assertNull(polygon.findIntersections(ray), "TC11: the polygon is behind the ray");
+        // TC12: the box is farther than the maximal distance
+        ray = new Ray(new Point(1, 1, 1), down);
+        assertFalse(box.intersects(ray, 0.5), "TC12: the box must reject the ray");
+        assertNull(polygon.findClosestGeoIntersection(ray, 0.5), "TC12: the polygon is too far");
+    }
 }
\ No newline at end of file
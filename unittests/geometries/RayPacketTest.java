@@ -0,0 +1,132 @@
+package geometries;
+
+import fixtures.GeometryFixtures;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RayPacket} and the packet intersectors
+ */
+class RayPacketTest {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED = 5784;
+
+    /**
+     * Creates the primary rays of a block of pixels of a pinhole camera at
+     * (0,0,400) looking down the z axis, over a view plane of 200x200 at distance
+     * 200 split into n x n pixels
+     *
+     * @param n    amount of pixels per side of the view plane
+     * @param j0   first column of the block
+     * @param i0   first row of the block
+     * @param side side of the block in pixels
+     * @return the rays, row after row
+     */
+    private static Ray[] block(int n, int j0, int i0, int side) {
+        Ray[] rays = new Ray[side * side];
+        Point head = new Point(0, 0, 400);
+        for (int i = 0, r = 0; i < side; ++i)
+            for (int j = 0; j < side; ++j)
+                rays[r++] = new Ray(head, new Vector(200d * (j0 + j + 0.5) / n - 100, 100 - 200d * (i0 + i + 0.5) / n,
+                        -200));
+        return rays;
+    }
+
+    /**
+     * Checks that a packet finds the same closest intersection of every ray as the
+     * ray alone
+     *
+     * @param geometry the intersected geometry
+     * @param rays     the rays of the packet
+     * @param message  the prefix of the failure messages
+     * @return the amount of rays that hit the geometry
+     */
+    private static int assertSameHits(Intersectable geometry, Ray[] rays, String message) {
+        RayPacket packet = new RayPacket(rays.length);
+        for (Ray ray : rays)
+            packet.add(ray);
+        geometry.findClosestGeoIntersections(packet);
+        int hits = 0;
+        for (int r = 0; r < rays.length; ++r) {
+            Intersectable.GeoPoint expected = geometry.findClosestGeoIntersection(rays[r]);
+            Intersectable.GeoPoint result = packet.getHit(r);
+            if (expected == null) {
+                assertNull(result, message + ": wrong intersection for " + rays[r]);
+                continue;
+            }
+            ++hits;
+            assertNotNull(result, message + ": missing intersection for " + rays[r]);
+            assertSame(expected.geometry, result.geometry, message + ": wrong geometry for " + rays[r]);
+            assertEquals(expected.t, result.t, 0, message + ": wrong distance for " + rays[r]);
+            assertEquals(expected.point, result.point, message + ": wrong point for " + rays[r]);
+        }
+        return hits;
+    }
+
+    /**
+     * Test method for {@link Intersectable#findClosestGeoIntersections(RayPacket)}
+     * of the single geometries - exactly the results of the rays alone
+     */
+    @Test
+    void testGeometries() {
+        Ray[] rays = block(16, 0, 0, 16);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a sphere
+        assertTrue(assertSameHits(new Sphere(new Point(10, -5, 0), 60), rays, "TC01") > 0, "TC01: no hits");
+        // TC02: a plane
+        assertTrue(assertSameHits(new Plane(new Point(0, 0, -50), new Vector(0.2, 0.1, 1)), rays, "TC02") > 0,
+                "TC02: no hits");
+        // TC03: a triangle
+        assertTrue(assertSameHits(new Triangle(new Point(-80, -80, 0), new Point(90, -60, 20),
+                new Point(0, 85, -30)), rays, "TC03") > 0, "TC03: no hits");
+        // TC04: a geometry without its own packet intersector
+        assertTrue(assertSameHits(new Polygon(new Point(-50, -50, 10), new Point(50, -50, 10),
+                new Point(50, 50, 10), new Point(-50, 50, 10)), rays, "TC04") > 0, "TC04: no hits");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: rays that start at the sphere center and at the point of the plane
+        Ray[] fromCenter = { new Ray(Point.ZERO, new Vector(1, 0, 0)), new Ray(Point.ZERO, new Vector(0, 1, 1)) };
+        assertEquals(2, assertSameHits(new Sphere(Point.ZERO, 5), fromCenter, "TC11"), "TC11: wrong hits");
+        assertEquals(0, assertSameHits(new Plane(Point.ZERO, new Vector(0, 0, 1)), fromCenter, "TC11"),
+                "TC11: wrong hits");
+        // TC12: a packet with a single ray, and the limit of a previous hit
+        RayPacket packet = new RayPacket(1).add(rays[0]);
+        new Sphere(new Point(0, 0, 380), 1).findClosestGeoIntersections(packet); // misses
+        assertNull(packet.getHit(0), "TC12: wrong hit");
+        assertThrows(IllegalStateException.class, () -> packet.add(rays[1]), "TC12: the packet is full");
+    }
+
+    /**
+     * Test method for {@link Geometries#findClosestGeoIntersections(RayPacket)} -
+     * the linear scan and the hierarchy find for every ray of the packet exactly
+     * what the ray alone finds
+     */
+    @Test
+    void testGeometriesList() {
+        Random random = new Random(SEED);
+        Intersectable[] scene = GeometryFixtures.randomScene(random, 3000);
+        Plane floor = new Plane(new Point(0, 0, -150), new Vector(0, 0.1, 1));
+        Geometries linear = new Geometries(scene);
+        linear.add(floor);
+        Geometries bvh = new Geometries(scene);
+        bvh.add(floor);
+        bvh.buildBVH(Geometries.SplitMethod.SAH);
+        Geometries nested = new Geometries(new Geometries(scene).buildBVH(Geometries.SplitMethod.MEDIAN), floor)
+                .buildBVH(Geometries.SplitMethod.SAH);
+        int n = 64;
+        for (int side : new int[] { 4, 8 })
+            for (int i0 = 0; i0 < n; i0 += side)
+                for (int j0 = 0; j0 < n; j0 += side) {
+                    Ray[] rays = block(n, j0, i0, side);
+                    assertSameHits(linear, rays, "linear " + side);
+                    assertSameHits(bvh, rays, "hierarchy " + side);
+                    assertSameHits(nested, rays, "nested " + side);
+                }
+    }
+}
@@ -120,4 +120,38 @@ class SphereTest {
         assertNull(sphere.findIntersections(new Ray(new Point(0, 0, 0), new Vector(0, 1, 0))),
                 "TC19: Ray's line is outside, ray is orthogonal to ray start to sphere's center line");
     }
+
+    /**
+     * Test method for {@link geometries.Sphere#getBoundingBox()} - and the slab test
+     * of the box, which rejects the rays that miss it before the exact
+     * intersection
+     */
+    @Test
+    void testGetBoundingBox() {
+        Sphere sphere = new Sphere(new Point(1, 0, 0), 1d);
+        BoundingBox box = sphere.getBoundingBox();
+        Vector x = new Vector(1, 0, 0);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the box of the sphere
+        assertEquals(new Point(0, -1, -1), box.getMin(), "TC01: wrong lower corner");
+        assertEquals(new Point(2, 1, 1), box.getMax(), "TC01: wrong upper corner");
+        // TC02: a ray that misses the box
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(0, 1, 0));
+        assertFalse(box.intersects(ray), "TC02: the box must reject the ray");
+        assertNull(sphere.findIntersections(ray), "TC02: the ray misses the sphere");
+        // TC03: a ray through a corner of the box that misses the sphere
+        ray = new Ray(new Point(-1, 0.95, 0.95), x);
+        assertTrue(box.intersects(ray), "TC03: the ray enters the box");
+        assertNull(sphere.findIntersections(ray), "TC03: the ray misses the sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the box is behind the head of the ray
+        ray = new Ray(new Point(3, 0, 0), x);
+        assertFalse(box.intersects(ray), "TC11: the box must reject the ray");
+        assertNull(sphere.findIntersections(ray), "TC11: the sphere is behind the ray");
+        // TC12: the box is farther than the maximal distance
+        ray = new Ray(new Point(-1, 0, 0), x);
+        assertFalse(box.intersects(ray, 0.5), "TC12: the box must reject the ray");
+        assertNull(sphere.findClosestGeoIntersection(ray, 0.5), "TC12: the sphere is too far");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static fixtures.GeometryFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TriangleMesh}
+ */
+class TriangleMeshTest {
+    /** Fixed seed, so that every run uses the same mesh and rays */
+    private static final long SEED = 5784;
+
+    /**
+     * Test method for {@link TriangleMesh#TriangleMesh(double[], int[])}
+     */
+    @Test
+    void testConstructor() {
+        double[] vertices = { 0, 0, 0, 1, 0, 0, 0, 1, 0 };
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a single triangle
+        TriangleMesh mesh = new TriangleMesh(vertices, new int[] { 0, 1, 2 });
+        assertEquals(1, mesh.getFaceCount(), "TC01: wrong amount of faces");
+        assertEquals(3, mesh.getVertexCount(), "TC01: wrong amount of vertices");
+        // TC02: vertex coordinates not in triples
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[] { 0, 0 }, new int[] { 0, 0, 0 }), "TC02: vertices not in triples");
+        // TC03: a face of a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[] { 0, 1, 3 }),
+                "TC03: missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: no faces
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[0]),
+                "TC11: no faces");
+    }
+
+    /**
+     * Test method for {@link Intersectable#findClosestGeoIntersection(Ray, double)},
+     * {@link Intersectable#findGeoIntersections(Ray)} and
+     * {@link Intersectable#isOccluded(Ray, double)} - the mesh must find the same
+     * intersections as its faces as separate triangles
+     */
+    @Test
+    void testSameIntersections() {
+        Random random = new Random(SEED);
+        int n = 30;
+        double[] vertices = gridVertices(random, n);
+        int[] faces = gridFaces(n);
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+        Geometries linear = new Geometries(triangles(vertices, faces));
+        assertEquals(2 * n * n, mesh.getFaceCount(), "wrong amount of faces");
+
+        for (int i = 0; i < 2000; ++i) {
+            Point head = new Point(random.nextDouble() * 300 - 150, random.nextDouble() * 300 - 150,
+                    50 + random.nextDouble() * 100);
+            Point target = new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100,
+                    random.nextDouble() * 20);
+            Ray ray = new Ray(head, target.subtract(head));
+
+            Intersectable.GeoPoint expected = linear.findClosestGeoIntersection(ray);
+            Intersectable.GeoPoint result = mesh.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(result, "wrong closest intersection for " + ray);
+                continue;
+            }
+            assertNotNull(result, "missing closest intersection for " + ray);
+            assertEquals(expected.t, result.t, 1e-9, "wrong distance for " + ray);
+            assertSame(mesh, result.geometry, "the point must be on the mesh");
+            assertEquals(expected.geometry.getNormal(expected.point).dotProduct(mesh.getNormal(result)), 1, 1e-9,
+                    "wrong normal for " + ray);
+            assertTrue(result.u > 0 && result.v > 0 && result.u + result.v < 1, "wrong barycentric coordinates");
+
+            List<Intersectable.GeoPoint> all = mesh.findGeoIntersections(ray);
+            assertEquals(linear.findGeoIntersections(ray).size(), all.size(), "wrong amount of intersections");
+            assertTrue(mesh.isOccluded(ray, result.t * 1.001), "the closest intersection must occlude");
+            assertFalse(mesh.isOccluded(ray, result.t * 0.999), "nothing occludes before the closest intersection");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a ray that misses the mesh box
+        assertNull(mesh.findGeoIntersections(new Ray(new Point(0, 0, 100), new Vector(0, 0, 1))),
+                "TC11: ray away from the mesh");
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#TriangleMesh(double[], int[])} in
+     * parallel - a mesh large enough to be built by several threads must get the
+     * same hierarchy for any amount of threads, and find the same intersections
+     * as its faces as separate triangles
+     */
+    @Test
+    void testParallelBuild() throws Exception {
+        Random random = new Random(SEED);
+        int n = 150;
+        double[] vertices = gridVertices(random, n);
+        int[] faces = gridFaces(n);
+        TriangleMesh single = inPool(1, () -> new TriangleMesh(vertices, faces));
+        TriangleMesh parallel = inPool(4, () -> new TriangleMesh(vertices, faces));
+        assertArrayEquals(single.faces, parallel.faces, "the faces must be in the same order");
+        assertArrayEquals(single.nodes, parallel.nodes, "the hierarchy must be the same");
+        assertArrayEquals(single.bounds, parallel.bounds, "the hierarchy must be the same");
+        assertTrue(parallel.getBuildNanos() > 0, "the build time is not reported");
+
+        Geometries linear = new Geometries(triangles(vertices, faces));
+        for (int i = 0; i < 300; ++i) {
+            Point head = new Point(random.nextDouble() * 300 - 150, random.nextDouble() * 300 - 150, 100);
+            Point target = new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100, 10);
+            Ray ray = new Ray(head, target.subtract(head));
+            Intersectable.GeoPoint expected = linear.findClosestGeoIntersection(ray);
+            Intersectable.GeoPoint result = parallel.findClosestGeoIntersection(ray);
+            assertEquals(expected == null, result == null, "wrong closest intersection for " + ray);
+            if (expected != null)
+                assertEquals(expected.t, result.t, 1e-9, "wrong distance for " + ray);
+        }
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#getNormal(Point)}
+     */
+    @Test
+    void testGetNormal() {
+        TriangleMesh mesh = new TriangleMesh(new double[] { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 1 },
+                new int[] { 0, 1, 2, 0, 2, 3 });
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a point on the flat face
+        assertEquals(new Vector(0, 0, 1), mesh.getNormal(new Point(0.7, 0.2, 0)), "TC01: wrong normal");
+        // TC02: a point on the sloped face
+        Vector n = mesh.getNormal(new Point(0.2, 0.7, 0.5));
+        assertEquals(0, n.dotProduct(new Vector(1, 1, 0)), 1e-10, "TC02: wrong normal");
+        assertEquals(0, n.dotProduct(new Vector(0, 1, 1)), 1e-10, "TC02: wrong normal");
+        // TC03: a point off the mesh
+        assertThrows(IllegalArgumentException.class, () -> mesh.getNormal(new Point(5, 5, 5)),
+                "TC03: point off the mesh");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a sliver face, too thin to have a normal, is skipped by the search
+        TriangleMesh sliver = new TriangleMesh(new double[] { 0, 0, 0, 1, 0, 0, 0.5, 1e-13, 0, 1, 1, 0 },
+                new int[] { 0, 1, 2, 0, 1, 3 });
+        assertEquals(new Vector(0, 0, 1), sliver.getNormal(new Point(0.7, 0.2, 0)), "TC11: wrong normal");
+        // TC12: a ray through the sliver face does not hit it
+        assertNull(sliver.findClosestGeoIntersection(new Ray(new Point(0.5, 5e-14, 1), new Vector(0, 0, -1))),
+                "TC12: hit of the sliver face");
+    }
+
+    /**
+     * Test method for the memory of {@link TriangleMesh} - the heap taken by a
+     * mesh must be a small part of the heap taken by the same faces as separate
+     * triangles (the time and the allocations of building both are measured by
+     * {@code MeshBenchmark})
+     */
+    @Test
+    void testMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        int n = 300;
+        double[] vertices = gridVertices(new Random(SEED), n);
+        int[] faces = gridFaces(n);
+
+        // the least of a few rounds, so garbage of the former tests that the
+        // collector left does not count
+        long meshBytes = Long.MAX_VALUE, triangleBytes = Long.MAX_VALUE;
+        TriangleMesh mesh = null;
+        Triangle[] triangles = null;
+        for (int round = 0; round < 3; ++round) {
+            mesh = null;
+            triangles = null;
+            System.gc();
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            mesh = new TriangleMesh(vertices, faces);
+            System.gc();
+            meshBytes = Math.min(meshBytes, runtime.totalMemory() - runtime.freeMemory() - before);
+
+            System.gc();
+            before = runtime.totalMemory() - runtime.freeMemory();
+            triangles = triangles(vertices, faces);
+            System.gc();
+            triangleBytes = Math.min(triangleBytes, runtime.totalMemory() - runtime.freeMemory() - before);
+        }
+
+        assertEquals(triangles.length, mesh.getFaceCount(), "wrong amount of faces");
+        // the mesh takes about a tenth of the heap of the triangles
+        assertTrue(3 * meshBytes < triangleBytes,
+                "the mesh takes " + meshBytes + " bytes, the triangles " + triangleBytes + " bytes");
+    }
+}
@@ -76,4 +76,64 @@ class TriangleTest {
                 "TC13: ERROR: have to be no intersection on the edge");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for
+     * {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray, double)} - the
+     * point carries the ray parameter and the barycentric coordinates.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Triangle triangle = new Triangle(new Point(1, 0, 0), new Point(1, 1, 0), new Point(1, 0, 1));
+        Ray ray = new Ray(new Point(0.25, 0.25, 0.25), new Vector(2, 0.5, 0.5));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the point, its distance and its weights of the second and third vertices
+        Intersectable.GeoPoint gp = triangle.findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+        assertEquals(new Point(1, 0.4375, 0.4375), gp.point, "TC01: wrong point");
+        assertEquals(gp.point.distance(ray.head), gp.t, 1e-10, "TC01: wrong ray parameter");
+        assertEquals(0.4375, gp.u, 1e-10, "TC01: wrong barycentric u");
+        assertEquals(0.4375, gp.v, 1e-10, "TC01: wrong barycentric v");
+        // TC02: the triangle is farther than the maximal distance
+        assertNull(triangle.findClosestGeoIntersection(ray, 0.5), "TC02: the triangle is too far");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a ray parallel to the triangle
+        assertNull(triangle.findClosestGeoIntersection(new Ray(new Point(0, 0.2, 0.2), new Vector(0, 1, 0))),
+                "TC11: parallel ray");
+    }
+
+    /**
+     * Test method for {@link geometries.Triangle#getBoundingBox()} - and the slab test
+     * of the box, which rejects the rays that miss it before the exact
+     * intersection
+     */
+    @Test
+    void testGetBoundingBox() {
+        Triangle triangle = new Triangle(new Point(0, 0, 0), new Point(2, 0, 0), new Point(0, 2, 0));
+        BoundingBox box = triangle.getBoundingBox();
+        Vector down = new Vector(0, 0, -1);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the box of the triangle - flat, in the plane of the triangle
+        assertEquals(new Point(0, 0, 0), box.getMin(), "TC01: wrong lower corner");
+        assertEquals(new Point(2, 2, 0), box.getMax(), "TC01: wrong upper corner");
+        // TC02: a ray that misses the box
+        Ray ray = new Ray(new Point(3, 3, 1), down);
+        assertFalse(box.intersects(ray), "TC02: the box must reject the ray");
+        assertNull(triangle.findIntersections(ray), "TC02: the ray misses the triangle");
+        // TC03: a ray through the box outside the triangle
+        ray = new Ray(new Point(1.5, 1.5, 1), down);
+        assertTrue(box.intersects(ray), "TC03: the ray crosses the box");
+        assertNull(triangle.findIntersections(ray), "TC03: the ray misses the triangle");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the box is behind the head of the ray
+        ray = new Ray(new Point(1, 1, 1), new Vector(0, 0, 1));
+        assertFalse(box.intersects(ray), "TC11: the box must reject the ray");
+        assertNull(triangle.findIntersections(ray), "TC11: the triangle is behind the ray");
+        // TC12: the box is farther than the maximal distance
+        ray = new Ray(new Point(1, 1, 1), down);
+        assertFalse(box.intersects(ray, 0.5), "TC12: the box must reject the ray");
+        assertNull(triangle.findClosestGeoIntersection(ray, 0.5), "TC12: the triangle is too far");
+    }
+}
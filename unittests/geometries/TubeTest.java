@@ -372,4 +372,14 @@ class TubeTest {
         result = tube2.findIntersections(ray);
         assertNull(result, "Bad intersections");
     }
+
+    /**
+     * Test method for {@link geometries.Tube#getBoundingBox()}
+     */
+    @Test
+    void testGetBoundingBox() {
+        // =============== Boundary Values Tests ==================
+        // TC11: the tube is infinite, so it has no box
+        assertNull(new Tube(new Ray(Point.ZERO, new Vector(0, 0, 1)), 1).getBoundingBox(), "TC11: the tube must be unbounded");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package geometries;
+
+import fixtures.GeometryFixtures;
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UniformGrid}
+ */
+class UniformGridTest {
+    /** Fixed seed, so that every run uses the same scene and rays */
+    private static final long SEED = 5784;
+
+    /**
+     * Sphere that counts how many times it is intersected
+     */
+    private static class CountingSphere extends Sphere {
+        /** Amount of intersection calls */
+        int calls = 0;
+
+        /**
+         * @param center center of the sphere
+         * @param radius radius of the sphere
+         */
+        CountingSphere(Point center, double radius) {
+            super(center, radius);
+        }
+
+        @Override
+        protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+            ++calls;
+            return super.findClosestGeoIntersectionHelper(ray, maxDistance);
+        }
+    }
+
+    /**
+     * Test method for {@link Geometries#buildGrid()} - the grid must return
+     * exactly the intersections of the linear scan, in the same order
+     */
+    @Test
+    void testSameIntersections() {
+        Random random = new Random(SEED);
+        Intersectable[] scene = GeometryFixtures.randomScene(random, 2000);
+        Ray[] rays = GeometryFixtures.randomRays(random, 2000);
+        Plane floor = new Plane(new Point(0, 0, -150), new Vector(0, 0.1, 1));
+        Geometries linear = new Geometries(scene);
+        linear.add(floor);
+        Geometries grid = new Geometries(scene);
+        grid.add(floor);
+        grid.buildGrid();
+        assertNotNull(grid.grid, "the grid must be built");
+
+        for (Ray ray : rays) {
+            List<Intersectable.GeoPoint> expected = linear.findGeoIntersections(ray);
+            List<Intersectable.GeoPoint> result = grid.findGeoIntersections(ray);
+            if (expected == null) {
+                assertNull(result, "wrong intersections for " + ray);
+            } else {
+                assertNotNull(result, "missing intersections for " + ray);
+                assertEquals(expected.size(), result.size(), "wrong amount of intersections");
+                for (int i = 0; i < expected.size(); ++i)
+                    assertSame(expected.get(i).geometry, result.get(i).geometry, "wrong order");
+            }
+        }
+
+        // adding a geometry drops the grid, so the new geometry is found too
+        Geometries geometries = new Geometries(scene).buildGrid();
+        geometries.add(new Sphere(new Point(1000, 0, 0), 1));
+        assertNull(geometries.grid, "adding a geometry must drop the grid");
+        assertEquals(2, geometries.findGeoIntersections(new Ray(new Point(1000, 0, 10), new Vector(0, 0, -1)))
+                .size(), "geometry added after build is not intersected");
+    }
+
+    /**
+     * Test method for {@link Intersectable#findClosestGeoIntersection(Ray, double)},
+     * {@link Intersectable#isOccluded(Ray, double)} and
+     * {@link Intersectable#findTransparency(Ray, double)} with the grid - the
+     * same answers as the linear scan
+     */
+    @Test
+    void testClosestAndOcclusion() {
+        Random random = new Random(SEED);
+        Intersectable[] scene = GeometryFixtures.randomScene(random, 3000);
+        Material glass = new Material().setkT(0.5);
+        for (int i = 0; i < scene.length; i += 3)
+            ((Geometry) scene[i]).setMaterial(glass);
+        Geometries linear = new Geometries(scene);
+        Geometries grid = new Geometries(scene).buildGrid();
+
+        for (Ray ray : GeometryFixtures.randomRays(random, 2000)) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: the closest intersection without a limit
+            Intersectable.GeoPoint expected = linear.findClosestGeoIntersection(ray);
+            Intersectable.GeoPoint result = grid.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(result, "TC01: wrong closest intersection for " + ray);
+                assertFalse(grid.isOccluded(ray, Double.POSITIVE_INFINITY), "TC01: wrong occlusion");
+                continue;
+            }
+            assertNotNull(result, "TC01: missing closest intersection for " + ray);
+            assertSame(expected.geometry, result.geometry, "TC01: wrong closest geometry for " + ray);
+            assertEquals(expected.t, result.t, 1e-9, "TC01: wrong distance for " + ray);
+            // TC02: transparency of all the geometries along the ray
+            Double3 kT = linear.findTransparency(ray, Double.POSITIVE_INFINITY);
+            assertTrue(kT.equals(grid.findTransparency(ray, Double.POSITIVE_INFINITY)), "TC02: wrong transparency");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: the limit just before and just beyond the closest intersection
+            assertNull(grid.findClosestGeoIntersection(ray, expected.t * 0.999), "TC11: found beyond the limit");
+            assertFalse(grid.isOccluded(ray, expected.t * 0.999), "TC11: occluded beyond the limit");
+            assertTrue(grid.isOccluded(ray, expected.t * 1.001), "TC11: the closest intersection must occlude");
+        }
+    }
+
+    /**
+     * Test method for the mailboxing of {@link UniformGrid} - a geometry that
+     * overlaps many cells is intersected once per ray
+     */
+    @Test
+    void testMailbox() {
+        Random random = new Random(SEED);
+        Intersectable[] scene = GeometryFixtures.randomScene(random, 1000);
+        CountingSphere big = new CountingSphere(new Point(0, 0, 0), 60);
+        Geometries grid = new Geometries(scene);
+        grid.add(big);
+        grid.buildGrid();
+        assertTrue(grid.grid.nx * grid.grid.ny * grid.grid.nz > 1000, "the grid must have many cells");
+
+        // a ray that misses the big sphere walks through many of its cells
+        Ray ray = new Ray(new Point(-150, 59.9, 59.9), new Vector(1, 0, 0));
+        grid.findClosestGeoIntersection(ray);
+        assertEquals(1, big.calls, "a geometry must be intersected once per ray");
+        grid.findClosestGeoIntersection(ray);
+        assertEquals(2, big.calls, "a geometry must be intersected again by the next ray");
+    }
+
+    /**
+     * Test method for {@link Geometries#buildGrid()} on degenerate scenes
+     */
+    @Test
+    void testDegenerate() {
+        Ray down = new Ray(new Point(0.2, 0.2, 10), new Vector(0, 0, -1));
+        // =============== Boundary Values Tests ==================
+        // TC11: no bounded geometries - only the unbounded ones are tested
+        Geometries planes = new Geometries(new Plane(Point.ZERO, new Vector(0, 0, 1))).buildGrid();
+        assertEquals(10, planes.findClosestGeoIntersection(down).t, 1e-9, "TC11: wrong plane intersection");
+        assertNull(planes.getBoundingBox(), "TC11: unbounded grid");
+        // TC12: a flat scene - a single layer of cells across its thin axis
+        Geometries flat = new Geometries(new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0)),
+                new Triangle(new Point(2, 0, 0), new Point(3, 0, 0), new Point(2, 1, 0))).buildGrid();
+        assertEquals(1, flat.grid.nz, "TC12: wrong resolution across the thin axis");
+        assertEquals(10, flat.findClosestGeoIntersection(down).t, 1e-9, "TC12: wrong triangle intersection");
+        // TC13: an empty list
+        assertNull(new Geometries().buildGrid().findGeoIntersections(down), "TC13: empty grid");
+    }
+}
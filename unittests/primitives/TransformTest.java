@@ -0,0 +1,79 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.Transform class
+ */
+class TransformTest {
+    /** A point off all the axes */
+    private final Point p = new Point(1, 2, 3);
+
+    /**
+     * Test method for {@link Transform#apply(Point)} and
+     * {@link Transform#apply(Vector)} of the basic transforms
+     */
+    @Test
+    void testApply() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a translation moves points but not vectors
+        Transform move = Transform.translate(new Vector(10, 0, -1));
+        assertTrue(new Point(11, 2, 2).isAlmostEquals(move.apply(p)), "TC01: wrong translated point");
+        assertTrue(new Vector(1, 2, 3).isAlmostEquals(move.apply(new Vector(1, 2, 3))), "TC01: moved vector");
+        // TC02: a scaling along the axes
+        assertTrue(new Point(2, -2, 9).isAlmostEquals(Transform.scale(2, -1, 3).apply(p)), "TC02: wrong scaled point");
+        // TC03: a rotation of a quarter turn around z
+        Transform turn = Transform.rotate(new Vector(0, 0, 2), 90);
+        assertTrue(new Point(-2, 1, 3).isAlmostEquals(turn.apply(p)), "TC03: wrong rotated point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a scaling by zero cannot be inverted
+        assertThrows(IllegalArgumentException.class, () -> Transform.scale(1, 0, 1), "TC11: zero scale");
+        // TC12: small scalings can be inverted
+        Transform small = Transform.scale(1e-4);
+        assertTrue(p.isAlmostEquals(small.applyInverse(small.apply(p))), "TC12: wrong inverse of a small scale");
+        small = Transform.scale(1e-4, 1e-5, 1e-6);
+        assertTrue(p.isAlmostEquals(small.applyInverse(small.apply(p))), "TC12: wrong inverse of small scales");
+    }
+
+    /**
+     * Test method for {@link Transform#then(Transform)},
+     * {@link Transform#inverse()} and {@link Transform#applyInverse(Point)}
+     */
+    @Test
+    void testThenAndInverse() {
+        Transform t = Transform.scale(2, 1, 0.5).then(Transform.rotate(new Vector(1, 1, 0), 30))
+                .then(Transform.translate(new Vector(5, -3, 7)));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the combined transform applies the parts in order
+        Point expected = new Point(2, 2, 1.5);
+        expected = Transform.rotate(new Vector(1, 1, 0), 30).apply(expected).add(new Vector(5, -3, 7));
+        assertTrue(expected.isAlmostEquals(t.apply(p)), "TC01: wrong combined transform");
+        // TC02: the inverse brings points and vectors back
+        assertTrue(p.isAlmostEquals(t.applyInverse(t.apply(p))), "TC02: wrong inverse of a point");
+        assertTrue(p.isAlmostEquals(t.inverse().apply(t.apply(p))), "TC02: wrong inverse transform");
+        Vector v = new Vector(-1, 4, 2);
+        assertTrue(v.isAlmostEquals(t.applyInverse(t.apply(v))), "TC02: wrong inverse of a vector");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the identity changes nothing
+        assertTrue(p.isAlmostEquals(Transform.IDENTITY.then(t).apply(t.applyInverse(p))), "TC11: wrong identity");
+    }
+
+    /**
+     * Test method for {@link Transform#applyNormal(Vector)} - the normal stays
+     * perpendicular to the transformed surface
+     */
+    @Test
+    void testApplyNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a non-uniform scaling of a slanted plane
+        Transform t = Transform.scale(3, 1, 1).then(Transform.rotate(new Vector(0, 1, 1), 40));
+        Vector tangent = new Vector(1, -1, 0), normal = new Vector(1, 1, 0);
+        Vector n = t.applyNormal(normal);
+        assertEquals(1, n.length(), 1e-12, "TC01: the normal must be normalized");
+        assertEquals(0, n.dotProduct(t.apply(tangent)), 1e-12, "TC01: the normal must stay perpendicular");
+    }
+}
@@ -1,11 +1,23 @@
 package renderer;
 
+import lighting.PointLight;
 import org.junit.jupiter.api.Test;
+import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 import scene.Scene;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static fixtures.RenderFixtures.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 class CameraTest {
@@ -62,4 +74,436 @@ class CameraTest {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link renderer.Camera#setPacketSize(int)} - the image
+     * rendered by packets of primary rays is exactly the image rendered ray by
+     * ray, also with partial packets at the edges of the tiles
+     */
+    @Test
+    void testPacketRender() {
+        Scene benchmark = benchmarkScene();
+        benchmark.geometries.buildBVH(geometries.Geometries.SplitMethod.SAH);
+        FrameBuffer[] images = new FrameBuffer[3];
+        int[] packetSizes = { 0, 4, 7 };
+        for (int k = 0; k < images.length; ++k)
+            images[k] = Camera.getBuilder().setLocation(new Point(0, 0, 100))
+                    .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(100).setVpSize(200, 150)
+                    .setRayTracer(new SimpleRayTracer(benchmark)).setImageWriter(new ImageWriter("Packets", 61, 45))
+                    .build().setTileSize(16).setPacketSize(packetSizes[k]).renderImage().getFrameBuffer();
+        for (int k = 1; k < images.length; ++k)
+            for (int i = 0; i < 45; ++i)
+                for (int j = 0; j < 61; ++j)
+                    assertEquals(images[0].readPixel(j, i).toString(), images[k].readPixel(j, i).toString(),
+                            "packets of " + packetSizes[k] + ": wrong pixel " + j + "," + i);
+        assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setVpSize(6, 6).build().setPacketSize(17),
+                "packets too large");
+    }
+
+    /**
+     * A ray tracer that counts the rays it traces
+     */
+    private static class CountingRayTracer extends SimpleRayTracer {
+        /** The amount of rays traced so far */
+        final AtomicLong rays = new AtomicLong();
+
+        /**
+         * @param scene the scene
+         */
+        CountingRayTracer(Scene scene) {
+            super(scene);
+        }
+
+        @Override
+        public primitives.Color traceRay(Ray ray) {
+            rays.incrementAndGet();
+            return super.traceRay(ray);
+        }
+    }
+
+    /**
+     * Test method for the adaptive super-sampling of
+     * {@link renderer.Camera#renderImage()} - the corners shared by neighboring
+     * pixels are traced once in a tile
+     */
+    @Test
+    void testAdaptiveSampleReuse() {
+        // TC01: a plain background - every pixel stops at its corners, which are
+        // traced once per tile: 4 tiles of 17x17 corners
+        CountingRayTracer tracer = new CountingRayTracer(new Scene("Empty"));
+        adaptiveCamera(tracer, 32, 16).setTileSize(16).renderImage();
+        assertEquals(4 * 17 * 17, tracer.rays.get(), "TC01: corners traced more than once");
+        // TC02: a scene with edges - no more rays than without the cache, and the
+        // image is the same with any tiles
+        tracer = new CountingRayTracer(benchmarkScene());
+        FrameBuffer whole = adaptiveCamera(tracer, 40, 16).setTileSize(40).renderImage().getFrameBuffer();
+        long wholeRays = tracer.rays.get();
+        FrameBuffer tiled = adaptiveCamera(tracer, 40, 16).setTileSize(8).renderImage().getFrameBuffer();
+        assertTrue(wholeRays < tracer.rays.get() - wholeRays, "TC02: a single tile must share more corners");
+        for (int i = 0; i < 40; ++i)
+            for (int j = 0; j < 40; ++j)
+                assertTrue(whole.readPixel(j, i).isAlmostEquals(tiled.readPixel(j, i)),
+                        "TC02: wrong pixel " + j + "," + i);
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setVarianceSampling(int, int)} - flat
+     * pixels stop at the first samples, the rest of the budget goes to the noisy
+     * pixels, and the image does not depend on the threads
+     */
+    @Test
+    void testVarianceSampling() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a plain background - the first samples only
+        CountingRayTracer tracer = new CountingRayTracer(new Scene("Empty"));
+        adaptiveCamera(tracer, 20, 1).setAdaptiveSuperSamplingFlag(false).setVarianceSampling(3, 16).renderImage();
+        assertEquals(3 * 20 * 20, tracer.rays.get(), "TC01: a flat image must stop at the first samples");
+        // TC02: a scene with edges - within the budget, more samples at the edges
+        tracer = new CountingRayTracer(benchmarkScene());
+        Camera camera = adaptiveCamera(tracer, 40, 1).setAdaptiveSuperSamplingFlag(false).setVarianceSampling(4, 16)
+                .setThreads(1).renderImage();
+        long rays = tracer.rays.get();
+        assertTrue(rays <= 16 * 40 * 40 && rays > 4 * 40 * 40, "TC02: wrong amount of samples " + rays);
+        int[] counts = camera.samples.counts;
+        assertEquals(4, counts[0], "TC02: the flat background corner must stop at the first samples");
+        assertTrue(java.util.Arrays.stream(counts).max().getAsInt() >= 32, "TC02: no pixel got a large share");
+        // TC03: the same image with threads
+        FrameBuffer threaded = adaptiveCamera(tracer, 40, 1).setAdaptiveSuperSamplingFlag(false)
+                .setVarianceSampling(4, 16).setThreads(3).renderImage().getFrameBuffer();
+        for (int i = 0; i < 40; ++i)
+            for (int j = 0; j < 40; ++j)
+                assertEquals(camera.getFrameBuffer().readPixel(j, i).toString(), threaded.readPixel(j, i).toString(),
+                        "TC03: wrong pixel " + j + "," + i);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a single first sample has no variance, and the budget is below it
+        assertThrows(IllegalArgumentException.class, () -> camera.setVarianceSampling(1, 16), "TC11: one sample");
+        assertThrows(IllegalArgumentException.class, () -> camera.setVarianceSampling(4, 3), "TC11: small budget");
+    }
+
+    /**
+     * @param a an image
+     * @param b an image of the same size
+     * @return the root mean square difference of the color components
+     */
+    private static double rmse(FrameBuffer a, FrameBuffer b) {
+        double sum = 0;
+        for (int i = 0; i < a.getNy(); ++i)
+            for (int j = 0; j < a.getNx(); ++j) {
+                primitives.Color ca = a.readPixel(j, i), cb = b.readPixel(j, i);
+                double dr = ca.getRed() - cb.getRed(), dg = ca.getGreen() - cb.getGreen(),
+                        db = ca.getBlue() - cb.getBlue();
+                sum += dr * dr + dg * dg + db * db;
+            }
+        return Math.sqrt(sum / (3d * a.getNx() * a.getNy()));
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setVarianceSampling(int, int)} - for
+     * the same budget of samples, the variance-driven sampling must be nearer to
+     * a reference image of the benchmark scene than the samples spread evenly
+     * over the pixels (the render times are measured by
+     * {@code VarianceSamplingBenchmark})
+     */
+    @Test
+    void testVarianceSamplingError() {
+        int n = 32;
+        Scene scene = benchmarkScene();
+        FrameBuffer reference = adaptiveCamera(new SimpleRayTracer(scene), n, 1).setAdaptiveSuperSamplingFlag(false)
+                .setVarianceSampling(256, 256).renderImage().getFrameBuffer();
+        // TC01: a small budget
+        // TC02: a larger budget
+        for (int budget : new int[] { 4, 16 }) {
+            CountingRayTracer tracer = new CountingRayTracer(scene);
+            FrameBuffer even = adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false)
+                    .setVarianceSampling(budget, budget).renderImage().getFrameBuffer();
+            long evenRays = tracer.rays.get();
+            tracer.rays.set(0);
+            FrameBuffer variance = adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false)
+                    .setVarianceSampling(budget < 8 ? 2 : 4, budget).renderImage().getFrameBuffer();
+            assertTrue(tracer.rays.get() <= evenRays, budget + " samples per pixel: over the budget");
+            double evenError = rmse(even, reference), varianceError = rmse(variance, reference);
+            // the variance-driven error is about 40% of the even one
+            assertTrue(2 * varianceError < evenError,
+                    budget + " samples per pixel: error " + varianceError + " against " + evenError + " evenly");
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setProgressive(long, double)} and
+     * {@link renderer.Camera#writeSnapshot()} - the rendering stops on the time
+     * budget or on the noise target, and snapshots are written while it runs
+     */
+    @Test
+    void testProgressive() throws InterruptedException {
+        Scene benchmark = benchmarkScene();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the time budget - at least one sample everywhere, and the time is
+        // about the budget
+        Camera camera = adaptiveCamera(new SimpleRayTracer(benchmark), 50, 1).setAdaptiveSuperSamplingFlag(false)
+                .setProgressive(300, 0).renderImage();
+        assertTrue(camera.getRenderNanos() >= 300_000_000L && camera.getRenderNanos() < 3_000_000_000L,
+                "TC01: wrong render time " + camera.getRenderNanos());
+        assertTrue(java.util.Arrays.stream(camera.samples.counts).min().getAsInt() >= 2,
+                "TC01: too few samples in the budget");
+        // TC02: the noise target
+        camera = adaptiveCamera(new SimpleRayTracer(benchmark), 30, 1).setAdaptiveSuperSamplingFlag(false)
+                .setProgressive(0, 1.5).renderImage();
+        assertTrue(camera.getNoise() <= 1.5 && camera.getNoise() > 0, "TC02: wrong noise " + camera.getNoise());
+        assertEquals(camera.samples.noise(), camera.getNoise(), "TC02: noise of the last pass");
+        // TC03: snapshots from another thread while rendering
+        Camera running = adaptiveCamera(new SimpleRayTracer(benchmark), 50, 1).setAdaptiveSuperSamplingFlag(false)
+                .setProgressive(500, 0);
+        assertThrows(IllegalStateException.class, running::writeSnapshot, "TC03: a snapshot before any pass");
+        Thread render = new Thread(running::renderImage);
+        render.start();
+        int snapshots = 0;
+        while (render.isAlive()) {
+            try {
+                running.writeSnapshot();
+                ++snapshots;
+            } catch (IllegalStateException e) {
+                // the first pass is not complete yet
+            }
+            Thread.sleep(50);
+        }
+        render.join();
+        assertTrue(snapshots > 0, "TC03: no snapshot written during the rendering");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a flat image stops on the noise target at the second pass
+        camera = adaptiveCamera(new SimpleRayTracer(new Scene("Empty")), 20, 1).setAdaptiveSuperSamplingFlag(false)
+                .setProgressive(0, 0.1).renderImage();
+        assertEquals(2, camera.samples.counts[0], "TC11: a flat image must stop at the second pass");
+        // TC12: negative budget or noise
+        assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setVpSize(6, 6).build().setProgressive(-1, 0),
+                "TC12: negative budget");
+    }
+
+    /**
+     * A ray tracer that stops at a given ray - it waits there until it is
+     * released, or fails as if the process were killed
+     */
+    private static class StoppingRayTracer extends CountingRayTracer {
+        /** The ray to stop at */
+        private final long           stopAt;
+        /** Whether to fail at the ray instead of waiting */
+        private final boolean        fail;
+        /** Released when the tracer reaches the ray */
+        final CountDownLatch         stopped  = new CountDownLatch(1);
+        /** Releases the waiting tracer */
+        final CountDownLatch         released = new CountDownLatch(1);
+
+        /**
+         * @param scene  the scene
+         * @param stopAt the ray to stop at
+         * @param fail   whether to fail at the ray instead of waiting
+         */
+        StoppingRayTracer(Scene scene, long stopAt, boolean fail) {
+            super(scene);
+            this.stopAt = stopAt;
+            this.fail = fail;
+        }
+
+        @Override
+        public primitives.Color traceRay(Ray ray) {
+            if (rays.get() == stopAt) {
+                stopped.countDown();
+                if (fail) throw new IllegalStateException("Rendering killed");
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.traceRay(ray);
+        }
+    }
+
+    /**
+     * @param expected the expected image
+     * @param image    the image
+     * @param message  the prefix of the failure messages
+     */
+    private static void assertSameImage(FrameBuffer expected, FrameBuffer image, String message) {
+        for (int i = 0; i < expected.getNy(); ++i)
+            for (int j = 0; j < expected.getNx(); ++j)
+                assertEquals(expected.readPixel(j, i).toString(), image.readPixel(j, i).toString(),
+                        message + ": wrong pixel " + j + "," + i);
+    }
+
+    /**
+     * Cancels a rendering of a scene half way, so it saves its checkpoint
+     *
+     * @param scene   the scene
+     * @param n       image width and height in pixels
+     * @param file    the checkpoint file
+     * @param version version of the scene, null for none
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException   if the rendering failed
+     */
+    private static void cancelHalfWay(Scene scene, int n, Path file, String version)
+            throws InterruptedException, ExecutionException {
+        StoppingRayTracer stopping = new StoppingRayTracer(scene, n * n / 2, false);
+        RenderHandle render = adaptiveCamera(stopping, n, 1).setAdaptiveSuperSamplingFlag(false).setTileSize(8)
+                .setCheckpoint(file, 0, version).startRender();
+        stopping.stopped.await();
+        render.cancel();
+        stopping.released.countDown();
+        render.await();
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#startRender()} and
+     * {@link renderer.Camera#setCheckpoint(Path, long, String)} - a cancelled or
+     * killed rendering goes on from its checkpoint, traces only the rest of the
+     * image and ends with the image of a rendering that was never stopped. The
+     * checkpoint is of the same rendering only with the same type of tracer, the
+     * same scene content and the same version.
+     */
+    @Test
+    void testCheckpoint() throws IOException, InterruptedException, ExecutionException {
+        Scene benchmark = benchmarkScene();
+        Path directory = Files.createTempDirectory("checkpoint");
+        Path file = directory.resolve("render.checkpoint");
+        int n = 40;
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: a cancelled beam rendering saves the checkpoint, and goes on from it
+            CountingRayTracer tracer = new CountingRayTracer(benchmark);
+            FrameBuffer expected = adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).renderImage()
+                    .getFrameBuffer();
+            long full = tracer.rays.get();
+            StoppingRayTracer stopping = new StoppingRayTracer(benchmark, full / 2, false);
+            RenderHandle render = adaptiveCamera(stopping, n, 1).setAdaptiveSuperSamplingFlag(false)
+                    .setTileSize(8).setCheckpoint(file, 0).startRender();
+            stopping.stopped.await();
+            render.cancel();
+            stopping.released.countDown();
+            render.await();
+            assertTrue(render.isDone() && render.isCancelled(), "TC01: the rendering must end cancelled");
+            assertTrue(Files.exists(file), "TC01: no checkpoint of the cancelled rendering");
+            tracer = new StoppingRayTracer(benchmark, -1, false);
+            Camera camera = adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).setTileSize(8)
+                    .setCheckpoint(file, 0).renderImage();
+            assertEquals(full, stopping.rays.get() + tracer.rays.get(), "TC01: the done tiles must not be traced again");
+            assertSameImage(expected, camera.getFrameBuffer(), "TC01");
+            assertFalse(Files.exists(file), "TC01: the checkpoint of a complete rendering must be deleted");
+
+            // TC02: a killed variance-driven rendering goes on from the last periodic
+            // checkpoint
+            tracer = new CountingRayTracer(benchmark);
+            expected = adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).setVarianceSampling(4, 16)
+                    .setTileSize(8).renderImage().getFrameBuffer();
+            full = tracer.rays.get();
+            StoppingRayTracer killed = new StoppingRayTracer(benchmark, full * 3 / 4, true);
+            assertThrows(IllegalStateException.class,
+                    () -> adaptiveCamera(killed, n, 1).setAdaptiveSuperSamplingFlag(false)
+                            .setVarianceSampling(4, 16).setTileSize(8).setCheckpoint(file, 1).renderImage(),
+                    "TC02: the failure of the rendering was not thrown");
+            assertTrue(Files.exists(file), "TC02: no periodic checkpoint");
+            tracer = new StoppingRayTracer(benchmark, -1, false);
+            camera = adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).setVarianceSampling(4, 16)
+                    .setTileSize(8).setCheckpoint(file, 1).renderImage();
+            assertTrue(tracer.rays.get() < full, "TC02: the rendering started over");
+            assertSameImage(expected, camera.getFrameBuffer(), "TC02");
+
+            // TC03: a checkpoint of another camera is not resumed
+            StoppingRayTracer other = new StoppingRayTracer(benchmark, 100, true);
+            assertThrows(IllegalStateException.class, () -> adaptiveCamera(other, n, 1)
+                    .setAdaptiveSuperSamplingFlag(false).setTileSize(8).setCheckpoint(file, 1).renderImage(),
+                    "TC03: the failure of the rendering was not thrown");
+            tracer = new StoppingRayTracer(benchmark, -1, false);
+            adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).setTileSize(16).setCheckpoint(file, 1)
+                    .renderImage();
+            assertEquals(n * n, tracer.rays.get(), "TC03: a checkpoint of other tiles was resumed");
+            // TC04: a checkpoint of the scene with another light color is not resumed
+            cancelHalfWay(benchmark, n, file, null);
+            assertTrue(Files.exists(file), "TC04: no checkpoint of the cancelled rendering");
+            Scene changed = benchmarkScene();
+            changed.lights.set(1, new PointLight(new Color(300, 300, 400), new Point(80, 60, -20)).setKl(1e-4)
+                    .setKq(1e-6));
+            tracer = new StoppingRayTracer(changed, -1, false);
+            adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).setTileSize(8).setCheckpoint(file, 0)
+                    .renderImage();
+            assertEquals(n * n, tracer.rays.get(), "TC04: a checkpoint of another light was resumed");
+            // TC05: a checkpoint of another version of the scene is not resumed
+            cancelHalfWay(benchmark, n, file, "1");
+            tracer = new StoppingRayTracer(benchmark, -1, false);
+            adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).setTileSize(8)
+                    .setCheckpoint(file, 0, "2").renderImage();
+            assertEquals(n * n, tracer.rays.get(), "TC05: a checkpoint of another version was resumed");
+            // TC06: a checkpoint of a jittered sampler of other cells is not resumed
+            tracer = new CountingRayTracer(benchmark);
+            adaptiveCamera(tracer, n, 16).setAdaptiveSuperSamplingFlag(false).setSampler(new JitteredSampler(16))
+                    .setTileSize(8).renderImage();
+            full = tracer.rays.get();
+            StoppingRayTracer jittered = new StoppingRayTracer(benchmark, full / 2, false);
+            render = adaptiveCamera(jittered, n, 16).setAdaptiveSuperSamplingFlag(false)
+                    .setSampler(new JitteredSampler(4)).setTileSize(8).setCheckpoint(file, 0).startRender();
+            jittered.stopped.await();
+            render.cancel();
+            jittered.released.countDown();
+            render.await();
+            assertTrue(Files.exists(file), "TC06: no checkpoint of the cancelled rendering");
+            tracer = new StoppingRayTracer(benchmark, -1, false);
+            adaptiveCamera(tracer, n, 16).setAdaptiveSuperSamplingFlag(false).setSampler(new JitteredSampler(16))
+                    .setTileSize(8).setCheckpoint(file, 0).renderImage();
+            assertEquals(full, tracer.rays.get(), "TC06: a checkpoint of another sampler was resumed");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: cancelled before the first tile - nothing rendered, all of it
+            // rendered on resuming
+            stopping = new StoppingRayTracer(benchmark, 0, false);
+            render = adaptiveCamera(stopping, n, 1).setAdaptiveSuperSamplingFlag(false).setTileSize(8)
+                    .setCheckpoint(file, 0).startRender();
+            stopping.stopped.await();
+            render.cancel();
+            stopping.released.countDown();
+            assertTrue(render.await(10_000), "TC11: the cancelled rendering did not end");
+            tracer = new StoppingRayTracer(benchmark, -1, false);
+            camera = adaptiveCamera(tracer, n, 1).setAdaptiveSuperSamplingFlag(false).setTileSize(8)
+                    .setCheckpoint(file, 0).renderImage();
+            assertEquals(n * n - 64, tracer.rays.get(), "TC11: only the first tile is done");
+            // TC12: negative interval
+            assertThrows(IllegalArgumentException.class,
+                    () -> cameraBuilder.setVpSize(6, 6).build().setCheckpoint(file, -1), "TC12: negative interval");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory.resolve("render.checkpoint.tmp"));
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#startRender()} and
+     * {@link renderer.Camera#startRender(java.util.concurrent.Executor)} - a
+     * failed rendering ends, and waiting for it throws the exception it failed
+     * with
+     */
+    @Test
+    void testRenderFailure() throws InterruptedException {
+        Scene benchmark = benchmarkScene();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a rendering failing in its own thread
+        RenderHandle render = adaptiveCamera(new StoppingRayTracer(benchmark, 10, true), 10, 1)
+                .setAdaptiveSuperSamplingFlag(false).startRender();
+        ExecutionException e = assertThrows(ExecutionException.class, render::await,
+                "TC01: the failure of the rendering was not thrown");
+        assertTrue(e.getCause() instanceof IllegalStateException, "TC01: wrong cause");
+        assertTrue(render.isDone(), "TC01: the failed rendering must end");
+        // TC02: a rendering failing in a task of an executor
+        List<Runnable> tasks = new ArrayList<>();
+        RenderHandle queued = adaptiveCamera(new StoppingRayTracer(benchmark, 10, true), 10, 1)
+                .setAdaptiveSuperSamplingFlag(false).startRender(tasks::add);
+        assertFalse(queued.isDone(), "TC02: the rendering ended before its task ran");
+        assertThrows(IllegalStateException.class, tasks.get(0)::run, "TC02: the task must throw the failure");
+        e = assertThrows(ExecutionException.class, () -> queued.await(0), "TC02: the failure was not thrown");
+        assertTrue(e.getCause() instanceof IllegalStateException, "TC02: wrong cause");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: no executor
+        assertThrows(IllegalArgumentException.class,
+                () -> adaptiveCamera(new CountingRayTracer(benchmark), 10, 1).startRender(null),
+                "TC11: null executor");
+    }
+}
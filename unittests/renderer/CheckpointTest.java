@@ -0,0 +1,134 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Checkpoint}
+ */
+class CheckpointTest {
+    /** Key of the rendering of the checkpoints */
+    private static final String KEY   = "test rendering";
+    /** Image width and height in pixels */
+    private static final int    N     = 4;
+    /** Amount of tiles in a pass */
+    private static final int    TILES = 4;
+
+    /**
+     * Writes a checkpoint file of a rendering that accumulates samples, with the
+     * given lengths - whether they fit the rendering or not
+     *
+     * @param file       the checkpoint file
+     * @param wordCount  the amount of words of done tiles
+     * @param words      the words of done tiles
+     * @param allocation the amount of pixels of the allocation, -1 for none
+     * @param samples    whether to write the samples, or to end the file before
+     *                   them
+     * @throws IOException on an I/O error
+     */
+    private static void write(Path file, int wordCount, long[] words, int allocation, boolean samples)
+            throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x52544350);
+            out.writeInt(1);
+            out.writeUTF(KEY);
+            out.writeInt(2);
+            out.writeLong(100);
+            out.writeInt(wordCount);
+            for (long word : words)
+                out.writeLong(word);
+            out.writeInt(allocation);
+            for (int p = 0; p < Math.min(allocation, 2 * N * N); ++p)
+                out.writeInt(1);
+            if (samples) new SampleAccumulator(N, N).write(out);
+        }
+    }
+
+    /**
+     * @param file     the checkpoint file
+     * @param message  the failure message
+     * @return true if the file is loaded
+     */
+    private static boolean load(Path file, String message) {
+        SampleAccumulator accumulator = new SampleAccumulator(N, N);
+        accumulator.add(0, new Color(1, 1, 1));
+        boolean loaded = new Checkpoint(file, 0, KEY, TILES, null, accumulator).load();
+        if (!loaded) assertEquals(0, accumulator.counts[0], message + ": the samples must be cleared");
+        return loaded;
+    }
+
+    /**
+     * Test method for {@link Sampler#key()} - a jittered sampler of another
+     * amount of cells has another key, so its checkpoint is not resumed (see
+     * {@link CameraTest#testCheckpoint()} for the whole rendering)
+     */
+    @Test
+    void testSamplerKey() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: other amounts of cells
+        assertNotEquals(new JitteredSampler(4).key(), new JitteredSampler(16).key(), "TC01: same key of other cells");
+        // TC02: other samplers
+        assertNotEquals(new HaltonSampler().key(), new SobolSampler().key(), "TC02: same key of other samplers");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: amounts of samples of the same cells place the same samples
+        assertEquals(new JitteredSampler(4).key(), new JitteredSampler(3).key(), "TC11: other key of the same cells");
+    }
+
+    /**
+     * Test method for {@link Checkpoint#load()} - a checkpoint of the rendering
+     * is loaded, and a damaged one starts the rendering over, whatever its
+     * lengths are, without allocating by them
+     */
+    @Test
+    void testLoad() throws IOException {
+        Path file = Files.createTempFile("checkpoint", ".checkpoint");
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: a checkpoint of the rendering
+            write(file, 1, new long[] { 0b101 }, N * N, true);
+            Checkpoint checkpoint = new Checkpoint(file, 0, KEY, TILES, null, new SampleAccumulator(N, N));
+            assertTrue(checkpoint.load(), "TC01: the checkpoint must be loaded");
+            assertEquals(2, checkpoint.pass, "TC01: wrong pass");
+            assertEquals(100, checkpoint.budget, "TC01: wrong budget");
+            assertEquals(N * N, checkpoint.allocation.length, "TC01: wrong allocation");
+            assertTrue(checkpoint.isDone(new TileScheduler.Tile(2, 0, 0, 1, 1)), "TC01: the tile must be done");
+            assertFalse(checkpoint.isDone(new TileScheduler.Tile(1, 0, 0, 1, 1)), "TC01: the tile must not be done");
+            // TC02: a checkpoint of another rendering
+            assertFalse(new Checkpoint(file, 0, "other", TILES, null, new SampleAccumulator(N, N)).load(),
+                    "TC02: a checkpoint of another rendering");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: a huge amount of done tiles
+            write(file, Integer.MAX_VALUE, new long[0], -1, true);
+            assertFalse(load(file, "TC11"), "TC11: huge amount of tiles");
+            // TC12: a negative amount of done tiles
+            write(file, -1, new long[0], -1, true);
+            assertFalse(load(file, "TC12"), "TC12: negative amount of tiles");
+            // TC13: a done tile out of the image
+            write(file, 1, new long[] { 1L << TILES }, -1, true);
+            assertFalse(load(file, "TC13"), "TC13: tile out of the image");
+            // TC14: a negative allocation length
+            write(file, 0, new long[0], -5, true);
+            assertFalse(load(file, "TC14"), "TC14: negative allocation");
+            // TC15: an allocation of another amount of pixels
+            write(file, 0, new long[0], N * N + 1, true);
+            assertFalse(load(file, "TC15"), "TC15: allocation of other pixels");
+            // TC16: a huge allocation
+            write(file, 0, new long[0], Integer.MAX_VALUE, true);
+            assertFalse(load(file, "TC16"), "TC16: huge allocation");
+            // TC17: a file that ends before the samples
+            write(file, 0, new long[0], -1, false);
+            assertFalse(load(file, "TC17"), "TC17: truncated file");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FrameBuffer}
+ */
+class FrameBufferTest {
+
+    /**
+     * Test method for {@link FrameBuffer#toneMap(ImageWriter, ToneMapping, double)}
+     */
+    @Test
+    void testToneMap() {
+        FrameBuffer frameBuffer = new FrameBuffer(3, 1);
+        ImageWriter imageWriter = new ImageWriter("Test", 3, 1);
+        Color dark = new Color(10, 20, 40);
+        Color bright = new Color(400, 300, 100);
+        frameBuffer.writePixel(0, 0, dark);
+        frameBuffer.writePixel(1, 0, bright);
+        frameBuffer.writePixel(2, 0, new Color(255, 255, 255));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: clamping with no exposure is the same as writing the colors directly
+        frameBuffer.toneMap(imageWriter, ToneMapping.CLAMP, 0);
+        assertEquals(dark.getRGB(), imageWriter.readPixel(0, 0), "wrong clamped dark color");
+        assertEquals(bright.getRGB(), imageWriter.readPixel(1, 0), "wrong clamped bright color");
+        // TC02: one stop of exposure doubles the colors
+        frameBuffer.toneMap(imageWriter, ToneMapping.CLAMP, 1);
+        assertEquals(new Color(20, 40, 80).getRGB(), imageWriter.readPixel(0, 0), "wrong exposure");
+        // TC03: Reinhard keeps the bright color below 255 and the hue
+        frameBuffer.toneMap(imageWriter, ToneMapping.REINHARD, 0);
+        int rgb = imageWriter.readPixel(1, 0);
+        int r = rgb >> 16, g = rgb >> 8 & 0xFF, b = rgb & 0xFF;
+        assertTrue(r < 255 && r > g && g > b, "Reinhard must compress the bright color and keep its hue");
+        // TC04: Reinhard maps white (luminance 1) to half
+        assertEquals(new Color(127, 127, 127).getRGB(), imageWriter.readPixel(2, 0), "wrong Reinhard white");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: image of another resolution
+        assertThrows(IllegalArgumentException.class,
+                () -> frameBuffer.toneMap(new ImageWriter("Test", 2, 1), ToneMapping.CLAMP, 0),
+                "tone mapping into another resolution");
+    }
+
+    /**
+     * Test method for {@link FrameBuffer#writeTile(int, int, int, int, float[])}
+     */
+    @Test
+    void testWriteTile() {
+        FrameBuffer frameBuffer = new FrameBuffer(4, 3);
+        frameBuffer.writeTile(1, 1, 2, 2, new float[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+        assertEquals(new Color(1, 2, 3).toString(), frameBuffer.readPixel(1, 1).toString(), "wrong tile pixel");
+        assertEquals(new Color(10, 11, 12).toString(), frameBuffer.readPixel(2, 2).toString(), "wrong tile pixel");
+        assertEquals(Color.BLACK.toString(), frameBuffer.readPixel(3, 1).toString(), "pixel outside the tile");
+        assertThrows(IndexOutOfBoundsException.class, () -> frameBuffer.writeTile(3, 0, 2, 1, new float[6]),
+                "tile outside the buffer");
+    }
+
+    /**
+     * Test method for {@link FrameBuffer#writeToPfm(String)} and
+     * {@link FrameBuffer#readPfm(String)} - the file keeps the colors exactly
+     */
+    @Test
+    void testPfm() {
+        FrameBuffer frameBuffer = new FrameBuffer(5, 3);
+        for (int y = 0; y < 3; ++y)
+            for (int x = 0; x < 5; ++x)
+                frameBuffer.writePixel(x, y, new Color(x * 1000.25, y / 3d, x + y));
+        frameBuffer.writeToPfm("frameBufferTest");
+        FrameBuffer loaded = FrameBuffer.readPfm("frameBufferTest");
+        assertEquals(5, loaded.getNx(), "wrong width");
+        assertEquals(3, loaded.getNy(), "wrong height");
+        for (int y = 0; y < 3; ++y)
+            for (int x = 0; x < 5; ++x)
+                assertEquals(frameBuffer.readPixel(x, y).toString(), loaded.readPixel(x, y).toString(),
+                        "wrong pixel " + x + "," + y);
+    }
+
+    /**
+     * Test method for {@link FrameBuffer#FrameBuffer(int, int)} - a buffer larger
+     * than an array can hold is rejected instead of overflowing its size
+     */
+    @Test
+    void testTooLarge() {
+        assertThrows(IllegalArgumentException.class, () -> new FrameBuffer(0, 1), "buffer without pixels");
+        assertThrows(IllegalArgumentException.class, () -> new FrameBuffer(32768, 32768),
+                "buffer of more components than an array holds");
+    }
+}
@@ -29,4 +29,45 @@ class ImageWriterTest {
         }
         imageWriter.writeToImage(); // finally create this image
     }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writePixel(int, int, Color)} -
+     * the packed color must be the same as through java.awt.Color
+     */
+    @Test
+    void testWritePixel() {
+        ImageWriter imageWriter = new ImageWriter("Test", 3, 2);
+        // TC01: components inside the range
+        Color color = new Color(12.7, 200, 0);
+        imageWriter.writePixel(2, 1, color);
+        assertEquals(color.getColor().getRGB() & 0xFFFFFF, imageWriter.readPixel(2, 1), "wrong packed color");
+        // TC02: components above 255 are clamped
+        imageWriter.writePixel(0, 0, new Color(300, 255.9, 1000));
+        assertEquals(0xFFFFFF, imageWriter.readPixel(0, 0), "components must be clamped");
+        // TC03: pixel outside the image
+        assertThrows(IndexOutOfBoundsException.class, () -> imageWriter.writePixel(3, 0, color),
+                "column outside the image");
+        assertThrows(IndexOutOfBoundsException.class, () -> imageWriter.writePixel(0, 2, color),
+                "row outside the image");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writeTile(int, int, int, int, int[])}
+     */
+    @Test
+    void testWriteTile() {
+        ImageWriter imageWriter = new ImageWriter("Test", 5, 4);
+        // TC01: a tile inside the image is written row by row, nothing else changes
+        imageWriter.writeTile(1, 2, 3, 2, new int[] { 1, 2, 3, 4, 5, 6 });
+        int[][] expected = { { 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0 }, { 0, 1, 2, 3, 0 }, { 0, 4, 5, 6, 0 } };
+        for (int y = 0; y < 4; ++y)
+            for (int x = 0; x < 5; ++x)
+                assertEquals(expected[y][x], imageWriter.readPixel(x, y), "wrong pixel " + x + "," + y);
+        // TC02: a tile crossing the edge of the image
+        assertThrows(IndexOutOfBoundsException.class, () -> imageWriter.writeTile(3, 0, 3, 1, new int[3]),
+                "tile outside the image");
+        // TC03: too few colors for the tile
+        assertThrows(IndexOutOfBoundsException.class, () -> imageWriter.writeTile(0, 0, 2, 2, new int[3]),
+                "too few colors");
+    }
 }
\ No newline at end of file
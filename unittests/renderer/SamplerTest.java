@@ -0,0 +1,168 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Vector;
+import scene.Scene;
+
+import static fixtures.RenderFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the implementations of {@link Sampler}
+ */
+class SamplerTest {
+    /**
+     * @param sampler the sampler
+     * @param j       column of the pixel
+     * @param i       row of the pixel
+     * @param count   amount of samples
+     * @param cellsX  cells per row of the pixel
+     * @param cellsY  cells per column of the pixel
+     * @return the amount of the first samples of the pixel in every cell of a grid
+     *         over it, row by row
+     */
+    private static int[] cellCounts(Sampler sampler, int j, int i, int count, int cellsX, int cellsY) {
+        int[] counts = new int[cellsX * cellsY];
+        double[] point = new double[2];
+        for (int k = 0; k < count; ++k) {
+            sampler.sample(j, i, k, point);
+            ++counts[(int) (point[1] * cellsY) * cellsX + (int) (point[0] * cellsX)];
+        }
+        return counts;
+    }
+
+    /**
+     * Test method for {@link Sampler#sample(int, int, int, double[])} of all the
+     * samplers - the samples are in the pixel, the same on every call, and differ
+     * between pixels
+     */
+    @Test
+    void testDeterministic() {
+        Sampler[] samplers = { new HaltonSampler(), new SobolSampler(), new JitteredSampler(16),
+                new BlueNoiseSampler() };
+        double[] point = new double[2], again = new double[2], other = new double[2];
+        for (Sampler sampler : samplers) {
+            String name = sampler.getClass().getSimpleName();
+            for (int k = 0; k < 300; ++k) {
+                // TC01: in the pixel and the same on every call
+                sampler.sample(7, 3, k, point);
+                sampler.sample(7, 3, k, again);
+                assertTrue(point[0] >= 0 && point[0] < 1 && point[1] >= 0 && point[1] < 1,
+                        name + ": sample out of the pixel");
+                assertArrayEquals(point, again, name + ": sample " + k + " changed");
+                // TC02: neighbor pixels do not repeat the same pattern
+                sampler.sample(8, 3, k, other);
+                assertFalse(point[0] == other[0] && point[1] == other[1], name + ": same samples in neighbors");
+            }
+        }
+    }
+
+    /**
+     * Test method for the stratification of the low-discrepancy samplers - the
+     * first samples of a pixel fall one into each cell of a grid
+     */
+    @Test
+    void testStratified() {
+        for (int j = 0; j < 5; ++j) {
+            // TC01: Sobol - every block of 16 samples in 4x4, 16x1 and 1x16 cells
+            for (int block = 0; block < 2; ++block)
+                for (int[] cells : new int[][] { { 4, 4 }, { 16, 1 }, { 1, 16 }, { 8, 2 } }) {
+                    int[] counts = cellCounts(new SobolSampler(), j, 2, 16 * (block + 1), cells[0], cells[1]);
+                    for (int c : counts)
+                        assertEquals(block + 1, c, "TC01: Sobol samples not stratified in " + cells[0] + "x" + cells[1]);
+                }
+            // TC02: Halton - the first 8 samples in 8 columns and the first 9 in 9 rows
+            for (int c : cellCounts(new HaltonSampler(), j, 2, 8, 8, 1))
+                assertEquals(1, c, "TC02: Halton samples not stratified in columns");
+            for (int c : cellCounts(new HaltonSampler(), j, 2, 9, 1, 9))
+                assertEquals(1, c, "TC02: Halton samples not stratified in rows");
+            // TC03: jittered - a sample in every cell
+            for (int c : cellCounts(new JitteredSampler(9), j, 2, 9, 3, 3))
+                assertEquals(1, c, "TC03: jittered samples not stratified");
+        }
+        // TC04: a jittered sampler needs samples
+        assertThrows(IllegalArgumentException.class, () -> new JitteredSampler(0), "TC04: no samples");
+    }
+
+    /**
+     * Test method for {@link BlueNoiseSampler#voidAndCluster(int, double, long)} -
+     * the mask is a ranking of the pixels, and its lowest ranks are spread with no
+     * two neighbors
+     */
+    @Test
+    void testBlueNoiseMask() {
+        int size = BlueNoiseSampler.SIZE, n = size * size;
+        double[] mask = BlueNoiseSampler.voidAndCluster(size, 1.5, 5784);
+        // TC01: every rank once
+        boolean[] ranks = new boolean[n];
+        for (double value : mask) {
+            int rank = (int) (value * n);
+            assertFalse(ranks[rank], "TC01: rank " + rank + " twice");
+            ranks[rank] = true;
+        }
+        // TC02: the lowest 5% of the pixels have no neighbors among themselves
+        for (int p = 0; p < n; ++p) {
+            if (mask[p] >= 0.05) continue;
+            int x = p % size, y = p / size;
+            for (int dy = -1; dy <= 1; ++dy)
+                for (int dx = -1; dx <= 1; ++dx) {
+                    int q = ((y + dy) & (size - 1)) * size + ((x + dx) & (size - 1));
+                    assertTrue(q == p || mask[q] >= 0.05, "TC02: clustered pixels " + p + " and " + q);
+                }
+        }
+    }
+
+    /**
+     * @param a an image
+     * @param b an image of the same size
+     * @return the root mean square difference of the color components
+     */
+    private static double rmse(FrameBuffer a, FrameBuffer b) {
+        double sum = 0;
+        for (int i = 0; i < a.getNy(); ++i)
+            for (int j = 0; j < a.getNx(); ++j) {
+                primitives.Color ca = a.readPixel(j, i), cb = b.readPixel(j, i);
+                double dr = ca.getRed() - cb.getRed(), dg = ca.getGreen() - cb.getGreen(),
+                        db = ca.getBlue() - cb.getBlue();
+                sum += dr * dr + dg * dg + db * db;
+            }
+        return Math.sqrt(sum / (3d * a.getNx() * a.getNy()));
+    }
+
+    /**
+     * @param scene   the scene
+     * @param n       amount of pixels per side
+     * @param rays    rays per pixel
+     * @param sampler the sampler, null for the regular grid
+     * @return the rendered image
+     */
+    private static FrameBuffer render(Scene scene, int n, int rays, Sampler sampler) {
+        return Camera.getBuilder().setLocation(new Point(0, 0, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(100).setVpSize(200, 200)
+                .setRayTracer(new SimpleRayTracer(scene)).setImageWriter(new ImageWriter("Sampler", n, n)).build()
+                .setNumOfRaysSuperSampeling(rays).setSampler(sampler).renderImage().getFrameBuffer();
+    }
+
+    /**
+     * Test method for the convergence of the low-discrepancy samplers - the beams
+     * of the pixels by each sampler must be nearer to a reference image of the
+     * benchmark scene than the beams of independent random samples (the render
+     * times are measured by {@code SamplerBenchmark})
+     */
+    @Test
+    void testConvergence() {
+        int n = 32, rays = 64;
+        Scene scene = benchmarkScene();
+        FrameBuffer reference = render(scene, n, 1024, new JitteredSampler(1024));
+        double random = rmse(render(scene, n, rays, WHITE_NOISE), reference);
+        Sampler[] samplers = { new HaltonSampler(), new SobolSampler(), new JitteredSampler(rays),
+                new BlueNoiseSampler() };
+        for (Sampler sampler : samplers) {
+            double error = rmse(render(scene, n, rays, sampler), reference);
+            // the samplers have a third to a half of the error of random samples
+            assertTrue(1.5 * error < random, sampler.getClass().getSimpleName() + ": error " + error
+                    + " against " + random + " of random samples");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static fixtures.RenderFixtures.benchmarkScene;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import geometries.*;
+import lighting.PointLight;
+import primitives.*;
+import scene.Scene;
+
+/**
+ * Unit tests for {@link SimpleRayTracer} and the allocations of the ray
+ * construction of {@link Camera}
+ */
+class SimpleRayTracerTest {
+    /** Bound of the bytes allocated per primary ray - a ray of a point and a
+     * vector takes about 120 bytes */
+    private static final int MAX_RAY_BYTES = 256;
+
+    /**
+     * @param occluderHeight height of an opaque plane parallel to the floor, 0
+     *                       for none
+     * @param transparent    whether the plane lets the light through
+     * @return the color of the floor under a point light at height 10, seen
+     *         from the side
+     */
+    private static Color floorColor(double occluderHeight, boolean transparent) {
+        Scene scene = new Scene("Shadow");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKd(0.5)));
+        if (occluderHeight > 0)
+            scene.geometries.add(new Plane(new Point(0, 0, occluderHeight), new Vector(0, 0, 1))
+                    .setMaterial(new Material().setkT(transparent ? 0.5 : 0)));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 10)));
+        return new SimpleRayTracer(scene).traceRay(new Ray(new Point(1, 0, 5), new Vector(-1, 0, -5)));
+    }
+
+    /**
+     * Test method for the shadows of {@link SimpleRayTracer#traceRay(Ray)} - an
+     * object blocks a light if its distance from the shaded point is at most the
+     * distance of the light, measured from the shaded point and not from the
+     * head of the shadow ray, which is moved off the surface
+     */
+    @Test
+    void testShadowBoundary() {
+        Color lit = floorColor(0, false);
+        assertFalse(lit.toString().equals(Color.BLACK.toString()), "the floor must be lit");
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: an opaque object between the point and the light
+        assertEquals(Color.BLACK.toString(), floorColor(9.5, false).toString(), "TC01: the light is not blocked");
+        // TC02: an object beyond the light
+        assertEquals(lit.toString(), floorColor(10.5, false).toString(), "TC02: the light is blocked");
+        // TC03: a transparent object between the point and the light
+        assertEquals(lit.scale(0.5).toString(), floorColor(9.5, true).toString(), "TC03: wrong transparency");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an object at the distance of the light from the point blocks it,
+        // though it is nearer to the head of the shadow ray than the light is
+        assertEquals(Color.BLACK.toString(), floorColor(10, false).toString(), "TC11: the light is not blocked");
+        // TC12: an object beyond the light by the offset of the shadow ray head
+        // does not block it
+        assertEquals(lit.toString(), floorColor(10.1, false).toString(), "TC12: the light is blocked");
+    }
+
+    /**
+     * Test method for the allocations of {@link Camera#constructRay(int, int, int, int)}
+     * and {@link Camera#constructBeamForEacjPixel(int, int, int, int, int)} - a
+     * primary ray allocates only the ray itself, its head and its direction, and
+     * not the temporary points and vectors of the construction (the time and the
+     * bytes of tracing are measured by {@code TracerBenchmark})
+     */
+    @Test
+    void testRayAllocation() {
+        int n = 200;
+        Camera camera = Camera.getBuilder().setLocation(new Point(0, 0, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0)).setVpDistance(100).setVpSize(200, 200)
+                .setRayTracer(new SimpleRayTracer(benchmarkScene()))
+                .setImageWriter(new ImageWriter("Allocation", n, n)).build();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        double rayBytes = 0, beamBytes = 0;
+        // the first round warms up
+        for (int round = 0; round < 2; ++round) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < n; ++i)
+                for (int j = 0; j < n; ++j)
+                    camera.constructRay(n, n, j, i);
+            rayBytes = (threads.getCurrentThreadAllocatedBytes() - bytes) / (double) (n * n);
+
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            long beamRays = 0;
+            for (int i = 0; i < n; i += 4)
+                for (int j = 0; j < n; j += 4)
+                    beamRays += camera.constructBeamForEacjPixel(n, n, j, i, 9).size();
+            beamBytes = (threads.getCurrentThreadAllocatedBytes() - bytes) / (double) beamRays;
+        }
+        // TC01: a single ray per pixel
+        assertTrue(rayBytes <= MAX_RAY_BYTES, "too many bytes per ray: " + rayBytes);
+        // TC02: a beam of rays per pixel
+        assertTrue(beamBytes <= MAX_RAY_BYTES, "too many bytes per beam ray: " + beamBytes);
+    }
+}
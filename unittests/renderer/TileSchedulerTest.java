@@ -0,0 +1,116 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TileScheduler}
+ */
+class TileSchedulerTest {
+
+    /**
+     * Test method for {@link TileScheduler#TileScheduler(int, int, int, TileOrder)}
+     * - in every order the tiles must cover every pixel exactly once
+     */
+    @Test
+    void testTilesCoverImage() {
+        // TC01: tiles fit the image exactly
+        // TC02: partial tiles at the right and bottom edges
+        // TC03: a single tile bigger than the image
+        int[][] sizes = { { 64, 64, 16 }, { 100, 37, 16 }, { 5, 3, 16 } };
+        for (int[] size : sizes)
+            for (TileOrder order : TileOrder.values()) {
+                int nX = size[0], nY = size[1];
+                int[] covered = new int[nX * nY];
+                List<TileScheduler.Tile> tiles = new TileScheduler(nX, nY, size[2], order).getTiles();
+                for (TileScheduler.Tile tile : tiles)
+                    for (int y = tile.y0; y < tile.y1; ++y)
+                        for (int x = tile.x0; x < tile.x1; ++x)
+                            ++covered[y * nX + x];
+                for (int i = 0; i < covered.length; ++i)
+                    assertEquals(1, covered[i], order + ": pixel " + i + " of " + nX + "x" + nY + " not covered once");
+            }
+    }
+
+    /**
+     * Test method for {@link TileScheduler#TileScheduler(int, int, int, TileOrder)}
+     * - the first tile of each order
+     */
+    @Test
+    void testTileOrder() {
+        // TC01: scanline starts at the top left corner
+        TileScheduler.Tile first = new TileScheduler(50, 50, 10, TileOrder.SCANLINE).getTiles().get(0);
+        assertEquals(0, first.x0, "scanline must start at the left");
+        assertEquals(0, first.y0, "scanline must start at the top");
+        // TC02: spiral starts at the center
+        first = new TileScheduler(50, 50, 10, TileOrder.SPIRAL).getTiles().get(0);
+        assertEquals(20, first.x0, "spiral must start at the center");
+        assertEquals(20, first.y0, "spiral must start at the center");
+        // TC03: consecutive Hilbert tiles are neighbours
+        List<TileScheduler.Tile> tiles = new TileScheduler(80, 80, 10, TileOrder.HILBERT).getTiles();
+        for (int i = 1; i < tiles.size(); ++i)
+            assertEquals(10, Math.abs(tiles.get(i).x0 - tiles.get(i - 1).x0)
+                    + Math.abs(tiles.get(i).y0 - tiles.get(i - 1).y0), "Hilbert tiles must be neighbours");
+    }
+
+    /**
+     * Test method for {@link TileScheduler#render(int, java.util.function.Consumer, boolean)}
+     * - every pixel is rendered exactly once with any amount of threads
+     */
+    @Test
+    void testRender() {
+        int nX = 123, nY = 77;
+        for (int threads : new int[] { 1, 2, 8 }) {
+            AtomicIntegerArray rendered = new AtomicIntegerArray(nX * nY);
+            try (TileScheduler scheduler = new TileScheduler(nX, nY, 8, TileOrder.HILBERT)) {
+                scheduler.render(threads, tile -> {
+                    for (int y = tile.y0; y < tile.y1; ++y)
+                        for (int x = tile.x0; x < tile.x1; ++x)
+                            rendered.incrementAndGet(y * nX + x);
+                }, false);
+            }
+            for (int i = 0; i < rendered.length(); ++i)
+                assertEquals(1, rendered.get(i), threads + " threads: pixel " + i + " not rendered once");
+        }
+    }
+
+    /**
+     * Test method for {@link TileScheduler#render(int, java.util.function.Consumer, boolean)}
+     * - an image without pixels has no tiles
+     */
+    @Test
+    void testRenderEmpty() {
+        // TC11: no tiles, on a single thread and on many threads
+        for (int threads : new int[] { 1, 4 }) {
+            try (TileScheduler scheduler = new TileScheduler(0, 0, 8, TileOrder.SCANLINE)) {
+                assertTrue(scheduler.getTiles().isEmpty(), "an empty image must have no tiles");
+                scheduler.render(threads, tile -> fail("an empty image has no tile to render"), false);
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link TileScheduler#render(int, java.util.function.Consumer, boolean)}
+     * - the renderings of a scheduler, as the passes of a progressive rendering,
+     * run on the same threads
+     */
+    @Test
+    void testRenderPasses() {
+        Thread caller = Thread.currentThread();
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        try (TileScheduler scheduler = new TileScheduler(64, 64, 8, TileOrder.SCANLINE)) {
+            for (int pass = 0; pass < 5; ++pass)
+                scheduler.render(2, tile -> {
+                    if (Thread.currentThread() != caller) workers.add(Thread.currentThread());
+                }, false);
+        }
+        assertFalse(workers.isEmpty(), "the tiles must be rendered in parallel");
+        assertTrue(workers.size() <= 2, "the passes must share the threads, " + workers.size() + " were started");
+    }
+}
@@ -0,0 +1,167 @@
+package scene;
+
+import geometries.CacheInput;
+import geometries.Geometries;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Vector;
+import renderer.Camera;
+import renderer.FrameBuffer;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static fixtures.GeometryFixtures.grid;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SceneCache}
+ */
+class SceneCacheTest {
+    /** Fixed seed, so that every run uses the same scene */
+    private static final long SEED = 5784;
+
+    /**
+     * @param scene a scene
+     * @return the scene rendered into a small image
+     */
+    private static FrameBuffer render(Scene scene) {
+        return Camera.getBuilder().setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(new Point(0, -300, 200)).setDirection(new Vector(0, 3, -2), new Vector(0, 2, 3))
+                .setVpDistance(300).setVpSize(250, 250)
+                .setImageWriter(new ImageWriter("scene cache test", 60, 60))
+                .build().renderImage().getFrameBuffer();
+    }
+
+    /**
+     * Test method for {@link SceneCache#write(Scene, Path)} and
+     * {@link SceneCache#read(Path, int)} - the scene read back must render the
+     * same image as the written one, whatever the windows it is mapped in
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        Random random = new Random(SEED);
+        Material material = new Material().setKd(0.5).setKs(0.5).setShininess(30);
+        Scene scene = new Scene("Cached scene").setBackground(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(40, 40, 40), 0.5));
+        scene.geometries.add(grid(random, 20).setEmission(new Color(20, 60, 20)).setMaterial(material),
+                new Sphere(new Point(0, 0, 30), 25).setEmission(new Color(80, 20, 20))
+                        .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(50).setkR(0.3)),
+                new Triangle(new Point(-90, 60, 10), new Point(-30, 90, 10), new Point(-60, 60, 70))
+                        .setEmission(new Color(20, 20, 80))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30).setkT(0.2)),
+                new Plane(new Point(0, 150, 0), new Vector(0, -1, 0)).setMaterial(material));
+        scene.geometries.buildBVH(Geometries.SplitMethod.SAH);
+        scene.lights.add(new DirectionalLight(new Color(150, 150, 100), new Vector(1, 1, -2)));
+        scene.lights.add(new PointLight(new Color(300, 200, 200), new Point(-50, -50, 100)).setKl(1e-4).setKq(1e-6));
+        scene.lights.add(new SpotLight(new Color(400, 300, 100), new Point(60, -60, 150), new Vector(-1, 1, -2))
+                .setKl(1e-4).setKq(1e-6).setNarrowBeam(8));
+
+        Path file = Files.createTempFile("scene", ".cache");
+        try {
+            SceneCache.write(scene, file);
+            FrameBuffer expected = render(scene);
+            // the whole file in one window, and in windows that the arrays and
+            // the numbers cross
+            for (int window : new int[] { CacheInput.MAX_WINDOW, 1000 }) {
+                Scene cached = SceneCache.read(file, window);
+                assertEquals(scene.name, cached.name, "wrong scene name");
+                assertEquals(3, cached.lights.size(), "wrong amount of lights");
+                assertTrue(cached.lights.get(2) instanceof SpotLight, "wrong light type");
+
+                FrameBuffer result = render(cached);
+                for (int i = 0; i < expected.getNy(); ++i)
+                    for (int j = 0; j < expected.getNx(); ++j) {
+                        Color e = expected.readPixel(j, i), r = result.readPixel(j, i);
+                        String at = " at " + j + "," + i + " in windows of " + window;
+                        assertEquals(e.getRed(), r.getRed(), 1e-3, "wrong red" + at);
+                        assertEquals(e.getGreen(), r.getGreen(), 1e-3, "wrong green" + at);
+                        assertEquals(e.getBlue(), r.getBlue(), 1e-3, "wrong blue" + at);
+                    }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test method for {@link SceneCache#digest(Scene)} - the same content has
+     * the same digest, and any change of it another one
+     */
+    @Test
+    void testDigest() {
+        Scene scene = new Scene("Digest");
+        scene.geometries.add(grid(new Random(SEED), 10), new Sphere(new Point(0, 0, 30), 25)
+                .setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(300, 200, 200), new Point(-50, -50, 100)));
+        String digest = SceneCache.digest(scene);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a scene of the same content
+        Scene same = new Scene("Digest");
+        same.geometries.add(grid(new Random(SEED), 10), new Sphere(new Point(0, 0, 30), 25)
+                .setMaterial(new Material().setKd(0.5)));
+        same.lights.add(new PointLight(new Color(300, 200, 200), new Point(-50, -50, 100)));
+        assertEquals(digest, SceneCache.digest(same), "TC01: the same content must have the same digest");
+        // TC02: another light color
+        same.lights.set(0, new PointLight(new Color(300, 200, 201), new Point(-50, -50, 100)));
+        assertFalse(digest.equals(SceneCache.digest(same)), "TC02: the light color changed");
+        // TC03: an added geometry
+        same.lights.set(0, new PointLight(new Color(300, 200, 200), new Point(-50, -50, 100)));
+        same.geometries.add(new Sphere(new Point(0, 0, 90), 5));
+        assertFalse(digest.equals(SceneCache.digest(same)), "TC03: a geometry was added");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a light that cannot be cached has no digest
+        same.lights.add(new PointLight(new Color(1, 1, 1), Point.ZERO) {});
+        assertThrows(IllegalArgumentException.class, () -> SceneCache.digest(same), "TC11: custom light");
+    }
+
+    /**
+     * Test method for {@link SceneCache#read(Path)} of a file that is not a scene
+     * cache
+     */
+    @Test
+    void testErrors() throws IOException {
+        Path file = Files.createTempFile("scene", ".cache");
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: a text file
+            Files.writeString(file, "not a scene cache");
+            assertThrows(IllegalArgumentException.class, () -> SceneCache.read(file), "TC01: not a cache");
+            // TC02: a light that cannot be cached
+            Scene scene = new Scene("Custom light");
+            scene.lights.add(new PointLight(new Color(1, 1, 1), Point.ZERO) {});
+            assertThrows(IllegalArgumentException.class, () -> SceneCache.write(scene, file), "TC02: custom light");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: an empty file
+            Files.write(file, new byte[0]);
+            assertThrows(IllegalArgumentException.class, () -> SceneCache.read(file), "TC11: empty file");
+            // TC12: a file a byte larger than a mapping can hold (sparse - no disk
+            // space is taken) is mapped, and is rejected only for its content
+            try (RandomAccessFile large = new RandomAccessFile(file.toFile(), "rw")) {
+                large.setLength(Integer.MAX_VALUE + 1L);
+            }
+            assertTrue(assertThrows(IllegalArgumentException.class, () -> SceneCache.read(file),
+                    "TC12: file over 2 GB").getMessage().startsWith("Not a scene cache"), "TC12: wrong reason");
+        } finally {
+            Files.delete(file);
+        }
+        // TC13: a missing file
+        assertThrows(IllegalStateException.class, () -> SceneCache.read(file), "TC13: missing file");
+    }
+}